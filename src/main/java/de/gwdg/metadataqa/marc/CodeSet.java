@@ -0,0 +1,131 @@
+package de.gwdg.metadataqa.marc;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled form of a list of codes: a hash map of the exact codes and the numeric ranges
+ * (such as 001-999) sorted by their lower bound, so a lookup does not iterate over the list.
+ * If a code is listed more than once, the first one is used.
+ *
+ * The exact codes are indexed when the set is created. The ranges are indexed at the first
+ * lookup which is not an exact code, since the definitions mark the codes as ranges
+ * (EncodedValue.setRange()) after they have been set. The index is immutable and published
+ * through a volatile field, so the set can be shared by threads.
+ */
+public class CodeSet implements Serializable {
+
+  private final List<EncodedValue> codes;
+  private final Map<String, EncodedValue> exactCodes;
+  private volatile Ranges ranges;
+
+  public CodeSet(List<EncodedValue> codes) {
+    this.codes = codes;
+    Map<String, EncodedValue> index = new HashMap<>();
+    if (codes != null)
+      for (EncodedValue code : codes)
+        index.putIfAbsent(code.getCode(), code);
+    exactCodes = Collections.unmodifiableMap(index);
+  }
+
+  /**
+   * @return The exact code, or the first range (in the order of the list) which contains
+   * the value, or null
+   */
+  public EncodedValue get(String value) {
+    EncodedValue code = exactCodes.get(value);
+    if (code != null)
+      return code;
+    return getRanges().get(value);
+  }
+
+  public boolean contains(String value) {
+    return get(value) != null;
+  }
+
+  private Ranges getRanges() {
+    Ranges index = ranges;
+    if (index == null) {
+      index = new Ranges(codes);
+      ranges = index;
+    }
+    return index;
+  }
+
+  private static class Ranges implements Serializable {
+    private final EncodedValue[] rangeCodes;
+    private final int[] mins;
+    /** The highest upper bound among the ranges up to the index */
+    private final int[] maxUpTo;
+    /** The position of the range in the original list */
+    private final int[] positions;
+
+    Ranges(List<EncodedValue> codes) {
+      Integer[] order = new Integer[0];
+      if (codes != null) {
+        order = new Integer[codes.size()];
+        int size = 0;
+        for (int i = 0; i < codes.size(); i++)
+          if (codes.get(i).isRange())
+            order[size++] = i;
+        order = Arrays.copyOf(order, size);
+        Arrays.sort(order, Comparator.comparingInt(i -> codes.get(i).getRange().getMin()));
+      }
+
+      rangeCodes = new EncodedValue[order.length];
+      mins = new int[order.length];
+      maxUpTo = new int[order.length];
+      positions = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        rangeCodes[i] = codes.get(order[i]);
+        mins[i] = rangeCodes[i].getRange().getMin();
+        maxUpTo[i] = Math.max(rangeCodes[i].getRange().getMax(), i == 0 ? Integer.MIN_VALUE : maxUpTo[i - 1]);
+        positions[i] = order[i];
+      }
+    }
+
+    EncodedValue get(String value) {
+      if (rangeCodes.length == 0 || value == null)
+        return null;
+
+      int number;
+      try {
+        number = Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+
+      int last = lastRangeStartingUpTo(number);
+      EncodedValue found = null;
+      int foundPosition = Integer.MAX_VALUE;
+      for (int i = last; i >= 0 && maxUpTo[i] >= number; i--) {
+        if (rangeCodes[i].getRange().getMax() >= number && positions[i] < foundPosition) {
+          found = rangeCodes[i];
+          foundPosition = positions[i];
+        }
+      }
+      return found;
+    }
+
+    /**
+     * @return The index of the last range with a lower bound not greater than the number, or -1
+     */
+    private int lastRangeStartingUpTo(int number) {
+      int low = 0;
+      int high = mins.length - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (mins[middle] <= number)
+          low = middle + 1;
+        else
+          high = middle - 1;
+      }
+      return high;
+    }
+  }
+}
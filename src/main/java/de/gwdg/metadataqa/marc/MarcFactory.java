@@ -22,6 +22,7 @@ import de.gwdg.metadataqa.marc.definition.TagDefinitionLoader;
 
 import de.gwdg.metadataqa.marc.utils.alephseq.AlephseqLine;
 import de.gwdg.metadataqa.marc.utils.MapToDatafield;
+import de.gwdg.metadataqa.marc.utils.StringPool;
 
 import de.gwdg.metadataqa.marc.utils.alephseq.MarclineLine;
 import de.gwdg.metadataqa.marc.utils.pica.PicaFieldDefinition;
@@ -175,26 +176,39 @@ public class MarcFactory {
   private static void importMarc4jControlFields(Record marc4jRecord,
                                                 MarcRecord marcRecord,
                                                 boolean fixAlephseq) {
-    for (ControlField controlField : marc4jRecord.getControlFields()) {
-      String data = controlField.getData();
-      if (fixAlephseq && isFixable(controlField.getTag()))
-        data = data.replace("^", " ");
-      switch (controlField.getTag()) {
-        case "001":
-          marcRecord.setControl001(new Control001(data)); break;
-        case "003":
-          marcRecord.setControl003(new Control003(data)); break;
-        case "005":
-          marcRecord.setControl005(new Control005(data)); break;
-        case "006":
-          marcRecord.setControl006(new Control006(data, marcRecord.getType())); break;
-        case "007":
-          marcRecord.setControl007(new Control007(marcRecord, data)); break;
-        case "008":
-          marcRecord.setControl008(new Control008(data, marcRecord.getType())); break;
-        default:
-          break;
-      }
+    for (ControlField controlField : marc4jRecord.getControlFields())
+      addControlField(marcRecord, controlField.getTag(), controlField.getData(), fixAlephseq);
+  }
+
+  /**
+   * Sets a control field of the record. The leader should be set before, because 006 and 008
+   * depend on the record type. The tags not handled by MarcRecord are ignored.
+   * @param marcRecord The record
+   * @param tag The tag of the control field
+   * @param data The content of the control field
+   * @param fixAlephseq Replace ^ character to space in 006, 007 and 008
+   */
+  public static void addControlField(MarcRecord marcRecord,
+                                     String tag,
+                                     String data,
+                                     boolean fixAlephseq) {
+    if (fixAlephseq && isFixable(tag))
+      data = data.replace("^", " ");
+    switch (tag) {
+      case "001":
+        marcRecord.setControl001(new Control001(data)); break;
+      case "003":
+        marcRecord.setControl003(new Control003(data)); break;
+      case "005":
+        marcRecord.setControl005(new Control005(data)); break;
+      case "006":
+        marcRecord.setControl006(new Control006(data, marcRecord.getType())); break;
+      case "007":
+        marcRecord.setControl007(new Control007(marcRecord, data)); break;
+      case "008":
+        marcRecord.setControl008(new Control008(data, marcRecord.getType())); break;
+      default:
+        break;
     }
   }
 
@@ -240,55 +254,65 @@ public class MarcFactory {
   private static DataField extractDataField(org.marc4j.marc.DataField dataField,
                                             DataFieldDefinition definition,
                                             MarcVersion marcVersion) {
-    DataField field;
-    if (definition == null) {
-      field = new DataField(dataField.getTag(),
-              Character.toString(dataField.getIndicator1()),
-              Character.toString(dataField.getIndicator2()),
-              marcVersion
-      );
-    } else {
-      field = new DataField(
-              definition,
-              Character.toString(dataField.getIndicator1()),
-              Character.toString(dataField.getIndicator2())
-      );
-    }
-    for (Subfield subfield : dataField.getSubfields()) {
-      var code = Character.toString(subfield.getCode());
-      SubfieldDefinition subfieldDefinition = definition == null ? null : definition.getSubfield(code);
-      MarcSubfield marcSubfield = null;
-      if (subfieldDefinition == null) {
-        marcSubfield = new MarcSubfield(null, code, subfield.getData());
-      } else {
-        marcSubfield = new MarcSubfield(subfieldDefinition, code, subfield.getData());
-      }
-      marcSubfield.setField(field);
-      field.getSubfields().add(marcSubfield);
-    }
+    DataField field = createDataField(dataField.getTag(),
+      StringPool.of(dataField.getIndicator1()),
+      StringPool.of(dataField.getIndicator2()),
+      definition, marcVersion);
+    for (Subfield subfield : dataField.getSubfields())
+      addSubfield(field, definition, StringPool.of(subfield.getCode()), subfield.getData());
     field.indexSubfields();
     return field;
   }
 
+  /**
+   * Creates a data field without subfields. The subfields should be added with addSubfield(), then
+   * the field should be closed with DataField.indexSubfields().
+   * @param tag The tag of the field
+   * @param ind1 The first indicator
+   * @param ind2 The second indicator
+   * @param definition The definition of the field, or null if the tag is not defined
+   * @param marcVersion The MARC version
+   * @return The data field
+   */
+  public static DataField createDataField(String tag,
+                                          String ind1,
+                                          String ind2,
+                                          DataFieldDefinition definition,
+                                          MarcVersion marcVersion) {
+    if (definition == null)
+      return new DataField(tag, ind1, ind2, marcVersion);
+    return new DataField(definition, ind1, ind2);
+  }
+
+  public static void addSubfield(DataField field,
+                                 DataFieldDefinition definition,
+                                 String code,
+                                 String data) {
+    SubfieldDefinition subfieldDefinition = definition == null ? null : definition.getSubfield(code);
+    var marcSubfield = new MarcSubfield(subfieldDefinition, code, data);
+    marcSubfield.setField(field);
+    field.getSubfields().add(marcSubfield);
+  }
+
   private static DataField extractPicaDataField(org.marc4j.marc.DataField dataField,
                                                 PicaFieldDefinition definition,
                                                 MarcVersion marcVersion) {
     DataField field = null;
     if (definition == null) {
       field = new DataField(dataField.getTag(),
-        Character.toString(dataField.getIndicator1()),
-        Character.toString(dataField.getIndicator2()),
+        StringPool.of(dataField.getIndicator1()),
+        StringPool.of(dataField.getIndicator2()),
         marcVersion
       );
     } else {
       field = new DataField(
         definition,
-        Character.toString(dataField.getIndicator1()),
-        Character.toString(dataField.getIndicator2())
+        StringPool.of(dataField.getIndicator1()),
+        StringPool.of(dataField.getIndicator2())
       );
     }
     for (Subfield subfield : dataField.getSubfields()) {
-      var code = Character.toString(subfield.getCode());
+      var code = StringPool.of(subfield.getCode());
       SubfieldDefinition subfieldDefinition = definition == null ? null : definition.getSubfield(code);
       MarcSubfield marcSubfield = null;
       if (subfieldDefinition == null) {
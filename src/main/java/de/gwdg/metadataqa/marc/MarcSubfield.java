@@ -11,6 +11,7 @@ import de.gwdg.metadataqa.marc.definition.structure.SubfieldDefinition;
 import de.gwdg.metadataqa.marc.model.validation.ErrorsCollector;
 import de.gwdg.metadataqa.marc.model.validation.ValidationError;
 import de.gwdg.metadataqa.marc.model.validation.ValidationErrorType;
+import de.gwdg.metadataqa.marc.utils.StringPool;
 import de.gwdg.metadataqa.marc.utils.keygenerator.DataFieldKeyGenerator;
 
 import java.io.Serializable;
@@ -35,7 +36,7 @@ public class MarcSubfield implements Validatable, Serializable {
 
   public MarcSubfield(SubfieldDefinition definition, String code, String value) {
     this.definition = definition;
-    this.code = code;
+    this.code = StringPool.intern(code);
     this.value = value;
   }
 
@@ -91,9 +92,15 @@ public class MarcSubfield implements Validatable, Serializable {
 
   public void setDefinition(SubfieldDefinition definition) {
     this.definition = definition;
+    codeForIndex = null;
   }
 
+  /**
+   * @return The record, set directly or through the field
+   */
   public MarcRecord getMarcRecord() {
+    if (marcRecord == null && field != null)
+      return field.getMarcRecord();
     return marcRecord;
   }
 
@@ -103,10 +110,10 @@ public class MarcSubfield implements Validatable, Serializable {
 
   public String getCodeForIndex() {
     if (codeForIndex == null) {
-      codeForIndex = "_" + code;
-      if (definition != null && definition.getCodeForIndex() != null) {
+      if (definition != null && definition.getCodeForIndex() != null)
         codeForIndex = definition.getCodeForIndex();
-      }
+      else
+        codeForIndex = StringPool.intern("_" + code);
     }
     return codeForIndex;
   }
@@ -118,7 +125,7 @@ public class MarcSubfield implements Validatable, Serializable {
       } catch (ParserException e) {
         var msg = String.format(
           "Error in record: '%s' %s$%s: '%s'. Error message: '%s'",
-          marcRecord.getId(), field.getTag(), definition.getCode(), value, e.getMessage()
+          getMarcRecord().getId(), field.getTag(), definition.getCode(), value, e.getMessage()
         );
         logger.severe(msg);
       }
@@ -252,7 +259,7 @@ public class MarcSubfield implements Validatable, Serializable {
 
   private void addError(String path, ValidationErrorType type, String message) {
     String url = definition.getParent().getDescriptionUrl();
-    errors.add(marcRecord.getId(), path, type, message, url);
+    errors.add(getMarcRecord().getId(), path, type, message, url);
   }
 
   @Override
@@ -35,6 +35,14 @@ public class Range implements Serializable {
     return false;
   }
 
+  public int getMin() {
+    return min;
+  }
+
+  public int getMax() {
+    return max;
+  }
+
   public String getRangeInput() {
     return rangeInput;
   }
@@ -107,6 +107,17 @@ public class Utils {
     counter.put(key, counter.get(key) + i);
   }
 
+  /**
+   * Add all the counts of another counter to a counter.
+   * @param other (the counter to add)
+   * @param counter (the counter to increment)
+   * @param <T>
+   */
+  public static <T extends Object> void addAll(Map<T, Integer> other, Map<T, Integer> counter) {
+    for (Map.Entry<T, Integer> entry : other.entrySet())
+      add(entry.getKey(), counter, entry.getValue());
+  }
+
   public static <T extends Object> List<String> counterToList(Map<T, Integer> counter) {
     return counterToList(':', counter);
   }
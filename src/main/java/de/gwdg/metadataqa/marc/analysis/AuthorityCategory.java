@@ -18,7 +18,13 @@ public enum AuthorityCategory {
 
   private String label;
   private List<String> tags;
-  private static Map<String, AuthorityCategory> index = new HashMap<>();
+  private static final Map<String, AuthorityCategory> index = new HashMap<>();
+  static {
+    // filled once, before any thread reads it
+    for (AuthorityCategory category : values())
+      for (String t : category.tags)
+        index.put(t, category);
+  }
 
   AuthorityCategory(String label, String... tags) {
     this.label = label;
@@ -34,11 +40,6 @@ public enum AuthorityCategory {
   }
 
   public static AuthorityCategory get(String tag) {
-    if (index.isEmpty())
-      for (AuthorityCategory category : values())
-        for (String t : category.tags)
-          index.put(t, category);
-
     return index.getOrDefault(tag, null);
   }
 
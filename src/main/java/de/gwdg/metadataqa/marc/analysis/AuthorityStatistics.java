@@ -1,9 +1,11 @@
 package de.gwdg.metadataqa.marc.analysis;
 
+import de.gwdg.metadataqa.marc.Utils;
 import de.gwdg.metadataqa.marc.cli.utils.Schema;
 import de.gwdg.metadataqa.marc.utils.Counter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,4 +41,21 @@ public class AuthorityStatistics implements Serializable {
   public Counter<AuthorityCategory> getRecordsPerCategories() {
     return recordsPerCategories;
   }
+
+  /**
+   * Adds the statistics of another shard of the dataset. The schemas of the other statistics
+   * should already be registered (see Schema.register()).
+   * @param other The statistics of the following shard
+   */
+  public void merge(AuthorityStatistics other) {
+    Schema.register(new ArrayList<>(other.instances.keySet()));
+    Schema.register(new ArrayList<>(other.records.keySet()));
+    Schema.register(new ArrayList<>(other.subfields.keySet()));
+    Utils.addAll(other.instances, instances);
+    Utils.addAll(other.records, records);
+    for (Map.Entry<Schema, Map<List<String>, Integer>> entry : other.subfields.entrySet())
+      Utils.addAll(entry.getValue(), subfields.computeIfAbsent(entry.getKey(), s -> new HashMap<>()));
+    instancesPerCategories.addAll(other.instancesPerCategories);
+    recordsPerCategories.addAll(other.recordsPerCategories);
+  }
 }
@@ -1,13 +1,16 @@
 package de.gwdg.metadataqa.marc.analysis;
 
+import de.gwdg.metadataqa.marc.Utils;
 import de.gwdg.metadataqa.marc.cli.utils.Schema;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-public class ClassificationStatistics {
+public class ClassificationStatistics implements Serializable {
   private Map<Schema, Integer> instances = new HashMap<>();
   private Map<Schema, Integer> records = new HashMap<>();
   private Map<Schema, Map<List<String>, Integer>> subfields = new HashMap<>();
@@ -65,4 +68,27 @@ public class ClassificationStatistics {
   public Map<Integer, String> getFrequencyExamples() {
     return frequencyExamples;
   }
+
+  /**
+   * Adds the statistics of another shard of the dataset. The schemas of the other statistics
+   * should already be registered (see Schema.register()).
+   * @param other The statistics of the following shard
+   */
+  public void merge(ClassificationStatistics other) {
+    Schema.register(new ArrayList<>(other.instances.keySet()));
+    Schema.register(new ArrayList<>(other.records.keySet()));
+    Schema.register(new ArrayList<>(other.subfields.keySet()));
+    Utils.addAll(other.instances, instances);
+    Utils.addAll(other.records, records);
+    for (Map.Entry<Schema, Map<List<String>, Integer>> entry : other.subfields.entrySet())
+      Utils.addAll(entry.getValue(), subfields.computeIfAbsent(entry.getKey(), s -> new HashMap<>()));
+    Utils.addAll(other.fieldInRecords, fieldInRecords);
+    for (Map.Entry<String, Map<String[], Integer>> entry : other.fieldInstances.entrySet())
+      Utils.addAll(entry.getValue(), fieldInstances.computeIfAbsent(entry.getKey(), s -> new HashMap<>()));
+    Utils.addAll(other.hasClassifications, hasClassifications);
+    Utils.addAll(other.schemaHistogram, schemaHistogram);
+    Utils.addAll(other.collocationHistogram, collocationHistogram);
+    for (Map.Entry<Integer, String> entry : other.frequencyExamples.entrySet())
+      frequencyExamples.putIfAbsent(entry.getKey(), entry.getValue());
+  }
 }
@@ -3,6 +3,7 @@ package de.gwdg.metadataqa.marc.analysis;
 import de.gwdg.metadataqa.marc.dao.Control008;
 import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.dao.TagGroup;
 import de.gwdg.metadataqa.marc.MarcSubfield;
 import de.gwdg.metadataqa.marc.definition.general.codelist.CountryCodes;
 import de.gwdg.metadataqa.marc.definition.general.codelist.LanguageCodes;
@@ -24,6 +25,13 @@ public class ThompsonTraillAnalysis {
   private static final Pattern datePattern = Pattern.compile(
     "^(14[5-9]\\d|1[5-9]\\d\\d|200\\d|201[0-7])$"
   );
+  private static final TagGroup isbnTags = new TagGroup("020");
+  private static final TagGroup authorTags = new TagGroup("100", "110", "111");
+  private static final TagGroup alternativeTitleTags = new TagGroup("246");
+  private static final TagGroup editionTags = new TagGroup("250");
+  private static final TagGroup contributorTags = new TagGroup("700", "710", "711", "720");
+  private static final TagGroup seriesTags = new TagGroup("440", "490", "800", "810", "830");
+  private static final TagGroup subjectTags = new TagGroup("600", "610", "611", "630", "650", "651", "653");
 
   private static List<String> headers = new LinkedList<>();
   static {
@@ -43,14 +51,12 @@ public class ThompsonTraillAnalysis {
   public static List<Integer> getScores(MarcRecord marcRecord) {
     var ttScores = new ThompsonTraillScores();
 
-    ttScores.set(ThompsonTraillFields.ISBN, countFields(marcRecord, Arrays.asList("020")));
-    ttScores.set(ThompsonTraillFields.AUTHORS, countFields(marcRecord, Arrays.asList("100", "110", "111")));
-    ttScores.set(ThompsonTraillFields.ALTERNATIVE_TITLES, countFields(marcRecord, Arrays.asList("246")));
-    ttScores.set(ThompsonTraillFields.EDITION, countFields(marcRecord, Arrays.asList("250")));
-    ttScores.set(ThompsonTraillFields.CONTRIBUTORS,
-      countFields(marcRecord, Arrays.asList("700", "710", "711", "720")));
-    ttScores.set(ThompsonTraillFields.SERIES,
-      countFields(marcRecord, Arrays.asList("440", "490", "800", "810", "830")));
+    ttScores.set(ThompsonTraillFields.ISBN, marcRecord.countDatafields(isbnTags));
+    ttScores.set(ThompsonTraillFields.AUTHORS, marcRecord.countDatafields(authorTags));
+    ttScores.set(ThompsonTraillFields.ALTERNATIVE_TITLES, marcRecord.countDatafields(alternativeTitleTags));
+    ttScores.set(ThompsonTraillFields.EDITION, marcRecord.countDatafields(editionTags));
+    ttScores.set(ThompsonTraillFields.CONTRIBUTORS, marcRecord.countDatafields(contributorTags));
+    ttScores.set(ThompsonTraillFields.SERIES, marcRecord.countDatafields(seriesTags));
     ttScores.set(ThompsonTraillFields.TOC, calculateTocAndAbstract(marcRecord));
 
     var control008 = marcRecord.getControl008();
@@ -184,31 +190,26 @@ public class ThompsonTraillAnalysis {
     // Subject Headings: MeSH  600, 610, 611, 630, 650, 651 second indicator 2  1 point for each field up to 10 total points
     // Subject Headings: FAST  600, 610, 611, 630, 650, 651 second indicator 7, $2 fast  1 point for each field up to 10 total points
     // Subject Headings: Other  600, 610, 611, 630, 650, 651, 653 if above criteria are not met  1 point for each field up to 5 total points
-    for (String tag : Arrays.asList("600", "610", "611", "630", "650", "651", "653")) {
-      if (exists(marcRecord, tag)) {
-        List<DataField> fields = marcRecord.getDatafield(tag);
-        for (DataField field : fields) {
-          if (field.getInd2().equals("0"))
-            ttScores.count(ThompsonTraillFields.LC_NLM);
-          else if (field.getInd2().equals("2"))
-            ttScores.count(ThompsonTraillFields.MESH);
-          else if (field.getInd2().equals("7")) {
-            List<MarcSubfield> subfield2 = field.getSubfield("2");
-            if (subfield2 == null) {
-              logger.severe(String.format(
-                "Error in %s: ind2 = 7, but there is no $2",
-                marcRecord.getControl001().getContent()));
-            } else
-              switch (field.getSubfield("2").get(0).getValue()) {
-                case "fast": ttScores.count(ThompsonTraillFields.FAST); break;
-                case "gnd": ttScores.count(ThompsonTraillFields.GND); break;
-                default: ttScores.count(ThompsonTraillFields.OTHER); break;
-              }
+    for (DataField field : marcRecord.getDatafields(subjectTags)) {
+      if (field.getInd2().equals("0"))
+        ttScores.count(ThompsonTraillFields.LC_NLM);
+      else if (field.getInd2().equals("2"))
+        ttScores.count(ThompsonTraillFields.MESH);
+      else if (field.getInd2().equals("7")) {
+        List<MarcSubfield> subfield2 = field.getSubfield("2");
+        if (subfield2 == null) {
+          logger.severe(String.format(
+            "Error in %s: ind2 = 7, but there is no $2",
+            marcRecord.getControl001().getContent()));
+        } else
+          switch (field.getSubfield("2").get(0).getValue()) {
+            case "fast": ttScores.count(ThompsonTraillFields.FAST); break;
+            case "gnd": ttScores.count(ThompsonTraillFields.GND); break;
+            default: ttScores.count(ThompsonTraillFields.OTHER); break;
           }
-          else {
-            ttScores.count(ThompsonTraillFields.OTHER);
-          }
-        }
+      }
+      else {
+        ttScores.count(ThompsonTraillFields.OTHER);
       }
     }
   }
@@ -305,13 +306,4 @@ public class ThompsonTraillAnalysis {
     return (fields != null && !fields.isEmpty());
   }
 
-  private static int countFields(MarcRecord marcRecord, List<String> tags) {
-    var counter = 0;
-    for (String tag : tags) {
-      if (exists(marcRecord, tag))
-        counter += marcRecord.getDatafield(tag).size();
-    }
-    return counter;
-  }
-
 }
@@ -0,0 +1,294 @@
+package de.gwdg.metadataqa.marc.cli;
+
+import de.gwdg.metadataqa.marc.cli.parameters.AnalysesParameters;
+import de.gwdg.metadataqa.marc.cli.parameters.AnalysisTask;
+import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
+import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import de.gwdg.metadataqa.marc.cli.utils.RecordSample;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.marc4j.marc.Record;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs several analyses in a single pass: each record is read and parsed once, and handed over to
+ * all the selected processors. The processors write their usual output files.
+ *
+ * usage:
+ * java -cp target/metadata-qa-marc-0.1-SNAPSHOT-jar-with-dependencies.jar de.gwdg.metadataqa.marc.cli.Analyses \
+ *   --tasks validate,completeness,classifications [options] [MARC21 file]
+ *
+ * @author Péter Király <peter.kiraly at gwdg.de>
+ */
+public class Analyses implements MarcFileProcessor, Serializable {
+
+  private static final Logger logger = Logger.getLogger(Analyses.class.getCanonicalName());
+
+  private final AnalysesParameters parameters;
+  private final List<MarcFileProcessor> processors = new ArrayList<>();
+
+  public Analyses(String[] args) throws ParseException {
+    parameters = new AnalysesParameters(args);
+    for (AnalysisTask task : parameters.getTasks())
+      processors.add(createProcessor(task, parameters.getTaskArguments(task)));
+  }
+
+  public static void main(String[] args) {
+    Analyses processor = null;
+    try {
+      processor = new Analyses(args);
+    } catch (ParseException e) {
+      System.err.println("ERROR. " + e.getLocalizedMessage());
+      System.exit(0);
+    }
+    if (processor.getParameters().doHelp()) {
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    if (processor.getParameters().getArgs().length < 1) {
+      System.err.println("Please provide a MARC file name!");
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    if (processor.getProcessors().isEmpty()) {
+      System.err.println("Please provide at least one task!");
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    RecordIterator iterator = new RecordIterator(processor);
+    iterator.start();
+  }
+
+  private static MarcFileProcessor createProcessor(AnalysisTask task, String[] args) throws ParseException {
+    MarcFileProcessor processor = null;
+    switch (task) {
+      case VALIDATE:
+        processor = new Validator(args); break;
+      case COMPLETENESS:
+        processor = new Completeness(args); break;
+      case CLASSIFICATIONS:
+        processor = new ClassificationAnalysis(args); break;
+      case AUTHORITIES:
+        processor = new AuthorityAnalysis(args); break;
+      case TT_COMPLETENESS:
+        processor = new ThompsonTraillCompleteness(args); break;
+      case SHELF_READY_COMPLETENESS:
+        processor = new ShelfReadyCompleteness(args); break;
+      case SERIAL_SCORE:
+        processor = new SerialScore(args); break;
+      case FUNCTIONAL_ANALYSIS:
+        processor = new FunctionalAnalysis(args); break;
+      case NETWORK_ANALYSIS:
+        processor = new NetworkAnalysis(args); break;
+      case INDEX:
+        processor = new MarcToSolr(args); break;
+      default:
+        throw new ParseException(String.format("Unhandled task: '%s'", task.getCode()));
+    }
+    return processor;
+  }
+
+  @Override
+  public AnalysesParameters getParameters() {
+    return parameters;
+  }
+
+  public List<MarcFileProcessor> getProcessors() {
+    return processors;
+  }
+
+  @Override
+  public void processRecord(Record marc4jRecord, int recordNumber) throws IOException {
+    for (MarcFileProcessor processor : processors) {
+      if (!processor.readyToProcess() || !processor.getRecordRepresentation().usesMarc4j())
+        continue;
+      try {
+        if (processor.isThreadSafe()) {
+          processor.processRecord(marc4jRecord, recordNumber);
+        } else {
+          synchronized (processor) {
+            processor.processRecord(marc4jRecord, recordNumber);
+          }
+        }
+      } catch (Exception e) {
+        logger.log(Level.SEVERE, "processRecord", e);
+      }
+    }
+  }
+
+  @Override
+  public void processRecord(MarcRecord marcRecord, int recordNumber) throws IOException {
+    processRecord(marcRecord, recordNumber, null);
+  }
+
+  @Override
+  public void processRecord(MarcRecord marcRecord, int recordNumber, String fileName) throws IOException {
+    for (MarcFileProcessor processor : processors) {
+      if (!processor.readyToProcess() || !processor.getRecordRepresentation().usesMarcRecord())
+        continue;
+      try {
+        if (processor.isThreadSafe()) {
+          processor.processRecord(marcRecord, recordNumber, fileName);
+        } else {
+          synchronized (processor) {
+            processor.processRecord(marcRecord, recordNumber, fileName);
+          }
+        }
+      } catch (Exception e) {
+        logger.log(Level.SEVERE, "processRecord", e);
+      }
+    }
+  }
+
+  @Override
+  public void setSample(RecordSample sample) {
+    for (MarcFileProcessor processor : processors)
+      processor.setSample(sample);
+  }
+
+  @Override
+  public void beforeIteration() {
+    logger.info(parameters.formatParameters());
+    for (MarcFileProcessor processor : processors) {
+      // there was no checkpoint to resume from (see RecordIterator)
+      if (!parameters.doResume())
+        processor.getParameters().setResume(false);
+      processor.beforeIteration();
+    }
+  }
+
+  @Override
+  public void fileOpened(Path path) {
+    for (MarcFileProcessor processor : processors)
+      processor.fileOpened(path);
+  }
+
+  @Override
+  public void fileProcessed() {
+    for (MarcFileProcessor processor : processors)
+      processor.fileProcessed();
+  }
+
+  @Override
+  public void afterIteration(int numberOfprocessedRecords) {
+    for (MarcFileProcessor processor : processors)
+      processor.afterIteration(numberOfprocessedRecords);
+  }
+
+  @Override
+  public void printHelp(Options options) {
+    HelpFormatter formatter = new HelpFormatter();
+    String message = String.format("java -cp metadata-qa-marc.jar %s [options] [file]", this.getClass().getCanonicalName());
+    formatter.printHelp(message, options);
+  }
+
+  /**
+   * The composite is ready as long as there is at least one processor which is ready.
+   */
+  @Override
+  public boolean readyToProcess() {
+    for (MarcFileProcessor processor : processors)
+      if (processor.readyToProcess())
+        return true;
+    return false;
+  }
+
+  /**
+   * The composite takes care of the synchronization of those processors which are not thread-safe,
+   * so different processors can work on different records at the same time.
+   */
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  /**
+   * The MarcRecord is created if any of the processors uses it.
+   */
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    RecordRepresentation representation = null;
+    for (MarcFileProcessor processor : processors)
+      representation = representation == null
+        ? processor.getRecordRepresentation()
+        : representation.combine(processor.getRecordRepresentation());
+    return representation == null ? RecordRepresentation.BOTH : representation;
+  }
+
+  /**
+   * The record is dropped only if none of the processors accepts it. The processors which do not
+   * accept it still receive it, so they should not rely on the pre-filter.
+   */
+  @Override
+  public boolean acceptRecord(Record marc4jRecord) {
+    for (MarcFileProcessor processor : processors)
+      if (processor.acceptRecord(marc4jRecord))
+        return true;
+    return false;
+  }
+
+  @Override
+  public boolean isMergeable() {
+    for (MarcFileProcessor processor : processors)
+      if (!processor.isMergeable())
+        return false;
+    return true;
+  }
+
+  @Override
+  public boolean isCheckpointable() {
+    for (MarcFileProcessor processor : processors)
+      if (!processor.isCheckpointable())
+        return false;
+    return true;
+  }
+
+  @Override
+  public List<File> getAppendedFiles() {
+    List<File> files = new ArrayList<>();
+    for (MarcFileProcessor processor : processors)
+      files.addAll(processor.getAppendedFiles());
+    return files;
+  }
+
+  /**
+   * The state of the composite is the map of the processors' states keyed by their class names.
+   * The processors without state (see isCheckpointable()) are left out.
+   */
+  @Override
+  public Serializable snapshot() {
+    LinkedHashMap<String, Serializable> states = new LinkedHashMap<>();
+    for (MarcFileProcessor processor : processors)
+      if (processor.isMergeable())
+        states.put(processor.getClass().getName(), processor.snapshot());
+    return states;
+  }
+
+  @Override
+  public void merge(Serializable snapshot) {
+    @SuppressWarnings("unchecked")
+    Map<String, Serializable> states = (Map<String, Serializable>) snapshot;
+    for (MarcFileProcessor processor : processors) {
+      if (!processor.isMergeable())
+        continue;
+      Serializable state = states.get(processor.getClass().getName());
+      if (state == null)
+        logger.warning(String.format("The partial state does not contain %s", processor.getClass().getSimpleName()));
+      else
+        processor.merge(state);
+    }
+  }
+}
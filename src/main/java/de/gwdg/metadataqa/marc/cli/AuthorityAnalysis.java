@@ -8,6 +8,7 @@ import de.gwdg.metadataqa.marc.analysis.AuthorityStatistics;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.ValidatorParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import de.gwdg.metadataqa.marc.cli.utils.Schema;
 import org.apache.commons.cli.Options;
@@ -125,6 +126,7 @@ public class AuthorityAnalysis implements MarcFileProcessor, Serializable {
       statistics.getRecordsPerCategories()
         .entrySet()
         .stream()
+        .sorted(Map.Entry.comparingByKey())
         .forEach(
           entry -> {
             AuthorityCategory category = entry.getKey();
@@ -160,10 +162,13 @@ public class AuthorityAnalysis implements MarcFileProcessor, Serializable {
               return i;
             else {
               i = e1.getKey().getLocation().compareTo(e2.getKey().getLocation());
+              if (i != 0)
+                return i;
+              i = e2.getValue().compareTo(e1.getValue());
               if (i != 0)
                 return i;
               else
-                return e2.getValue().compareTo(e1.getValue());
+                return Integer.compare(e1.getKey().getId(), e2.getKey().getId());
             }
           }
         )
@@ -273,8 +278,14 @@ public class AuthorityAnalysis implements MarcFileProcessor, Serializable {
       statistics.getSubfields()
         .entrySet()
         .stream()
-        .sorted((e1, e2) ->
-          e1.getKey().getField().compareTo(e2.getKey().getField()))
+        .sorted((e1, e2) -> {
+            int i = e1.getKey().getField().compareTo(e2.getKey().getField());
+            if (i != 0)
+              return i;
+            else
+              return Integer.compare(e1.getKey().getId(), e2.getKey().getId());
+          }
+        )
         .forEach(
           schemaEntry -> printSingleSchemaSubfieldsStatistics(writer, schemaEntry)
         );
@@ -289,7 +300,14 @@ public class AuthorityAnalysis implements MarcFileProcessor, Serializable {
     val
       .entrySet()
       .stream()
-      .sorted((count1, count2) -> count2.getValue().compareTo(count1.getValue()))
+      .sorted((count1, count2) -> {
+          int i = count2.getValue().compareTo(count1.getValue());
+          if (i != 0)
+            return i;
+          else
+            return count1.getKey().toString().compareTo(count2.getKey().toString());
+        }
+      )
       .forEach(
         countEntry -> {
           List<String> subfields = countEntry.getKey();
@@ -324,8 +342,50 @@ public class AuthorityAnalysis implements MarcFileProcessor, Serializable {
 
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
+
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
+  @Override
+  public Serializable snapshot() {
+    var state = new State();
+    state.schemas = Schema.getRegisteredSchemas();
+    state.statistics = statistics;
+    state.histogram = histogram;
+    state.frequencyExamples = frequencyExamples;
+    state.hasClassifications = hasClassifications;
+    return state;
+  }
+
+  @Override
+  public void merge(Serializable snapshot) {
+    var state = (State) snapshot;
+    Schema.register(state.schemas);
+    statistics.merge(state.statistics);
+    Utils.addAll(state.histogram, histogram);
+    Utils.addAll(state.hasClassifications, hasClassifications);
+    for (Map.Entry<Integer, String> entry : state.frequencyExamples.entrySet())
+      frequencyExamples.putIfAbsent(entry.getKey(), entry.getValue());
+  }
+
+  private static class State implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    List<Schema> schemas;
+    AuthorityStatistics statistics;
+    Map<Integer, Integer> histogram;
+    Map<Integer, String> frequencyExamples;
+    Map<Boolean, Integer> hasClassifications;
+  }
 }
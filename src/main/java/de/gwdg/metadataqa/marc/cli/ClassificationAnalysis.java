@@ -7,8 +7,10 @@ import de.gwdg.metadataqa.marc.analysis.ClassificationStatistics;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.ValidatorParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.Collocation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import de.gwdg.metadataqa.marc.cli.utils.RecordSample;
 import de.gwdg.metadataqa.marc.cli.utils.Schema;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
@@ -27,6 +29,7 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import static de.gwdg.metadataqa.marc.Utils.createRow;
 
@@ -40,6 +43,9 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
   private static char separator = ',';
   private File collectorFile;
   ClassificationStatistics statistics = new ClassificationStatistics();
+  private transient RecordSample sample = null;
+  private transient RecordSample.Counter<Boolean> hasClassificationSampleCounter = new RecordSample.Counter<>();
+  private transient RecordSample.Counter<Schema> schemaSampleCounter = new RecordSample.Counter<>();
 
   public ClassificationAnalysis(String[] args) throws ParseException {
     parameters = new ValidatorParameters(args);
@@ -86,7 +92,13 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
       return;
 
     ClassificationAnalyzer analyzer = new ClassificationAnalyzer(marcRecord, statistics);
-    analyzer.process();
+    int count = analyzer.process();
+    if (sample != null) {
+      String stratum = sample.getStratumName(marcRecord);
+      hasClassificationSampleCounter.count(stratum, count > 0);
+      for (Schema schema : new HashSet<>(analyzer.getSchemasInRecord()))
+        schemaSampleCounter.count(stratum, schema);
+    }
     var total1 = statistics.getHasClassifications().get(true);
     var total = statistics.recordCountWithClassification();
     if (total1 != total) {
@@ -155,6 +167,54 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
     printFrequencyExamples();
     printSchemaSubfieldsStatistics();
     printClassificationsCollocation();
+    if (sample != null) {
+      printClassificationsBySchemaEstimates();
+      printClassificationsByRecordsEstimates();
+    }
+  }
+
+  @Override
+  public void setSample(RecordSample sample) {
+    this.sample = sample;
+  }
+
+  /**
+   * Prints the estimated number of records having the classification schemes in the whole dataset.
+   */
+  private void printClassificationsBySchemaEstimates() {
+    var path = Paths.get(parameters.getOutputDir(), "classifications-by-schema-estimate.csv");
+    try (var writer = Files.newBufferedWriter(path)) {
+      writer.write(createRow("id", "field", "location", "scheme", "abbreviation",
+        "recordcount", "estimate", "lower", "upper"));
+      for (Schema schema : schemaSampleCounter.keys().stream()
+          .sorted(Comparator.comparingInt(Schema::getId)).collect(Collectors.toList())) {
+        RecordSample.Estimate estimate = sample.estimate(schemaSampleCounter, schema);
+        writer.write(createRow(
+          schema.getId(),
+          schema.getField(),
+          schema.getLocation(),
+          '"' + schema.getSchema().replace("\"", "\"\"") + '"',
+          '"' + schema.getAbbreviation().replace("\"", "\"\"") + '"',
+          estimate.getSampleCount(), estimate.getValue(), estimate.getLower(), estimate.getUpper()
+        ));
+      }
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "printClassificationsBySchemaEstimates", e);
+    }
+  }
+
+  private void printClassificationsByRecordsEstimates() {
+    var path = Paths.get(parameters.getOutputDir(), "classifications-by-records-estimate.csv");
+    try (var writer = Files.newBufferedWriter(path)) {
+      writer.write(createRow("records-with-classification", "count", "estimate", "lower", "upper"));
+      for (Boolean hasClassification : new TreeSet<>(hasClassificationSampleCounter.keys())) {
+        RecordSample.Estimate estimate = sample.estimate(hasClassificationSampleCounter, hasClassification);
+        writer.write(createRow(hasClassification.toString(),
+          estimate.getSampleCount(), estimate.getValue(), estimate.getLower(), estimate.getUpper()));
+      }
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "printClassificationsByRecordsEstimates", e);
+    }
   }
 
   private void printClassificationsCollocation() {
@@ -205,10 +265,13 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
               return i;
             else {
               i = e1.getKey().getLocation().compareTo(e2.getKey().getLocation());
+              if (i != 0)
+                return i;
+              i = e2.getValue().compareTo(e1.getValue());
               if (i != 0)
                 return i;
               else
-                return e2.getValue().compareTo(e1.getValue());
+                return Integer.compare(e1.getKey().getId(), e2.getKey().getId());
             }
           }
         )
@@ -321,8 +384,14 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
       statistics.getSubfields()
         .entrySet()
         .stream()
-        .sorted((e1, e2) ->
-          e1.getKey().getField().compareTo(e2.getKey().getField()))
+        .sorted((e1, e2) -> {
+            int i = e1.getKey().getField().compareTo(e2.getKey().getField());
+            if (i != 0)
+              return i;
+            else
+              return Integer.compare(e1.getKey().getId(), e2.getKey().getId());
+          }
+        )
         .forEach(
           schemaEntry -> printSingleSchemaSubfieldsStatistics(writer, schemaEntry)
         );
@@ -337,7 +406,14 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
     val
       .entrySet()
       .stream()
-      .sorted((count1, count2) -> count2.getValue().compareTo(count1.getValue()))
+      .sorted((count1, count2) -> {
+          int i = count2.getValue().compareTo(count1.getValue());
+          if (i != 0)
+            return i;
+          else
+            return count1.getKey().toString().compareTo(count2.getKey().toString());
+        }
+      )
       .forEach(
         countEntry -> {
           List<String> subfields = countEntry.getKey();
@@ -374,9 +450,45 @@ public class ClassificationAnalysis implements MarcFileProcessor, Serializable {
 
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
+
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
+  @Override
+  public Serializable snapshot() {
+    var state = new State();
+    state.schemas = Schema.getRegisteredSchemas();
+    state.statistics = statistics;
+    return state;
+  }
+
+  /**
+   * The schema identifiers are assigned in the order of the first occurrence, so the schemas of
+   * the shard are registered in the order of their identifiers before merging the statistics.
+   */
+  @Override
+  public void merge(Serializable snapshot) {
+    var state = (State) snapshot;
+    Schema.register(state.schemas);
+    statistics.merge(state.statistics);
+  }
+
+  private static class State implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    List<Schema> schemas;
+    ClassificationStatistics statistics;
+  }
   // private
 }
@@ -4,7 +4,9 @@ import de.gwdg.metadataqa.marc.*;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.CompletenessParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import de.gwdg.metadataqa.marc.cli.utils.RecordSample;
 import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcControlField;
 import de.gwdg.metadataqa.marc.dao.MarcPositionalControlField;
@@ -55,6 +57,8 @@ public class Completeness implements MarcFileProcessor, Serializable {
   // private Map<String, Integer> fieldMap = new HashMap<>();
   private Map<String, Map<Integer, Integer>> fieldHistogram = new HashMap<>();
   private boolean readyToProcess;
+  private transient RecordSample sample = null;
+  private transient Map<String, RecordSample.Counter<String>> sampleFrequency = new HashMap<>();
 
   public Completeness(String[] args) throws ParseException {
     parameters = new CompletenessParameters(args);
@@ -167,6 +171,14 @@ public class Completeness implements MarcFileProcessor, Serializable {
       count(recordFrequency.get(key), fieldHistogram.get(key));
     }
 
+    if (sample != null) {
+      String stratum = sample.getStratumName(marcRecord);
+      for (String key : recordFrequency.keySet()) {
+        sampleFrequency.computeIfAbsent(documentType, s -> new RecordSample.Counter<>()).count(stratum, key);
+        sampleFrequency.computeIfAbsent("all", s -> new RecordSample.Counter<>()).count(stratum, key);
+      }
+    }
+
     for (String key : recordPackageCounter.keySet()) {
       packageCounter.computeIfAbsent(documentType, s -> new TreeMap<>());
       count(key, packageCounter.get(documentType));
@@ -239,6 +251,37 @@ public class Completeness implements MarcFileProcessor, Serializable {
     saveLibraries(fileExtension, separator);
     savePackages(fileExtension, separator);
     saveMarcElements(fileExtension, separator);
+    if (sample != null)
+      saveMarcElementEstimates(fileExtension, separator);
+  }
+
+  @Override
+  public void setSample(RecordSample sample) {
+    this.sample = sample;
+  }
+
+  /**
+   * Saves the estimated number of records having the elements in the whole dataset.
+   */
+  private void saveMarcElementEstimates(String fileExtension, char separator) {
+    logger.info("saving MARC element estimates...");
+    var path = Paths.get(parameters.getOutputDir(), "marc-elements-estimate" + fileExtension);
+    try (var writer = Files.newBufferedWriter(path)) {
+      writer.write(createRow(separator, "documenttype", "path", "number-of-record", "estimate", "lower", "upper"));
+      for (Map.Entry<String, Map<String, Integer>> entry : elementFrequency.entrySet()) {
+        String documentType = entry.getKey();
+        RecordSample.Counter<String> counter = sampleFrequency.get(documentType);
+        if (counter == null)
+          continue;
+        for (String marcPath : entry.getValue().keySet()) {
+          RecordSample.Estimate estimate = sample.estimate(counter, marcPath);
+          writer.write(createRow(separator, quote(documentType), quote(marcPath), estimate.getSampleCount(),
+            estimate.getValue(), estimate.getLower(), estimate.getUpper()));
+        }
+      }
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "saveMarcElementEstimates", e);
+    }
   }
 
   private void saveLibraries003(String fileExtension, char separator) {
@@ -408,8 +451,57 @@ public class Completeness implements MarcFileProcessor, Serializable {
     formatter.printHelp(message, options);
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
+
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
+  @Override
+  public Serializable snapshot() {
+    var state = new State();
+    state.library003Counter = library003Counter;
+    state.libraryCounter = libraryCounter;
+    state.packageCounter = packageCounter;
+    state.elementCardinality = elementCardinality;
+    state.elementFrequency = elementFrequency;
+    state.fieldHistogram = fieldHistogram;
+    return state;
+  }
+
+  @Override
+  public void merge(Serializable snapshot) {
+    var state = (State) snapshot;
+    Utils.addAll(state.library003Counter, library003Counter);
+    Utils.addAll(state.libraryCounter, libraryCounter);
+    addAll(state.packageCounter, packageCounter);
+    addAll(state.elementCardinality, elementCardinality);
+    addAll(state.elementFrequency, elementFrequency);
+    addAll(state.fieldHistogram, fieldHistogram);
+  }
+
+  private <T extends Object> void addAll(Map<String, Map<T, Integer>> other, Map<String, Map<T, Integer>> counter) {
+    for (Map.Entry<String, Map<T, Integer>> entry : other.entrySet())
+      Utils.addAll(entry.getValue(), counter.computeIfAbsent(entry.getKey(), s -> new TreeMap<>()));
+  }
+
+  private static class State implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    Map<String, Integer> library003Counter;
+    Map<String, Integer> libraryCounter;
+    Map<String, Map<String, Integer>> packageCounter;
+    Map<String, Map<String, Integer>> elementCardinality;
+    Map<String, Map<String, Integer>> elementFrequency;
+    Map<String, Map<Integer, Integer>> fieldHistogram;
+  }
 }
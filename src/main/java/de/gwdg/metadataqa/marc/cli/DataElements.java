@@ -6,6 +6,7 @@ import de.gwdg.metadataqa.marc.analysis.DataElementCounter;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.CompletenessParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcControlField;
@@ -157,6 +158,11 @@ public class DataElements implements MarcFileProcessor, Serializable {
     formatter.printHelp(message, options);
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
@@ -4,6 +4,7 @@ import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.cli.parameters.FormatterParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import de.gwdg.metadataqa.marc.utils.marcspec.legacy.MarcSpec;
 import org.apache.commons.cli.*;
@@ -102,9 +103,8 @@ public class Formatter implements MarcFileProcessor {
   @Override
   public void processRecord(Record marc4jRecord, int recordNumber) throws IOException {
     if (
-      (parameters.hasId()
-        && marc4jRecord.getControlNumber() != null
-        && marc4jRecord.getControlNumber().trim().equals(parameters.getId())
+      (parameters.hasIds()
+        && parameters.isSelectedId(marc4jRecord.getControlNumber())
       )
         ||
         (
@@ -116,7 +116,7 @@ public class Formatter implements MarcFileProcessor {
 
   @Override
   public void processRecord(MarcRecord marcRecord, int recordNumber) throws IOException {
-    if (parameters.hasId() && marcRecord.getId().trim().equals(parameters.getId())) {
+    if (parameters.hasIds() && parameters.isSelectedId(marcRecord.getId())) {
       for (DataField field : marcRecord.getDatafields()) {
         System.err.println(field.getTag());
       }
@@ -162,6 +162,16 @@ public class Formatter implements MarcFileProcessor {
     }
   }
 
+  /**
+   * The MarcRecord is needed only for searching, selecting and for listing the fields of a record.
+   */
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    if (parameters.hasSearch() || parameters.hasSelector() || parameters.hasIds())
+      return RecordRepresentation.BOTH;
+    return RecordRepresentation.MARC4J;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
@@ -3,6 +3,7 @@ package de.gwdg.metadataqa.marc.cli;
 import de.gwdg.metadataqa.marc.*;
 import de.gwdg.metadataqa.marc.cli.parameters.CompletenessParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcControlField;
@@ -87,7 +88,8 @@ public class FunctionalAnalysis implements MarcFileProcessor, Serializable {
     if (parameters.getIgnorableRecords().isIgnorable(marcRecord))
       return;
 
-    this.recordNumber = recordNumber;
+    // the records might arrive out of order (--threads, --parallelFiles)
+    this.recordNumber = Math.max(this.recordNumber, recordNumber);
     Map<FRBRFunction, FunctionValue> recordCounter = new TreeMap<>();
     Map<DataFieldDefinition, Boolean> cache = new HashMap<>();
 
@@ -283,8 +285,46 @@ public class FunctionalAnalysis implements MarcFileProcessor, Serializable {
 
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
+
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
+  /**
+   * The averages are calculated from the number of the last processed record, so the state
+   * stores the number of records from the first record of the shard (--offset).
+   */
+  @Override
+  public Serializable snapshot() {
+    var state = new State();
+    state.numberOfRecords = Math.max(0, recordNumber - Math.max(parameters.getOffset() - 1, 0));
+    state.collector = frbrFunctionLister.getCollector();
+    state.histogram = frbrFunctionLister.getHistogram();
+    return state;
+  }
+
+  @Override
+  public void merge(Serializable snapshot) {
+    var state = (State) snapshot;
+    recordNumber += state.numberOfRecords;
+    frbrFunctionLister.merge(state.collector, state.histogram);
+  }
+
+  private static class State implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    int numberOfRecords;
+    Map<FRBRFunction, FunctionValue> collector;
+    Map<FRBRFunction, Counter<FunctionValue>> histogram;
+  }
 }
@@ -0,0 +1,80 @@
+package de.gwdg.metadataqa.marc.cli;
+
+import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
+import de.gwdg.metadataqa.marc.utils.marcreader.RecordIndex;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the ID index of ISO 2709 files (record identifier -> file, position and length). With
+ * the index the other commands read the records of --id and --idFile directly instead of
+ * scanning the files.
+ *
+ * usage:
+ * java -cp target/metadata-qa-marc-0.1-SNAPSHOT-jar-with-dependencies.jar de.gwdg.metadataqa.marc.cli.IdIndexBuilder \
+ *   --index [index file] [ISO files]
+ *
+ * @author Péter Király <peter.kiraly at gwdg.de>
+ */
+public class IdIndexBuilder {
+
+  private static final Logger logger = Logger.getLogger(IdIndexBuilder.class.getCanonicalName());
+
+  private final CommonParameters parameters;
+
+  public IdIndexBuilder(String[] args) throws ParseException {
+    parameters = new CommonParameters(args);
+  }
+
+  public static void main(String[] args) {
+    IdIndexBuilder builder = null;
+    try {
+      builder = new IdIndexBuilder(args);
+    } catch (ParseException e) {
+      System.err.println("ERROR. " + e.getLocalizedMessage());
+      System.exit(0);
+    }
+    CommonParameters parameters = builder.getParameters();
+    if (parameters.doHelp()) {
+      printHelp(parameters);
+      System.exit(0);
+    }
+    if (parameters.getArgs().length < 1 || parameters.getIndex() == null) {
+      System.err.println("Please provide the index file (--index) and the MARC files!");
+      printHelp(parameters);
+      System.exit(0);
+    }
+    try {
+      builder.start();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "index", e);
+    }
+  }
+
+  public CommonParameters getParameters() {
+    return parameters;
+  }
+
+  public void start() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    for (String fileName : parameters.getArgs())
+      paths.add(Paths.get(fileName));
+    int size = RecordIndex.build(paths, Paths.get(parameters.getIndex()));
+    if (parameters.doLog())
+      logger.info(String.format("%d records of %d files indexed in %s", size, paths.size(), parameters.getIndex()));
+  }
+
+  private static void printHelp(CommonParameters parameters) {
+    var formatter = new HelpFormatter();
+    formatter.printHelp(String.format("java -cp metadata-qa-marc.jar %s --index [file] [files]",
+      IdIndexBuilder.class.getCanonicalName()), parameters.getOptions());
+  }
+}
@@ -4,6 +4,7 @@ import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.MarcToSolrParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import de.gwdg.metadataqa.marc.datastore.MarcSolrClient;
 import org.apache.commons.cli.HelpFormatter;
@@ -75,6 +76,15 @@ public class MarcToSolr implements MarcFileProcessor, Serializable {
 
   @Override
   public void processRecord(MarcRecord marcRecord, int recordNumber) throws IOException {
+    processRecord(marcRecord, recordNumber, currentFile == null ? null : currentFile.getFileName().toString());
+  }
+
+  /**
+   * The file name comes with the record, as with --parallelFiles and --threads the current file
+   * (see fileOpened()) is not necessarily the file of the record.
+   */
+  @Override
+  public void processRecord(MarcRecord marcRecord, int recordNumber, String fileName) throws IOException {
     if (parameters.getIgnorableRecords().isIgnorable(marcRecord))
       return;
 
@@ -97,7 +107,7 @@ public class MarcToSolr implements MarcFileProcessor, Serializable {
       logger.info(
         String.format(
           "%s/%s (%s)",
-          currentFile.getFileName().toString(),
+          fileName,
           decimalFormat.format(recordNumber),
           marcRecord.getId()
         )
@@ -132,8 +142,27 @@ public class MarcToSolr implements MarcFileProcessor, Serializable {
     formatter.printHelp(message, options);
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
-}
\ No newline at end of file
+
+  /**
+   * The records are sent to Solr one by one, there is no aggregated state, so the indexing can
+   * continue after the last checkpoint without a state to restore.
+   */
+  @Override
+  public boolean isCheckpointable() {
+    return true;
+  }
+
+  @Override
+  public Serializable snapshot() {
+    return null;
+  }
+}
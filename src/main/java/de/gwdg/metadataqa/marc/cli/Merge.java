@@ -0,0 +1,93 @@
+package de.gwdg.metadataqa.marc.cli;
+
+import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.utils.PartialState;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the reports of the analyses from the partial states of several runs. The partial states
+ * are created by running the analyses on the shards of a dataset (e.g. with --offset and --limit)
+ * with the --dumpState parameter. The state files should be listed in the order of the shards.
+ *
+ * usage:
+ * java -cp target/metadata-qa-marc-0.1-SNAPSHOT-jar-with-dependencies.jar de.gwdg.metadataqa.marc.cli.Merge \
+ *   --tasks validate,completeness [options] [state files]
+ *
+ * @author Péter Király <peter.kiraly at gwdg.de>
+ */
+public class Merge {
+
+  private static final Logger logger = Logger.getLogger(Merge.class.getCanonicalName());
+
+  private final Analyses processor;
+
+  public Merge(String[] args) throws ParseException {
+    processor = new Analyses(args);
+  }
+
+  public static void main(String[] args) {
+    Merge merge = null;
+    try {
+      merge = new Merge(args);
+    } catch (ParseException e) {
+      System.err.println("ERROR. " + e.getLocalizedMessage());
+      System.exit(0);
+    }
+    Analyses processor = merge.getProcessor();
+    if (processor.getParameters().doHelp()) {
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    if (processor.getParameters().getArgs().length < 1) {
+      System.err.println("Please provide the partial state files!");
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    if (processor.getProcessors().isEmpty()) {
+      System.err.println("Please provide at least one task!");
+      processor.printHelp(processor.getParameters().getOptions());
+      System.exit(0);
+    }
+    try {
+      merge.start();
+    } catch (IOException | IllegalArgumentException e) {
+      logger.log(Level.SEVERE, "merge", e);
+    }
+  }
+
+  public Analyses getProcessor() {
+    return processor;
+  }
+
+  public void start() throws IOException {
+    for (MarcFileProcessor task : processor.getProcessors())
+      if (!task.isMergeable())
+        throw new IllegalArgumentException(String.format("%s does not support merge", task.getClass().getSimpleName()));
+
+    processor.beforeIteration();
+    int numberOfRecords = 0;
+    for (String fileName : processor.getParameters().getArgs()) {
+      logger.info("merging " + fileName);
+      PartialState partialState = PartialState.read(Paths.get(fileName));
+      processor.merge(toAnalysesState(partialState));
+      numberOfRecords += partialState.getNumberOfRecords();
+    }
+    processor.afterIteration(numberOfRecords);
+  }
+
+  /**
+   * A state created by a single analysis is treated as the state of an Analyses run with one task.
+   */
+  private static Serializable toAnalysesState(PartialState partialState) {
+    if (partialState.getProcessorClass().equals(Analyses.class.getName()))
+      return partialState.getState();
+    return (Serializable) Map.of(partialState.getProcessorClass(), partialState.getState());
+  }
+}
@@ -6,6 +6,7 @@ import de.gwdg.metadataqa.marc.analysis.SerialFields;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
 import de.gwdg.metadataqa.marc.cli.parameters.SerialScoreParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.analysis.Serial;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
 import org.apache.commons.cli.HelpFormatter;
@@ -151,6 +152,20 @@ public class SerialScore implements MarcFileProcessor, Serializable {
     }
   }
 
+  /**
+   * Only the continuing resources are scored, the other records are dropped before parsing.
+   */
+  @Override
+  public boolean acceptRecord(Record marc4jRecord) {
+    String leader = marc4jRecord.getLeader() == null ? null : marc4jRecord.getLeader().marshal();
+    return Leader.detectType(leader, parameters.getDefaultRecordType()) == Leader.Type.CONTINUING_RESOURCES;
+  }
+
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
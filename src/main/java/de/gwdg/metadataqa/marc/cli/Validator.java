@@ -3,7 +3,9 @@ package de.gwdg.metadataqa.marc.cli;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.cli.parameters.ValidatorParameters;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import de.gwdg.metadataqa.marc.cli.utils.RecordSample;
 import de.gwdg.metadataqa.marc.model.validation.ValidationError;
 import de.gwdg.metadataqa.marc.model.validation.ValidationErrorCategory;
 import de.gwdg.metadataqa.marc.model.validation.ValidationErrorFormatter;
@@ -33,6 +35,10 @@ import static de.gwdg.metadataqa.marc.model.validation.ValidationErrorFormat.TAB
  * usage:
  * java -cp target/metadata-qa-marc-0.1-SNAPSHOT-jar-with-dependencies.jar de.gwdg.metadataqa.marc.cli.Validator [MARC21 file]
  *
+ * The errors get their identifiers in the order of their first occurrence. With --threads
+ * the records are finished in a different order in each run, so the identifiers (and the
+ * order of the lines in the details file) are not reproducible, only the counts are.
+ *
  * @author Péter Király <peter.kiraly at gwdg.de>
  */
 public class Validator implements MarcFileProcessor, Serializable {
@@ -64,6 +70,9 @@ public class Validator implements MarcFileProcessor, Serializable {
   private boolean hasSeparator = false;
   private int vErrorId = 1;
   private List<ValidationError> allValidationErrors;
+  private transient RecordSample sample = null;
+  private transient RecordSample.Counter<ValidationErrorType> typeSampleCounter = new RecordSample.Counter<>();
+  private transient RecordSample.Counter<Integer> totalSampleCounter = new RecordSample.Counter<>();
 
   public Validator(String[] args) throws ParseException {
     this(new ValidatorParameters(args));
@@ -114,24 +123,33 @@ public class Validator implements MarcFileProcessor, Serializable {
   public void beforeIteration() {
     logger.info(parameters.formatParameters());
     if (!parameters.useStandardOutput()) {
-      detailsFile = prepareReportFile(parameters.getOutputDir(), parameters.getDetailsFileName());
+      // when resuming, the details of the records before the checkpoint are already in the file
+      // (RecordIterator truncates it to its length at the checkpoint, see getAppendedFiles())
+      detailsFile = parameters.doResume()
+        ? new File(parameters.getOutputDir(), parameters.getDetailsFileName())
+        : prepareReportFile(parameters.getOutputDir(), parameters.getDetailsFileName());
       logger.info("details output: " + detailsFile.getPath());
       if (parameters.getSummaryFileName() != null) {
         summaryFile = prepareReportFile(parameters.getOutputDir(), parameters.getSummaryFileName());
         logger.info("summary output: " + summaryFile.getPath());
 
-        collectorFile = prepareReportFile(parameters.getOutputDir(), "issue-collector.csv");
-        String header = ValidationErrorFormatter.formatHeaderForCollector(
-          parameters.getFormat()
-        );
-        print(collectorFile, header + "\n");
+        // the full entries of the collector are written during the iteration as well
+        if (parameters.doResume()) {
+          collectorFile = new File(parameters.getOutputDir(), "issue-collector.csv");
+        } else {
+          collectorFile = prepareReportFile(parameters.getOutputDir(), "issue-collector.csv");
+          String header = ValidationErrorFormatter.formatHeaderForCollector(
+            parameters.getFormat()
+          );
+          print(collectorFile, header + "\n");
+        }
 
       } else {
         if (parameters.doSummary())
           summaryFile = detailsFile;
       }
     }
-    if (parameters.doDetails()) {
+    if (parameters.doDetails() && !parameters.doResume()) {
       String header = ValidationErrorFormatter.formatHeaderForDetails(parameters.getFormat());
       print(detailsFile, header + "\n");
     }
@@ -167,8 +185,6 @@ public class Validator implements MarcFileProcessor, Serializable {
   public void processRecord(MarcRecord marcRecord, int i) {
     if (marcRecord.getId() == null)
       logger.severe("No record number at " + i);
-    if (i % 100000 == 0)
-      logger.info("Number of error types so far: " + instanceBasedErrorCounter.size());
 
     if (parameters.getIgnorableRecords().isIgnorable(marcRecord)) {
       logger.info("skip " + marcRecord.getId() + " (ignorable record)");
@@ -178,19 +194,28 @@ public class Validator implements MarcFileProcessor, Serializable {
     boolean isValid = marcRecord.validate(
             parameters.getMarcVersion(), parameters.doSummary(), parameters.getIgnorableFields()
     );
-    if (!isValid && doPrintInProcessRecord) {
-      if (parameters.doSummary())
-        processSummary(marcRecord);
+    // the validation above is record-local, the counters below are shared between worker threads
+    synchronized (this) {
+      if (i % 100000 == 0)
+        logger.info("Number of error types so far: " + instanceBasedErrorCounter.size());
 
-      if (parameters.doDetails())
-        processDetails(marcRecord);
-    } else {
-      if (parameters.doSummary())
-        count(0, totalRecordCounter);
+      if (!isValid && doPrintInProcessRecord) {
+        if (parameters.doSummary())
+          processSummary(marcRecord);
+
+        if (parameters.doDetails())
+          processDetails(marcRecord);
+      } else {
+        if (parameters.doSummary()) {
+          count(0, totalRecordCounter);
+          if (sample != null)
+            totalSampleCounter.count(sample.getStratumName(marcRecord), 0);
+        }
+      }
+      if (parameters.collectAllErrors())
+        allValidationErrors.addAll(marcRecord.getValidationErrors());
+      counter++;
     }
-    if (parameters.collectAllErrors())
-      allValidationErrors.addAll(marcRecord.getValidationErrors());
-    counter++;
   }
 
   private void processDetails(MarcRecord marcRecord) {
@@ -254,6 +279,15 @@ public class Validator implements MarcFileProcessor, Serializable {
     count(1, totalRecordCounter);
     if (!allButInvalidFieldErrors.isEmpty())
       count(2, totalRecordCounter);
+
+    if (sample != null) {
+      String stratum = sample.getStratumName(marcRecord);
+      for (ValidationErrorType type : uniqueTypes)
+        typeSampleCounter.count(stratum, type);
+      totalSampleCounter.count(stratum, 1);
+      if (!allButInvalidFieldErrors.isEmpty())
+        totalSampleCounter.count(stratum, 2);
+    }
   }
 
   @Override
@@ -274,6 +308,11 @@ public class Validator implements MarcFileProcessor, Serializable {
       printTotalCounts();
       logger.info("printCollector");
       printCollector();
+      if (sample != null) {
+        logger.info("printEstimates");
+        printTypeEstimates();
+        printTotalEstimates();
+      }
     }
     logger.info("all printing is DONE");
   }
@@ -312,6 +351,8 @@ public class Validator implements MarcFileProcessor, Serializable {
           Integer recordCountB = recordBasedErrorCounter.get(b.getKey().getId());
           result = recordCountB.compareTo(recordCountA);
         }
+        if (result == 0)
+          result = a.getKey().getId().compareTo(b.getKey().getId());
         return result;
       })
       .forEach(
@@ -387,6 +428,50 @@ public class Validator implements MarcFileProcessor, Serializable {
     }
   }
 
+  @Override
+  public void setSample(RecordSample sample) {
+    this.sample = sample;
+  }
+
+  /**
+   * Prints the estimated number of records having the issue types in the whole dataset.
+   */
+  private void printTypeEstimates() {
+    var path = Paths.get(parameters.getOutputDir(), "issue-by-type-estimate.csv");
+    try (var writer = Files.newBufferedWriter(path)) {
+      writer.write(createRow("id", "categoryId", "category", "type", "records", "estimate", "lower", "upper"));
+      typeSampleCounter.keys()
+        .stream()
+        .sorted(Comparator.comparingInt(ValidationErrorType::getId))
+        .forEach(type -> {
+          RecordSample.Estimate estimate = sample.estimate(typeSampleCounter, type);
+          try {
+            writer.write(createRow(
+              type.getId(), type.getCategory().getId(), type.getCategory().getName(), quote(type.getMessage()),
+              estimate.getSampleCount(), estimate.getValue(), estimate.getLower(), estimate.getUpper()
+            ));
+          } catch (IOException e) {
+            logger.log(Level.SEVERE, "printTypeEstimates", e);
+          }
+        });
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "printTypeEstimates", e);
+    }
+  }
+
+  private void printTotalEstimates() {
+    var path = Paths.get(parameters.getOutputDir(), "issue-total-estimate.csv");
+    try (var writer = Files.newBufferedWriter(path)) {
+      writer.write(createRow("type", "records", "estimate", "lower", "upper"));
+      for (Integer type : new TreeSet<>(totalSampleCounter.keys())) {
+        RecordSample.Estimate estimate = sample.estimate(totalSampleCounter, type);
+        writer.write(createRow(type, estimate.getSampleCount(), estimate.getValue(), estimate.getLower(), estimate.getUpper()));
+      }
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "printTotalEstimates", e);
+    }
+  }
+
   private void printCategoryCounts() {
     var path = Paths.get(parameters.getOutputDir(), "issue-by-category.csv");
     try (var writer = Files.newBufferedWriter(path)) {
@@ -465,11 +550,92 @@ public class Validator implements MarcFileProcessor, Serializable {
     this.doPrintInProcessRecord = doPrintInProcessRecord;
   }
 
+  @Override
+  public RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.MARC_RECORD;
+  }
+
   @Override
   public boolean readyToProcess() {
     return readyToProcess;
   }
 
+  @Override
+  public List<File> getAppendedFiles() {
+    List<File> files = new ArrayList<>();
+    if (detailsFile != null)
+      files.add(detailsFile);
+    if (collectorFile != null)
+      files.add(collectorFile);
+    return files;
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
+  @Override
+  public synchronized Serializable snapshot() {
+    var state = new State();
+    state.totalRecordCounter = new HashMap<>(totalRecordCounter);
+    state.totalInstanceCounter = new HashMap<>(totalInstanceCounter);
+    state.categoryRecordCounter = new EnumMap<>(categoryRecordCounter);
+    state.categoryInstanceCounter = new EnumMap<>(categoryInstanceCounter);
+    state.typeRecordCounter = new EnumMap<>(typeRecordCounter);
+    state.typeInstanceCounter = new EnumMap<>(typeInstanceCounter);
+    state.instanceBasedErrorCounter = new HashMap<>(instanceBasedErrorCounter);
+    state.recordBasedErrorCounter = new HashMap<>(recordBasedErrorCounter);
+    state.errorCollector = new TreeMap<>(errorCollector);
+    state.counter = counter;
+    return state;
+  }
+
+  /**
+   * The error identifiers are assigned in the order of the first occurrence, so the errors of the
+   * merged state get their identifiers in the order of their identifiers in the shard, and the
+   * identifier based counters are translated to the new identifiers. The files written by the
+   * shard are not rewritten, so the parameters which would write the identifiers into them are
+   * rejected together with --dumpState (see ValidatorParameters).
+   */
+  @Override
+  public synchronized void merge(Serializable snapshot) {
+    var state = (State) snapshot;
+    Map<Integer, Integer> idMap = new HashMap<>();
+    List<Map.Entry<ValidationError, Integer>> errors = new ArrayList<>(state.instanceBasedErrorCounter.entrySet());
+    errors.sort(Comparator.comparing(entry -> entry.getKey().getId()));
+    for (Map.Entry<ValidationError, Integer> entry : errors) {
+      ValidationError error = entry.getKey();
+      int localId = error.getId();
+      if (!instanceBasedErrorCounter.containsKey(error)) {
+        error.setId(vErrorId++);
+        hashedIndex.put(error.hashCode(), error.getId());
+      }
+      add(error, instanceBasedErrorCounter, entry.getValue());
+      idMap.put(localId, hashedIndex.get(error.hashCode()));
+    }
+
+    for (Map.Entry<Integer, Integer> entry : state.recordBasedErrorCounter.entrySet())
+      add(idMap.get(entry.getKey()), recordBasedErrorCounter, entry.getValue());
+    for (Map.Entry<Integer, Set<String>> entry : state.errorCollector.entrySet())
+      errorCollector
+        .computeIfAbsent(idMap.get(entry.getKey()), id -> new HashSet<>())
+        .addAll(entry.getValue());
+
+    addAll(state.totalRecordCounter, totalRecordCounter);
+    addAll(state.totalInstanceCounter, totalInstanceCounter);
+    addAll(state.categoryRecordCounter, categoryRecordCounter);
+    addAll(state.categoryInstanceCounter, categoryInstanceCounter);
+    addAll(state.typeRecordCounter, typeRecordCounter);
+    addAll(state.typeInstanceCounter, typeInstanceCounter);
+    counter += state.counter;
+  }
+
   public List<ValidationError> getAllValidationErrors() {
     return allValidationErrors;
   }
@@ -482,6 +648,21 @@ public class Validator implements MarcFileProcessor, Serializable {
     return numberOfprocessedRecords;
   }
 
+  private static class State implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    Map<Integer, Integer> totalRecordCounter;
+    Map<Integer, Integer> totalInstanceCounter;
+    Map<ValidationErrorCategory, Integer> categoryRecordCounter;
+    Map<ValidationErrorCategory, Integer> categoryInstanceCounter;
+    Map<ValidationErrorType, Integer> typeRecordCounter;
+    Map<ValidationErrorType, Integer> typeInstanceCounter;
+    Map<ValidationError, Integer> instanceBasedErrorCounter;
+    Map<Integer, Integer> recordBasedErrorCounter;
+    Map<Integer, Set<String>> errorCollector;
+    int counter;
+  }
+
   private class Counter {
     int id;
     int count;
@@ -0,0 +1,132 @@
+package de.gwdg.metadataqa.marc.cli.parameters;
+
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AnalysesParameters extends CommonParameters implements Serializable {
+
+  private List<AnalysisTask> tasks = new ArrayList<>();
+  private String[] arguments = new String[]{};
+  private boolean isOptionSet = false;
+
+  protected void setOptions() {
+    if (!isOptionSet) {
+      super.setOptions();
+      options.addOption("k", "tasks", true,
+        "comma separated list of analyses to run (e.g. 'validate,completeness,classifications')");
+      // the options of the individual tasks are accepted as well, they will be passed to the tasks.
+      // The tasks reuse the same short names for different options (e.g. -s is --summary, --solrUrl
+      // and --search), so the task specific options are accepted with their long names only
+      for (AnalysisTask task : AnalysisTask.values())
+        for (Option option : task.getDefaultParameters().getOptions().getOptions())
+          if (option.getLongOpt() != null && !options.hasLongOption(option.getLongOpt()))
+            options.addOption(longOnly(option));
+      isOptionSet = true;
+    }
+  }
+
+  private static Option longOnly(Option option) {
+    return Option.builder()
+      .longOpt(option.getLongOpt())
+      .hasArg(option.hasArg())
+      .optionalArg(option.hasOptionalArg())
+      .desc(option.getDescription())
+      .build();
+  }
+
+  public AnalysesParameters() {
+    super();
+  }
+
+  public AnalysesParameters(String[] arguments) throws ParseException {
+    super(arguments);
+    this.arguments = arguments;
+
+    if (cmd.hasOption("tasks"))
+      setTasks(cmd.getOptionValue("tasks"));
+  }
+
+  public List<AnalysisTask> getTasks() {
+    return tasks;
+  }
+
+  public void setTasks(String tasksString) throws ParseException {
+    tasks = new ArrayList<>();
+    for (String code : tasksString.split(",")) {
+      if (StringUtils.isBlank(code))
+        continue;
+      AnalysisTask task = AnalysisTask.byCode(code.trim());
+      if (task == null)
+        throw new ParseException(String.format("Unrecognized task: '%s'", code));
+      if (!tasks.contains(task))
+        tasks.add(task);
+    }
+  }
+
+  /**
+   * Returns those command line arguments which are known by the task's own parameter class.
+   * The options are passed with their long names, since the same short name might mean
+   * a different option in the task.
+   * @param task The analysis task
+   * @return The filtered arguments
+   */
+  public String[] getTaskArguments(AnalysisTask task) {
+    Options taskOptions = task.getDefaultParameters().getOptions();
+    List<String> filtered = new ArrayList<>();
+    for (var i = 0; i < arguments.length; i++) {
+      String argument = arguments[i];
+      if (!argument.startsWith("-") || argument.length() == 1) {
+        filtered.add(argument);
+        continue;
+      }
+
+      String key = StringUtils.substringBefore(argument, "=");
+      boolean hasInlineValue = argument.contains("=");
+      Option option = findOption(key);
+      boolean isKnown = option != null
+        && option.getLongOpt() != null
+        && taskOptions.hasLongOption(option.getLongOpt());
+
+      if (isKnown)
+        filtered.add("--" + option.getLongOpt()
+          + (hasInlineValue ? "=" + StringUtils.substringAfter(argument, "=") : ""));
+      if (option != null && option.hasArg() && !hasInlineValue && i + 1 < arguments.length) {
+        i++;
+        if (isKnown)
+          filtered.add(arguments[i]);
+      }
+    }
+    return filtered.toArray(new String[0]);
+  }
+
+  /**
+   * Finds the option the same way as the command line parser: --name is a long option
+   * (or an unambiguous prefix of it), -x is a short option or a long option with a single dash.
+   */
+  private Option findOption(String key) {
+    if (key.startsWith("--")) {
+      String name = key.substring(2);
+      if (options.hasLongOption(name))
+        return options.getOption(name);
+      List<String> matching = options.getMatchingOptions(name);
+      return matching.size() == 1 ? options.getOption(matching.get(0)) : null;
+    }
+    String name = key.substring(1);
+    if (options.hasShortOption(name) || options.hasLongOption(name))
+      return options.getOption(name);
+    return null;
+  }
+
+  @Override
+  public String formatParameters() {
+    String text = super.formatParameters();
+    text += String.format("tasks: %s%n", StringUtils.join(tasks, ", "));
+    return text;
+  }
+}
@@ -0,0 +1,46 @@
+package de.gwdg.metadataqa.marc.cli.parameters;
+
+import java.util.function.Supplier;
+
+/**
+ * The analyses which could be run together by the Analyses processor
+ */
+public enum AnalysisTask {
+  VALIDATE("validate", ValidatorParameters::new),
+  COMPLETENESS("completeness", CompletenessParameters::new),
+  CLASSIFICATIONS("classifications", ValidatorParameters::new),
+  AUTHORITIES("authorities", ValidatorParameters::new),
+  TT_COMPLETENESS("tt-completeness", ThompsonTraillCompletenessParameters::new),
+  SHELF_READY_COMPLETENESS("shelf-ready-completeness", ShelfReadyCompletenessParameters::new),
+  SERIAL_SCORE("serial-score", SerialScoreParameters::new),
+  FUNCTIONAL_ANALYSIS("functional-analysis", CompletenessParameters::new),
+  NETWORK_ANALYSIS("network-analysis", NetworkParameters::new),
+  INDEX("index", MarcToSolrParameters::new)
+  ;
+
+  private final String code;
+  private final Supplier<CommonParameters> parametersSupplier;
+
+  AnalysisTask(String code, Supplier<CommonParameters> parametersSupplier) {
+    this.code = code;
+    this.parametersSupplier = parametersSupplier;
+  }
+
+  public static AnalysisTask byCode(String code) {
+    for (AnalysisTask task : values())
+      if (task.code.equals(code))
+        return task;
+    return null;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * Returns an empty parameter object of the task's processor, which can tell the options it accepts
+   */
+  public CommonParameters getDefaultParameters() {
+    return parametersSupplier.get();
+  }
+}
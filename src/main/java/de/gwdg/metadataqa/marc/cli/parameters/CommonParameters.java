@@ -9,13 +9,20 @@ import de.gwdg.metadataqa.marc.definition.MarcVersion;
 import org.apache.commons.cli.*;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class CommonParameters implements Serializable {
 
   protected String[] args;
   public static final String DEFAULT_OUTPUT_DIR = ".";
+  public static final int DEFAULT_CHECKPOINT_INTERVAL = 100000;
+  public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
 
   protected MarcVersion marcVersion = MarcVersion.MARC21;
   protected MarcFormat marcFormat = MarcFormat.ISO;
@@ -25,6 +32,9 @@ public class CommonParameters implements Serializable {
   private int limit = -1;
   private int offset = -1;
   private String id = null;
+  private String idFile = null;
+  private Set<String> ids = null;
+  private String index = null;
   protected Leader.Type defaultRecordType = null;
   protected boolean fixAlephseq = false;
   protected boolean alephseq = false;
@@ -35,6 +45,19 @@ public class CommonParameters implements Serializable {
   protected IgnorableRecords ignorableRecords = new IgnorableRecords();
   protected IgnorableFields ignorableFields = new IgnorableFields();
   protected InputStream stream = null;
+  private int threads = 1;
+  private int batchSize = 1;
+  private String dumpState = null;
+  private String checkpoint = null;
+  private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+  private boolean resume = false;
+  private int parallelFiles = 1;
+  private long chunkSize = DEFAULT_CHUNK_SIZE;
+  private String picaSchemaFile = null;
+  private double sampleRate = -1;
+  private int sampleSize = -1;
+  private boolean stratifiedSample = false;
+  private Long sampleSeed = null;
 
   protected Options options = new Options();
   protected static final CommandLineParser parser = new DefaultParser();
@@ -49,6 +72,8 @@ public class CommonParameters implements Serializable {
       options.addOption("l", "limit", true, "limit the number of records to process");
       options.addOption("o", "offset", true, "the first record to process");
       options.addOption("i", "id", true, "the MARC identifier (content of 001)");
+      options.addOption(null, "idFile", true, "a file of MARC identifiers (one per line), only these records are processed");
+      options.addOption(null, "index", true, "the ID index of the ISO files (see IdIndexBuilder), with --id or --idFile the records are read directly");
       options.addOption("d", "defaultRecordType", true, "the default record type if the record's type is undetectable");
       options.addOption("q", "fixAlephseq", false, "fix the known issues of Alephseq format");
       options.addOption("p", "alephseq", false, "the source is in Alephseq format");
@@ -58,8 +83,21 @@ public class CommonParameters implements Serializable {
       options.addOption("r", "trimId", false, "remove spaces from the end of record IDs");
       options.addOption("z", "ignorableFields", true, "ignore fields from the analysis");
       options.addOption("v", "ignorableRecords", true, "ignore records from the analysis");
-      options.addOption("m", "marcFormat", true, "MARC format (like 'ISO' or 'MARCXML')");
+      options.addOption("m", "marcFormat", true, "MARC format (like 'ISO', 'XML' or 'JSON')");
       options.addOption("m", "dataSource", true, "data source (file of stream)");
+      options.addOption("u", "threads", true, "the number of worker threads parsing and processing the records (default: 1)");
+      options.addOption(null, "batchSize", true, "with threads the number of records handed to a worker thread at once (default: 1)");
+      options.addOption("b", "dumpState", true, "save the aggregated state into this file instead of creating the reports (see Merge)");
+      options.addOption("e", "checkpoint", true, "periodically save the position and the aggregated state into this file");
+      options.addOption(null, "checkpointInterval", true, "the number of records between two checkpoints (default: 100000)");
+      options.addOption("j", "resume", false, "continue the processing from the checkpoint");
+      options.addOption(null, "parallelFiles", true, "the number of input files read at the same time (default: 1)");
+      options.addOption(null, "chunkSize", true, "with parallelFiles the ISO, MARCXML, Alephseq and normalized PICA+ files are read in chunks of this size in MB (default: 64)");
+      options.addOption(null, "picaSchemaFile", true, "the Avram schema of the PICA records (default: the K10plus schema)");
+      options.addOption(null, "sampleRate", true, "process a uniform random sample of the records with this rate (between 0 and 1)");
+      options.addOption(null, "sampleSize", true, "process a random sample (reservoir) of this number of records");
+      options.addOption(null, "stratifiedSample", false, "apply sampleRate or sampleSize to each record type separately");
+      options.addOption(null, "sampleSeed", true, "the seed of the random sampling (for reproducible samples)");
       isOptionSet = true;
     }
   }
@@ -95,6 +133,12 @@ public class CommonParameters implements Serializable {
     if (cmd.hasOption("id"))
       id = cmd.getOptionValue("id").trim();
 
+    if (cmd.hasOption("idFile"))
+      setIdFile(cmd.getOptionValue("idFile"));
+
+    if (cmd.hasOption("index"))
+      index = cmd.getOptionValue("index");
+
     if (cmd.hasOption("defaultRecordType"))
       setDefaultRecordType(cmd.getOptionValue("defaultRecordType"));
 
@@ -117,6 +161,55 @@ public class CommonParameters implements Serializable {
     if (cmd.hasOption("ignorableRecords"))
       setIgnorableRecords(cmd.getOptionValue("ignorableRecords"));
 
+    if (cmd.hasOption("threads"))
+      setThreads(cmd.getOptionValue("threads"));
+
+    if (cmd.hasOption("batchSize"))
+      setBatchSize(cmd.getOptionValue("batchSize"));
+
+    if (cmd.hasOption("dumpState"))
+      dumpState = cmd.getOptionValue("dumpState");
+
+    if (cmd.hasOption("checkpoint"))
+      checkpoint = cmd.getOptionValue("checkpoint");
+
+    if (cmd.hasOption("checkpointInterval"))
+      setCheckpointInterval(cmd.getOptionValue("checkpointInterval"));
+
+    resume = cmd.hasOption("resume");
+    if (resume && !doCheckpoint())
+      throw new ParseException("The resume parameter requires the checkpoint parameter");
+
+    if (cmd.hasOption("parallelFiles"))
+      setParallelFiles(cmd.getOptionValue("parallelFiles"));
+    if (parallelFiles > 1 && (offset > -1 || limit > -1 || doCheckpoint()))
+      throw new ParseException("The parallelFiles parameter can not be used together with offset, limit or checkpoint");
+
+    if (cmd.hasOption("chunkSize"))
+      setChunkSize(cmd.getOptionValue("chunkSize"));
+
+    if (cmd.hasOption("picaSchemaFile"))
+      picaSchemaFile = cmd.getOptionValue("picaSchemaFile");
+
+    if (cmd.hasOption("sampleRate"))
+      setSampleRate(cmd.getOptionValue("sampleRate"));
+
+    if (cmd.hasOption("sampleSize"))
+      setSampleSize(cmd.getOptionValue("sampleSize"));
+
+    if (sampleRate > 0 && sampleSize > 0)
+      throw new ParseException("The sampleRate and sampleSize parameters can not be used together");
+
+    stratifiedSample = cmd.hasOption("stratifiedSample");
+    if (stratifiedSample && !doSample())
+      throw new ParseException("The stratifiedSample parameter requires the sampleRate or the sampleSize parameter");
+
+    if (cmd.hasOption("sampleSeed"))
+      setSampleSeed(cmd.getOptionValue("sampleSeed"));
+
+    if (doSample() && (parallelFiles > 1 || doCheckpoint() || doDumpState()))
+      throw new ParseException("The sample parameters can not be used together with parallelFiles, checkpoint or dumpState");
+
     args = cmd.getArgs();
   }
 
@@ -222,6 +315,63 @@ public class CommonParameters implements Serializable {
     this.id = id;
   }
 
+  public String getIdFile() {
+    return idFile;
+  }
+
+  /**
+   * Reads the identifiers from the file, one per line. The empty lines are ignored.
+   */
+  public void setIdFile(String idFile) throws ParseException {
+    this.idFile = idFile;
+    ids = new LinkedHashSet<>();
+    try {
+      for (String line : Files.readAllLines(Paths.get(idFile)))
+        if (StringUtils.isNotBlank(line))
+          ids.add(line.trim());
+    } catch (IOException e) {
+      throw new ParseException(String.format("Unable to read the idFile parameter value: '%s'", idFile));
+    }
+  }
+
+  /**
+   * @return The records are selected by --id or --idFile
+   */
+  public boolean hasIds() {
+    return hasId() || ids != null;
+  }
+
+  /**
+   * @return The identifiers of --id and --idFile
+   */
+  public Set<String> getIds() {
+    Set<String> selected = new LinkedHashSet<>();
+    if (hasId())
+      selected.add(id);
+    if (ids != null)
+      selected.addAll(ids);
+    return selected;
+  }
+
+  /**
+   * @param recordId The identifier of a record (the content of 001)
+   * @return The record is selected by --id or --idFile
+   */
+  public boolean isSelectedId(String recordId) {
+    if (recordId == null)
+      return false;
+    String trimmed = recordId.trim();
+    return (hasId() && trimmed.equals(id)) || (ids != null && ids.contains(trimmed));
+  }
+
+  public String getIndex() {
+    return index;
+  }
+
+  public void setIndex(String index) {
+    this.index = index;
+  }
+
   public Leader.Type getDefaultRecordType() {
     return defaultRecordType;
   }
@@ -312,6 +462,214 @@ public class CommonParameters implements Serializable {
     this.stream = stream;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public void setThreads(String threads) throws ParseException {
+    try {
+      this.threads = Integer.parseInt(threads.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized threads parameter value: '%s'", threads));
+    }
+    if (this.threads < 1)
+      throw new ParseException(String.format("The threads parameter should be a positive number: '%s'", threads));
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public void setBatchSize(String batchSize) throws ParseException {
+    try {
+      this.batchSize = Integer.parseInt(batchSize.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized batchSize parameter value: '%s'", batchSize));
+    }
+    if (this.batchSize < 1)
+      throw new ParseException(String.format("The batchSize parameter should be a positive number: '%s'", batchSize));
+  }
+
+  public boolean doDumpState() {
+    return StringUtils.isNotBlank(dumpState);
+  }
+
+  public String getDumpState() {
+    return dumpState;
+  }
+
+  public void setDumpState(String dumpState) {
+    this.dumpState = dumpState;
+  }
+
+  public boolean doCheckpoint() {
+    return StringUtils.isNotBlank(checkpoint);
+  }
+
+  public String getCheckpoint() {
+    return checkpoint;
+  }
+
+  public void setCheckpoint(String checkpoint) {
+    this.checkpoint = checkpoint;
+  }
+
+  public int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  public void setCheckpointInterval(int checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  public void setCheckpointInterval(String checkpointInterval) throws ParseException {
+    try {
+      this.checkpointInterval = Integer.parseInt(checkpointInterval.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized checkpointInterval parameter value: '%s'", checkpointInterval));
+    }
+    if (this.checkpointInterval < 1)
+      throw new ParseException(String.format("The checkpointInterval parameter should be a positive number: '%s'", checkpointInterval));
+  }
+
+  public boolean doResume() {
+    return resume;
+  }
+
+  public void setResume(boolean resume) {
+    this.resume = resume;
+  }
+
+  public int getParallelFiles() {
+    return parallelFiles;
+  }
+
+  public void setParallelFiles(int parallelFiles) {
+    this.parallelFiles = parallelFiles;
+  }
+
+  public void setParallelFiles(String parallelFiles) throws ParseException {
+    try {
+      this.parallelFiles = Integer.parseInt(parallelFiles.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized parallelFiles parameter value: '%s'", parallelFiles));
+    }
+    if (this.parallelFiles < 1)
+      throw new ParseException(String.format("The parallelFiles parameter should be a positive number: '%s'", parallelFiles));
+  }
+
+  /**
+   * @return The chunk size in bytes
+   */
+  public long getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(long chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @param chunkSize The chunk size in MB
+   */
+  public void setChunkSize(String chunkSize) throws ParseException {
+    int megabytes;
+    try {
+      megabytes = Integer.parseInt(chunkSize.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized chunkSize parameter value: '%s'", chunkSize));
+    }
+    if (megabytes < 1)
+      throw new ParseException(String.format("The chunkSize parameter should be a positive number: '%s'", chunkSize));
+    this.chunkSize = megabytes * 1024L * 1024L;
+  }
+
+  public String getPicaSchemaFile() {
+    return picaSchemaFile;
+  }
+
+  public void setPicaSchemaFile(String picaSchemaFile) {
+    this.picaSchemaFile = picaSchemaFile;
+  }
+
+  /**
+   * @return The records are sampled (see --sampleRate and --sampleSize)
+   */
+  public boolean doSample() {
+    return sampleRate > 0 || sampleSize > 0;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public void setSampleRate(double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  public void setSampleRate(String sampleRate) throws ParseException {
+    try {
+      this.sampleRate = Double.parseDouble(sampleRate.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized sampleRate parameter value: '%s'", sampleRate));
+    }
+    if (this.sampleRate <= 0 || this.sampleRate > 1)
+      throw new ParseException(String.format("The sampleRate parameter should be between 0 and 1: '%s'", sampleRate));
+  }
+
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  public void setSampleSize(int sampleSize) {
+    this.sampleSize = sampleSize;
+  }
+
+  public void setSampleSize(String sampleSize) throws ParseException {
+    try {
+      this.sampleSize = Integer.parseInt(sampleSize.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized sampleSize parameter value: '%s'", sampleSize));
+    }
+    if (this.sampleSize < 1)
+      throw new ParseException(String.format("The sampleSize parameter should be a positive number: '%s'", sampleSize));
+  }
+
+  public boolean isStratifiedSample() {
+    return stratifiedSample;
+  }
+
+  public void setStratifiedSample(boolean stratifiedSample) {
+    this.stratifiedSample = stratifiedSample;
+  }
+
+  /**
+   * @return The seed of the sampling, or null for a different sample in each run
+   */
+  public Long getSampleSeed() {
+    return sampleSeed;
+  }
+
+  public void setSampleSeed(Long sampleSeed) {
+    this.sampleSeed = sampleSeed;
+  }
+
+  public void setSampleSeed(String sampleSeed) throws ParseException {
+    try {
+      this.sampleSeed = Long.parseLong(sampleSeed.trim());
+    } catch (NumberFormatException e) {
+      throw new ParseException(String.format("Unrecognized sampleSeed parameter value: '%s'", sampleSeed));
+    }
+  }
+
   public String formatParameters() {
     String text = "";
     text += String.format("marcVersion: %s, %s%n", marcVersion.getCode(), marcVersion.getLabel());
@@ -321,6 +679,8 @@ public class CommonParameters implements Serializable {
     text += String.format("offset: %s%n", offset);
     text += String.format("MARC files: %s%n", StringUtils.join(args, ", "));
     text += String.format("id: %s%n", id);
+    text += String.format("idFile: %s%n", idFile);
+    text += String.format("index: %s%n", index);
     text += String.format("defaultRecordType: %s%n", defaultRecordType);
     text += String.format("fixAlephseq: %s%n", fixAlephseq);
     text += String.format("alephseq: %s%n", alephseq);
@@ -330,6 +690,19 @@ public class CommonParameters implements Serializable {
     text += String.format("trimId: %s%n", trimId);
     text += String.format("ignorableFields: %s%n", ignorableFields);
     text += String.format("ignorableRecords: %s%n", ignorableRecords);
+    text += String.format("threads: %d%n", threads);
+    text += String.format("batchSize: %d%n", batchSize);
+    text += String.format("dumpState: %s%n", dumpState);
+    text += String.format("checkpoint: %s%n", checkpoint);
+    text += String.format("checkpointInterval: %d%n", checkpointInterval);
+    text += String.format("resume: %s%n", resume);
+    text += String.format("parallelFiles: %d%n", parallelFiles);
+    text += String.format("chunkSize: %d%n", chunkSize);
+    text += String.format("picaSchemaFile: %s%n", picaSchemaFile);
+    text += String.format("sampleRate: %s%n", sampleRate);
+    text += String.format("sampleSize: %d%n", sampleSize);
+    text += String.format("stratifiedSample: %s%n", stratifiedSample);
+    text += String.format("sampleSeed: %s%n", sampleSeed);
 
     return text;
   }
@@ -23,6 +23,10 @@ public class ShelfReadyCompletenessParameters extends CommonParameters {
     }
   }
 
+  public ShelfReadyCompletenessParameters() {
+    super();
+  }
+
   public ShelfReadyCompletenessParameters(String[] arguments) throws ParseException {
     super(arguments);
 
@@ -66,6 +66,13 @@ public class ValidatorParameters extends CommonParameters implements Serializabl
     if (cmd.hasOption("emptyLargeCollectors"))
       emptyLargeCollectors = true;
 
+    // the error identifiers are renumbered by Merge, but the files written by the shard keep them
+    if (doDumpState() && doDetails && doSummary && !useStandardOutput)
+      throw new ParseException("The details with summary can not be used together with dumpState, "
+        + "the error identifiers of the shards are different");
+    if (doDumpState() && emptyLargeCollectors)
+      throw new ParseException("The emptyLargeCollectors parameter can not be used together with dumpState");
+
     setCollectAllErrors(cmd.hasOption("collectAllErrors"));
   }
 
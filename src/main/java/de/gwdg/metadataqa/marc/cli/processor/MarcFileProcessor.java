@@ -2,11 +2,16 @@ package de.gwdg.metadataqa.marc.cli.processor;
 
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
+import de.gwdg.metadataqa.marc.cli.utils.RecordSample;
 import org.apache.commons.cli.Options;
 import org.marc4j.marc.Record;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 
 public interface MarcFileProcessor {
 
@@ -19,4 +24,110 @@ public interface MarcFileProcessor {
   void afterIteration(int numberOfprocessedRecords);
   void printHelp(Options options);
   boolean readyToProcess();
+
+  /**
+   * Processes the record, knowing the file (or the part of the file) it has been read from. With
+   * --parallelFiles several files are read at the same time, and with --threads the records are
+   * processed after the next file has been opened, so the file of a record is known only here,
+   * not from fileOpened().
+   * @param marcRecord The record
+   * @param recordNumber The number of the record
+   * @param fileName The name of the file or the file chunk ("stream" for the standard input)
+   */
+  default void processRecord(MarcRecord marcRecord, int recordNumber, String fileName) throws IOException {
+    processRecord(marcRecord, recordNumber);
+  }
+
+  /**
+   * Whether the processRecord() methods can be called from several worker threads at the same time.
+   * A processor which returns false is still usable in multi-threaded mode (--threads), but the
+   * RecordIterator serializes the calls of its processRecord() methods, so only the record parsing
+   * runs in parallel. A processor which returns true is responsible for guarding its shared state.
+   * @return true if the processor is thread-safe
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
+  /**
+   * Which representations of the records the processor works with. The RecordIterator creates the
+   * MarcRecord object only for the processors which use it, and it calls only the processRecord()
+   * methods of the returned representations.
+   * @return The representation(s) of the record
+   */
+  default RecordRepresentation getRecordRepresentation() {
+    return RecordRepresentation.BOTH;
+  }
+
+  /**
+   * A cheap pre-filter, which runs in the reading thread before the MarcRecord is created. It
+   * should check only the simple properties of the marc4j record (such as the leader, the type or
+   * the identifier), see also Leader.detectType(). If it returns false, neither of the
+   * processRecord() methods is called for the record. With --parallelFiles there are several
+   * reading threads, so it should not change the state of the processor.
+   * @param marc4jRecord The record as it has been read
+   * @return false if the processor is not interested in the record
+   */
+  default boolean acceptRecord(Record marc4jRecord) {
+    return true;
+  }
+
+  /**
+   * Called before beforeIteration() if only a random sample of the records is processed (see
+   * --sampleRate and --sampleSize). The processor can estimate the numbers of the whole dataset
+   * from its counts by strata (see RecordSample.Counter).
+   * @param sample The sample
+   */
+  default void setSample(RecordSample sample) {
+    // the processor reports the counts of the sample
+  }
+
+  /**
+   * Whether the processor can export its aggregated state with snapshot() and combine it with the
+   * state of another run with merge(). It lets split a dataset into shards, process them in
+   * separate processes, and create the reports from the merged state.
+   * @return true if the processor supports snapshot() and merge()
+   */
+  default boolean isMergeable() {
+    return false;
+  }
+
+  /**
+   * Whether the processing can be saved periodically (--checkpoint) and continued from the last
+   * saved position (--resume). The checkpoint contains the snapshot() of the processor, so by
+   * default the mergeable processors support it. A processor without aggregated state (e.g. the
+   * Solr indexing) can support it without being mergeable, its snapshot() returns null.
+   * @return true if the processor supports --checkpoint
+   */
+  default boolean isCheckpointable() {
+    return isMergeable();
+  }
+
+  /**
+   * The files which the processor appends to while it processes the records (e.g. the validation
+   * details). The checkpoint contains their lengths, and --resume truncates them to these lengths,
+   * so the records processed again after the checkpoint are not written twice. On --resume the
+   * processor should keep these files in beforeIteration().
+   * @return The files written during the iteration
+   */
+  default List<File> getAppendedFiles() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the aggregated (not yet reported) state of the processor.
+   * @return The partial state
+   */
+  default Serializable snapshot() {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support snapshots");
+  }
+
+  /**
+   * Adds the partial state of another run to the state of this processor. The partial states
+   * should be merged in the same order as the shards follow each other in the dataset.
+   * @param snapshot A partial state created by snapshot()
+   */
+  default void merge(Serializable snapshot) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support merge");
+  }
 }
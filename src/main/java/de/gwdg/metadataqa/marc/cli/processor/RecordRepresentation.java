@@ -0,0 +1,39 @@
+package de.gwdg.metadataqa.marc.cli.processor;
+
+/**
+ * The representations of a record a processor works with: the marc4j Record (as it has been read)
+ * and/or the MarcRecord (created from the marc4j Record by MarcFactory).
+ */
+public enum RecordRepresentation {
+  MARC4J(true, false),
+  MARC_RECORD(false, true),
+  BOTH(true, true)
+  ;
+
+  private final boolean marc4j;
+  private final boolean marcRecord;
+
+  RecordRepresentation(boolean marc4j, boolean marcRecord) {
+    this.marc4j = marc4j;
+    this.marcRecord = marcRecord;
+  }
+
+  public boolean usesMarc4j() {
+    return marc4j;
+  }
+
+  public boolean usesMarcRecord() {
+    return marcRecord;
+  }
+
+  /**
+   * @return The representation which covers both this and the other representation
+   */
+  public RecordRepresentation combine(RecordRepresentation other) {
+    boolean combinedMarc4j = marc4j || other.marc4j;
+    boolean combinedMarcRecord = marcRecord || other.marcRecord;
+    if (combinedMarc4j && combinedMarcRecord)
+      return BOTH;
+    return combinedMarc4j ? MARC4J : MARC_RECORD;
+  }
+}
@@ -0,0 +1,132 @@
+package de.gwdg.metadataqa.marc.cli.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The position of a running iteration (the current file, the number of records read from it, and
+ * the byte position of the next record if the reader knows it) together with the aggregated state
+ * of the processor and the lengths of its output files. The --resume parameter continues the iteration from here.
+ * The file is a gzipped Java serialization of this object.
+ */
+public class Checkpoint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String processorClass;
+  private final int fileIndex;
+  private final String fileName;
+  private final int recordsInFile;
+  private final long position;
+  private final int recordNumber;
+  private final String lastKnownId;
+  private final Serializable state;
+  private final Map<String, Long> fileLengths;
+
+  public Checkpoint(String processorClass,
+                    int fileIndex,
+                    String fileName,
+                    int recordsInFile,
+                    long position,
+                    int recordNumber,
+                    String lastKnownId,
+                    Serializable state,
+                    Map<String, Long> fileLengths) {
+    this.processorClass = processorClass;
+    this.fileIndex = fileIndex;
+    this.fileName = fileName;
+    this.recordsInFile = recordsInFile;
+    this.position = position;
+    this.recordNumber = recordNumber;
+    this.lastKnownId = lastKnownId;
+    this.state = state;
+    this.fileLengths = fileLengths;
+  }
+
+  /**
+   * Writes the checkpoint into a temporary file first, so an interrupted write does not destroy
+   * the previous checkpoint.
+   */
+  public static void write(Checkpoint checkpoint, Path path) throws IOException {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var out = new ObjectOutputStream(
+      new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))) {
+      out.writeObject(checkpoint);
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public static Checkpoint read(Path path) throws IOException {
+    try (var in = new ObjectInputStream(
+      new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path))))) {
+      return (Checkpoint) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException(String.format("%s is not a checkpoint file", path), e);
+    }
+  }
+
+  public String getProcessorClass() {
+    return processorClass;
+  }
+
+  /**
+   * @return The index of the current file among the input files
+   */
+  public int getFileIndex() {
+    return fileIndex;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * @return The number of records read from the current file (including the skipped ones)
+   */
+  public int getRecordsInFile() {
+    return recordsInFile;
+  }
+
+  /**
+   * @return The byte position of the next record in the current file, or -1 if it is unknown
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * @return The number of records read in all the files
+   */
+  public int getRecordNumber() {
+    return recordNumber;
+  }
+
+  public String getLastKnownId() {
+    return lastKnownId;
+  }
+
+  /**
+   * @return The lengths of the files the processor appends to, by their paths
+   */
+  public Map<String, Long> getFileLengths() {
+    return fileLengths == null ? Collections.emptyMap() : fileLengths;
+  }
+
+  /**
+   * @return The snapshot of the processor, or null if the processor has no state
+   */
+  public Serializable getState() {
+    return state;
+  }
+}
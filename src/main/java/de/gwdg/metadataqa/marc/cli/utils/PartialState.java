@@ -0,0 +1,62 @@
+package de.gwdg.metadataqa.marc.cli.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The serialized aggregated state of a processor, which processed a shard of a dataset.
+ * The file is a gzipped Java serialization of this object.
+ */
+public class PartialState implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String processorClass;
+  private final int numberOfRecords;
+  private final Serializable state;
+
+  public PartialState(String processorClass, int numberOfRecords, Serializable state) {
+    this.processorClass = processorClass;
+    this.numberOfRecords = numberOfRecords;
+    this.state = state;
+  }
+
+  public static void write(PartialState partialState, Path path) throws IOException {
+    try (var out = new ObjectOutputStream(
+      new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(path))))) {
+      out.writeObject(partialState);
+    }
+  }
+
+  public static PartialState read(Path path) throws IOException {
+    try (var in = new ObjectInputStream(
+      new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path))))) {
+      return (PartialState) in.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException(String.format("%s is not a partial state file", path), e);
+    }
+  }
+
+  public String getProcessorClass() {
+    return processorClass;
+  }
+
+  /**
+   * @return The number of records in the shard (the records skipped by --offset are not included)
+   */
+  public int getNumberOfRecords() {
+    return numberOfRecords;
+  }
+
+  public Serializable getState() {
+    return state;
+  }
+}
@@ -5,9 +5,20 @@ import de.gwdg.metadataqa.marc.dao.Leader;
 import de.gwdg.metadataqa.marc.MarcFactory;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.cli.processor.MarcFileProcessor;
+import de.gwdg.metadataqa.marc.cli.processor.RecordRepresentation;
 import de.gwdg.metadataqa.marc.definition.DataSource;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
 import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import de.gwdg.metadataqa.marc.utils.Compression;
 import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import de.gwdg.metadataqa.marc.utils.marcreader.FileChunk;
+import de.gwdg.metadataqa.marc.utils.marcreader.MappedIsoMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.NativeRecord;
+import de.gwdg.metadataqa.marc.utils.marcreader.RecordIndex;
+import de.gwdg.metadataqa.marc.utils.marcreader.SeekableMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.SkippableMarcReader;
+import de.gwdg.metadataqa.marc.utils.pica.PicaFieldDefinition;
+import de.gwdg.metadataqa.marc.utils.pica.PicaSchemaReader;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -15,10 +26,27 @@ import org.marc4j.MarcException;
 import org.marc4j.MarcReader;
 import org.marc4j.marc.Record;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +58,7 @@ import java.util.logging.Logger;
 public class RecordIterator {
 
   private static final Logger logger = Logger.getLogger(RecordIterator.class.getCanonicalName());
+  private static final int QUEUE_SIZE_PER_THREAD = 100;
   private final MarcFileProcessor processor;
   private int i = 0;
   private String lastKnownId = "";
@@ -37,7 +66,19 @@ public class RecordIterator {
   private boolean fixAlephseq;
   private MarcVersion marcVersion;
   private Leader.Type defaultRecordType;
+  private RecordRepresentation representation;
   private DecimalFormat decimalFormat;
+  private ExecutorService workers;
+  private Semaphore queueSlots;
+  private int queueSize;
+  private int batchSize = 1;
+  private int fileIndex = 0;
+  private int recordsInFile = 0;
+  private int lastCheckpoint = 0;
+  private Checkpoint resumeFrom = null;
+  private AtomicInteger recordCounter = null;
+  private Map<String, PicaFieldDefinition> picaSchema = null;
+  private RecordSample sample = null;
 
   public RecordIterator(MarcFileProcessor processor) {
     this.processor = processor;
@@ -46,23 +87,55 @@ public class RecordIterator {
   public void start() {
 
     long start = System.currentTimeMillis();
-    processor.beforeIteration();
     CommonParameters parameters = processor.getParameters();
+    if (parameters.doDumpState() && !processor.isMergeable()) {
+      logger.severe(String.format("%s does not support --dumpState", processor.getClass().getSimpleName()));
+      return;
+    }
+    if (parameters.doCheckpoint() && !processor.isCheckpointable()) {
+      logger.severe(String.format("%s does not support --checkpoint", processor.getClass().getSimpleName()));
+      return;
+    }
+    if (parameters.doResume() && !readCheckpoint(parameters))
+      return;
+    if (parameters.doSample()) {
+      sample = new RecordSample(parameters);
+      processor.setSample(sample);
+    }
+    processor.beforeIteration();
 
     marcVersion = parameters.getMarcVersion();
     defaultRecordType = parameters.getDefaultRecordType();
     fixAlephseq = parameters.fixAlephseq();
+    representation = processor.getRecordRepresentation();
     decimalFormat = new DecimalFormat();
+    if (parameters.getMarcFormat() == MarcFormat.PICA_NORMALIZED && representation.usesMarcRecord())
+      picaSchema = readPicaSchema(parameters);
+    if (resumeFrom != null)
+      resume();
 
     if (processor.getParameters().doLog())
       logger.info("marcVersion: " + marcVersion.getCode() + ", " + marcVersion.getLabel());
 
+    batchSize = parameters.getBatchSize();
+    if (parameters.getThreads() > 1)
+      startWorkers(parameters.getThreads());
+
     if (parameters.getDataSource().equals(DataSource.FILE)) {
       String[] inputFileNames = processor.getParameters().getArgs();
-      for (String inputFileName : inputFileNames) {
-        if (!processor.readyToProcess())
-          break;
-        processFile(inputFileName);
+      boolean isIndexed = parameters.getIndex() != null && parameters.hasIds() && processIndexedRecords(parameters);
+      if (isIndexed) {
+        logger.fine("the files are not scanned, the records have been read through the ID index");
+      } else if (parameters.getParallelFiles() > 1) {
+        processFilesInParallel(inputFileNames, parameters.getParallelFiles());
+      } else {
+        for (fileIndex = 0; fileIndex < inputFileNames.length; fileIndex++) {
+          if (!processor.readyToProcess())
+            break;
+          if (resumeFrom != null && fileIndex < resumeFrom.getFileIndex())
+            continue;
+          processFile(Paths.get(inputFileNames[fileIndex]), null);
+        }
       }
     } else if (parameters.getDataSource().equals(DataSource.STREAM)) {
       try {
@@ -74,7 +147,16 @@ public class RecordIterator {
       }
     }
 
-    processor.afterIteration(i);
+    if (sample != null)
+      processReservoir();
+
+    stopWorkers();
+    if (parameters.doDumpState())
+      dumpState(parameters);
+    else
+      processor.afterIteration(i);
+    if (parameters.doCheckpoint() && processor.readyToProcess())
+      removeCheckpoint(parameters);
 
     long end = System.currentTimeMillis();
     long duration = (end - start) / 1000;
@@ -83,19 +165,29 @@ public class RecordIterator {
         LocalTime.MIN.plusSeconds(duration).toString()));
   }
 
-  private void processFile(String inputFileName) {
-    var path = Paths.get(inputFileName);
-    String fileName = path.getFileName().toString();
+  /**
+   * @param path The input file
+   * @param chunk The part of the file to read, or null to read the whole file
+   */
+  private void processFile(Path path, FileChunk chunk) {
+    String fileName = chunk == null ? path.getFileName().toString() : chunk.toString();
 
     if (processor.getParameters().doLog())
       logger.info("processing: " + fileName);
 
+    MarcReader reader = null;
     try {
       processor.fileOpened(path);
-      MarcReader reader = getMarcFileReader(processor.getParameters(), path);
-      processContent(reader, fileName);
-      if (processor.getParameters().doLog())
-        logger.info(String.format("Finished processing file. Processed %s records.", decimalFormat.format(i)));
+      reader = chunk == null
+        ? getMarcFileReader(processor.getParameters(), path)
+        : ReadMarc.getChunkReader(processor.getParameters().getMarcFormat(), chunk);
+      if (recordCounter != null) {
+        processContentInParallel(reader, fileName);
+      } else {
+        processContent(reader, fileName);
+        if (processor.getParameters().doLog())
+          logger.info(String.format("Finished processing file. Processed %s records.", decimalFormat.format(i)));
+      }
 
     } catch (SolrServerException ex) {
       if (processor.getParameters().doLog())
@@ -119,16 +211,43 @@ public class RecordIterator {
       }
       logger.log(Level.SEVERE, "start", ex);
       System.exit(0);
+    } finally {
+      // the loop might stop before the end of the file (--limit, readyToProcess())
+      closeReader(reader);
+    }
+  }
+
+  private void closeReader(MarcReader reader) {
+    if (!(reader instanceof Closeable))
+      return;
+    try {
+      ((Closeable) reader).close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
     }
   }
 
   private void processContent(MarcReader reader, String fileName) {
+    recordsInFile = 0;
+    if (resumeFrom != null)
+      repositionReader(reader, fileName);
+    skipUnderOffset(reader, fileName);
+    var batch = new RecordBatch();
     while (reader.hasNext()) {
       if (!processor.readyToProcess())
         break;
 
+      if (isCheckpointDue()) {
+        submit(batch, fileName);
+        saveCheckpoint(reader, fileName);
+      }
+
+      if (sample != null && skipUnsampled(reader))
+        continue;
+
       Record marc4jRecord = getNextMarc4jRecord(i, lastKnownId, reader);
       i++;
+      recordsInFile++;
       if (marc4jRecord == null)
         continue;
 
@@ -146,32 +265,526 @@ public class RecordIterator {
         lastKnownId = marc4jRecord.getControlNumber();
       }
 
+      if (sample != null && !sample.select(marc4jRecord, i))
+        continue;
+
       if (skipRecord(marc4jRecord))
         continue;
 
+      if (!processor.acceptRecord(marc4jRecord))
+        continue;
+
+      dispatch(batch, marc4jRecord, i, fileName);
+    }
+    submit(batch, fileName);
+    awaitWorkers();
+  }
+
+  /**
+   * If the reader supports it, steps over the records which are not in the sample without parsing
+   * them (but not over --limit).
+   * @return true if records have been skipped
+   */
+  private boolean skipUnsampled(MarcReader reader) {
+    int skippable = sample.getSkippable();
+    int limit = processor.getParameters().getLimit();
+    if (limit > -1)
+      skippable = Math.min(skippable, Math.max(0, limit - i));
+    if (skippable == 0 || !(reader instanceof SkippableMarcReader))
+      return false;
+
+    int skipped = ((SkippableMarcReader) reader).skip(skippable);
+    sample.skipped(skipped);
+    i += skipped;
+    recordsInFile += skipped;
+    return skipped > 0;
+  }
+
+  /**
+   * Processes the records of the reservoir (--sampleSize) after all the records have been read.
+   */
+  private void processReservoir() {
+    var batch = new RecordBatch();
+    for (RecordSample.SampledRecord sampledRecord : sample.getReservoir()) {
+      if (!processor.readyToProcess())
+        break;
+      Record marc4jRecord = sampledRecord.getMarc4jRecord();
+      if (skipRecord(marc4jRecord) || !processor.acceptRecord(marc4jRecord))
+        continue;
+      dispatch(batch, marc4jRecord, sampledRecord.getRecordNumber(), "sample");
+    }
+    submit(batch, "sample");
+    awaitWorkers();
+
+    if (processor.getParameters().doLog())
+      logger.info(String.format("%s records sampled from %s records",
+        decimalFormat.format(sample.getSampleSize()), decimalFormat.format(sample.getPopulation())));
+  }
+
+  /**
+   * Reads the records of --id and --idFile directly from the positions found in the ID index,
+   * in the order of the files.
+   * @return false if the index can not be used (then the files should be scanned)
+   */
+  private boolean processIndexedRecords(CommonParameters parameters) {
+    if (parameters.getMarcFormat() != MarcFormat.ISO) {
+      logger.warning(String.format("The ID index can not be used with %s files", parameters.getMarcFormat().getLabel()));
+      return false;
+    }
+
+    List<RecordIndex.Location> locations = new ArrayList<>();
+    try (var index = RecordIndex.open(Paths.get(parameters.getIndex()))) {
+      if (!index.isUpToDate()) {
+        logger.warning(String.format("The ID index %s is older than the MARC files, they are scanned instead",
+          parameters.getIndex()));
+        return false;
+      }
+      for (String id : parameters.getIds()) {
+        List<RecordIndex.Location> found = index.lookup(id);
+        if (found.isEmpty())
+          logger.warning(String.format("%s is not in the ID index", id));
+        locations.addAll(found);
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "processIndexedRecords", e);
+      return false;
+    }
+    locations.sort(Comparator.comparing(RecordIndex.Location::getPath)
+      .thenComparingLong(RecordIndex.Location::getStart));
+
+    Path currentFile = null;
+    for (RecordIndex.Location location : locations) {
+      if (!processor.readyToProcess())
+        break;
+      if (!location.getPath().equals(currentFile)) {
+        currentFile = location.getPath();
+        processor.fileOpened(currentFile);
+      }
+      FileChunk chunk = location.toChunk();
+      try (var reader = new MappedIsoMarcReader(chunk)) {
+        processContent(reader, chunk.toString());
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "processIndexedRecords", e);
+      }
+    }
+    if (parameters.doLog())
+      logger.info(String.format("%d records found in the ID index", locations.size()));
+    return true;
+  }
+
+  /**
+   * Reads several files at the same time on a work-stealing pool. The large ISO files are split
+   * into chunks at record boundaries (see --chunkSize), so a single file is also read by several
+   * threads. The largest parts are started first, so the small ones fill the gaps at the end. The
+   * records get unique numbers from a shared counter, but the numbers do not follow the order of
+   * the files.
+   */
+  private void processFilesInParallel(String[] inputFileNames, int parallelFiles) {
+    recordCounter = new AtomicInteger(0);
+    List<FileChunk> parts = new ArrayList<>();
+    for (String fileName : inputFileNames)
+      parts.addAll(splitFile(fileName));
+    parts.sort(Comparator.comparingLong(FileChunk::getLength).reversed());
+
+    if (processor.getParameters().doLog())
+      logger.info(String.format("processing %d files in %d parts, %d at the same time",
+        inputFileNames.length, parts.size(), parallelFiles));
+
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (FileChunk part : parts) {
+      tasks.add(() -> {
+        if (processor.readyToProcess())
+          processFile(part.getPath(), isWholeFile(part) ? null : part);
+        return null;
+      });
+    }
+
+    ExecutorService pool = Executors.newWorkStealingPool(parallelFiles);
+    try {
+      pool.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "processFilesInParallel", e);
+      Thread.currentThread().interrupt();
+    } finally {
+      pool.shutdown();
+    }
+    i = recordCounter.get();
+  }
+
+  /**
+   * Splits the file into chunks if it is larger than --chunkSize and its format supports it,
+   * otherwise the file is a single part.
+   */
+  private List<FileChunk> splitFile(String fileName) {
+    var path = Paths.get(fileName);
+    long size = path.toFile().length();
+    long chunkSize = processor.getParameters().getChunkSize();
+    if (size > chunkSize) {
       try {
-        processor.processRecord(marc4jRecord, i);
-        MarcRecord marcRecord = MarcFactory.createFromMarc4j(marc4jRecord, defaultRecordType, marcVersion, fixAlephseq);
+        List<FileChunk> chunks = ReadMarc.splitFile(processor.getParameters().getMarcFormat(), fileName, chunkSize);
+        if (chunks != null)
+          return chunks;
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "splitFile", e);
+      }
+    }
+    return List.of(new FileChunk(path, 0, size));
+  }
+
+  private static boolean isWholeFile(FileChunk part) {
+    return part.getStart() == 0 && part.getEnd() == part.getPath().toFile().length();
+  }
+
+  /**
+   * The reading loop of a file, when several files are read at the same time. The counters are
+   * local to the file, --offset, --limit and --checkpoint are not supported.
+   */
+  private void processContentInParallel(MarcReader reader, String fileName) {
+    long start = System.currentTimeMillis();
+    var fileDecimalFormat = new DecimalFormat();
+    int recordsInThisFile = 0;
+    String lastKnownIdInFile = "";
+    var batch = new RecordBatch();
+    while (reader.hasNext()) {
+      if (!processor.readyToProcess())
+        break;
+
+      Record marc4jRecord = getNextMarc4jRecord(recordsInThisFile, lastKnownIdInFile, reader);
+      int recordNumber = recordCounter.incrementAndGet();
+      recordsInThisFile++;
+      if (marc4jRecord == null)
+        continue;
+
+      if (marc4jRecord.getControlNumber() == null) {
+        logger.severe(String.format("No record number at %d (%s/%d), last known ID: %s",
+          recordNumber, fileName, recordsInThisFile, lastKnownIdInFile));
+        System.err.println(marc4jRecord);
+        continue;
+      } else {
+        lastKnownIdInFile = marc4jRecord.getControlNumber();
+      }
+
+      if (recordsInThisFile % 100000 == 0 && processor.getParameters().doLog())
+        logger.info(String.format("%s: %s records", fileName, fileDecimalFormat.format(recordsInThisFile)));
+
+      if (skipRecord(marc4jRecord))
+        continue;
+
+      if (!processor.acceptRecord(marc4jRecord))
+        continue;
+
+      dispatch(batch, marc4jRecord, recordNumber, fileName);
+    }
+    submit(batch, fileName);
+
+    if (processor.getParameters().doLog())
+      logger.info(String.format("Finished processing %s. Processed %s records in %s.",
+        fileName, fileDecimalFormat.format(recordsInThisFile),
+        LocalTime.MIN.plusSeconds((System.currentTimeMillis() - start) / 1000)));
+  }
+
+  /**
+   * If the reader supports it, steps over the records before --offset without parsing them.
+   */
+  private void skipUnderOffset(MarcReader reader, String fileName) {
+    int offset = processor.getParameters().getOffset();
+    if (!(reader instanceof SkippableMarcReader) || !isUnderOffset(offset, i + 1))
+      return;
+
+    int skipped = ((SkippableMarcReader) reader).skip(offset - 1 - i);
+    i += skipped;
+    recordsInFile += skipped;
+    if (processor.getParameters().doLog())
+      logger.info(String.format("%s: skipped %s records", fileName, decimalFormat.format(skipped)));
+  }
+
+  /**
+   * Processes the record in the current thread, or - if worker threads are running - adds it to
+   * the batch, which is queued for them when it has --batchSize records.
+   */
+  private void dispatch(RecordBatch batch, Record marc4jRecord, int recordNumber, String fileName) {
+    if (workers == null) {
+      processRecord(marc4jRecord, recordNumber, fileName);
+      return;
+    }
+
+    batch.add(marc4jRecord, recordNumber);
+    if (batch.size() >= batchSize)
+      submit(batch, fileName);
+  }
+
+  /**
+   * Queues the records of the batch for the workers as a single task, and empties the batch. The
+   * reader blocks if the queue is full.
+   */
+  private void submit(RecordBatch batch, String fileName) {
+    if (workers == null || batch.size() == 0)
+      return;
+
+    try {
+      queueSlots.acquire();
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "dispatch", e);
+      Thread.currentThread().interrupt();
+      return;
+    }
+    List<Record> records = new ArrayList<>(batch.records);
+    int[] recordNumbers = Arrays.copyOf(batch.recordNumbers, records.size());
+    batch.clear();
+    workers.execute(() -> {
+      try {
+        for (int n = 0; n < records.size(); n++)
+          processRecord(records.get(n), recordNumbers[n], fileName);
+      } finally {
+        queueSlots.release();
+      }
+    });
+  }
+
+  private void processRecord(Record marc4jRecord, int recordNumber, String fileName) {
+    try {
+      if (representation.usesMarc4j()) {
+        if (processor.isThreadSafe()) {
+          processor.processRecord(marc4jRecord, recordNumber);
+        } else {
+          synchronized (processor) {
+            processor.processRecord(marc4jRecord, recordNumber);
+          }
+        }
+      }
+      if (representation.usesMarcRecord()) {
+        MarcRecord marcRecord;
+        if (picaSchema != null)
+          marcRecord = MarcFactory.createPicaFromMarc4j(marc4jRecord, picaSchema);
+        else if (marc4jRecord instanceof NativeRecord)
+          marcRecord = ((NativeRecord) marc4jRecord).toMarcRecord(defaultRecordType, marcVersion, fixAlephseq);
+        else
+          marcRecord = MarcFactory.createFromMarc4j(marc4jRecord, defaultRecordType, marcVersion, fixAlephseq);
         try {
-          processor.processRecord(marcRecord, i);
+          if (processor.isThreadSafe()) {
+            processor.processRecord(marcRecord, recordNumber, fileName);
+          } else {
+            synchronized (processor) {
+              processor.processRecord(marcRecord, recordNumber, fileName);
+            }
+          }
         } catch(Exception e) {
           logger.log(Level.SEVERE, "start", e);
         }
+      }
 
-        if (i % 100000 == 0 && processor.getParameters().doLog())
-          logger.info(String.format("%s/%s (%s)", fileName, decimalFormat.format(i), marcRecord.getId()));
-      } catch (IllegalArgumentException e) {
-        extracted(i, marc4jRecord, e, "Error (illegal argument) with record '%s'. %s");
-      } catch (Exception e) {
-        extracted(i, marc4jRecord, e, "Error (general) with record '%s'. %s");
+      if (recordNumber % 100000 == 0 && processor.getParameters().doLog())
+        logger.info(String.format("%s/%s (%s)", fileName, decimalFormat.format(recordNumber), marc4jRecord.getControlNumber()));
+    } catch (IllegalArgumentException e) {
+      extracted(recordNumber, marc4jRecord, e, "Error (illegal argument) with record '%s'. %s");
+    } catch (Exception e) {
+      extracted(recordNumber, marc4jRecord, e, "Error (general) with record '%s'. %s");
+    }
+  }
+
+  /**
+   * Saves the state of the processor instead of creating the reports. The reports are created by
+   * the Merge command from the states of all the shards.
+   */
+  private void dumpState(CommonParameters parameters) {
+    int lastRecord = isOverLimit(parameters.getLimit(), i) ? parameters.getLimit() : i;
+    int numberOfRecords = Math.max(0, lastRecord - Math.max(parameters.getOffset() - 1, 0));
+    var partialState = new PartialState(processor.getClass().getName(), numberOfRecords, processor.snapshot());
+    try {
+      PartialState.write(partialState, Paths.get(parameters.getDumpState()));
+      if (parameters.doLog())
+        logger.info(String.format("state of %s records saved to %s",
+          decimalFormat.format(numberOfRecords), parameters.getDumpState()));
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "dumpState", e);
+    }
+  }
+
+  /**
+   * Reads the checkpoint of an earlier run. If there is no checkpoint file, the processing starts
+   * from the beginning.
+   * @return false if the checkpoint can not be used
+   */
+  private boolean readCheckpoint(CommonParameters parameters) {
+    Path path = Paths.get(parameters.getCheckpoint());
+    if (!Files.exists(path)) {
+      logger.info(String.format("no checkpoint at %s, processing from the beginning", path));
+      parameters.setResume(false);
+      return true;
+    }
+
+    try {
+      resumeFrom = Checkpoint.read(path);
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "readCheckpoint", e);
+      return false;
+    }
+    if (!resumeFrom.getProcessorClass().equals(processor.getClass().getName())) {
+      logger.severe(String.format("the checkpoint has been created by %s, not by %s",
+        resumeFrom.getProcessorClass(), processor.getClass().getName()));
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Restores the state of the processor and the record counter from the checkpoint. The reader is
+   * repositioned when the file of the checkpoint is opened.
+   */
+  private void resume() {
+    if (resumeFrom.getState() != null)
+      processor.merge(resumeFrom.getState());
+    truncateAppendedFiles();
+    i = resumeFrom.getRecordNumber();
+    lastCheckpoint = i;
+    lastKnownId = resumeFrom.getLastKnownId();
+    if (processor.getParameters().doLog())
+      logger.info(String.format("resuming from record %s (last known ID: %s)",
+        decimalFormat.format(i), lastKnownId));
+  }
+
+  /**
+   * The processor might have written into its files after the checkpoint, these records are
+   * processed again, so the files are cut back to their lengths at the checkpoint.
+   */
+  private void truncateAppendedFiles() {
+    for (Map.Entry<String, Long> entry : resumeFrom.getFileLengths().entrySet()) {
+      var path = Paths.get(entry.getKey());
+      if (!Files.exists(path))
+        continue;
+      try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.truncate(entry.getValue());
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "truncateAppendedFiles", e);
       }
     }
   }
 
+  /**
+   * Moves the reader to the record after the checkpoint: jumps to the byte position if the reader
+   * supports it, otherwise steps over the records already read.
+   */
+  private void repositionReader(MarcReader reader, String fileName) {
+    if (!resumeFrom.getFileName().equals(fileName))
+      logger.warning(String.format("the checkpoint has been created at file %s, but the file is %s",
+        resumeFrom.getFileName(), fileName));
+
+    recordsInFile = resumeFrom.getRecordsInFile();
+    if (reader instanceof SeekableMarcReader && resumeFrom.getPosition() > -1) {
+      ((SeekableMarcReader) reader).seek(resumeFrom.getPosition());
+    } else if (reader instanceof SkippableMarcReader) {
+      ((SkippableMarcReader) reader).skip(recordsInFile);
+    } else {
+      for (int n = 0; n < recordsInFile && reader.hasNext(); n++)
+        getNextMarc4jRecord(i, lastKnownId, reader);
+    }
+    resumeFrom = null;
+    if (processor.getParameters().doLog())
+      logger.info(String.format("%s: continues after %s records", fileName, decimalFormat.format(recordsInFile)));
+  }
+
+  /**
+   * The record counter might step more than one at a time (e.g. when the unsampled records are
+   * skipped), so the distance from the last checkpoint is checked, not the multiples.
+   */
+  private boolean isCheckpointDue() {
+    CommonParameters parameters = processor.getParameters();
+    return parameters.doCheckpoint()
+      && i - lastCheckpoint >= parameters.getCheckpointInterval();
+  }
+
+  /**
+   * Saves the position and the state of the processor. The queued records are processed first, so
+   * the state contains all the records read so far.
+   */
+  private void saveCheckpoint(MarcReader reader, String fileName) {
+    awaitWorkers();
+    long position = reader instanceof SeekableMarcReader
+      ? ((SeekableMarcReader) reader).getPosition()
+      : -1;
+    Map<String, Long> fileLengths = new HashMap<>();
+    for (File file : processor.getAppendedFiles())
+      fileLengths.put(file.getPath(), file.length());
+    var checkpoint = new Checkpoint(processor.getClass().getName(), fileIndex, fileName, recordsInFile,
+      position, i, lastKnownId, processor.snapshot(), fileLengths);
+    try {
+      Checkpoint.write(checkpoint, Paths.get(processor.getParameters().getCheckpoint()));
+      lastCheckpoint = i;
+      if (processor.getParameters().doLog())
+        logger.info(String.format("checkpoint at record %s (%s)", decimalFormat.format(i), fileName));
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "saveCheckpoint", e);
+    }
+  }
+
+  /**
+   * The run is complete, so a later --resume should not continue it.
+   */
+  private void removeCheckpoint(CommonParameters parameters) {
+    try {
+      Files.deleteIfExists(Paths.get(parameters.getCheckpoint()));
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "removeCheckpoint", e);
+    }
+  }
+
+  private void startWorkers(int threads) {
+    queueSize = threads * QUEUE_SIZE_PER_THREAD;
+    queueSlots = new Semaphore(queueSize);
+    workers = Executors.newFixedThreadPool(threads);
+    if (processor.getParameters().doLog())
+      logger.info(String.format("processing with %d worker threads (thread-safe processor: %s)",
+        threads, processor.isThreadSafe()));
+  }
+
+  /**
+   * Waits until the workers have processed all queued records.
+   */
+  private void awaitWorkers() {
+    if (workers == null)
+      return;
+    try {
+      queueSlots.acquire(queueSize);
+      queueSlots.release(queueSize);
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "awaitWorkers", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void stopWorkers() {
+    if (workers == null)
+      return;
+    awaitWorkers();
+    workers.shutdown();
+    workers = null;
+  }
+
+  /**
+   * If the processor needs only MarcRecord objects, the uncompressed ISO files are read by the
+   * memory mapped reader, which creates them without the marc4j data fields.
+   */
   private MarcReader getMarcFileReader(CommonParameters parameters, Path path) throws Exception {
+    if (parameters.getMarcFormat() == MarcFormat.ISO
+        && representation == RecordRepresentation.MARC_RECORD
+        && Compression.detect(path) == Compression.NONE)
+      return ReadMarc.getMappedIsoFileReader(path.toString());
     return ReadMarc.getFileReader(parameters.getMarcFormat(), path.toString());
   }
 
+  /**
+   * The PICA records are turned into MarcRecord objects by the schema of --picaSchemaFile, or by
+   * the K10plus schema distributed with the tool.
+   */
+  private Map<String, PicaFieldDefinition> readPicaSchema(CommonParameters parameters) {
+    Map<String, PicaFieldDefinition> schema = parameters.getPicaSchemaFile() != null
+      ? PicaSchemaReader.create(parameters.getPicaSchemaFile())
+      : PicaSchemaReader.createDefault();
+    if (parameters.doLog())
+      logger.info(String.format("PICA schema: %d fields", schema.size()));
+    return schema;
+  }
+
   private MarcReader getMarcStreamReader(CommonParameters parameters) throws Exception {
     return ReadMarc.getStreamReader(parameters.getMarcFormat(), parameters.getStream());
   }
@@ -192,8 +805,8 @@ public class RecordIterator {
   }
 
   private boolean skipRecord(Record marc4jRecord) {
-    return processor.getParameters().hasId()
-      && !marc4jRecord.getControlNumber().trim().equals(processor.getParameters().getId());
+    return processor.getParameters().hasIds()
+      && !processor.getParameters().isSelectedId(marc4jRecord.getControlNumber());
   }
 
   private void extracted(int i, Record marc4jRecord, Exception e, String message) {
@@ -217,4 +830,27 @@ public class RecordIterator {
     formatter.printHelp("java -cp metadata-qa-marc.jar de.gwdg.metadataqa.marc.cli.Validator [options] [file]",
       opions);
   }
-}
\ No newline at end of file
+
+  /**
+   * The records read for the next task of the workers, with their numbers.
+   */
+  private static class RecordBatch {
+    private final List<Record> records = new ArrayList<>();
+    private int[] recordNumbers = new int[16];
+
+    void add(Record marc4jRecord, int recordNumber) {
+      if (records.size() == recordNumbers.length)
+        recordNumbers = Arrays.copyOf(recordNumbers, recordNumbers.length * 2);
+      recordNumbers[records.size()] = recordNumber;
+      records.add(marc4jRecord);
+    }
+
+    int size() {
+      return records.size();
+    }
+
+    void clear() {
+      records.clear();
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package de.gwdg.metadataqa.marc.cli.utils;
+
+import de.gwdg.metadataqa.marc.cli.parameters.CommonParameters;
+import de.gwdg.metadataqa.marc.dao.Leader;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import org.marc4j.marc.Record;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Selects a random sample of the records (see --sampleRate and --sampleSize), and estimates the
+ * number of records of the whole population from the counts of the sample.
+ *
+ * With --sampleRate every record is selected with the given probability, with --sampleSize a
+ * reservoir of the given size is kept, which is processed after the files have been read. In both
+ * cases the number of records until the next selected one is drawn in advance (as in the
+ * Algorithm L of Li), so a SkippableMarcReader can step over the unselected records without
+ * parsing them. With --stratifiedSample the records are sampled for each record type (Leader.Type)
+ * separately, so the type of every record should be known, and the records are not skipped.
+ *
+ * The estimates are the Horvitz-Thompson totals of the (stratified) simple random sample, the
+ * confidence intervals are the 95% normal approximations with finite population correction.
+ */
+public class RecordSample {
+
+  public static final String ALL = "all";
+  public static final String UNKNOWN = "unknown";
+  private static final double Z_95 = 1.96;
+
+  private final double rate;
+  private final int size;
+  private final boolean stratified;
+  private final Leader.Type defaultRecordType;
+  private final Random random;
+  private final Map<String, Stratum> strata = new TreeMap<>();
+
+  /**
+   * A record kept in the reservoir.
+   */
+  public static class SampledRecord {
+    private final Record marc4jRecord;
+    private final int recordNumber;
+
+    SampledRecord(Record marc4jRecord, int recordNumber) {
+      this.marc4jRecord = marc4jRecord;
+      this.recordNumber = recordNumber;
+    }
+
+    public Record getMarc4jRecord() {
+      return marc4jRecord;
+    }
+
+    public int getRecordNumber() {
+      return recordNumber;
+    }
+  }
+
+  /**
+   * The estimated number of records of the population.
+   */
+  public static class Estimate {
+    private final int sampleCount;
+    private final double value;
+    private final double lower;
+    private final double upper;
+
+    Estimate(int sampleCount, double value, double standardError) {
+      this.sampleCount = sampleCount;
+      this.value = value;
+      this.lower = Math.max(0, value - Z_95 * standardError);
+      this.upper = value + Z_95 * standardError;
+    }
+
+    /**
+     * @return The number of records in the sample
+     */
+    public int getSampleCount() {
+      return sampleCount;
+    }
+
+    public long getValue() {
+      return Math.round(value);
+    }
+
+    /**
+     * @return The lower bound of the 95% confidence interval
+     */
+    public long getLower() {
+      return Math.round(lower);
+    }
+
+    /**
+     * @return The upper bound of the 95% confidence interval
+     */
+    public long getUpper() {
+      return Math.round(upper);
+    }
+  }
+
+  /**
+   * Counts the sampled records with a given property (such as having a field or an issue type) by
+   * strata, so the number of records of the population can be estimated.
+   * @param <T> The type of the counted property
+   */
+  public static class Counter<T> {
+    private final Map<T, Map<String, Integer>> counts = new HashMap<>();
+
+    public synchronized void count(String stratum, T key) {
+      counts.computeIfAbsent(key, k -> new HashMap<>()).merge(stratum, 1, Integer::sum);
+    }
+
+    public synchronized Set<T> keys() {
+      return new LinkedHashSet<>(counts.keySet());
+    }
+
+    /**
+     * @return The counts of the sample by strata
+     */
+    public synchronized Map<String, Integer> get(T key) {
+      return new HashMap<>(counts.getOrDefault(key, Map.of()));
+    }
+  }
+
+  private class Stratum {
+    private long population = 0;
+    private int selected = 0;
+    private long gap = -1;
+    private double w = 1.0;
+    private List<SampledRecord> reservoir = null;
+
+    /**
+     * @return true if the next record of the stratum is selected
+     */
+    private boolean offer(Record marc4jRecord, int recordNumber) {
+      population++;
+      if (size > 0)
+        return offerToReservoir(marc4jRecord, recordNumber);
+
+      if (gap < 0)
+        gap = nextGap(rate);
+      if (gap > 0) {
+        gap--;
+        return false;
+      }
+      gap = -1;
+      selected++;
+      return true;
+    }
+
+    private boolean offerToReservoir(Record marc4jRecord, int recordNumber) {
+      if (reservoir == null)
+        reservoir = new ArrayList<>();
+      if (reservoir.size() < size) {
+        reservoir.add(new SampledRecord(marc4jRecord, recordNumber));
+        selected = reservoir.size();
+        if (reservoir.size() == size)
+          scheduleReplacement();
+        return false;
+      }
+      if (gap > 0) {
+        gap--;
+        return false;
+      }
+      reservoir.set(random.nextInt(size), new SampledRecord(marc4jRecord, recordNumber));
+      scheduleReplacement();
+      return false;
+    }
+
+    private void scheduleReplacement() {
+      w *= Math.exp(Math.log(nextUniform()) / size);
+      gap = nextGap(w);
+    }
+
+    /**
+     * Steps over the records which are not selected anyway.
+     * @return The number of records to skip
+     */
+    private long skippable() {
+      if (size > 0)
+        return reservoir != null && reservoir.size() == size ? gap : 0;
+      if (gap < 0)
+        gap = nextGap(rate);
+      return gap;
+    }
+
+    private void skipped(int numberOfRecords) {
+      population += numberOfRecords;
+      gap -= numberOfRecords;
+    }
+  }
+
+  public RecordSample(CommonParameters parameters) {
+    this(parameters.getSampleRate(), parameters.getSampleSize(), parameters.isStratifiedSample(),
+      parameters.getDefaultRecordType(),
+      parameters.getSampleSeed() == null ? new Random() : new Random(parameters.getSampleSeed()));
+  }
+
+  RecordSample(double rate, int size, boolean stratified, Leader.Type defaultRecordType, Random random) {
+    this.rate = rate;
+    this.size = size;
+    this.stratified = stratified;
+    this.defaultRecordType = defaultRecordType;
+    this.random = random;
+  }
+
+  /**
+   * Decides whether the record belongs to the sample. The records of the reservoir are kept and
+   * returned by getReservoir() at the end.
+   * @return true if the record should be processed now
+   */
+  public boolean select(Record marc4jRecord, int recordNumber) {
+    return getStratum(getStratumName(marc4jRecord)).offer(marc4jRecord, recordNumber);
+  }
+
+  /**
+   * @return The number of the following records which are surely not selected (so they can be
+   * skipped without parsing them). It is always 0 for a stratified sample.
+   */
+  public int getSkippable() {
+    if (stratified)
+      return 0;
+    return (int) Math.min(Integer.MAX_VALUE, getStratum(ALL).skippable());
+  }
+
+  /**
+   * Registers the records skipped by the reader.
+   */
+  public void skipped(int numberOfRecords) {
+    getStratum(ALL).skipped(numberOfRecords);
+  }
+
+  /**
+   * @return The records of the reservoir in their original order
+   */
+  public List<SampledRecord> getReservoir() {
+    List<SampledRecord> records = new ArrayList<>();
+    for (Stratum stratum : strata.values())
+      if (stratum.reservoir != null)
+        records.addAll(stratum.reservoir);
+    records.sort(Comparator.comparingInt(SampledRecord::getRecordNumber));
+    return records;
+  }
+
+  public boolean isStratified() {
+    return stratified;
+  }
+
+  /**
+   * @return The stratum of the record, the type of the record, or ALL if the sample is not stratified
+   */
+  public String getStratumName(Record marc4jRecord) {
+    if (!stratified)
+      return ALL;
+    String leader = marc4jRecord.getLeader() == null ? null : marc4jRecord.getLeader().marshal();
+    return getStratumName(Leader.detectType(leader, defaultRecordType));
+  }
+
+  public String getStratumName(MarcRecord marcRecord) {
+    if (!stratified)
+      return ALL;
+    return getStratumName(marcRecord.getLeader() == null ? defaultRecordType : marcRecord.getType());
+  }
+
+  private String getStratumName(Leader.Type type) {
+    return type == null ? UNKNOWN : type.getValue();
+  }
+
+  public long getPopulation() {
+    return strata.values().stream().mapToLong(stratum -> stratum.population).sum();
+  }
+
+  public int getSampleSize() {
+    return strata.values().stream().mapToInt(stratum -> stratum.selected).sum();
+  }
+
+  /**
+   * Estimates the number of records of the population from the number of sampled records by strata.
+   * @param sampleCounts The number of sampled records with the property by strata (see Counter)
+   * @return The estimate with its confidence interval
+   */
+  public Estimate estimate(Map<String, Integer> sampleCounts) {
+    int sampleCount = 0;
+    double value = 0.0;
+    double variance = 0.0;
+    for (Map.Entry<String, Integer> entry : sampleCounts.entrySet()) {
+      Stratum stratum = strata.get(entry.getKey());
+      int count = entry.getValue();
+      sampleCount += count;
+      if (stratum == null || stratum.selected == 0)
+        continue;
+      double n = stratum.selected;
+      double populationSize = stratum.population;
+      double p = count / n;
+      value += populationSize * p;
+      if (n > 1)
+        variance += populationSize * populationSize * (1 - n / populationSize) * p * (1 - p) / (n - 1);
+    }
+    return new Estimate(sampleCount, value, Math.sqrt(variance));
+  }
+
+  public <T> Estimate estimate(Counter<T> counter, T key) {
+    return estimate(counter.get(key));
+  }
+
+  private Stratum getStratum(String name) {
+    return strata.computeIfAbsent(name, s -> new Stratum());
+  }
+
+  /**
+   * @return The number of records before the next success with the probability p (geometric distribution)
+   */
+  private long nextGap(double p) {
+    if (p >= 1.0)
+      return 0;
+    double gap = Math.floor(Math.log(nextUniform()) / Math.log(1 - p));
+    return gap > Long.MAX_VALUE / 2 ? Long.MAX_VALUE / 2 : (long) gap;
+  }
+
+  /**
+   * @return A uniform random number from (0, 1]
+   */
+  private double nextUniform() {
+    return 1.0 - random.nextDouble();
+  }
+}
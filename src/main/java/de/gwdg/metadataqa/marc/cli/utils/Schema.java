@@ -6,13 +6,23 @@ import de.gwdg.metadataqa.marc.model.kos.KosType;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-public class Schema {
+public class Schema implements Serializable {
 
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The identifiers of the schemas. The analyses run in several threads (see Analyses), so the
+   * registry is only accessed by the synchronized static methods
+   */
   private static int centralCounter = 0;
-  private static Map<Schema, Integer> schemaCounter = new HashMap<>();
+  private static final Map<Schema, Integer> schemaCounter = new HashMap<>();
 
   int id;
   String field;
@@ -33,8 +43,11 @@ public class Schema {
   }
 
   private void setId() {
-    schemaCounter.computeIfAbsent(this, s -> ++centralCounter);
-    this.id = schemaCounter.get(this);
+    this.id = assignId(this);
+  }
+
+  private static synchronized int assignId(Schema schema) {
+    return schemaCounter.computeIfAbsent(schema, s -> ++centralCounter);
   }
 
   public String getField() {
@@ -99,8 +112,29 @@ public class Schema {
       .toHashCode();
   }
 
-  public static void reset() {
+  public static synchronized void reset() {
     centralCounter = 0;
+    schemaCounter.clear();
+  }
+
+  /**
+   * @return The schemas which got an identifier so far, in the order of their identifiers
+   */
+  public static synchronized List<Schema> getRegisteredSchemas() {
+    List<Schema> schemas = new ArrayList<>(schemaCounter.keySet());
+    schemas.sort(Comparator.comparingInt(Schema::getId));
+    return schemas;
+  }
+
+  /**
+   * Registers the schemas (e.g. the ones read from a partial state) in the order of their
+   * identifiers, and updates their identifiers to the ones of the current run.
+   * @param schemas The schemas to register
+   */
+  public static synchronized void register(List<Schema> schemas) {
+    schemas.sort(Comparator.comparingInt(Schema::getId));
+    for (Schema schema : schemas)
+      schema.setId();
   }
 
   @Override
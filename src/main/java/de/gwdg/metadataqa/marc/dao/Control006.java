@@ -8,6 +8,7 @@ import de.gwdg.metadataqa.marc.definition.tags.control.Control006Definition;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -74,15 +75,16 @@ public class Control006 extends MarcPositionalControlField implements Serializab
 
   private ControlValue tag006mixed06;
 
-  private Map<Integer, ControlfieldPositionDefinition> byPosition = new LinkedHashMap<>();
+  private static final Map<Control008Type, Map<Integer, ControlfieldPositionDefinition>> positionIndexes =
+    new ConcurrentHashMap<>();
 
   public Control006(String content, Leader.Type recordType) {
     super(Control006Definition.getInstance(), content, recordType);
-    if (content != null)
-      processContent();
   }
 
   protected void processContent() {
+    if (content == null)
+      return;
 
     for (ControlfieldPositionDefinition subfield : Control006Positions.getInstance().get(Control008Type.ALL_MATERIALS)) {
       var end = Math.min(content.length(), subfield.getPositionEnd());
@@ -100,7 +102,6 @@ public class Control006 extends MarcPositionalControlField implements Serializab
           logger.severe(String.format("Unhandled 006 subfield: %s", subfield.getId()));
 
         valuesMap.put(subfield, value);
-        byPosition.put(subfield.getPositionStart(), subfield);
       } catch (StringIndexOutOfBoundsException e) {
         logger.severe(content.length() + " " + subfield.getPositionStart() + "-" + subfield.getPositionEnd());
       }
@@ -145,7 +146,6 @@ public class Control006 extends MarcPositionalControlField implements Serializab
       }
 
       valuesMap.put(subfield, value);
-      byPosition.put(subfield.getPositionStart(), subfield);
     }
   }
 
@@ -257,24 +257,34 @@ public class Control006 extends MarcPositionalControlField implements Serializab
   }
 
   public String resolve(ControlfieldPositionDefinition key) {
+    decode();
     String value = valuesMap.get(key);
     return key.resolve(value);
   }
 
   public Map<ControlfieldPositionDefinition, String> getValueMap() {
+    decode();
     return valuesMap;
   }
 
   public String getValueByPosition(int position) {
+    decode();
     return valuesMap.get(getSubfieldByPosition(position));
   }
 
   public ControlfieldPositionDefinition getSubfieldByPosition(int position) {
-    return byPosition.get(position);
+    return getDecodedPosition(getPositionIndex(), position);
   }
 
   public Set<Integer> getSubfieldPositions() {
-    return byPosition.keySet();
+    return getDecodedPositions(getPositionIndex());
+  }
+
+  private Map<Integer, ControlfieldPositionDefinition> getPositionIndex() {
+    Control008Type actual = Control008Type.byCode(recordType.getValue());
+    return positionIndexes.computeIfAbsent(actual, type -> indexPositions(
+      Control006Positions.getInstance().get(Control008Type.ALL_MATERIALS),
+      Control006Positions.getInstance().get(type)));
   }
 
   public Leader.Type getRecordType() {
@@ -282,194 +292,242 @@ public class Control006 extends MarcPositionalControlField implements Serializab
   }
 
   public ControlValue getTag006all00() {
+    decode();
     return tag006all00;
   }
 
   public ControlValue getTag006book01() {
+    decode();
     return tag006book01;
   }
 
   public ControlValue getTag006book05() {
+    decode();
     return tag006book05;
   }
 
   public ControlValue getTag006book06() {
+    decode();
     return tag006book06;
   }
 
   public ControlValue getTag006book07() {
+    decode();
     return tag006book07;
   }
 
   public ControlValue getTag006book11() {
+    decode();
     return tag006book11;
   }
 
   public ControlValue getTag006book12() {
+    decode();
     return tag006book12;
   }
 
   public ControlValue getTag006book13() {
+    decode();
     return tag006book13;
   }
 
   public ControlValue getTag006book14() {
+    decode();
     return tag006book14;
   }
 
   public ControlValue getTag006book16() {
+    decode();
     return tag006book16;
   }
 
   public ControlValue getTag006book17() {
+    decode();
     return tag006book17;
   }
 
   public ControlValue getTag006computer05() {
+    decode();
     return tag006computer05;
   }
 
   public ControlValue getTag006computer06() {
+    decode();
     return tag006computer06;
   }
 
   public ControlValue getTag006computer09() {
+    decode();
     return tag006computer09;
   }
 
   public ControlValue getTag006computer11() {
+    decode();
     return tag006computer11;
   }
 
   public ControlValue getTag006map01() {
+    decode();
     return tag006map01;
   }
 
   public ControlValue getTag006map05() {
+    decode();
     return tag006map05;
   }
 
   public ControlValue getTag006map08() {
+    decode();
     return tag006map08;
   }
 
   public ControlValue getTag006map11() {
+    decode();
     return tag006map11;
   }
 
   public ControlValue getTag006map12() {
+    decode();
     return tag006map12;
   }
 
   public ControlValue getTag006map14() {
+    decode();
     return tag006map14;
   }
 
   public ControlValue getTag006map16() {
+    decode();
     return tag006map16;
   }
 
   public ControlValue getTag006music01() {
+    decode();
     return tag006music01;
   }
 
   public ControlValue getTag006music03() {
+    decode();
     return tag006music03;
   }
 
   public ControlValue getTag006music04() {
+    decode();
     return tag006music04;
   }
 
   public ControlValue getTag006music05() {
+    decode();
     return tag006music05;
   }
 
   public ControlValue getTag006music06() {
+    decode();
     return tag006music06;
   }
 
   public ControlValue getTag006music07() {
+    decode();
     return tag006music07;
   }
 
   public ControlValue getTag006music13() {
+    decode();
     return tag006music13;
   }
 
   public ControlValue getTag006music16() {
+    decode();
     return tag006music16;
   }
 
   public ControlValue getTag006continuing01() {
+    decode();
     return tag006continuing01;
   }
 
   public ControlValue getTag006continuing02() {
+    decode();
     return tag006continuing02;
   }
 
   public ControlValue getTag006continuing04() {
+    decode();
     return tag006continuing04;
   }
 
   public ControlValue getTag006continuing05() {
+    decode();
     return tag006continuing05;
   }
 
   public ControlValue getTag006continuing06() {
+    decode();
     return tag006continuing06;
   }
 
   public ControlValue getTag006continuing07() {
+    decode();
     return tag006continuing07;
   }
 
   public ControlValue getTag006continuing08() {
+    decode();
     return tag006continuing08;
   }
 
   public ControlValue getTag006continuing11() {
+    decode();
     return tag006continuing11;
   }
 
   public ControlValue getTag006continuing12() {
+    decode();
     return tag006continuing12;
   }
 
   public ControlValue getTag006continuing16() {
+    decode();
     return tag006continuing16;
   }
 
   public ControlValue getTag006continuing17() {
+    decode();
     return tag006continuing17;
   }
 
   public ControlValue getTag006visual01() {
+    decode();
     return tag006visual01;
   }
 
   public ControlValue getTag006visual05() {
+    decode();
     return tag006visual05;
   }
 
   public ControlValue getTag006visual11() {
+    decode();
     return tag006visual11;
   }
 
   public ControlValue getTag006visual12() {
+    decode();
     return tag006visual12;
   }
 
   public ControlValue getTag006visual16() {
+    decode();
     return tag006visual16;
   }
 
   public ControlValue getTag006visual17() {
+    decode();
     return tag006visual17;
   }
 
   public ControlValue getTag006mixed06() {
+    decode();
     return tag006mixed06;
   }
 }
@@ -11,6 +11,7 @@ import org.spark_project.jetty.util.StringUtil;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -149,7 +150,8 @@ public class Control007 extends MarcPositionalControlField implements Serializab
   private ControlValue tag007unspecified00;
   private ControlValue tag007unspecified01;
 
-  private Map<Integer, ControlfieldPositionDefinition> byPosition = new LinkedHashMap<>();
+  private static final Map<Control007Category, Map<Integer, ControlfieldPositionDefinition>> positionIndexes =
+    new ConcurrentHashMap<>();
 
   public Control007(MarcRecord marcRecord, String content) {
     super(Control007Definition.getInstance(), content);
@@ -158,9 +160,7 @@ public class Control007 extends MarcPositionalControlField implements Serializab
   }
 
   private void handleContent(String content) {
-    if (StringUtil.isNotBlank(content)) {
-      processContent();
-    } else {
+    if (StringUtil.isBlank(content)) {
       StringBuffer msg = new StringBuffer();
       if (marcRecord != null) {
         msg.append(marcRecord.getId().trim()).append(": ");
@@ -176,23 +176,18 @@ public class Control007 extends MarcPositionalControlField implements Serializab
   }
 
   protected void processContent() {
-
-    if (StringUtil.isBlank(content)) {
-      String msg = "007 control field is empty";
+    // the empty content is reported by the constructor
+    if (StringUtil.isBlank(content))
+      return;
+
+    String categoryCode = content.substring(0, 1);
+    category = Control007Category.byCode(categoryCode);
+    if (category == null) {
+      var msg = String.format("invalid category for 007: '%s'", categoryCode);
       logger.severe(msg);
       initializationErrors.add(new ValidationError(marcRecord.getId(), "007",
         ValidationErrorType.CONTROL_POSITION_INVALID_VALUE, msg, URL));
       category = Control007Category.TEXT;
-    } else {
-      String categoryCode = content.substring(0, 1);
-      category = Control007Category.byCode(categoryCode);
-      if (category == null) {
-        var msg = String.format("invalid category for 007: '%s'", categoryCode);
-        logger.severe(msg);
-        initializationErrors.add(new ValidationError(marcRecord.getId(), "007",
-          ValidationErrorType.CONTROL_POSITION_INVALID_VALUE, msg, URL));
-        category = Control007Category.TEXT;
-      }
     }
     categoryOfMaterial = category.getLabel();
 
@@ -205,7 +200,6 @@ public class Control007 extends MarcPositionalControlField implements Serializab
     */
 
     for (ControlfieldPositionDefinition subfield : Control007Positions.getInstance().get(category)) {
-      byPosition.put(subfield.getPositionStart(), subfield);
       int end = Math.min(content.length(), subfield.getPositionEnd());
 
       String value = null;
@@ -361,6 +355,7 @@ public class Control007 extends MarcPositionalControlField implements Serializab
   }
 
   public String resolve(ControlfieldPositionDefinition key) {
+    decode();
     String value = valuesMap.get(key);
     return key.resolve(value);
   }
@@ -370,450 +365,568 @@ public class Control007 extends MarcPositionalControlField implements Serializab
   }
 
   public String getValueByPosition(int position) {
+    decode();
     return valuesMap.get(getSubfieldByPosition(position));
   }
 
   public ControlfieldPositionDefinition getSubfieldByPosition(int position) {
-    return byPosition.get(position);
+    return getDecodedPosition(getPositionIndex(), position);
   }
 
   public Set<Integer> getSubfieldPositions() {
-    return byPosition.keySet();
+    return getDecodedPositions(getPositionIndex());
+  }
+
+  private Map<Integer, ControlfieldPositionDefinition> getPositionIndex() {
+    decode();
+    if (category == null)
+      return Collections.emptyMap();
+    return positionIndexes.computeIfAbsent(category,
+      type -> indexPositions(Control007Positions.getInstance().get(type)));
   }
 
   public String getCategoryOfMaterial() {
+    decode();
     return categoryOfMaterial;
   }
 
   public Control007Category getCategory() {
+    decode();
     return category;
   }
 
   public ControlValue getMap00() {
+    decode();
     return tag007map00;
   }
 
   public ControlValue getMap01() {
+    decode();
     return tag007map01;
   }
 
   public ControlValue getMap03() {
+    decode();
     return tag007map03;
   }
 
   public ControlValue getMap04() {
+    decode();
     return tag007map04;
   }
 
   public ControlValue getMap05() {
+    decode();
     return tag007map05;
   }
 
   public ControlValue getMap06() {
+    decode();
     return tag007map06;
   }
 
   public ControlValue getMap07() {
+    decode();
     return tag007map07;
   }
 
   public ControlValue getElectro00() {
+    decode();
     return tag007electro00;
   }
 
   public ControlValue getElectro01() {
+    decode();
     return tag007electro01;
   }
 
   public ControlValue getElectro03() {
+    decode();
     return tag007electro03;
   }
 
   public ControlValue getElectro04() {
+    decode();
     return tag007electro04;
   }
 
   public ControlValue getElectro05() {
+    decode();
     return tag007electro05;
   }
 
   public ControlValue getElectro06() {
+    decode();
     return tag007electro06;
   }
 
   public ControlValue getElectro09() {
+    decode();
     return tag007electro09;
   }
 
   public ControlValue getElectro10() {
+    decode();
     return tag007electro10;
   }
 
   public ControlValue getElectro11() {
+    decode();
     return tag007electro11;
   }
 
   public ControlValue getElectro12() {
+    decode();
     return tag007electro12;
   }
 
   public ControlValue getElectro13() {
+    decode();
     return tag007electro13;
   }
 
   public ControlValue getGlobe00() {
+    decode();
     return tag007globe00;
   }
 
   public ControlValue getGlobe01() {
+    decode();
     return tag007globe01;
   }
 
   public ControlValue getGlobe03() {
+    decode();
     return tag007globe03;
   }
 
   public ControlValue getGlobe04() {
+    decode();
     return tag007globe04;
   }
 
   public ControlValue getGlobe05() {
+    decode();
     return tag007globe05;
   }
 
   public ControlValue getTactile00() {
+    decode();
     return tag007tactile00;
   }
 
   public ControlValue getTactile01() {
+    decode();
     return tag007tactile01;
   }
 
   public ControlValue getTactile03() {
+    decode();
     return tag007tactile03;
   }
 
   public ControlValue getTactile05() {
+    decode();
     return tag007tactile05;
   }
 
   public ControlValue getTactile06() {
+    decode();
     return tag007tactile06;
   }
 
   public ControlValue getTactile09() {
+    decode();
     return tag007tactile09;
   }
 
   public ControlValue getProjected00() {
+    decode();
     return tag007projected00;
   }
 
   public ControlValue getProjected01() {
+    decode();
     return tag007projected01;
   }
 
   public ControlValue getProjected03() {
+    decode();
     return tag007projected03;
   }
 
   public ControlValue getProjected04() {
+    decode();
     return tag007projected04;
   }
 
   public ControlValue getProjected05() {
+    decode();
     return tag007projected05;
   }
 
   public ControlValue getProjected06() {
+    decode();
     return tag007projected06;
   }
 
   public ControlValue getProjected07() {
+    decode();
     return tag007projected07;
   }
 
   public ControlValue getProjected08() {
+    decode();
     return tag007projected08;
   }
 
   public ControlValue getMicroform00() {
+    decode();
     return tag007microform00;
   }
 
   public ControlValue getMicroform01() {
+    decode();
     return tag007microform01;
   }
 
   public ControlValue getMicroform03() {
+    decode();
     return tag007microform03;
   }
 
   public ControlValue getMicroform04() {
+    decode();
     return tag007microform04;
   }
 
   public ControlValue getMicroform05() {
+    decode();
     return tag007microform05;
   }
 
   public ControlValue getMicroform06() {
+    decode();
     return tag007microform06;
   }
 
   public ControlValue getMicroform09() {
+    decode();
     return tag007microform09;
   }
 
   public ControlValue getMicroform10() {
+    decode();
     return tag007microform10;
   }
 
   public ControlValue getMicroform11() {
+    decode();
     return tag007microform11;
   }
 
   public ControlValue getMicroform12() {
+    decode();
     return tag007microform12;
   }
 
   public ControlValue getNonprojected00() {
+    decode();
     return tag007nonprojected00;
   }
 
   public ControlValue getNonprojected01() {
+    decode();
     return tag007nonprojected01;
   }
 
   public ControlValue getNonprojected03() {
+    decode();
     return tag007nonprojected03;
   }
 
   public ControlValue getNonprojected04() {
+    decode();
     return tag007nonprojected04;
   }
 
   public ControlValue getNonprojected05() {
+    decode();
     return tag007nonprojected05;
   }
 
   public ControlValue getMotionPicture00() {
+    decode();
     return tag007motionPicture00;
   }
 
   public ControlValue getMotionPicture01() {
+    decode();
     return tag007motionPicture01;
   }
 
   public ControlValue getMotionPicture03() {
+    decode();
     return tag007motionPicture03;
   }
 
   public ControlValue getMotionPicture04() {
+    decode();
     return tag007motionPicture04;
   }
 
   public ControlValue getMotionPicture05() {
+    decode();
     return tag007motionPicture05;
   }
 
   public ControlValue getMotionPicture06() {
+    decode();
     return tag007motionPicture06;
   }
 
   public ControlValue getMotionPicture07() {
+    decode();
     return tag007motionPicture07;
   }
 
   public ControlValue getMotionPicture08() {
+    decode();
     return tag007motionPicture08;
   }
 
   public ControlValue getMotionPicture09() {
+    decode();
     return tag007motionPicture09;
   }
 
   public ControlValue getMotionPicture10() {
+    decode();
     return tag007motionPicture10;
   }
 
   public ControlValue getMotionPicture11() {
+    decode();
     return tag007motionPicture11;
   }
 
   public ControlValue getMotionPicture12() {
+    decode();
     return tag007motionPicture12;
   }
 
   public ControlValue getMotionPicture13() {
+    decode();
     return tag007motionPicture13;
   }
 
   public ControlValue getMotionPicture14() {
+    decode();
     return tag007motionPicture14;
   }
 
   public ControlValue getMotionPicture15() {
+    decode();
     return tag007motionPicture15;
   }
 
   public ControlValue getMotionPicture16() {
+    decode();
     return tag007motionPicture16;
   }
 
   public ControlValue getMotionPicture17() {
+    decode();
     return tag007motionPicture17;
   }
 
   public ControlValue getKit00() {
+    decode();
     return tag007kit00;
   }
 
   public ControlValue getKit01() {
+    decode();
     return tag007kit01;
   }
 
   public ControlValue getMusic00() {
+    decode();
     return tag007music00;
   }
 
   public ControlValue getMusic01() {
+    decode();
     return tag007music01;
   }
 
   public ControlValue getRemoteSensing00() {
+    decode();
     return tag007remoteSensing00;
   }
 
   public ControlValue getRemoteSensing01() {
+    decode();
     return tag007remoteSensing01;
   }
 
   public ControlValue getRemoteSensing03() {
+    decode();
     return tag007remoteSensing03;
   }
 
   public ControlValue getRemoteSensing04() {
+    decode();
     return tag007remoteSensing04;
   }
 
   public ControlValue getRemoteSensing05() {
+    decode();
     return tag007remoteSensing05;
   }
 
   public ControlValue getRemoteSensing06() {
+    decode();
     return tag007remoteSensing06;
   }
 
   public ControlValue getRemoteSensing07() {
+    decode();
     return tag007remoteSensing07;
   }
 
   public ControlValue getRemoteSensing08() {
+    decode();
     return tag007remoteSensing08;
   }
 
   public ControlValue getRemoteSensing09() {
+    decode();
     return tag007remoteSensing09;
   }
 
   public ControlValue getSoundRecording00() {
+    decode();
     return tag007soundRecording00;
   }
 
   public ControlValue getSoundRecording01() {
+    decode();
     return tag007soundRecording01;
   }
 
   public ControlValue getSoundRecording03() {
+    decode();
     return tag007soundRecording03;
   }
 
   public ControlValue getSoundRecording04() {
+    decode();
     return tag007soundRecording04;
   }
 
   public ControlValue getSoundRecording05() {
+    decode();
     return tag007soundRecording05;
   }
 
   public ControlValue getSoundRecording06() {
+    decode();
     return tag007soundRecording06;
   }
 
   public ControlValue getSoundRecording07() {
+    decode();
     return tag007soundRecording07;
   }
 
   public ControlValue getSoundRecording08() {
+    decode();
     return tag007soundRecording08;
   }
 
   public ControlValue getSoundRecording09() {
+    decode();
     return tag007soundRecording09;
   }
 
   public ControlValue getSoundRecording10() {
+    decode();
     return tag007soundRecording10;
   }
 
   public ControlValue getSoundRecording11() {
+    decode();
     return tag007soundRecording11;
   }
 
   public ControlValue getSoundRecording12() {
+    decode();
     return tag007soundRecording12;
   }
 
   public ControlValue getSoundRecording13() {
+    decode();
     return tag007soundRecording13;
   }
 
   public ControlValue getText00() {
+    decode();
     return tag007text00;
   }
 
   public ControlValue getText01() {
+    decode();
     return tag007text01;
   }
 
   public ControlValue getVideo00() {
+    decode();
     return tag007video00;
   }
 
   public ControlValue getVideo01() {
+    decode();
     return tag007video01;
   }
 
   public ControlValue getVideo03() {
+    decode();
     return tag007video03;
   }
 
   public ControlValue getVideo04() {
+    decode();
     return tag007video04;
   }
 
   public ControlValue getVideo05() {
+    decode();
     return tag007video05;
   }
 
   public ControlValue getVideo06() {
+    decode();
     return tag007video06;
   }
 
   public ControlValue getVideo07() {
+    decode();
     return tag007video07;
   }
 
   public ControlValue getVideo08() {
+    decode();
     return tag007video08;
   }
 
   public ControlValue getUnspecified00() {
+    decode();
     return tag007unspecified00;
   }
 
   public ControlValue getUnspecified01() {
+    decode();
     return tag007unspecified01;
   }
 }
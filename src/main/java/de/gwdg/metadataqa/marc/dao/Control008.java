@@ -9,6 +9,7 @@ import de.gwdg.metadataqa.marc.definition.tags.control.Control008Definition;
 import java.io.Serializable;
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -84,7 +85,8 @@ public class Control008 extends MarcPositionalControlField implements Serializab
 
   private final Map<Control008Type, List<ControlValue>> fieldGroups = new EnumMap<>(Control008Type.class);
 
-  private final Map<Integer, ControlfieldPositionDefinition> byPosition = new LinkedHashMap<>();
+  private static final Map<Control008Type, Map<Integer, ControlfieldPositionDefinition>> positionIndexes =
+    new ConcurrentHashMap<>();
   private Control008Type actual008Type;
 
   public Control008(String content, Leader.Type recordType) {
@@ -97,7 +99,6 @@ public class Control008 extends MarcPositionalControlField implements Serializab
       throw new InvalidParameterException(String.format("Record type is null. 008 content: '%s'", content));
     }
     actual008Type = Control008Type.byCode(recordType.getValue());
-    processContent();
   }
 
   protected void processContent() {
@@ -142,7 +143,6 @@ public class Control008 extends MarcPositionalControlField implements Serializab
       }
 
       valuesMap.put(subfield, value);
-      byPosition.put(subfield.getPositionStart(), subfield);
     }
 
     for (ControlfieldPositionDefinition subfield : Control008Positions.getInstance().get(actual008Type)) {
@@ -265,28 +265,36 @@ public class Control008 extends MarcPositionalControlField implements Serializab
       }
 
       valuesMap.put(subfield, value);
-      byPosition.put(subfield.getPositionStart(), subfield);
     }
   }
 
   public String resolve(ControlfieldPositionDefinition key) {
+    decode();
     String value = valuesMap.get(key);
     return key.resolve(value);
   }
 
   public String getValueByPosition(int position) {
+    decode();
     return valuesMap.get(getSubfieldByPosition(position));
   }
 
   public ControlfieldPositionDefinition getSubfieldByPosition(int position) {
-    return byPosition.get(position);
+    return getDecodedPosition(getPositionIndex(), position);
   }
 
   public Set<Integer> getSubfieldPositions() {
-    return byPosition.keySet();
+    return getDecodedPositions(getPositionIndex());
+  }
+
+  private Map<Integer, ControlfieldPositionDefinition> getPositionIndex() {
+    return positionIndexes.computeIfAbsent(actual008Type, type -> indexPositions(
+      Control008Positions.getInstance().get(Control008Type.ALL_MATERIALS),
+      Control008Positions.getInstance().get(type)));
   }
 
   public Map<ControlfieldPositionDefinition, String> getValueMap() {
+    decode();
     return valuesMap;
   }
 
@@ -295,222 +303,277 @@ public class Control008 extends MarcPositionalControlField implements Serializab
   }
 
   public ControlValue getTag008all00() {
+    decode();
     return tag008all00;
   }
 
   public ControlValue getTag008all06() {
+    decode();
     return tag008all06;
   }
 
   public ControlValue getTag008all07() {
+    decode();
     return tag008all07;
   }
 
   public ControlValue getTag008all11() {
+    decode();
     return tag008all11;
   }
 
   public ControlValue getTag008all15() {
+    decode();
     return tag008all15;
   }
 
   public ControlValue getTag008all35() {
+    decode();
     return tag008all35;
   }
 
   public ControlValue getTag008all38() {
+    decode();
     return tag008all38;
   }
 
   public ControlValue getTag008all39() {
+    decode();
     return tag008all39;
   }
 
   public ControlValue getTag008book18() {
+    decode();
     return tag008book18;
   }
 
   public ControlValue getTag008book22() {
+    decode();
     return tag008book22;
   }
 
   public ControlValue getTag008book23() {
+    decode();
     return tag008book23;
   }
 
   public ControlValue getTag008book24() {
+    decode();
     return tag008book24;
   }
 
   public ControlValue getTag008book28() {
+    decode();
     return tag008book28;
   }
 
   public ControlValue getTag008book29() {
+    decode();
     return tag008book29;
   }
 
   public ControlValue getTag008book30() {
+    decode();
     return tag008book30;
   }
 
   public ControlValue getTag008book31() {
+    decode();
     return tag008book31;
   }
 
   public ControlValue getTag008book33() {
+    decode();
     return tag008book33;
   }
 
   public ControlValue getTag008book34() {
+    decode();
     return tag008book34;
   }
 
   public ControlValue getTag008computer22() {
+    decode();
     return tag008computer22;
   }
 
   public ControlValue getTag008computer23() {
+    decode();
     return tag008computer23;
   }
 
   public ControlValue getTag008computer26() {
+    decode();
     return tag008computer26;
   }
 
   public ControlValue getTag008computer28() {
+    decode();
     return tag008computer28;
   }
 
   public ControlValue getTag008map18() {
+    decode();
     return tag008map18;
   }
 
   public ControlValue getTag008map22() {
+    decode();
     return tag008map22;
   }
 
   public ControlValue getTag008map25() {
+    decode();
     return tag008map25;
   }
 
   public ControlValue getTag008map28() {
+    decode();
     return tag008map28;
   }
 
   public ControlValue getTag008map29() {
+    decode();
     return tag008map29;
   }
 
   public ControlValue getTag008map31() {
+    decode();
     return tag008map31;
   }
 
   public ControlValue getTag008map33() {
+    decode();
     return tag008map33;
   }
 
   public ControlValue getTag008music18() {
+    decode();
     return tag008music18;
   }
 
   public ControlValue getTag008music20() {
+    decode();
     return tag008music20;
   }
 
   public ControlValue getTag008music21() {
+    decode();
     return tag008music21;
   }
 
   public ControlValue getTag008music22() {
+    decode();
     return tag008music22;
   }
 
   public ControlValue getTag008music23() {
+    decode();
     return tag008music23;
   }
 
   public ControlValue getTag008music24() {
+    decode();
     return tag008music24;
   }
 
   public ControlValue getTag008music30() {
+    decode();
     return tag008music30;
   }
 
   public ControlValue getTag008music33() {
+    decode();
     return tag008music33;
   }
 
   public ControlValue getTag008continuing18() {
+    decode();
     return tag008continuing18;
   }
 
   public ControlValue getTag008continuing19() {
+    decode();
     return tag008continuing19;
   }
 
   public ControlValue getTag008continuing21() {
+    decode();
     return tag008continuing21;
   }
 
   public ControlValue getTag008continuing22() {
+    decode();
     return tag008continuing22;
   }
 
   public ControlValue getTag008continuing23() {
+    decode();
     return tag008continuing23;
   }
 
   public ControlValue getTag008continuing24() {
+    decode();
     return tag008continuing24;
   }
 
   public ControlValue getTag008continuing25() {
+    decode();
     return tag008continuing25;
   }
 
   public ControlValue getTag008continuing28() {
+    decode();
     return tag008continuing28;
   }
 
   public ControlValue getTag008continuing29() {
+    decode();
     return tag008continuing29;
   }
 
   public ControlValue getTag008continuing33() {
+    decode();
     return tag008continuing33;
   }
 
   public ControlValue getTag008continuing34() {
+    decode();
     return tag008continuing34;
   }
 
   public ControlValue getTag008visual18() {
+    decode();
     return tag008visual18;
   }
 
   public ControlValue getTag008visual22() {
+    decode();
     return tag008visual22;
   }
 
   public ControlValue getTag008visual28() {
+    decode();
     return tag008visual28;
   }
 
   public ControlValue getTag008visual29() {
+    decode();
     return tag008visual29;
   }
 
   public ControlValue getTag008visual33() {
+    decode();
     return tag008visual33;
   }
 
   public ControlValue getTag008visual34() {
+    decode();
     return tag008visual34;
   }
 
   public ControlValue getTag008mixed23() {
+    decode();
     return tag008mixed23;
   }
 
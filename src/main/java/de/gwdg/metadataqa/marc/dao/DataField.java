@@ -3,14 +3,13 @@ package de.gwdg.metadataqa.marc.dao;
 import de.gwdg.metadataqa.marc.EncodedValue;
 import de.gwdg.metadataqa.marc.Extractable;
 import de.gwdg.metadataqa.marc.MarcSubfield;
-import de.gwdg.metadataqa.marc.Utils;
 import de.gwdg.metadataqa.marc.Validatable;
-import de.gwdg.metadataqa.marc.definition.Cardinality;
 import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
 import de.gwdg.metadataqa.marc.definition.structure.Indicator;
 import de.gwdg.metadataqa.marc.definition.MarcVersion;
 import de.gwdg.metadataqa.marc.definition.SourceSpecificationType;
 import de.gwdg.metadataqa.marc.definition.structure.SubfieldDefinition;
+import de.gwdg.metadataqa.marc.definition.structure.ValidationPlan;
 import de.gwdg.metadataqa.marc.definition.TagDefinitionLoader;
 import de.gwdg.metadataqa.marc.definition.general.Linkage;
 import de.gwdg.metadataqa.marc.definition.general.indexer.FieldIndexer;
@@ -21,6 +20,7 @@ import de.gwdg.metadataqa.marc.model.SolrFieldType;
 import de.gwdg.metadataqa.marc.model.validation.ErrorsCollector;
 import de.gwdg.metadataqa.marc.model.validation.ValidationError;
 import de.gwdg.metadataqa.marc.model.validation.ValidationErrorType;
+import de.gwdg.metadataqa.marc.utils.StringPool;
 import de.gwdg.metadataqa.marc.utils.keygenerator.DataFieldKeyGenerator;
 import org.apache.commons.lang3.StringUtils;
 
@@ -29,7 +29,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -45,15 +44,18 @@ public class DataField implements Extractable, Validatable, Serializable {
   private String ind1;
   private String ind2;
   private List<MarcSubfield> subfields;
-  private Map<String, List<MarcSubfield>> subfieldIndex = new LinkedHashMap<>();
+  /**
+   * The subfields by code, created by the first getSubfield() call.
+   */
+  private transient Map<String, List<MarcSubfield>> subfieldIndex = null;
   private ErrorsCollector errors = null;
   private List<String> unhandledSubfields = null;
   private MarcRecord marcRecord;
 
   public <T extends DataFieldDefinition> DataField(T definition, String ind1, String ind2) {
     this.definition = definition;
-    this.ind1 = ind1;
-    this.ind2 = ind2;
+    this.ind1 = StringPool.intern(ind1);
+    this.ind2 = StringPool.intern(ind2);
     this.subfields = new ArrayList<>();
   }
 
@@ -76,7 +78,6 @@ public class DataField implements Extractable, Validatable, Serializable {
           MarcSubfield marcSubfield = new MarcSubfield(subfieldDefinition, code, value);
           marcSubfield.setField(this);
           this.subfields.add(marcSubfield);
-          indexSubfield(code, marcSubfield);
         }
       }
     }
@@ -99,32 +100,32 @@ public class DataField implements Extractable, Validatable, Serializable {
   public DataField(String tag, String input, MarcVersion version) {
     definition = TagDefinitionLoader.load(tag, version);
     if (definition == null) {
-      this.tag = tag;
+      this.tag = StringPool.intern(tag);
     }
     this.subfields = new ArrayList<>();
 
-    ind1 = input.substring(0, 1);
-    ind2 = input.substring(1, 2);
+    ind1 = StringPool.of(input.charAt(0));
+    ind2 = StringPool.of(input.charAt(1));
     parseAndAddSubfields(input.substring(2));
   }
 
   public DataField(String tag, String ind1, String ind2, MarcVersion marcVersion) {
     definition = TagDefinitionLoader.load(tag, marcVersion);
     if (definition == null) {
-      this.tag = tag;
+      this.tag = StringPool.intern(tag);
     }
-    this.ind1 = ind1;
-    this.ind2 = ind2;
+    this.ind1 = StringPool.intern(ind1);
+    this.ind2 = StringPool.intern(ind2);
     this.subfields = new ArrayList<>();
   }
 
   public DataField(String tag, String ind1, String ind2, String content, MarcVersion marcVersion) {
     definition = TagDefinitionLoader.load(tag, marcVersion);
     if (definition == null) {
-      this.tag = tag;
+      this.tag = StringPool.intern(tag);
     }
-    this.ind1 = ind1;
-    this.ind2 = ind2;
+    this.ind1 = StringPool.intern(ind1);
+    this.ind2 = StringPool.intern(ind2);
     this.subfields = new ArrayList<>();
 
     parseAndAddSubfields(content);
@@ -169,18 +170,27 @@ public class DataField implements Extractable, Validatable, Serializable {
 
   public void setMarcRecord(MarcRecord marcRecord) {
     this.marcRecord = marcRecord;
-    for (MarcSubfield marcSubfield : subfields)
-      marcSubfield.setMarcRecord(marcRecord);
   }
 
+  /**
+   * Should be called after the list of getSubfields() has been modified directly. The index is
+   * rebuilt when it is next used.
+   */
   public void indexSubfields() {
-    for (MarcSubfield marcSubfield : subfields)
-      indexSubfield(marcSubfield.getCode(), marcSubfield);
+    subfieldIndex = null;
+  }
+
+  private Map<String, List<MarcSubfield>> getSubfieldIndex() {
+    if (subfieldIndex == null) {
+      subfieldIndex = new HashMap<>();
+      for (MarcSubfield marcSubfield : subfields)
+        indexSubfield(marcSubfield.getCode(), marcSubfield);
+    }
+    return subfieldIndex;
   }
 
   private void indexSubfield(String code, MarcSubfield marcSubfield) {
-    subfieldIndex.computeIfAbsent(code, s -> new LinkedList<>());
-    subfieldIndex.get(code).add(marcSubfield);
+    subfieldIndex.computeIfAbsent(code, s -> new ArrayList<>(2)).add(marcSubfield);
   }
 
   private void parseSubfieldArray(String[] subfields) {
@@ -198,7 +208,8 @@ public class DataField implements Extractable, Validatable, Serializable {
     MarcSubfield marcSubfield = new MarcSubfield(subfieldDefinition, code, value);
     marcSubfield.setField(this);
     this.subfields.add(marcSubfield);
-    indexSubfield(code, marcSubfield);
+    if (subfieldIndex != null)
+      indexSubfield(code, marcSubfield);
   }
 
   public Map<String, List<String>> getHumanReadableMap() {
@@ -422,7 +433,7 @@ public class DataField implements Extractable, Validatable, Serializable {
   }
 
   public List<MarcSubfield> getSubfield(String code) {
-    return subfieldIndex.getOrDefault(code, null);
+    return getSubfieldIndex().getOrDefault(code, null);
   }
 
   public List<MarcSubfield> getSubfields() {
@@ -445,7 +456,8 @@ public class DataField implements Extractable, Validatable, Serializable {
     if (marcVersion == null)
       marcVersion = MarcVersion.MARC21;
 
-    if (TagDefinitionLoader.load(definition.getTag(), marcVersion) == null) {
+    ValidationPlan plan = definition.getValidationPlan(marcVersion);
+    if (!plan.isDefined()) {
       addError(FIELD_UNDEFINED, "");
       return false;
     }
@@ -480,6 +492,7 @@ public class DataField implements Extractable, Validatable, Serializable {
                   addError(definition.getTag() + "$6", RECORD_INVALID_LINKAGE, message);
                   isValid = false;
                 } else {
+                  plan = definition.getValidationPlan(marcVersion);
                   linkedSubfields = subfields;
                   List<MarcSubfield> alternativeSubfields = new ArrayList<>();
                   for (MarcSubfield subfield : subfields) {
@@ -489,12 +502,12 @@ public class DataField implements Extractable, Validatable, Serializable {
                       subfield.getValue()
                     );
                     alternativeSubfield.setField(this);
-                    alternativeSubfield.setMarcRecord(marcRecord);
                     alternativeSubfield.setLinkage(linkage);
                     alternativeSubfield.setReferencePath(referencerDefinition.getTag());
                     alternativeSubfields.add(alternativeSubfield);
                   }
                   subfields = alternativeSubfields;
+                  subfieldIndex = null;
                 }
               }
             } catch (ParserException e) {
@@ -511,30 +524,27 @@ public class DataField implements Extractable, Validatable, Serializable {
     }
 
     if (ind1 != null) {
-      if (!validateIndicator(definition.getInd1(), ind1, marcVersion, referencerDefinition))
+      if (!validateIndicator(plan, 0, ind1, referencerDefinition))
         isValid = false;
     }
 
     if (ind2 != null) {
-      if (!validateIndicator(definition.getInd2(), ind2, marcVersion, referencerDefinition))
+      if (!validateIndicator(plan, 1, ind2, referencerDefinition))
         isValid = false;
     }
 
     if (!ambiguousLinkage) {
-      Map<SubfieldDefinition, Integer> counter = new HashMap<>();
       for (MarcSubfield subfield : subfields) {
         if (subfield.getDefinition() == null) {
-          if (definition.isVersionSpecificSubfields(marcVersion, subfield.getCode())) {
-            subfield.setDefinition(
-              definition.getVersionSpecificSubfield(
-                marcVersion, subfield.getCode()));
+          SubfieldDefinition versionSpecificDefinition = plan.getVersionSpecificSubfield(subfield.getCode());
+          if (versionSpecificDefinition != null) {
+            subfield.setDefinition(versionSpecificDefinition);
           } else {
             addError(SUBFIELD_UNDEFINED, subfield.getCode());
             isValid = false;
             continue;
           }
         }
-        Utils.count(subfield.getDefinition(), counter);
 
         if (!subfield.validate(marcVersion)) {
           errors.addAll(subfield.getValidationErrors());
@@ -542,57 +552,91 @@ public class DataField implements Extractable, Validatable, Serializable {
         }
       }
 
-      for (Map.Entry<SubfieldDefinition, Integer> entry : counter.entrySet()) {
-        SubfieldDefinition subfieldDefinition = entry.getKey();
-        Integer count = entry.getValue();
-        if (count > 1
-            && subfieldDefinition.getCardinality().equals(Cardinality.Nonrepeatable)) {
-          addError(subfieldDefinition, SUBFIELD_NONREPEATABLE,
-            String.format("there are %d instances", count));
-          isValid = false;
-        }
-      }
+      if (!validateRepetitions(plan))
+        isValid = false;
     }
 
     if (referencerDefinition != null)
       definition = referencerDefinition;
-    if (linkedSubfields != null)
+    if (linkedSubfields != null) {
       subfields = linkedSubfields;
+      subfieldIndex = null;
+    }
 
     return isValid;
   }
 
-  private boolean validateIndicator(Indicator indicatorDefinition,
-                                    String value,
-                                    MarcVersion marcVersion,
-                                    DataFieldDefinition referencerDefinition) {
-    var isValid = true;
-    String path = indicatorDefinition.getPath();
-    if (referencerDefinition != null)
-      path = String.format("%s->%s", referencerDefinition.getTag(), path);
+  /**
+   * Reports the nonrepeatable subfields which occur more than once, in the order of their first
+   * occurrence. The occurrences are counted in one pass, by the subfield code (see
+   * ValidationPlan.slot()); the arrays are created only if the field has a nonrepeatable subfield.
+   * The rare codes which are not single ASCII characters (or which belong to two different
+   * definitions) are counted in a map.
+   */
+  private boolean validateRepetitions(ValidationPlan plan) {
+    SubfieldDefinition[] definitions = null;
+    int[] counts = null;
+    Map<SubfieldDefinition, Integer> otherCounts = null;
+    for (MarcSubfield subfield : subfields) {
+      SubfieldDefinition subfieldDefinition = subfield.getDefinition();
+      if (subfieldDefinition == null || !plan.isNonRepeatable(subfieldDefinition))
+        continue;
+
+      int slot = ValidationPlan.slot(subfieldDefinition.getCode());
+      if (slot != -1 && definitions == null) {
+        definitions = new SubfieldDefinition[ValidationPlan.TABLE_SIZE];
+        counts = new int[ValidationPlan.TABLE_SIZE];
+      }
+      if (slot != -1 && (definitions[slot] == null || definitions[slot] == subfieldDefinition)) {
+        definitions[slot] = subfieldDefinition;
+        counts[slot]++;
+      } else {
+        if (otherCounts == null)
+          otherCounts = new HashMap<>();
+        otherCounts.merge(subfieldDefinition, 1, Integer::sum);
+      }
+    }
+    if (definitions == null && otherCounts == null)
+      return true;
 
-    if (indicatorDefinition.exists()) {
-      if (!indicatorDefinition.hasCode(value)) {
-        if (!indicatorDefinition.isVersionSpecificCode(marcVersion, value)) {
-          isValid = false;
-          if (indicatorDefinition.isHistoricalCode(value)) {
-            addError(path, INDICATOR_OBSOLETE, value);
-          } else {
-            addError(path, INDICATOR_INVALID_VALUE, value);
-          }
-        }
+    var isValid = true;
+    for (MarcSubfield subfield : subfields) {
+      SubfieldDefinition subfieldDefinition = subfield.getDefinition();
+      if (subfieldDefinition == null)
+        continue;
+
+      var count = 0;
+      int slot = ValidationPlan.slot(subfieldDefinition.getCode());
+      if (slot != -1 && definitions != null && definitions[slot] == subfieldDefinition) {
+        count = counts[slot];
+        counts[slot] = 0;
+      } else if (otherCounts != null && otherCounts.containsKey(subfieldDefinition)) {
+        count = otherCounts.put(subfieldDefinition, 0);
       }
-    } else {
-      if (!value.equals(" ")) {
-        if (!indicatorDefinition.isVersionSpecificCode(marcVersion, value)) {
-          addError(path, INDICATOR_NON_EMPTY, value);
-          isValid = false;
-        }
+      if (count > 1) {
+        addError(subfieldDefinition, SUBFIELD_NONREPEATABLE,
+          String.format("there are %d instances", count));
+        isValid = false;
       }
     }
     return isValid;
   }
 
+  private boolean validateIndicator(ValidationPlan plan,
+                                    int indicator,
+                                    String value,
+                                    DataFieldDefinition referencerDefinition) {
+    ValidationErrorType errorType = plan.checkIndicator(indicator, value);
+    if (errorType == null)
+      return true;
+
+    String path = plan.getIndicatorPath(indicator);
+    if (referencerDefinition != null)
+      path = String.format("%s->%s", referencerDefinition.getTag(), path);
+    addError(path, errorType, value);
+    return false;
+  }
+
   public DataFieldKeyGenerator getKeyGenerator(SolrFieldType type) {
     return new DataFieldKeyGenerator(getDefinition(), type);
   }
@@ -80,7 +80,6 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
 
   private void initialize() {
     initializationErrors = new ArrayList<>();
-    processContent();
     try {
       setType();
     } catch (IllegalArgumentException e) {
@@ -134,27 +133,16 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
   }
 
   private void setType() {
-    if (typeOfRecord.getValue().equals("a")
-        && bibliographicLevel.getValue().matches("^(a|c|d|m)$")) {
-      type = Type.BOOKS;
-    } else if (typeOfRecord.getValue().equals("a")
-        && bibliographicLevel.getValue().matches("^(b|i|s)$")) {
-      type = Type.CONTINUING_RESOURCES;
-    } else if (typeOfRecord.getValue().equals("t")) {
-      type = Type.BOOKS;
-    } else if (typeOfRecord.getValue().matches("^[cdij]$")) {
-      type = Type.MUSIC;
-    } else if (typeOfRecord.getValue().matches("^[ef]$")) {
-      type = Type.MAPS;
-    } else if (typeOfRecord.getValue().matches("^[gkor]$")) {
-      type = Type.VISUAL_MATERIALS;
-    } else if (typeOfRecord.getValue().equals("m")) {
-      type = Type.COMPUTER_FILES;
-    } else if (typeOfRecord.getValue().equals("p")) {
-      type = Type.MIXED_MATERIALS;
+    if (content != null && content.length() >= 8) {
+      type = detectType(content.substring(6, 7), content.substring(7, 8));
     } else {
+      decode();
+      type = detectType(typeOfRecord.getValue(), bibliographicLevel.getValue());
+    }
+    if (type == null) {
       if (defaultType != null)
         type = defaultType;
+      decode();
       throw new IllegalArgumentException(
         String.format(
           "Leader/%s (%s): '%s', Leader/%s (%s): '%s'",
@@ -167,7 +155,47 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
     }
   }
 
+  /**
+   * Detects the type of the record from the leader string without creating the Leader object
+   * (e.g. to filter the records before they are fully parsed).
+   * @param leader The leader string
+   * @param defaultType The type to return if the type is undetectable
+   * @return The type of the record
+   */
+  public static Type detectType(String leader, Type defaultType) {
+    if (leader == null || leader.length() < 8)
+      return defaultType;
+    Type type = detectType(leader.substring(6, 7), leader.substring(7, 8));
+    return type == null ? defaultType : type;
+  }
+
+  private static Type detectType(String typeOfRecord, String bibliographicLevel) {
+    switch (typeOfRecord) {
+      case "a":
+        switch (bibliographicLevel) {
+          case "a": case "c": case "d": case "m": return Type.BOOKS;
+          case "b": case "i": case "s":           return Type.CONTINUING_RESOURCES;
+          default:                                return null;
+        }
+      case "t":
+        return Type.BOOKS;
+      case "c": case "d": case "i": case "j":
+        return Type.MUSIC;
+      case "e": case "f":
+        return Type.MAPS;
+      case "g": case "k": case "o": case "r":
+        return Type.VISUAL_MATERIALS;
+      case "m":
+        return Type.COMPUTER_FILES;
+      case "p":
+        return Type.MIXED_MATERIALS;
+      default:
+        return null;
+    }
+  }
+
   public String resolve(ControlfieldPositionDefinition key) {
+    decode();
     String value = valuesMap.get(key);
     return key.resolve(value);
   }
@@ -177,10 +205,12 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
   }
 
   public Map<ControlfieldPositionDefinition, String> getMap() {
+    decode();
     return valuesMap;
   }
 
   public String get(ControlfieldPositionDefinition key) {
+    decode();
     return valuesMap.get(key);
   }
 
@@ -205,38 +235,47 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
   }
 
   public ControlValue getRecordLength() {
+    decode();
     return recordLength;
   }
 
   public ControlValue getRecordStatus() {
+    decode();
     return recordStatus;
   }
 
   public ControlValue getTypeOfRecord() {
+    decode();
     return typeOfRecord;
   }
 
   public ControlValue getBibliographicLevel() {
+    decode();
     return bibliographicLevel;
   }
 
   public ControlValue getTypeOfControl() {
+    decode();
     return typeOfControl;
   }
 
   public ControlValue getCharacterCodingScheme() {
+    decode();
     return characterCodingScheme;
   }
 
   public ControlValue getIndicatorCount() {
+    decode();
     return indicatorCount;
   }
 
   public ControlValue getSubfieldCodeCount() {
+    decode();
     return subfieldCodeCount;
   }
 
   public ControlValue getBaseAddressOfData() {
+    decode();
     return baseAddressOfData;
   }
 
@@ -245,35 +284,35 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
    * @return
    */
   public ControlValue getEncodingLevel() {
+    decode();
     return encodingLevel;
   }
 
   public ControlValue getDescriptiveCatalogingForm() {
+    decode();
     return descriptiveCatalogingForm;
   }
 
   public ControlValue getMultipartResourceRecordLevel() {
+    decode();
     return multipartResourceRecordLevel;
   }
 
   public ControlValue getLengthOfTheLengthOfFieldPortion() {
+    decode();
     return lengthOfTheLengthOfFieldPortion;
   }
 
   public ControlValue getLengthOfTheStartingCharacterPositionPortion() {
+    decode();
     return lengthOfTheStartingCharacterPositionPortion;
   }
 
   public ControlValue getLengthOfTheImplementationDefinedPortion() {
+    decode();
     return lengthOfTheImplementationDefinedPortion;
   }
 
-  public void setMarcRecord(MarcRecord marcRecord) {
-    this.marcRecord = marcRecord;
-    for (ControlValue value : valuesList)
-      value.setMarcRecord(marcRecord);
-  }
-
   public String toString() {
     StringBuffer output = new StringBuffer(String.format("type: %s%n", type.getValue()));
     for (ControlfieldPositionDefinition key : LeaderPositions.getInstance().getPositionList()) {
@@ -288,6 +327,7 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
   }
 
   public Map<String, List<String>> getKeyValuePairs(SolrFieldType type) {
+    decode();
     Map<String, List<String>> map = new LinkedHashMap<>();
     PositionalControlFieldKeyGenerator keyGenerator = new PositionalControlFieldKeyGenerator(
       definition.getTag(), definition.getMqTag(), type);
@@ -302,6 +342,7 @@ public class Leader extends MarcPositionalControlField implements Extractable, V
 
   @Override
   public boolean validate(MarcVersion marcVersion) {
+    decode();
     var isValid = true;
     validationErrors = new ArrayList<>();
     if (!initializationErrors.isEmpty())
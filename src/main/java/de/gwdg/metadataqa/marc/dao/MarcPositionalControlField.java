@@ -14,8 +14,9 @@ public abstract class MarcPositionalControlField extends MarcControlField {
   protected ControlFieldDefinition definition;
   protected Map<ControlfieldPositionDefinition, String> valuesMap;
   protected List<ControlValue> valuesList;
-  private Map<Integer, ControlValue> valuesByPosition = new LinkedHashMap<>();
+  private Map<Integer, ControlValue> valuesByPosition;
   protected Leader.Type recordType;
+  private boolean decoded = false;
 
   public MarcPositionalControlField(ControlFieldDefinition definition, String content) {
     this(definition, content, null);
@@ -27,20 +28,76 @@ public abstract class MarcPositionalControlField extends MarcControlField {
     super(definition, content);
     this.definition = definition;
     this.recordType = recordType;
-    valuesMap = new LinkedHashMap<>();
-    valuesList = new ArrayList<>();
   }
 
   @Override
   public void setMarcRecord(MarcRecord marcRecord) {
     super.setMarcRecord(marcRecord);
-    for (ControlValue value : valuesList) {
-      value.setMarcRecord(this.marcRecord);
-    }
+    if (decoded)
+      for (ControlValue value : valuesList)
+        value.setMarcRecord(this.marcRecord);
   }
 
+  /**
+   * Splits the content into the positional values. It is called by decode() on the first access of
+   * the values, not in the constructor, so the fields of the records which are only read or
+   * written as a whole (e.g. the marc-tags Solr fields or the network analysis) are not decoded.
+   */
   protected abstract void processContent();
 
+  /**
+   * Decodes the positional values if it has not been done yet. Every method which reads valuesMap,
+   * valuesList or the ControlValue properties of the subclasses should call it first.
+   */
+  protected void decode() {
+    if (decoded)
+      return;
+    decoded = true;
+    valuesMap = new LinkedHashMap<>();
+    valuesList = new ArrayList<>();
+    processContent();
+    if (marcRecord != null)
+      for (ControlValue value : valuesList)
+        value.setMarcRecord(marcRecord);
+  }
+
+  /**
+   * @return The definitions of the lists by their start position. It is created once for each
+   * type of the field, and shared by all the instances.
+   */
+  @SafeVarargs
+  protected static Map<Integer, ControlfieldPositionDefinition> indexPositions(
+      List<ControlfieldPositionDefinition>... lists) {
+    Map<Integer, ControlfieldPositionDefinition> index = new LinkedHashMap<>();
+    for (List<ControlfieldPositionDefinition> list : lists)
+      for (ControlfieldPositionDefinition position : list)
+        index.put(position.getPositionStart(), position);
+    return Collections.unmodifiableMap(index);
+  }
+
+  /**
+   * @return The definition of the position from the shared index, if the position has a value
+   */
+  protected ControlfieldPositionDefinition getDecodedPosition(Map<Integer, ControlfieldPositionDefinition> index,
+                                                              int position) {
+    decode();
+    ControlfieldPositionDefinition definition = index.get(position);
+    return definition != null && valuesMap.containsKey(definition) ? definition : null;
+  }
+
+  /**
+   * @return The start positions which have a value, the shared key set if all the positions have
+   */
+  protected Set<Integer> getDecodedPositions(Map<Integer, ControlfieldPositionDefinition> index) {
+    decode();
+    if (valuesMap.size() == index.size())
+      return index.keySet();
+    Set<Integer> positions = new LinkedHashSet<>();
+    for (ControlfieldPositionDefinition definition : valuesMap.keySet())
+      positions.add(definition.getPositionStart());
+    return positions;
+  }
+
   @Override
   public Map<String, List<String>> getKeyValuePairs(SolrFieldType type) {
     return getKeyValuePairs(definition.getTag(), definition.getMqTag(), type);
@@ -52,6 +109,7 @@ public abstract class MarcPositionalControlField extends MarcControlField {
     Map<String, List<String>> map = new LinkedHashMap<>();
     PositionalControlFieldKeyGenerator keyGenerator = new PositionalControlFieldKeyGenerator(tag, mqTag, type);
     if (content != null) {
+      decode();
       map.put(keyGenerator.forTag(), Arrays.asList(content));
       for (Map.Entry<ControlfieldPositionDefinition, String> entry : valuesMap.entrySet()) {
         ControlfieldPositionDefinition position = entry.getKey();
@@ -63,10 +121,12 @@ public abstract class MarcPositionalControlField extends MarcControlField {
   }
 
   public Map<ControlfieldPositionDefinition, String> getMap() {
+    decode();
     return valuesMap;
   }
 
   public List<ControlValue> getValuesList() {
+    decode();
     return valuesList;
   }
 
@@ -88,6 +148,7 @@ public abstract class MarcPositionalControlField extends MarcControlField {
 
   @Override
   public boolean validate(MarcVersion marcVersion) {
+    decode();
     var isValid = true;
     validationErrors = new ArrayList<>();
     if (!initializationErrors.isEmpty()) {
@@ -109,10 +170,13 @@ public abstract class MarcPositionalControlField extends MarcControlField {
 
   protected void registerControlValue(ControlValue controlValue) {
     valuesList.add(controlValue);
+    if (valuesByPosition == null)
+      valuesByPosition = new HashMap<>();
     valuesByPosition.put(controlValue.getDefinition().getPositionStart(), controlValue);
   }
 
   public ControlValue getControlValueByPosition(int position) {
-    return valuesByPosition.get(position);
+    decode();
+    return valuesByPosition == null ? null : valuesByPosition.get(position);
   }
 }
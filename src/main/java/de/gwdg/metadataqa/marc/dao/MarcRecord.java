@@ -42,12 +42,18 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   private MarcControlField control001;
   private MarcControlField control003;
   private MarcControlField control005;
-  private List<Control006> control006 = new ArrayList<>();
-  private List<Control007> control007 = new ArrayList<>();
+  private List<Control006> control006 = Collections.emptyList();
+  private List<Control007> control007 = Collections.emptyList();
   private Control008 control008;
   private List<DataField> datafields;
-  private Map<String, List<DataField>> datafieldIndex;
-  private Map<String, List<MarcControlField>> controlfieldIndex;
+  /**
+   * The data fields of the numeric tags (000-999), in blocks of ten tags created on demand.
+   */
+  private List<DataField>[][] numericTagIndex;
+  /**
+   * The data fields of the other tags (such as the local tags STA or the PICA tags).
+   */
+  private Map<String, List<DataField>> otherTagIndex;
   Map<String, List<String>> mainKeyValuePairs;
   private List<ValidationError> validationErrors = null;
   private SchemaType schemaType = SchemaType.MARC21;
@@ -58,13 +64,10 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
     BOTH;
   }
 
-  private List<String> unhandledTags;
+  private List<String> unhandledTags = Collections.emptyList();
 
   public MarcRecord() {
     datafields = new ArrayList<>();
-    datafieldIndex = new TreeMap<>();
-    controlfieldIndex = new TreeMap<>();
-    unhandledTags = new ArrayList<>();
   }
 
   public MarcRecord(String id) {
@@ -78,16 +81,44 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
     datafields.add(dataField);
   }
 
+  @SuppressWarnings("unchecked")
   private void indexField(DataField dataField) {
     String tag = dataField.getTag();
     if (tag == null)
       logger.warning("null tag in indexField() " + dataField);
 
-    datafieldIndex.computeIfAbsent(tag, s -> new ArrayList<>());
-    datafieldIndex.get(tag).add(dataField);
+    int tagNumber = TagGroup.toTagNumber(tag);
+    if (tagNumber == -1) {
+      if (otherTagIndex == null)
+        otherTagIndex = new HashMap<>();
+      otherTagIndex.computeIfAbsent(tag, s -> new ArrayList<>(2)).add(dataField);
+      return;
+    }
+
+    if (numericTagIndex == null)
+      numericTagIndex = new List[100][];
+    List<DataField>[] block = numericTagIndex[tagNumber / 10];
+    if (block == null) {
+      block = new List[10];
+      numericTagIndex[tagNumber / 10] = block;
+    }
+    if (block[tagNumber % 10] == null)
+      block[tagNumber % 10] = new ArrayList<>(2);
+    block[tagNumber % 10].add(dataField);
+  }
+
+  private List<DataField> getDatafield(int tagNumber, String tag) {
+    if (tagNumber == -1)
+      return otherTagIndex == null ? null : otherTagIndex.get(tag);
+    if (numericTagIndex == null)
+      return null;
+    List<DataField>[] block = numericTagIndex[tagNumber / 10];
+    return block == null ? null : block[tagNumber % 10];
   }
 
   public void addUnhandledTags(String tag) {
+    if (unhandledTags.isEmpty())
+      unhandledTags = new ArrayList<>();
     unhandledTags.add(tag);
   }
 
@@ -125,7 +156,6 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   public MarcRecord setControl001(MarcControlField control001) {
     this.control001 = control001;
     control001.setMarcRecord(this);
-    controlfieldIndex.put(control001.definition.getTag(), Arrays.asList(control001));
     return this;
   }
 
@@ -136,7 +166,6 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   public void setControl003(MarcControlField control003) {
     this.control003 = control003;
     control003.setMarcRecord(this);
-    controlfieldIndex.put(control003.definition.getTag(), Arrays.asList(control003));
   }
 
   public MarcControlField getControl005() {
@@ -146,7 +175,6 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   public void setControl005(MarcControlField control005) {
     this.control005 = control005;
     control005.setMarcRecord(this);
-    controlfieldIndex.put(control005.definition.getTag(), Arrays.asList(control005));
   }
 
   public List<Control006> getControl006() {
@@ -154,9 +182,10 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   }
 
   public void setControl006(Control006 control006) {
+    if (this.control006.isEmpty())
+      this.control006 = new ArrayList<>();
     this.control006.add(control006);
     control006.setMarcRecord(this);
-    controlfieldIndex.put(control006.definition.getTag(), (List) this.control006);
   }
 
   public List<Control007> getControl007() {
@@ -164,9 +193,10 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   }
 
   public void setControl007(Control007 control007) {
+    if (this.control007.isEmpty())
+      this.control007 = new ArrayList<>();
     this.control007.add(control007);
     control007.setMarcRecord(this);
-    controlfieldIndex.put(control007.definition.getTag(), (List) this.control007);
   }
 
   public Control008 getControl008() {
@@ -176,7 +206,6 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   public void setControl008(Control008 control008) {
     this.control008 = control008;
     control008.setMarcRecord(this);
-    controlfieldIndex.put(control008.definition.getTag(), Arrays.asList(control008));
   }
 
   public String getId() {
@@ -206,6 +235,18 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
     return list;
   }
 
+  private List<? extends MarcControlField> getControlfields(String tag) {
+    switch (tag) {
+      case "001": return control001 == null ? null : Collections.singletonList(control001);
+      case "003": return control003 == null ? null : Collections.singletonList(control003);
+      case "005": return control005 == null ? null : Collections.singletonList(control005);
+      case "006": return control006.isEmpty() ? null : control006;
+      case "007": return control007.isEmpty() ? null : control007;
+      case "008": return control008 == null ? null : Collections.singletonList(control008);
+      default: return null;
+    }
+  }
+
   public List<MarcControlField> getSimpleControlfields() {
     return Arrays.asList(
       control001, control003, control005
@@ -224,11 +265,37 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   }
 
   public boolean hasDatafield(String tag) {
-    return datafieldIndex.containsKey(tag);
+    return getDatafield(tag) != null;
   }
 
   public List<DataField> getDatafield(String tag) {
-    return datafieldIndex.getOrDefault(tag, null);
+    return getDatafield(TagGroup.toTagNumber(tag), tag);
+  }
+
+  /**
+   * @return The data fields of the tags of the group, in the order of the tags
+   */
+  public List<DataField> getDatafields(TagGroup group) {
+    List<DataField> fields = new ArrayList<>();
+    for (int i = 0; i < group.size(); i++) {
+      List<DataField> instances = getDatafield(group.getTagNumber(i), group.getTag(i));
+      if (instances != null)
+        fields.addAll(instances);
+    }
+    return fields;
+  }
+
+  /**
+   * @return The number of data fields of the tags of the group
+   */
+  public int countDatafields(TagGroup group) {
+    int count = 0;
+    for (int i = 0; i < group.size(); i++) {
+      List<DataField> instances = getDatafield(group.getTagNumber(i), group.getTag(i));
+      if (instances != null)
+        count += instances.size();
+    }
+    return count;
   }
 
   public List<DataField> getDatafields() {
@@ -525,10 +592,12 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
           validationErrors.addAll(field.getValidationErrors());
         }
 
-        validatorResponse = ClassificationReferenceValidator.validate(field);
-        if (!validatorResponse.isValid()) {
-          validationErrors.addAll(validatorResponse.getValidationErrors());
-          isValidRecord = false;
+        if (field.getDefinition().getValidationPlan(marcVersion).hasClassificationReference()) {
+          validatorResponse = ClassificationReferenceValidator.validate(field);
+          if (!validatorResponse.isValid()) {
+            validationErrors.addAll(validatorResponse.getValidationErrors());
+            isValidRecord = false;
+          }
         }
       }
     }
@@ -571,8 +640,8 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
       if (matcher.matches()) {
         String tag = matcher.group(1);
         String subfieldCode = matcher.group(2);
-        if (datafieldIndex.containsKey(tag)) {
-          for (DataField field : datafieldIndex.get(tag)) {
+        if (hasDatafield(tag)) {
+          for (DataField field : getDatafield(tag)) {
             if (searchDatafield(query, results, subfieldCode, field)) break;
           }
         }
@@ -593,8 +662,8 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
       } else {
         results.add(leader.getContent());
       }
-    } else if (controlfieldIndex.containsKey(selector.getFieldTag())) {
-      for (MarcControlField field : controlfieldIndex.get(selector.getFieldTag())) {
+    } else if (getControlfields(selector.getFieldTag()) != null) {
+      for (MarcControlField field : getControlfields(selector.getFieldTag())) {
         if (field == null)
           continue;
         if (!simpleControlTags.contains(field.definition.getTag())) {
@@ -607,8 +676,8 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
         }
       }
 
-    } else if (datafieldIndex.containsKey(selector.getFieldTag())) {
-      for (DataField field : datafieldIndex.get(selector.getFieldTag())) {
+    } else if (hasDatafield(selector.getFieldTag())) {
+      for (DataField field : getDatafield(selector.getFieldTag())) {
         if (field == null)
           continue;
         for (String subfieldCode : selector.getSubfieldsAsList()) {
@@ -715,44 +784,15 @@ public class MarcRecord implements Extractable, Validatable, Serializable {
   }
 
   public List<DataField> getAuthorityFields() {
-    List<DataField> subjects = new ArrayList<>();
-    List<String> tags = Arrays.asList(
-      "100", "110", "111", "130",
-      "700", "710", "711", "730",   "720", "740", "751", "752", "753", "754",
-      "800", "810", "811", "830"
-    );
-    for (String tag : tags) {
-      List<DataField> fields = getDatafield(tag);
-      if (fields != null && !fields.isEmpty())
-        subjects.addAll(fields);
-    }
-    return subjects;
+    return getDatafields(TagGroup.AUTHORITY);
   }
 
   public List<DataField> getSubjects() {
-    List<DataField> subjects = new ArrayList<>();
-    List<String> tags = Arrays.asList(
-      "052", "055", "072", "080", "082", "083", "084", "085", "086",
-      "600", "610", "611", "630", "647", "648", "650", "651",
-      "653", "654", "655", "656", "657", "658", "662"
-    );
-    for (String tag : tags) {
-      List<DataField> fields = getDatafield(tag);
-      if (fields != null && !fields.isEmpty())
-        subjects.addAll(fields);
-    }
-    return subjects;
+    return getDatafields(TagGroup.SUBJECT);
   }
 
   public List<DataField> getSubject6xx() {
-    List<DataField> subjects = new ArrayList<>();
-    List<String> tags = Arrays.asList("600", "610", "611", "630", "648", "650", "651");
-    for (String tag : tags) {
-      List<DataField> fields = getDatafield(tag);
-      if (fields != null && !fields.isEmpty())
-        subjects.addAll(fields);
-    }
-    return subjects;
+    return getDatafields(TagGroup.SUBJECT_6XX);
   }
 
   public void setField(String tag, String content) {
@@ -0,0 +1,71 @@
+package de.gwdg.metadataqa.marc.dao;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed set of tags (such as the authority or subject fields), prepared once for the lookups of
+ * MarcRecord.getDatafields(TagGroup) and MarcRecord.countDatafields(TagGroup).
+ */
+public class TagGroup implements Serializable {
+
+  public static final TagGroup AUTHORITY = new TagGroup(
+    "100", "110", "111", "130",
+    "700", "710", "711", "730",   "720", "740", "751", "752", "753", "754",
+    "800", "810", "811", "830"
+  );
+
+  public static final TagGroup SUBJECT = new TagGroup(
+    "052", "055", "072", "080", "082", "083", "084", "085", "086",
+    "600", "610", "611", "630", "647", "648", "650", "651",
+    "653", "654", "655", "656", "657", "658", "662"
+  );
+
+  public static final TagGroup SUBJECT_6XX = new TagGroup(
+    "600", "610", "611", "630", "648", "650", "651"
+  );
+
+  private final List<String> tags;
+  private final int[] tagNumbers;
+
+  public TagGroup(String... tags) {
+    this.tags = Collections.unmodifiableList(Arrays.asList(tags.clone()));
+    tagNumbers = new int[tags.length];
+    for (int i = 0; i < tags.length; i++)
+      tagNumbers[i] = toTagNumber(tags[i]);
+  }
+
+  public List<String> getTags() {
+    return tags;
+  }
+
+  String getTag(int i) {
+    return tags.get(i);
+  }
+
+  int getTagNumber(int i) {
+    return tagNumbers[i];
+  }
+
+  int size() {
+    return tagNumbers.length;
+  }
+
+  /**
+   * @return The numeric value of a tag from 000 to 999, or -1 for the other tags (such as STA)
+   */
+  public static int toTagNumber(String tag) {
+    if (tag == null || tag.length() != 3)
+      return -1;
+    int number = 0;
+    for (int i = 0; i < 3; i++) {
+      char c = tag.charAt(i);
+      if (c < '0' || c > '9')
+        return -1;
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+}
@@ -9,7 +9,9 @@ public enum MarcFormat {
   XML("XML", "MARCXML"),
   ALEPHSEQ("ALEPHSEQ", "ALEPHSEQ"),
   LINE_SEPARATED("LINE_SEPARATED", "Line separated binary MARC (each line contains one record)"),
-  MARC_LINE("MARC_LINE", "MARC Line")
+  MARC_LINE("MARC_LINE", "MARC Line"),
+  JSON("JSON", "MARC JSON (each line contains one record)"),
+  PICA_NORMALIZED("PICA_NORMALIZED", "Normalized PICA+ (each line contains one record)")
   ;
 
   String code;
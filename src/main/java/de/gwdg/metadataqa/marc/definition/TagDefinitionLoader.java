@@ -1,16 +1,16 @@
 package de.gwdg.metadataqa.marc.definition;
 
+import de.gwdg.metadataqa.marc.dao.TagGroup;
 import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
-import de.gwdg.metadataqa.marc.utils.MarcTagLister;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -29,53 +29,108 @@ public class TagDefinitionLoader {
     "012", "019", "029", "090", "092", "096", "366", "539", "891", "911",
     "912", "936", "938", "994"
   );
-  private static Map<String, DataFieldDefinition> commonCache = new HashMap<>();
-  private static Map<String, Map<MarcVersion, DataFieldDefinition>> versionedCache = new HashMap<>();
+  private static final int NUMBER_OF_TAGS = 1000;
+  private static final int UNDEFINED = -1;
+
+  private static final TagRegistry registry = TagRegistry.getInstance();
+  /**
+   * The definitions already created, by their index in the registry
+   */
+  private static final AtomicReferenceArray<DataFieldDefinition> definitions =
+    new AtomicReferenceArray<>(registry.getClassNames().length);
+  /**
+   * The index of the definition in the registry by MARC version and numeric tag, with the
+   * fallbacks of the version already resolved
+   */
+  private static final int[][] versionTables = new int[MarcVersion.values().length][];
+  /**
+   * The same for the non-numeric tags
+   */
+  private static final List<Map<String, Integer>> otherVersionTables = new ArrayList<>();
 
   static {
-    findAndCacheTags();
+    indexRegistry();
   }
 
-  private static void findAndCacheTags() {
-    List<Class<? extends DataFieldDefinition>> tags = MarcTagLister.listTags();
-    for (Class<? extends DataFieldDefinition> definitionClazz : tags) {
-      loadAndCacheTag(definitionClazz);
+  private static void indexRegistry() {
+    Map<String, Map<MarcVersion, Integer>> registryIndex = new HashMap<>();
+    String[] classNames = registry.getClassNames();
+    for (int i = 0; i < classNames.length; i++) {
+      String className = classNames[i];
+      registryIndex
+        .computeIfAbsent(TagRegistry.getTag(className), s -> new EnumMap<>(MarcVersion.class))
+        .put(getMarcVersion(className), i);
     }
-  }
 
-  private static void loadAndCacheTag(Class<? extends DataFieldDefinition> definitionClazz) {
-    DataFieldDefinition dataFieldDefinition = null;
-    Method getInstance = null;
-    try {
-      getInstance = definitionClazz.getMethod("getInstance");
-      dataFieldDefinition = (DataFieldDefinition) getInstance.invoke(definitionClazz);
-      if (dataFieldDefinition != null) {
-        String tag = dataFieldDefinition.getTag();
-        commonCache.put(tag, dataFieldDefinition);
-        MarcVersion version = getMarcVersion(definitionClazz);
-        versionedCache.computeIfAbsent(tag, s -> new EnumMap<>(MarcVersion.class));
-        versionedCache.get(tag).put(version, dataFieldDefinition);
+    for (MarcVersion marcVersion : MarcVersion.values()) {
+      int[] table = new int[NUMBER_OF_TAGS];
+      Arrays.fill(table, UNDEFINED);
+      Map<String, Integer> otherTable = new HashMap<>();
+      for (Map.Entry<String, Map<MarcVersion, Integer>> entry : registryIndex.entrySet()) {
+        int index = resolve(entry.getValue(), marcVersion);
+        if (index == UNDEFINED)
+          continue;
+        int tagNumber = TagGroup.toTagNumber(entry.getKey());
+        if (tagNumber != -1)
+          table[tagNumber] = index;
+        else
+          otherTable.put(entry.getKey(), index);
       }
-    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-      logger.log(Level.SEVERE, "loadAndCacheTag", e);
+      versionTables[marcVersion.ordinal()] = table;
+      otherVersionTables.add(Collections.unmodifiableMap(otherTable));
+    }
+  }
+
+  /**
+   * @return The index of the definition which is used in the MARC version: its own one, or for the
+   * other versions than MARC21 the MARC21 or the OCLC definition
+   */
+  private static int resolve(Map<MarcVersion, Integer> indexes, MarcVersion marcVersion) {
+    if (indexes.containsKey(marcVersion))
+      return indexes.get(marcVersion);
+
+    if (marcVersion.equals(MarcVersion.MARC21)) {
+      // no fallback for MARC21
+      return UNDEFINED;
+    } else {
+      // fallbacks for other MARC versions
+      if (indexes.containsKey(MarcVersion.MARC21))
+        return indexes.get(MarcVersion.MARC21);
+      if (indexes.containsKey(MarcVersion.OCLC))
+        return indexes.get(MarcVersion.OCLC);
+    }
+
+    return UNDEFINED;
+  }
+
+  /**
+   * Creates the definition on the first request.
+   */
+  private static DataFieldDefinition getDefinition(int index) {
+    DataFieldDefinition definition = definitions.get(index);
+    if (definition == null) {
+      definition = registry.getDefinition(index);
+      if (definition != null && !definitions.compareAndSet(index, null, definition))
+        definition = definitions.get(index);
     }
+    return definition;
   }
 
-  private static MarcVersion getMarcVersion(Class<? extends DataFieldDefinition> definitionClazz) {
+  private static MarcVersion getMarcVersion(String className) {
     var version = MarcVersion.MARC21;
-    if (definitionClazz.getCanonicalName().contains(".oclctags.")) {
+    if (className.contains(".oclctags.")) {
       version = MarcVersion.OCLC;
-    } else if (definitionClazz.getCanonicalName().contains(".dnbtags.")) {
+    } else if (className.contains(".dnbtags.")) {
       version = MarcVersion.DNB;
-    } else if (definitionClazz.getCanonicalName().contains(".genttags.")) {
+    } else if (className.contains(".genttags.")) {
       version = MarcVersion.GENT;
-    } else if (definitionClazz.getCanonicalName().contains(".sztetags.")) {
+    } else if (className.contains(".sztetags.")) {
       version = MarcVersion.SZTE;
-    } else if (definitionClazz.getCanonicalName().contains(".fennicatags.")) {
+    } else if (className.contains(".fennicatags.")) {
       version = MarcVersion.FENNICA;
-    } else if (definitionClazz.getCanonicalName().contains(".nkcrtags.")) {
+    } else if (className.contains(".nkcrtags.")) {
       version = MarcVersion.NKCR;
-    } else if (definitionClazz.getCanonicalName().contains(".bltags.")) {
+    } else if (className.contains(".bltags.")) {
       version = MarcVersion.BL;
     }
     return version;
@@ -86,26 +141,17 @@ public class TagDefinitionLoader {
   }
 
   public static DataFieldDefinition load(String tag, MarcVersion marcVersion) {
-    Map<MarcVersion, DataFieldDefinition> map = versionedCache.get(tag);
-
-    if (map == null)
+    if (tag == null)
       return null;
 
-    if (map.containsKey(marcVersion))
-      return map.get(marcVersion);
+    int tagNumber = TagGroup.toTagNumber(tag);
+    int index = tagNumber != -1
+      ? versionTables[marcVersion.ordinal()][tagNumber]
+      : otherVersionTables.get(marcVersion.ordinal()).getOrDefault(tag, UNDEFINED);
 
-    if (marcVersion.equals(MarcVersion.MARC21)) {
-      // no fallback for MARC21
+    if (index == UNDEFINED)
       return null;
-    } else {
-      // fallbacks for other MARC versions
-      if (map.containsKey(MarcVersion.MARC21))
-        return map.get(MarcVersion.MARC21);
-      if (map.containsKey(MarcVersion.OCLC))
-        return map.get(MarcVersion.OCLC);
-    }
-
-    return null;
+    return getDefinition(index);
   }
 
   public static String getClassName(String tag) {
@@ -0,0 +1,73 @@
+package de.gwdg.metadataqa.marc.definition;
+
+import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
+import de.gwdg.metadataqa.marc.utils.MarcTagLister;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The list of the data field definition classes (de.gwdg.metadataqa.marc.definition.tags).
+ *
+ * The list is generated at build time by TagRegistryProcessor (GeneratedTagRegistry). If the
+ * generated class is missing (e.g. the sources were compiled without the annotation processor)
+ * the classpath is scanned instead.
+ */
+public abstract class TagRegistry {
+
+  private static final Logger logger = Logger.getLogger(TagRegistry.class.getCanonicalName());
+  private static final String GENERATED_CLASS = "de.gwdg.metadataqa.marc.definition.GeneratedTagRegistry";
+
+  private static TagRegistry instance;
+
+  public static synchronized TagRegistry getInstance() {
+    if (instance == null) {
+      try {
+        instance = (TagRegistry) Class.forName(GENERATED_CLASS).getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        logger.warning("No generated tag registry, scanning the classpath for the tag definitions");
+        instance = new ScannedTagRegistry();
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * @return The fully qualified names of the definition classes, ordered by their simple name
+   */
+  public abstract String[] getClassNames();
+
+  /**
+   * @param index The index of the class name
+   * @return The instance of the definition class
+   */
+  public abstract DataFieldDefinition getDefinition(int index);
+
+  /**
+   * @return The tag of the definition class, taken from its name (TagXXX)
+   */
+  public static String getTag(String className) {
+    return className.substring(className.lastIndexOf('.') + 1).replaceFirst("^Tag", "");
+  }
+
+  private static class ScannedTagRegistry extends TagRegistry {
+    private final List<Class<? extends DataFieldDefinition>> classes = MarcTagLister.scanTags();
+
+    @Override
+    public String[] getClassNames() {
+      return classes.stream().map(Class::getName).toArray(String[]::new);
+    }
+
+    @Override
+    public DataFieldDefinition getDefinition(int index) {
+      try {
+        return (DataFieldDefinition) classes.get(index).getMethod("getInstance").invoke(null);
+      } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+        logger.log(Level.SEVERE, "getDefinition", e);
+        return null;
+      }
+    }
+  }
+}
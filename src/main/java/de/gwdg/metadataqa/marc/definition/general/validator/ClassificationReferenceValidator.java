@@ -20,6 +20,13 @@ public class ClassificationReferenceValidator implements RecordValidator, FieldV
     "600", "610", "611", "630", "647", "648", "650", "651", "655", "656", "657", "852"
   );
 
+  /**
+   * @return Whether the fields with this tag are checked by validate(DataField)
+   */
+  public static boolean isApplicable(String tag) {
+    return fields.contains(tag);
+  }
+
   public static ValidatorResponse validate(MarcRecord marcRecord) {
     ValidatorResponse response = new ValidatorResponse();
     for (String tag : fields) {
@@ -48,7 +55,7 @@ public class ClassificationReferenceValidator implements RecordValidator, FieldV
 
   public static ValidatorResponse validate(DataField field) {
     ValidatorResponse response = new ValidatorResponse();
-    if (fields.contains(field.getTag()))
+    if (isApplicable(field.getTag()))
       if (field.getInd2().equals("7")) {
         List<MarcSubfield> subfield2 = field.getSubfield("2");
         if (subfield2 == null) {
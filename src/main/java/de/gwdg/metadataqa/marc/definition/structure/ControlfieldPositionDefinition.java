@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import de.gwdg.metadataqa.marc.CodeSet;
 import de.gwdg.metadataqa.marc.EncodedValue;
 import de.gwdg.metadataqa.marc.definition.FRBRFunction;
 import de.gwdg.metadataqa.marc.definition.general.codelist.CodeList;
@@ -30,6 +31,13 @@ public class ControlfieldPositionDefinition implements Serializable {
   protected CodeList codeList;
 
   protected List<String> validCodes = new ArrayList<>();
+  /**
+   * The compiled codes, created by extractValidCodes() at the end of the construction of the
+   * definition, and only read afterwards, so the shared definitions can be used by threads
+   */
+  private ValidCodeSet validCodeSet = ValidCodeSet.EMPTY;
+  private ValidCodeSet historicalCodeSet = ValidCodeSet.EMPTY;
+  private CodeSet codeSet;
   protected int unitLength = -1;
   protected boolean repeatableContent = false;
   protected String defaultCode;
@@ -147,13 +155,13 @@ public class ControlfieldPositionDefinition implements Serializable {
     if (isRepeatableContent())
       return validateRepeatable(code);
     else
-      return validCodes.contains(code);
+      return isValidCode(code);
   }
 
   private boolean validateRepeatable(String code) {
     for (int i=0; i < code.length(); i += unitLength) {
       String unit = code.substring(i, i+unitLength);
-      if (!validCodes.contains(unit))
+      if (!isValidCode(unit))
         return false;
     }
     return true;
@@ -205,10 +213,24 @@ public class ControlfieldPositionDefinition implements Serializable {
   }
 
   protected void extractValidCodes() {
-    if (codes == null)
-      return;
-    for (EncodedValue code : codes)
-      validCodes.add(code.getCode());
+    if (codes != null)
+      for (EncodedValue code : codes)
+        validCodes.add(code.getCode());
+    validCodeSet = new ValidCodeSet(validCodes);
+    codeSet = codes == null ? null : new CodeSet(codes);
+    if (historicalCodes != null) {
+      List<String> historical = new ArrayList<>();
+      for (EncodedValue code : historicalCodes)
+        historical.add(code.getCode());
+      historicalCodeSet = new ValidCodeSet(historical);
+    }
+  }
+
+  /**
+   * @return Whether the code is among the valid codes (without resolving the ranges)
+   */
+  public boolean isValidCode(String code) {
+    return validCodeSet.contains(code);
   }
 
   public List<String> getValidCodes() {
@@ -229,6 +251,10 @@ public class ControlfieldPositionDefinition implements Serializable {
   }
 
   public EncodedValue getCode(String otherCode) {
+    if (codeSet != null)
+      return codeSet.get(otherCode);
+
+    // while the definition is being constructed
     for (EncodedValue code : codes)
       if (code.getCode().equals(otherCode))
         return code;
@@ -239,9 +265,7 @@ public class ControlfieldPositionDefinition implements Serializable {
   }
 
   public boolean isHistoricalCode(String inputCode) {
-    return historicalCodes != null
-           && !historicalCodes.isEmpty()
-           && historicalCodes.contains(inputCode);
+    return historicalCodeSet.contains(inputCode);
   }
 
   public String getPath() {
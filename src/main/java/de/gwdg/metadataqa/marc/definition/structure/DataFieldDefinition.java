@@ -12,6 +12,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public abstract class DataFieldDefinition implements BibliographicFieldDefinition, Serializable {
   protected String tag;
@@ -33,6 +34,13 @@ public abstract class DataFieldDefinition implements BibliographicFieldDefinitio
   protected boolean obsolete = false;
   private CompilanceLevel nationalCompilanceLevel;
   private CompilanceLevel minimalCompilanceLevel;
+  /**
+   * The compiled plans by MARC version. The definitions are shared between threads, so the slots
+   * are set atomically; the plans themselves are created lazily, after the definition is complete.
+   * The array is not serialized, a deserialized definition creates it again (see getValidationPlans())
+   */
+  private transient volatile AtomicReferenceArray<ValidationPlan> validationPlans =
+    new AtomicReferenceArray<>(MarcVersion.values().length);
 
   public String getTag() {
     return tag;
@@ -162,6 +170,34 @@ public abstract class DataFieldDefinition implements BibliographicFieldDefinitio
     versionSpecificSubfields.put(marcVersion, subfieldDefinitions);
   }
 
+  /**
+   * @return The rules of the definition compiled for the version (see DataField.validate())
+   */
+  public ValidationPlan getValidationPlan(MarcVersion marcVersion) {
+    if (marcVersion == null)
+      marcVersion = MarcVersion.MARC21;
+    AtomicReferenceArray<ValidationPlan> plans = getValidationPlans();
+    ValidationPlan plan = plans.get(marcVersion.ordinal());
+    if (plan == null) {
+      plan = new ValidationPlan(this, marcVersion);
+      if (!plans.compareAndSet(marcVersion.ordinal(), null, plan))
+        plan = plans.get(marcVersion.ordinal());
+    }
+    return plan;
+  }
+
+  private AtomicReferenceArray<ValidationPlan> getValidationPlans() {
+    AtomicReferenceArray<ValidationPlan> plans = validationPlans;
+    if (plans == null) {
+      synchronized (this) {
+        if (validationPlans == null)
+          validationPlans = new AtomicReferenceArray<>(MarcVersion.values().length);
+        plans = validationPlans;
+      }
+    }
+    return plans;
+  }
+
   public boolean hasVersionSpecificSubfields(MarcVersion marcVersion) {
     return versionSpecificSubfields.containsKey(marcVersion);
   }
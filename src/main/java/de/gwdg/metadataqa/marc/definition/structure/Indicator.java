@@ -1,7 +1,7 @@
 package de.gwdg.metadataqa.marc.definition.structure;
 
+import de.gwdg.metadataqa.marc.CodeSet;
 import de.gwdg.metadataqa.marc.EncodedValue;
-import de.gwdg.metadataqa.marc.Range;
 import de.gwdg.metadataqa.marc.definition.FRBRFunction;
 import de.gwdg.metadataqa.marc.definition.MarcVersion;
 
@@ -15,9 +15,8 @@ public class Indicator {
   private String indexTag = null;
   private List<EncodedValue> codes;
   protected List<EncodedValue> historicalCodes;
-  private Map<String, EncodedValue> codeIndex = new LinkedHashMap<>();
+  private CodeSet codeSet = new CodeSet(null);
   private Map<String, EncodedValue> historicalCodeIndex = new LinkedHashMap<>();
-  private Map<Range, EncodedValue> ranges;
   private String indicatorFlag;
   private Map<MarcVersion, List<EncodedValue>> versionSpecificCodes;
   private List<FRBRFunction> functions;
@@ -31,7 +30,7 @@ public class Indicator {
   public Indicator(String label, List<EncodedValue> codes) {
     this.label = label;
     this.codes = codes;
-    indexCodes();
+    codeSet = new CodeSet(codes);
   }
 
   public String getPath() {
@@ -57,6 +56,7 @@ public class Indicator {
 
   public Indicator setCodes(List<EncodedValue> codes) {
     this.codes = codes;
+    codeSet = new CodeSet(codes);
     return this;
   }
 
@@ -65,7 +65,7 @@ public class Indicator {
     for (int i = 0; i<input.length; i+=2) {
       codes.add(new EncodedValue(input[i], input[i+1]));
     }
-    indexCodes();
+    codeSet = new CodeSet(codes);
     return this;
   }
 
@@ -108,47 +108,11 @@ public class Indicator {
   }
 
   public EncodedValue getCode(String codeString) {
-    if (codeIndex.containsKey(codeString))
-      return codeIndex.get(codeString);
-
-    for (Range range : getRanges().keySet()) {
-      if (range.isValid(codeString))
-        return ranges.get(range);
-    }
-
-    return null;
+    return codeSet.get(codeString);
   }
 
   public boolean hasCode(String code) {
-    if (codeIndex.containsKey(code))
-      return true;
-    for (Range range : getRanges().keySet()) {
-      if (range.isValid(code))
-        return true;
-    }
-
-    return false;
-  }
-
-  private Map<Range, EncodedValue> getRanges() {
-    if (ranges == null) {
-      ranges = new HashMap<>();
-      if (codes != null) {
-        for (EncodedValue code : codes) {
-          if (code.isRange()) {
-            ranges.put(code.getRange(), code);
-          }
-        }
-      }
-    }
-    return ranges;
-  }
-
-  private void indexCodes() {
-    codeIndex = new LinkedHashMap<>();
-    for (EncodedValue code : codes) {
-      codeIndex.put(code.getCode(), code);
-    }
+    return codeSet.contains(code);
   }
 
   private void indexHistoricalCodes() {
@@ -1,5 +1,6 @@
 package de.gwdg.metadataqa.marc.definition.structure;
 
+import de.gwdg.metadataqa.marc.CodeSet;
 import de.gwdg.metadataqa.marc.EncodedValue;
 import de.gwdg.metadataqa.marc.Utils;
 import de.gwdg.metadataqa.marc.definition.Cardinality;
@@ -34,6 +35,8 @@ public class SubfieldDefinition implements Serializable {
   protected CodeList codeList;
   private List<EncodedValue> codes;
   private Map<MarcVersion, List<EncodedValue>> localCodes;
+  private CodeSet codeSet;
+  private Map<MarcVersion, CodeSet> localCodeSets;
   private List<String> allowedCodes;
   private String codeForIndex = null;
   private List<ControlfieldPositionDefinition> positions;
@@ -41,6 +44,7 @@ public class SubfieldDefinition implements Serializable {
   private CompilanceLevel nationalCompilanceLevel;
   private CompilanceLevel minimalCompilanceLevel;
   private List<MarcVersion> disallowedIn;
+  private Set<MarcVersion> disallowedVersions;
 
   public String getCodeForIndex() {
     if (codeForIndex == null) {
@@ -92,6 +96,7 @@ public class SubfieldDefinition implements Serializable {
 
   public SubfieldDefinition setCodes(List<EncodedValue> codes) {
     this.codes = codes;
+    codeSet = new CodeSet(codes);
     return this;
   }
 
@@ -100,6 +105,7 @@ public class SubfieldDefinition implements Serializable {
     for (int i = 0; i<input.length; i+=2) {
       codes.add(new EncodedValue(input[i], input[i+1]));
     }
+    codeSet = new CodeSet(codes);
     return this;
   }
 
@@ -110,11 +116,16 @@ public class SubfieldDefinition implements Serializable {
     for (int i = 0; i < input.length; i += 2) {
       localCodes.get(version).add(new EncodedValue(input[i], input[i+1]));
     }
+    if (localCodeSets == null)
+      localCodeSets = new EnumMap<>(MarcVersion.class);
+    localCodeSets.put(version, new CodeSet(localCodes.get(version)));
     return this;
   }
 
   public EncodedValue getCode(String code) {
-    return getCode(codes, code);
+    if (codeSet == null)
+      return null;
+    return codeSet.get(code);
   }
 
   public EncodedValue getCode(List<EncodedValue> codes, String otherCode) {
@@ -140,10 +151,9 @@ public class SubfieldDefinition implements Serializable {
   }
 
   public EncodedValue getLocalCode(MarcVersion version, String code) {
-    List<EncodedValue> codes = getLocalCodes(version);
-    if (codes == null)
+    if (localCodeSets == null || !localCodeSets.containsKey(version))
       return null;
-    return getCode(codes, code);
+    return localCodeSets.get(version).get(code);
   }
 
   public String getCardinalityCode() {
@@ -333,6 +343,9 @@ public class SubfieldDefinition implements Serializable {
 
   public SubfieldDefinition disallowIn(MarcVersion... versions) {
     this.disallowedIn = Arrays.asList(versions);
+    disallowedVersions = disallowedIn.isEmpty()
+      ? EnumSet.noneOf(MarcVersion.class)
+      : EnumSet.copyOf(disallowedIn);
     return this;
   }
 
@@ -341,8 +354,9 @@ public class SubfieldDefinition implements Serializable {
   }
 
   public boolean isDisallowedIn(MarcVersion marcVersion) {
-    return disallowedIn != null &&
-           disallowedIn.contains(marcVersion);
+    return disallowedVersions != null &&
+           marcVersion != null &&
+           disallowedVersions.contains(marcVersion);
   }
 
   @Override
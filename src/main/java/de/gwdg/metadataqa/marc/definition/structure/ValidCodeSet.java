@@ -0,0 +1,101 @@
+package de.gwdg.metadataqa.marc.definition.structure;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The valid codes of a control field position compiled for constant time lookups: the one
+ * character codes are stored in a bitset, the longer ones in a collision free (perfect) hash
+ * table, so a lookup computes one slot and compares one string. If no such table is found (the
+ * codes have the same hash code) the longer codes are kept in a HashSet.
+ */
+class ValidCodeSet implements Serializable {
+
+  static final ValidCodeSet EMPTY = new ValidCodeSet(new ArrayList<>());
+  private static final int MAX_SEED = 64;
+  private static final int MAX_LOAD = 16;
+
+  private final BitSet characters = new BitSet();
+  private final String[] table;
+  private final int seed;
+  private final int mask;
+  private final Set<String> collisions;
+  private final boolean empty;
+
+  ValidCodeSet(Collection<String> codes) {
+    List<String> longCodes = new ArrayList<>();
+    Set<String> distinct = new LinkedHashSet<>(codes);
+    for (String code : distinct) {
+      if (code == null)
+        continue;
+      if (code.length() == 1)
+        characters.set(code.charAt(0));
+      else
+        longCodes.add(code);
+    }
+    empty = distinct.isEmpty();
+
+    int size = Integer.highestOneBit(Math.max(1, longCodes.size() * 2 - 1)) << 1;
+    int maxSize = Math.max(64, size * MAX_LOAD);
+    String[] slots = null;
+    int foundSeed = 0;
+    while (slots == null && size <= maxSize) {
+      for (int candidate = 1; candidate <= MAX_SEED && slots == null; candidate++) {
+        slots = place(longCodes, size, candidate);
+        foundSeed = candidate;
+      }
+      if (slots == null)
+        size <<= 1;
+    }
+    if (slots == null) {
+      table = new String[1];
+      seed = 0;
+      mask = 0;
+      collisions = new HashSet<>(longCodes);
+    } else {
+      table = slots;
+      seed = foundSeed;
+      mask = size - 1;
+      collisions = null;
+    }
+  }
+
+  boolean contains(String code) {
+    if (code == null)
+      return false;
+    if (code.length() == 1)
+      return characters.get(code.charAt(0));
+    if (collisions != null)
+      return collisions.contains(code);
+    return code.equals(table[slot(code, seed, mask)]);
+  }
+
+  boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @return The table in which every code has its own slot, or null, if two codes collide
+   */
+  private static String[] place(List<String> codes, int size, int seed) {
+    String[] slots = new String[size];
+    for (String code : codes) {
+      int slot = slot(code, seed, size - 1);
+      if (slots[slot] != null)
+        return null;
+      slots[slot] = code;
+    }
+    return slots;
+  }
+
+  private static int slot(String code, int seed, int mask) {
+    int hash = code.hashCode() * (0x9E3779B9 + 2 * seed);
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
@@ -0,0 +1,160 @@
+package de.gwdg.metadataqa.marc.definition.structure;
+
+import de.gwdg.metadataqa.marc.definition.Cardinality;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import de.gwdg.metadataqa.marc.definition.TagDefinitionLoader;
+import de.gwdg.metadataqa.marc.definition.general.validator.ClassificationReferenceValidator;
+import de.gwdg.metadataqa.marc.model.validation.ValidationErrorType;
+
+import java.util.List;
+
+/**
+ * The rules of a data field definition compiled for a MARC version, so DataField.validate() does
+ * not have to resolve them for every field: the subfield definitions and their cardinality
+ * indexed by the subfield code, the outcome of every possible indicator value, and whether
+ * the field level validators apply. The plans are created by
+ * DataFieldDefinition.getValidationPlan().
+ */
+public class ValidationPlan {
+
+  /** The subfield codes and indicators are (almost always) ASCII characters */
+  public static final int TABLE_SIZE = 128;
+
+  private final DataFieldDefinition definition;
+  private final MarcVersion marcVersion;
+  private final boolean defined;
+  private final boolean classificationReference;
+  private final SubfieldDefinition[] subfields = new SubfieldDefinition[TABLE_SIZE];
+  private final boolean[] nonRepeatable = new boolean[TABLE_SIZE];
+  private final SubfieldDefinition[] versionSpecificSubfields = new SubfieldDefinition[TABLE_SIZE];
+  private final boolean[] versionSpecificNonRepeatable = new boolean[TABLE_SIZE];
+  private final String[] indicatorPaths = new String[2];
+  private final ValidationErrorType[][] indicatorErrors = new ValidationErrorType[2][];
+  private final boolean[] indicatorValid = new boolean[2];
+
+  ValidationPlan(DataFieldDefinition definition, MarcVersion marcVersion) {
+    this.definition = definition;
+    this.marcVersion = marcVersion;
+    defined = TagDefinitionLoader.load(definition.getTag(), marcVersion) != null;
+    classificationReference = ClassificationReferenceValidator.isApplicable(definition.getTag());
+
+    if (definition.getSubfields() != null)
+      for (SubfieldDefinition subfield : definition.getSubfields())
+        index(subfields, nonRepeatable, definition.getSubfield(subfield.getCode()));
+
+    if (definition.versionSpecificSubfields != null) {
+      List<SubfieldDefinition> versionSpecific = definition.versionSpecificSubfields.get(marcVersion);
+      if (versionSpecific != null)
+        for (int i = versionSpecific.size() - 1; i >= 0; i--)
+          index(versionSpecificSubfields, versionSpecificNonRepeatable, versionSpecific.get(i));
+    }
+
+    compileIndicator(0, definition.getInd1());
+    compileIndicator(1, definition.getInd2());
+  }
+
+  private static void index(SubfieldDefinition[] table, boolean[] cardinality, SubfieldDefinition subfield) {
+    if (subfield == null)
+      return;
+    int i = slot(subfield.getCode());
+    if (i != -1) {
+      table[i] = subfield;
+      cardinality[i] = subfield.getCardinality() == Cardinality.Nonrepeatable;
+    }
+  }
+
+  private void compileIndicator(int i, Indicator indicator) {
+    if (indicator == null)
+      return;
+    indicatorErrors[i] = new ValidationErrorType[TABLE_SIZE];
+    for (char c = 0; c < TABLE_SIZE; c++)
+      indicatorErrors[i][c] = checkIndicator(indicator, String.valueOf(c), marcVersion);
+    indicatorValid[i] = true;
+  }
+
+  /**
+   * @return Whether the tag is defined in the MARC version
+   */
+  public boolean isDefined() {
+    return defined;
+  }
+
+  /**
+   * @return Whether ClassificationReferenceValidator should check the field
+   */
+  public boolean hasClassificationReference() {
+    return classificationReference;
+  }
+
+  /**
+   * @return The version specific definition of a subfield, which is not part of the standard
+   * definition, or null
+   */
+  public SubfieldDefinition getVersionSpecificSubfield(String code) {
+    int i = slot(code);
+    if (i != -1)
+      return versionSpecificSubfields[i];
+    return definition.getVersionSpecificSubfield(marcVersion, code);
+  }
+
+  public boolean isNonRepeatable(SubfieldDefinition subfield) {
+    int i = slot(subfield.getCode());
+    if (i != -1) {
+      if (subfields[i] == subfield)
+        return nonRepeatable[i];
+      if (versionSpecificSubfields[i] == subfield)
+        return versionSpecificNonRepeatable[i];
+    }
+    return subfield.getCardinality() == Cardinality.Nonrepeatable;
+  }
+
+  /**
+   * @param i 0 for the first, 1 for the second indicator
+   * @return The path of the indicator (such as 245$ind1)
+   */
+  public String getIndicatorPath(int i) {
+    if (indicatorPaths[i] == null)
+      indicatorPaths[i] = indicator(i).getPath();
+    return indicatorPaths[i];
+  }
+
+  /**
+   * @param i 0 for the first, 1 for the second indicator
+   * @return The type of the error, or null if the value is valid
+   */
+  public ValidationErrorType checkIndicator(int i, String value) {
+    if (indicatorValid[i]) {
+      int slot = slot(value);
+      if (slot != -1)
+        return indicatorErrors[i][slot];
+    }
+    return checkIndicator(indicator(i), value, marcVersion);
+  }
+
+  private Indicator indicator(int i) {
+    return i == 0 ? definition.getInd1() : definition.getInd2();
+  }
+
+  private static ValidationErrorType checkIndicator(Indicator indicator, String value, MarcVersion marcVersion) {
+    if (indicator.exists()) {
+      if (!indicator.hasCode(value) && !indicator.isVersionSpecificCode(marcVersion, value))
+        return indicator.isHistoricalCode(value)
+          ? ValidationErrorType.INDICATOR_OBSOLETE
+          : ValidationErrorType.INDICATOR_INVALID_VALUE;
+    } else {
+      if (!value.equals(" ") && !indicator.isVersionSpecificCode(marcVersion, value))
+        return ValidationErrorType.INDICATOR_NON_EMPTY;
+    }
+    return null;
+  }
+
+  /**
+   * @return The index of the subfield code or indicator value in the tables (its character),
+   * or -1 if it is not a single ASCII character
+   */
+  public static int slot(String code) {
+    if (code != null && code.length() == 1 && code.charAt(0) < TABLE_SIZE)
+      return code.charAt(0);
+    return -1;
+  }
+}
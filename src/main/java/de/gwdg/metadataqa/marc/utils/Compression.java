@@ -0,0 +1,89 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The compression formats of the input files, detected by their magic bytes.
+ */
+public enum Compression {
+  NONE("none", new byte[0]),
+  GZIP("gzip", new byte[]{0x1F, (byte) 0x8B}),
+  BZIP2("bzip2", new byte[]{'B', 'Z', 'h'}),
+  XZ("xz", new byte[]{(byte) 0xFD, '7', 'z', 'X', 'Z', 0x00})
+  ;
+
+  private static final int MAGIC_SIZE = 6;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String code;
+  private final byte[] magic;
+
+  Compression(String code, byte[] magic) {
+    this.code = code;
+    this.magic = magic;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * @param header The first bytes of the content
+   * @return The compression of the content
+   */
+  public static Compression detect(byte[] header) {
+    for (Compression compression : values())
+      if (compression != NONE
+          && header.length >= compression.magic.length
+          && Arrays.equals(Arrays.copyOf(header, compression.magic.length), compression.magic))
+        return compression;
+    return NONE;
+  }
+
+  public static Compression detect(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return detect(in.readNBytes(MAGIC_SIZE));
+    }
+  }
+
+  /**
+   * Returns a stream of the uncompressed content. If the content is compressed, the decompression
+   * runs in a separate thread (see ReadAheadInputStream), so it runs in parallel with the parsing
+   * of the records.
+   * @param stream The (maybe compressed) content
+   * @return The uncompressed content
+   */
+  public static InputStream decompress(InputStream stream) throws IOException {
+    InputStream buffered = stream.markSupported() ? stream : new BufferedInputStream(stream);
+    buffered.mark(MAGIC_SIZE);
+    byte[] header = buffered.readNBytes(MAGIC_SIZE);
+    buffered.reset();
+
+    Compression compression = detect(header);
+    if (compression == NONE)
+      return buffered;
+    return new ReadAheadInputStream(compression.open(buffered));
+  }
+
+  /**
+   * All the decoders read concatenated streams as well (e.g. the output of pigz or pbzip2).
+   */
+  private InputStream open(InputStream stream) throws IOException {
+    switch (this) {
+      case GZIP:  return new GZIPInputStream(stream, BUFFER_SIZE);
+      case BZIP2: return new BZip2CompressorInputStream(stream, true);
+      case XZ:    return new XZCompressorInputStream(stream, true);
+      case NONE:
+      default:    return stream;
+    }
+  }
+}
@@ -1,10 +1,11 @@
 package de.gwdg.metadataqa.marc.utils;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-public class Counter<T> {
+public class Counter<T> implements Serializable {
   private Map<T, Integer> counter = new HashMap<>();
 
   public void count(T key) {
@@ -16,6 +17,11 @@ public class Counter<T> {
     counter.put(key, counter.get(key) + i);
   }
 
+  public void addAll(Counter<T> other) {
+    for (Map.Entry<T, Integer> entry : other.entrySet())
+      add(entry.getKey(), entry.getValue());
+  }
+
   public int get(T key) {
     return counter.getOrDefault(key, null);
   }
@@ -60,6 +60,21 @@ public class FrbrFunctionLister {
     return histogram;
   }
 
+  public Map<FRBRFunction, FunctionValue> getCollector() {
+    return collector;
+  }
+
+  /**
+   * Adds the collector and the histogram of another lister (e.g. one which processed another
+   * shard of the dataset).
+   */
+  public void merge(Map<FRBRFunction, FunctionValue> otherCollector,
+                    Map<FRBRFunction, Counter<FunctionValue>> otherHistogram) {
+    add(otherCollector);
+    for (Map.Entry<FRBRFunction, Counter<FunctionValue>> entry : otherHistogram.entrySet())
+      histogram.computeIfAbsent(entry.getKey(), s -> new Counter<>()).addAll(entry.getValue());
+  }
+
   public void prepareBaseline() {
     elementsWithoutFunctions = 0;
     functionByMarcPath = new TreeMap<>();
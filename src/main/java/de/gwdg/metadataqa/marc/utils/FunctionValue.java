@@ -1,8 +1,9 @@
 package de.gwdg.metadataqa.marc.utils;
 
+import java.io.Serializable;
 import java.util.Objects;
 
-public class FunctionValue {
+public class FunctionValue implements Serializable {
   private int count = 0;
   private double percent = 0.0;
 
@@ -1,5 +1,6 @@
 package de.gwdg.metadataqa.marc.utils;
 
+import de.gwdg.metadataqa.marc.definition.TagRegistry;
 import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
 import org.reflections.Reflections;
 
@@ -7,10 +8,33 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class MarcTagLister {
 
+  private static final Logger logger = Logger.getLogger(MarcTagLister.class.getCanonicalName());
+
+  /**
+   * @return The data field definition classes from the TagRegistry, ordered by the class name
+   */
   public static List<Class<? extends DataFieldDefinition>> listTags() {
+    List<Class<? extends DataFieldDefinition>> tags = new ArrayList<>();
+    for (String className : TagRegistry.getInstance().getClassNames()) {
+      try {
+        tags.add(Class.forName(className).asSubclass(DataFieldDefinition.class));
+      } catch (ClassNotFoundException e) {
+        logger.log(Level.SEVERE, "listTags", e);
+      }
+    }
+    return tags;
+  }
+
+  /**
+   * Scans the classpath for the data field definition classes. It is slow, use listTags() instead.
+   * @return The data field definition classes ordered by the class name
+   */
+  public static List<Class<? extends DataFieldDefinition>> scanTags() {
     Reflections reflections = new Reflections("de.gwdg.metadataqa.marc.definition.tags");
 
     Set<Class<? extends DataFieldDefinition>> subTypes = reflections
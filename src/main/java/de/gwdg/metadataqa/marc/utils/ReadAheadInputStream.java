@@ -0,0 +1,128 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the wrapped stream in a background thread into a bounded queue of blocks. It lets the
+ * expensive reading (e.g. the decompression) run in parallel with the processing of the content.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  private static final Logger logger = Logger.getLogger(ReadAheadInputStream.class.getCanonicalName());
+  private static final int BLOCK_SIZE = 256 * 1024;
+  private static final int QUEUE_SIZE = 16;
+  private static final byte[] END = new byte[0];
+
+  private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+  private final Thread thread;
+  private volatile IOException error = null;
+  private volatile boolean closed = false;
+  private byte[] block = null;
+  private int position = 0;
+  private boolean ended = false;
+
+  public ReadAheadInputStream(InputStream source) {
+    thread = new Thread(() -> fill(source), "read-ahead");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Reads the source until its end or an error. Any error (also a RuntimeException of a decoder
+   * on corrupt input) is passed to the reader, and the end is always queued, so the reader can not
+   * wait forever.
+   */
+  private void fill(InputStream source) {
+    try (source) {
+      byte[] buffer;
+      while (!closed && (buffer = source.readNBytes(BLOCK_SIZE)).length > 0)
+        queue.put(buffer);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      error = e;
+    } catch (Throwable e) {
+      error = new IOException("Error reading the input", e);
+    } finally {
+      putEnd();
+    }
+  }
+
+  private void putEnd() {
+    if (closed)
+      return;
+    try {
+      queue.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBlock())
+      return -1;
+    return block[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (!nextBlock())
+      return -1;
+    int n = Math.min(len, block.length - position);
+    System.arraycopy(block, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return block == null ? 0 : block.length - position;
+  }
+
+  /**
+   * Makes sure that there are unread bytes in the current block.
+   * @return false at the end of the stream
+   */
+  private boolean nextBlock() throws IOException {
+    while (block == null || position >= block.length) {
+      if (ended)
+        return false;
+      try {
+        block = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the input", e);
+      }
+      position = 0;
+      if (block == END) {
+        ended = true;
+        block = null;
+        if (error != null)
+          throw error;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+    queue.clear();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, "close", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,15 +1,26 @@
 package de.gwdg.metadataqa.marc.utils;
 
 import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.marcreader.AlephseqChunker;
 import de.gwdg.metadataqa.marc.utils.marcreader.AlephseqMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.FileChunk;
+import de.gwdg.metadataqa.marc.utils.marcreader.IsoChunker;
+import de.gwdg.metadataqa.marc.utils.marcreader.IsoMarcReader;
 import de.gwdg.metadataqa.marc.utils.marcreader.LineSeparatedMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.MappedIsoMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.MarcJsonReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.MarcXmlChunker;
+import de.gwdg.metadataqa.marc.utils.marcreader.MarcXmlStaxReader;
 import de.gwdg.metadataqa.marc.utils.marcreader.MarclineReader;
+import de.gwdg.metadataqa.marc.utils.pica.PicaNormalizedChunker;
+import de.gwdg.metadataqa.marc.utils.pica.PicaNormalizedReader;
 import org.marc4j.MarcReader;
 import org.marc4j.MarcStreamReader;
-import org.marc4j.MarcXmlReader;
 import org.marc4j.marc.Record;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,15 +43,27 @@ public class ReadMarc {
   }
 
   public static MarcReader getIsoStreamReader(InputStream stream) throws Exception {
-    return new MarcStreamReader(stream);
+    return new IsoMarcReader(stream);
   }
 
+  /**
+   * Returns a memory mapped reader, its records create MarcRecord objects without the marc4j
+   * data fields. The file should not be compressed.
+   */
+  public static MarcReader getMappedIsoFileReader(String fileName) throws Exception {
+    return new MappedIsoMarcReader(fileName);
+  }
+
+  /**
+   * Returns a StAX based reader, its records create MarcRecord objects without the marc4j data
+   * fields.
+   */
   public static MarcReader getXmlFileReader(String fileName) throws Exception {
     return getXmlStreamReader(new FileInputStream(fileName));
   }
 
   public static MarcReader getXmlStreamReader(InputStream stream) throws Exception {
-    return new MarcXmlReader(stream);
+    return new MarcXmlStaxReader(stream);
   }
 
   public static MarcReader getLineSeparatedFileReader(String fileName) throws Exception {
@@ -73,11 +96,42 @@ public class ReadMarc {
     return new MarclineReader(stream);
   }
 
+  /**
+   * Returns a reader of MARC JSON records (see MarcJsonReader for the recognized layouts), its
+   * records create MarcRecord objects without the marc4j data fields.
+   */
+  public static MarcReader getJsonFileReader(String fileName) throws Exception {
+    return new MarcJsonReader(fileName);
+  }
+
+  public static MarcReader getJsonStreamReader(InputStream stream) throws Exception {
+    return new MarcJsonReader(stream);
+  }
+
+  /**
+   * Returns a reader of normalized PICA+ records, its records should be turned into MarcRecord
+   * objects by MarcFactory.createPicaFromMarc4j().
+   */
+  public static MarcReader getPicaNormalizedFileReader(String fileName) throws Exception {
+    return new PicaNormalizedReader(fileName);
+  }
+
+  public static MarcReader getPicaNormalizedStreamReader(InputStream stream) throws Exception {
+    return new PicaNormalizedReader(stream);
+  }
+
   public static MarcReader getReader(String fileName, boolean isMarcxml) throws Exception {
     return getReader(fileName, isMarcxml, false);
   }
 
+  /**
+   * Returns a reader for the file. The gzip, bzip2 and xz compressed files are decompressed on the
+   * fly, they are recognised by their first bytes (not by their extensions).
+   */
   public static MarcReader getFileReader(MarcFormat marcFormat, String fileName) throws Exception {
+    if (Compression.detect(Paths.get(fileName)) != Compression.NONE)
+      return getStreamReader(marcFormat, new FileInputStream(fileName));
+
     MarcReader reader = null;
     switch (marcFormat) {
       case ALEPHSEQ:
@@ -88,6 +142,10 @@ public class ReadMarc {
         reader = ReadMarc.getXmlFileReader(fileName); break;
       case MARC_LINE:
         reader = ReadMarc.getMarclineFileReader(fileName); break;
+      case JSON:
+        reader = ReadMarc.getJsonFileReader(fileName); break;
+      case PICA_NORMALIZED:
+        reader = ReadMarc.getPicaNormalizedFileReader(fileName); break;
       case ISO:
       default:
         reader = ReadMarc.getIsoFileReader(fileName); break;
@@ -96,6 +154,7 @@ public class ReadMarc {
   }
 
   public static MarcReader getStreamReader(MarcFormat marcFormat, InputStream stream) throws Exception {
+    stream = Compression.decompress(stream);
     MarcReader reader = null;
     switch (marcFormat) {
       case ALEPHSEQ:
@@ -106,6 +165,10 @@ public class ReadMarc {
         reader = ReadMarc.getXmlStreamReader(stream); break;
       case MARC_LINE:
         reader = ReadMarc.getMarclineStreamReader(stream); break;
+      case JSON:
+        reader = ReadMarc.getJsonStreamReader(stream); break;
+      case PICA_NORMALIZED:
+        reader = ReadMarc.getPicaNormalizedStreamReader(stream); break;
       case ISO:
       default:
         reader = ReadMarc.getIsoStreamReader(stream); break;
@@ -113,6 +176,45 @@ public class ReadMarc {
     return reader;
   }
 
+  /**
+   * Splits the file at record boundaries into chunks of about chunkSize bytes, which can be read
+   * by separate readers (see getChunkReader()).
+   * @return The chunks, or null if the file can not be read in chunks (because of its format or
+   * its compression)
+   */
+  public static List<FileChunk> splitFile(MarcFormat marcFormat, String fileName, long chunkSize) throws IOException {
+    Path path = Paths.get(fileName);
+    if (Compression.detect(path) != Compression.NONE)
+      return null;
+    switch (marcFormat) {
+      case ISO:
+        return IsoChunker.split(path, chunkSize);
+      case XML:
+        return MarcXmlChunker.split(path, chunkSize);
+      case ALEPHSEQ:
+        return AlephseqChunker.split(path, chunkSize);
+      case PICA_NORMALIZED:
+        return PicaNormalizedChunker.split(path, chunkSize);
+      default:
+        return null;
+    }
+  }
+
+  public static MarcReader getChunkReader(MarcFormat marcFormat, FileChunk chunk) throws IOException {
+    switch (marcFormat) {
+      case ISO:
+        return new MappedIsoMarcReader(chunk);
+      case XML:
+        return new MarcXmlStaxReader(chunk);
+      case ALEPHSEQ:
+        return new AlephseqMarcReader(chunk);
+      case PICA_NORMALIZED:
+        return new PicaNormalizedReader(chunk);
+      default:
+        throw new IllegalArgumentException(String.format("%s files can not be read in chunks", marcFormat.getLabel()));
+    }
+  }
+
   public static MarcReader getReader(String fileName, boolean isMarcxml, boolean isLineSeaparated) throws Exception {
     MarcReader reader = null;
     if (isLineSeaparated)
@@ -0,0 +1,51 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared instances of the short strings which are repeated in every record: the indicators and
+ * the subfield codes (single characters) and the tags. The records keep these instead of their
+ * own copies, so a record holds only its values.
+ */
+public class StringPool {
+
+  /**
+   * The upper limit of the pooled tags. Above it (i.e. in a file with a lot of undefined tags)
+   * the tags are returned as they are.
+   */
+  private static final int MAX_POOL_SIZE = 10000;
+  private static final String[] CHARACTERS = new String[256];
+  private static final Map<String, String> pool = new ConcurrentHashMap<>();
+
+  static {
+    for (int i = 0; i < CHARACTERS.length; i++)
+      CHARACTERS[i] = String.valueOf((char) i).intern();
+  }
+
+  private StringPool() {}
+
+  /**
+   * @return The shared string of a character (such as a subfield code or an indicator)
+   */
+  public static String of(char c) {
+    return c < CHARACTERS.length ? CHARACTERS[c] : String.valueOf(c);
+  }
+
+  /**
+   * @return The shared instance of the string (such as a tag)
+   */
+  public static String intern(String value) {
+    if (value == null)
+      return null;
+    if (value.length() == 1)
+      return of(value.charAt(0));
+    String shared = pool.get(value);
+    if (shared != null)
+      return shared;
+    if (pool.size() >= MAX_POOL_SIZE)
+      return value;
+    shared = pool.putIfAbsent(value, value);
+    return shared == null ? value : shared;
+  }
+}
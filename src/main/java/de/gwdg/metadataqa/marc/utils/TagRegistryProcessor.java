@@ -0,0 +1,105 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates the list of the data field definitions (de.gwdg.metadataqa.marc.definition.GeneratedTagRegistry)
+ * at compile time, so TagDefinitionLoader does not have to scan the classpath at start-up. It is
+ * compiled and registered in the pom.xml before the other sources. It should not depend on the
+ * other classes of the project.
+ */
+@SupportedAnnotationTypes("*")
+public class TagRegistryProcessor extends AbstractProcessor {
+
+  private static final String TAGS_PACKAGE = "de.gwdg.metadataqa.marc.definition.tags.";
+  private static final String DEFINITION_CLASS = "de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition";
+  private static final String REGISTRY_PACKAGE = "de.gwdg.metadataqa.marc.definition";
+  private static final String REGISTRY_CLASS = "GeneratedTagRegistry";
+
+  private boolean generated = false;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (generated || roundEnv.processingOver())
+      return false;
+
+    TypeElement definition = processingEnv.getElementUtils().getTypeElement(DEFINITION_CLASS);
+    if (definition == null)
+      return false;
+
+    // the same order as MarcTagLister: by the name of the class, then by the package
+    Set<String> classNames = new TreeSet<>(
+      Comparator.comparing((String name) -> name.substring(name.lastIndexOf('.') + 1))
+        .thenComparing(Comparator.naturalOrder()));
+    for (Element element : roundEnv.getRootElements()) {
+      if (isTagDefinition(element, definition))
+        classNames.add(((TypeElement) element).getQualifiedName().toString());
+    }
+
+    if (!classNames.isEmpty()) {
+      write(classNames);
+      generated = true;
+    }
+    return false;
+  }
+
+  private boolean isTagDefinition(Element element, TypeElement definition) {
+    if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT))
+      return false;
+    String name = ((TypeElement) element).getQualifiedName().toString();
+    return name.startsWith(TAGS_PACKAGE)
+      && !name.contains(".control.")
+      && element.getSimpleName().toString().startsWith("Tag")
+      && processingEnv.getTypeUtils().isSubtype(element.asType(), definition.asType());
+  }
+
+  private void write(Set<String> classNames) {
+    try (PrintWriter out = new PrintWriter(
+        processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_CLASS).openWriter())) {
+      out.printf("package %s;%n%n", REGISTRY_PACKAGE);
+      out.printf("import %s;%n%n", DEFINITION_CLASS);
+      out.printf("/**%n * Generated by %s, do not edit.%n */%n", TagRegistryProcessor.class.getCanonicalName());
+      out.printf("public class %s extends TagRegistry {%n%n", REGISTRY_CLASS);
+      out.println("  private static final String[] CLASS_NAMES = {");
+      for (String className : classNames)
+        out.printf("    \"%s\",%n", className);
+      out.println("  };");
+      out.println();
+      out.println("  @Override");
+      out.println("  public String[] getClassNames() {");
+      out.println("    return CLASS_NAMES.clone();");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  public DataFieldDefinition getDefinition(int index) {");
+      out.println("    switch (index) {");
+      int index = 0;
+      for (String className : classNames)
+        out.printf("      case %d: return %s.getInstance();%n", index++, className);
+      out.println("      default: throw new IllegalArgumentException(\"No tag definition #\" + index);");
+      out.println("    }");
+      out.println("  }");
+      out.println("}");
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write the tag registry: " + e);
+    }
+  }
+}
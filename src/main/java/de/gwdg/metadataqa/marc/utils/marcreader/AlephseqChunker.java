@@ -0,0 +1,87 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits an Aleph sequential file into chunks of about the same size. A chunk ends before a line
+ * whose record identifier (the first nine characters) differs from the previous one's, so the
+ * lines of a record are in the same chunk. The lines shorter than 18 bytes do not have an
+ * identifier, they are ignored when looking for the boundary.
+ */
+public class AlephseqChunker {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int ID_LENGTH = 9;
+  private static final int MIN_LINE_LENGTH = 18;
+
+  private AlephseqChunker() {
+    throw new IllegalStateException("This is a utility class, can not be instantiated");
+  }
+
+  /**
+   * @param path The Alephseq file (not compressed)
+   * @param chunkSize The minimal size of a chunk in bytes, the last one might be smaller
+   * @return The chunks covering the whole file in the order of the file
+   */
+  public static List<FileChunk> split(Path path, long chunkSize) throws IOException {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("The chunk size should be a positive number: " + chunkSize);
+
+    List<FileChunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = 0;
+      while (start < size) {
+        long end = size - start <= chunkSize ? size : findBoundary(channel, start + chunkSize, size);
+        chunks.add(new FileChunk(path, start, end));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * @return The start of the first line after the position which belongs to another record than
+   * the line before it, or the size of the file
+   */
+  private static long findBoundary(FileChannel channel, long position, long size) throws IOException {
+    // the stream is not closed, it would close the channel
+    InputStream input = new BufferedInputStream(Channels.newInputStream(channel.position(position)), BUFFER_SIZE);
+    int b;
+    while ((b = input.read()) != -1) {
+      position++;
+      if (b == '\n')
+        break;
+    }
+
+    byte[] previousId = null;
+    byte[] line = new byte[MIN_LINE_LENGTH];
+    while (position < size) {
+      long lineStart = position;
+      int length = 0;
+      while ((b = input.read()) != -1) {
+        position++;
+        if (b == '\n')
+          break;
+        if (length < MIN_LINE_LENGTH)
+          line[length] = (byte) b;
+        length++;
+      }
+      if (length >= MIN_LINE_LENGTH) {
+        if (previousId != null && !Arrays.equals(previousId, 0, ID_LENGTH, line, 0, ID_LENGTH))
+          return lineStart;
+        previousId = Arrays.copyOf(line, ID_LENGTH);
+      }
+    }
+    return size;
+  }
+}
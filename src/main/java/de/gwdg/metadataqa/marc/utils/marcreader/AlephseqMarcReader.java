@@ -1,112 +1,405 @@
 package de.gwdg.metadataqa.marc.utils.marcreader;
 
-import de.gwdg.metadataqa.marc.MarcFactory;
 import de.gwdg.metadataqa.marc.utils.alephseq.AlephseqLine;
-import org.marc4j.MarcReader;
+import org.apache.commons.lang.StringUtils;
 import org.marc4j.marc.Record;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class AlephseqMarcReader implements MarcReader {
+/**
+ * Reads Aleph sequential files. The lines are tokenized in place in a large byte buffer and
+ * written directly into FieldListRecord objects, only the values of the fields become strings.
+ * The lines are grouped by the record identifier (the first nine characters); a group is skipped
+ * if it has a DEL line, or it does not have a control number field or a leader. The lines which
+ * can not be tokenized as bytes (short lines and lines with non-ASCII characters in their first
+ * 18 characters) are parsed by AlephseqLine.
+ *
+ * The reader can be restricted to a part of the file (see AlephseqChunker).
+ */
+public class AlephseqMarcReader implements SkippableMarcReader, Closeable {
 
   private static final Logger logger = Logger.getLogger(AlephseqMarcReader.class.getCanonicalName());
 
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final int ID_LENGTH = 9;
+  private static final int TAG_START = 10;
+  private static final int CONTENT_START = 18;
+  private static final String[] NUMERIC_TAGS = new String[1000];
+  static {
+    for (int i = 0; i < NUMERIC_TAGS.length; i++)
+      NUMERIC_TAGS[i] = String.format("%03d", i);
+  }
+
   private enum LEVEL {
     WARN, SEVERE
   };
 
-  private BufferedReader bufferedReader = null;
-  private String line = null;
-  private boolean nextIsConsumed = false;
+  private ReadableByteChannel channel = null;
+  private long remaining = Long.MAX_VALUE;
+  private boolean isEndOfFile = true;
+  private boolean isEndOfInput = false;
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean hasLine = false;
+  private int lineStart;
+  private int lineEnd;
+  private int nextLineStart;
   private int lineNumber = 0;
   private int skippedRecords = 0;
-  private List<AlephseqLine> lines = new ArrayList<>();
-  private String currentId = null;
+
+  private byte[] currentId = null;
+  private FieldListRecord marcRecord;
+  private boolean hasFields;
+  private boolean hasControlNumber;
+  private boolean hasLeader;
+  private boolean isDeleted;
+  private boolean isPrefetched = false;
+  private boolean hasRecord = false;
 
   public AlephseqMarcReader(String alephseqMarc) {
     try {
-      bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream(alephseqMarc), "UTF8"));
+      channel = FileChannel.open(Path.of(alephseqMarc), StandardOpenOption.READ);
     } catch (IOException e) {
       logger.log(Level.WARNING, "AlephseqMarcReader", e);
+      isEndOfInput = true;
     }
   }
 
   public AlephseqMarcReader(InputStream stream) {
-    try {
-      bufferedReader = new BufferedReader(new InputStreamReader(stream, "UTF8"));
-    } catch (IOException e) {
-      logger.log(Level.WARNING, "AlephseqMarcReader", e);
-    }
+    channel = Channels.newChannel(stream);
+  }
+
+  /**
+   * Reads the records of a chunk of the file. The last record of a chunk is checked as the others,
+   * only the last record of the file is returned without checking it (as the line based reader
+   * did).
+   */
+  public AlephseqMarcReader(FileChunk chunk) throws IOException {
+    FileChannel fileChannel = FileChannel.open(chunk.getPath(), StandardOpenOption.READ);
+    isEndOfFile = chunk.getEnd() >= fileChannel.size();
+    channel = fileChannel.position(chunk.getStart());
+    remaining = chunk.getLength();
   }
 
   @Override
   public boolean hasNext() {
-    if (lineNumber == 0 || nextIsConsumed) {
-      try {
-        line = bufferedReader.readLine();
-      } catch (IOException e) {
-        logger.log(Level.WARNING, "hasNext", e);
-      }
-      lineNumber++;
-      nextIsConsumed = false;
+    if (!isPrefetched) {
+      hasRecord = readRecord(true);
+      isPrefetched = true;
+      if (!hasRecord)
+        close();
     }
-    return (line != null);
+    return hasRecord;
   }
 
   @Override
   public Record next() {
-    Record marc4jRecord = null;
-    boolean deleted = false;
-    boolean finished = false;
-    while (line != null && !finished) {
-      AlephseqLine alephseqLine = new AlephseqLine(line, lineNumber);
-      String recordID = alephseqLine.getRecordID();
-      if (recordID == null) {
-        logger.warning(String.format("line %d) does not have line number: '%s'", lineNumber, line));
+    if (!hasNext())
+      return null;
+    isPrefetched = false;
+    return marcRecord;
+  }
+
+  /**
+   * Skips records: the lines are grouped by the record identifier the same way as in next(),
+   * but no Record objects are created.
+   */
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    if (isPrefetched && hasRecord && numberOfRecords > 0) {
+      isPrefetched = false;
+      skipped++;
+    }
+    while (skipped < numberOfRecords && !isPrefetched && readRecord(false))
+      skipped++;
+    return skipped;
+  }
+
+  @Override
+  public void close() {
+    if (channel == null)
+      return;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  /**
+   * Reads the lines of the next record which is not skipped. The first line of the following
+   * record is not consumed.
+   * @param createRecord Create the record, or only read its lines
+   * @return true if a record has been found
+   */
+  private boolean readRecord(boolean createRecord) {
+    startRecord(createRecord);
+    while (nextLine()) {
+      if (isTokenizable()) {
+        if (!isCurrentId(buffer, lineStart, ID_LENGTH)) {
+          if (finishRecord())
+            return true;
+          startRecord(createRecord);
+          currentId = Arrays.copyOfRange(buffer, lineStart, lineStart + ID_LENGTH);
+        }
+        readLine();
       } else {
-        if (currentId != null
-          && !recordID.equals(currentId)
-          && !lines.isEmpty())
-        {
-          if (deleted) {
-            logSkipped(LEVEL.WARN, "has been deleted");
-            deleted = false;
-          } else {
-            marc4jRecord = MarcFactory.createRecordFromAlephseq(lines);
-            if (marc4jRecord.getControlNumber() == null) {
-              logSkipped("does not have a control number field (001)");
-            } else if (marc4jRecord.getLeader() == null) {
-              logSkipped("does not have a leader");
-            } else {
-              finished = true;
-            }
+        String line = new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+        var alephseqLine = new AlephseqLine(line, lineNumber);
+        String recordID = alephseqLine.getRecordID();
+        if (recordID == null) {
+          logger.warning(String.format("line %d) does not have line number: '%s'", lineNumber, line));
+        } else {
+          byte[] id = recordID.getBytes(StandardCharsets.UTF_8);
+          if (!isCurrentId(id, 0, id.length)) {
+            if (finishRecord())
+              return true;
+            startRecord(createRecord);
+            currentId = id;
           }
-          lines = new ArrayList<>();
+          readLine(alephseqLine);
         }
+      }
+      hasLine = false;
+      position = nextLineStart;
+    }
+    return hasFields && (isEndOfFile || isValid());
+  }
 
-        if (alephseqLine.isValidTag()) {
-          lines.add(alephseqLine);
-        } else if (alephseqLine.getTag().equals("DEL")) {
-          deleted = true;
+  private void startRecord(boolean createRecord) {
+    marcRecord = createRecord ? new FieldListRecord() : null;
+    hasFields = false;
+    hasControlNumber = false;
+    hasLeader = false;
+    isDeleted = false;
+  }
+
+  /**
+   * Called at the first line of the next record.
+   * @return true if the current record should be returned
+   */
+  private boolean finishRecord() {
+    return currentId != null && hasFields && isValid();
+  }
+
+  private boolean isValid() {
+    if (isDeleted) {
+      logSkipped(LEVEL.WARN, "has been deleted");
+      return false;
+    }
+    if (!hasControlNumber) {
+      logSkipped("does not have a control number field (001)");
+      return false;
+    }
+    if (!hasLeader) {
+      logSkipped("does not have a leader");
+      return false;
+    }
+    return true;
+  }
+
+  private void readLine() {
+    int tagStart = lineStart + TAG_START;
+    int contentStart = lineStart + CONTENT_START;
+    if (isDigit(tagStart) && isDigit(tagStart + 1) && isDigit(tagStart + 2)) {
+      String tag = NUMERIC_TAGS[(buffer[tagStart] - '0') * 100 + (buffer[tagStart + 1] - '0') * 10 + buffer[tagStart + 2] - '0'];
+      hasFields = true;
+      if (buffer[tagStart] == '0' && buffer[tagStart + 1] == '0') {
+        if (tag.equals("001"))
+          hasControlNumber = true;
+        if (marcRecord != null)
+          marcRecord.addControlField(tag, getControlContent(contentStart));
+      } else if (marcRecord != null) {
+        marcRecord.startDataField(tag, (char) buffer[tagStart + 3], (char) buffer[tagStart + 4]);
+        readSubfields(contentStart);
+      }
+    } else if (isTag(tagStart, 'L', 'D', 'R')) {
+      hasFields = true;
+      hasLeader = true;
+      if (marcRecord != null)
+        marcRecord.setLeader(getControlContent(contentStart));
+    } else if (isTag(tagStart, 'D', 'E', 'L')) {
+      isDeleted = true;
+    }
+  }
+
+  private void readLine(AlephseqLine alephseqLine) {
+    if (alephseqLine.isValidTag()) {
+      hasFields = true;
+      if (alephseqLine.isLeader()) {
+        hasLeader = true;
+        if (marcRecord != null)
+          marcRecord.setLeader(alephseqLine.getContent());
+      } else if (alephseqLine.isControlField()) {
+        if (alephseqLine.getTag().equals("001"))
+          hasControlNumber = true;
+        if (marcRecord != null)
+          marcRecord.addControlField(alephseqLine.getTag(), alephseqLine.getContent());
+      } else if (marcRecord != null) {
+        marcRecord.startDataField(alephseqLine.getTag(),
+          alephseqLine.getInd1().charAt(0), alephseqLine.getInd2().charAt(0));
+        for (String[] pair : alephseqLine.parseSubfields())
+          marcRecord.addSubfield(pair[0].charAt(0), pair[1]);
+      }
+    } else if (alephseqLine.getTag().equals("DEL")) {
+      isDeleted = true;
+    }
+  }
+
+  /**
+   * The content of the leader and the control fields, '^' stands for space.
+   */
+  private String getControlContent(int contentStart) {
+    for (int i = contentStart; i < lineEnd; i++)
+      if (buffer[i] == '^')
+        buffer[i] = ' ';
+    return new String(buffer, contentStart, lineEnd - contentStart, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Splits the content at '$$' as AlephseqLine.parseSubfields() does: the first character of a
+   * non blank segment is the subfield code, the rest is the value.
+   */
+  private void readSubfields(int contentStart) {
+    int segmentStart = contentStart;
+    int i = contentStart;
+    while (i < lineEnd) {
+      if (buffer[i] == '$' && i + 1 < lineEnd && buffer[i + 1] == '$') {
+        addSubfield(segmentStart, i);
+        i += 2;
+        segmentStart = i;
+      } else {
+        i++;
+      }
+    }
+    addSubfield(segmentStart, lineEnd);
+  }
+
+  private void addSubfield(int start, int end) {
+    if (isBlank(start, end))
+      return;
+    if (buffer[start] < 0) {
+      String segment = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+      marcRecord.addSubfield(segment.charAt(0), segment.substring(1));
+    } else {
+      marcRecord.addSubfield((char) buffer[start], new String(buffer, start + 1, end - start - 1, StandardCharsets.UTF_8));
+    }
+  }
+
+  private boolean isBlank(int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (buffer[i] < 0)
+        return StringUtils.isBlank(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+      if (!Character.isWhitespace(buffer[i]))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return The line has the record identifier, the tag and the indicators as single bytes
+   */
+  private boolean isTokenizable() {
+    if (lineEnd - lineStart < CONTENT_START)
+      return false;
+    for (int i = lineStart; i < lineStart + CONTENT_START; i++)
+      if (buffer[i] < 0)
+        return false;
+    return true;
+  }
+
+  private boolean isCurrentId(byte[] bytes, int start, int length) {
+    return currentId != null && Arrays.equals(currentId, 0, currentId.length, bytes, start, start + length);
+  }
+
+  private boolean isDigit(int i) {
+    return buffer[i] >= '0' && buffer[i] <= '9';
+  }
+
+  private boolean isTag(int i, char a, char b, char c) {
+    return buffer[i] == a && buffer[i + 1] == b && buffer[i + 2] == c;
+  }
+
+  /**
+   * Finds the next line in the buffer (reading more input if needed) without consuming it. The
+   * line ends before a line feed, carriage return or carriage return + line feed, as in
+   * BufferedReader.readLine().
+   * @return false if there are no more lines
+   */
+  private boolean nextLine() {
+    if (hasLine)
+      return true;
+    int scanned = position;
+    while (true) {
+      for (int i = scanned; i < limit; i++) {
+        if (buffer[i] == '\n' || buffer[i] == '\r') {
+          if (buffer[i] == '\r' && i + 1 == limit && !isEndOfInput)
+            break;
+          setLine(i, buffer[i] == '\r' && i + 1 < limit && buffer[i + 1] == '\n' ? i + 2 : i + 1);
+          return true;
         }
-        currentId = alephseqLine.getRecordID();
       }
+      if (isEndOfInput) {
+        if (position == limit)
+          return false;
+        setLine(limit, limit);
+        return true;
+      }
+      scanned = Math.max(position, limit - 1) - position;
+      fill();
+      scanned += position;
+    }
+  }
 
+  private void setLine(int end, int next) {
+    lineStart = position;
+    lineEnd = end;
+    nextLineStart = next;
+    hasLine = true;
+    lineNumber++;
+  }
+
+  /**
+   * Moves the unconsumed bytes to the start of the buffer (or grows the buffer for a very long
+   * line), and reads more input.
+   */
+  private void fill() {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    int read = -1;
+    if (remaining > 0) {
       try {
-        line = bufferedReader.readLine();
-        lineNumber++;
+        read = channel.read(ByteBuffer.wrap(buffer, limit, (int) Math.min(buffer.length - limit, remaining)));
       } catch (IOException e) {
         logger.log(Level.WARNING, "next", e);
       }
     }
-    if (line == null && !lines.isEmpty()) {
-      marc4jRecord = MarcFactory.createRecordFromAlephseq(lines);
+    if (read == -1) {
+      isEndOfInput = true;
+    } else {
+      limit += read;
+      remaining -= read;
     }
-    return marc4jRecord;
   }
 
   public int getLineNumber() {
@@ -124,7 +417,7 @@ public class AlephseqMarcReader implements MarcReader {
   private void logSkipped(LEVEL level, String message) {
     String entry = String.format(
       "line #%d: record %s %s. Skipped.",
-      lineNumber, currentId, message
+      lineNumber, new String(currentId, StandardCharsets.UTF_8), message
     );
 
     if (level.equals(LEVEL.WARN)) {
@@ -0,0 +1,50 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A record read by one of the text based native readers (MarcXmlStaxReader, AlephseqMarcReader).
+ * The data fields are kept in flat lists (tags, indicators, subfield codes and values), the marc4j
+ * data fields are created only when they are requested.
+ */
+public class FieldListRecord extends NativeRecord {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<String> tags = new ArrayList<>();
+  private final StringBuilder indicators = new StringBuilder();
+  private final StringBuilder codes = new StringBuilder();
+  private final List<String> values = new ArrayList<>();
+  private int[] subfieldEnds = new int[16];
+
+  void setLeader(String leader) {
+    setLeader(factory.newLeader(leader));
+  }
+
+  void startDataField(String tag, char ind1, char ind2) {
+    if (tags.size() == subfieldEnds.length)
+      subfieldEnds = Arrays.copyOf(subfieldEnds, subfieldEnds.length * 2);
+    subfieldEnds[tags.size()] = values.size();
+    tags.add(tag);
+    indicators.append(ind1).append(ind2);
+  }
+
+  void addSubfield(char code, String value) {
+    codes.append(code);
+    values.add(value);
+    subfieldEnds[tags.size() - 1] = values.size();
+  }
+
+  @Override
+  protected void readDataFields(DataFieldHandler handler) {
+    int subfield = 0;
+    for (int n = 0; n < tags.size(); n++) {
+      handler.startField(tags.get(n), indicators.charAt(n * 2), indicators.charAt(n * 2 + 1));
+      for (; subfield < subfieldEnds[n]; subfield++)
+        handler.subfield(codes.charAt(subfield), values.get(subfield));
+      handler.endField();
+    }
+  }
+}
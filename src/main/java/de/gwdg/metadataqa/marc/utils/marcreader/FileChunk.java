@@ -0,0 +1,46 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import java.nio.file.Path;
+
+/**
+ * A byte range of a file which starts and ends at record boundaries, so it can be read
+ * independently from the rest of the file.
+ */
+public class FileChunk {
+
+  private final Path path;
+  private final long start;
+  private final long end;
+
+  /**
+   * @param path The file
+   * @param start The position of the first byte (inclusive)
+   * @param end The position after the last byte (exclusive)
+   */
+  public FileChunk(Path path, long start, long end) {
+    this.path = path;
+    this.start = start;
+    this.end = end;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public long getEnd() {
+    return end;
+  }
+
+  public long getLength() {
+    return end - start;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[%d-%d]", path.getFileName(), start, end);
+  }
+}
@@ -0,0 +1,89 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an ISO 2709 file into chunks of about the same size. A chunk ends after a record
+ * terminator (0x1D), which is followed by a record whose length (the first five bytes of the
+ * leader) points to another record terminator, so a terminator byte in a broken record does not
+ * cut a record into two.
+ */
+public class IsoChunker {
+
+  private static final byte RECORD_TERMINATOR = 0x1D;
+  private static final int LENGTH_SIZE = 5;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private IsoChunker() {
+    throw new IllegalStateException("This is a utility class, can not be instantiated");
+  }
+
+  /**
+   * @param path The ISO 2709 file (not compressed)
+   * @param chunkSize The minimal size of a chunk in bytes, the last one might be smaller
+   * @return The chunks covering the whole file in the order of the file
+   */
+  public static List<FileChunk> split(Path path, long chunkSize) throws IOException {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("The chunk size should be a positive number: " + chunkSize);
+
+    List<FileChunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = 0;
+      while (start < size) {
+        long end = size - start <= chunkSize ? size : findBoundary(channel, start + chunkSize, size);
+        chunks.add(new FileChunk(path, start, end));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * @return The position after the first valid record terminator from the position, or the size
+   * of the file
+   */
+  private static long findBoundary(FileChannel channel, long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    while (position < size) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0)
+        break;
+      for (int n = 0; n < read; n++)
+        if (buffer.get(n) == RECORD_TERMINATOR && isRecordStart(channel, position + n + 1, size))
+          return position + n + 1;
+      position += read;
+    }
+    return size;
+  }
+
+  private static boolean isRecordStart(FileChannel channel, long position, long size) throws IOException {
+    if (position == size)
+      return true;
+
+    ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+    if (channel.read(length, position) < LENGTH_SIZE)
+      return false;
+    int recordLength = 0;
+    for (int n = 0; n < LENGTH_SIZE; n++) {
+      byte b = length.get(n);
+      if (b < '0' || b > '9')
+        return false;
+      recordLength = recordLength * 10 + (b - '0');
+    }
+    if (recordLength <= LENGTH_SIZE || position + recordLength > size)
+      return false;
+
+    ByteBuffer terminator = ByteBuffer.allocate(1);
+    return channel.read(terminator, position + recordLength - 1) == 1
+      && terminator.get(0) == RECORD_TERMINATOR;
+  }
+}
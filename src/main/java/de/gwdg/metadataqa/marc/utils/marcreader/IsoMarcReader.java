@@ -0,0 +1,192 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.MarcReader;
+import org.marc4j.MarcStreamReader;
+import org.marc4j.marc.Record;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads ISO 2709 (binary MARC) records with marc4j's MarcStreamReader. It can skip records by
+ * reading only their length (the first five bytes of the leader), or if the length is not a
+ * number, by looking for the record terminator. It also counts the consumed bytes, so the
+ * position of the next record is known.
+ */
+public class IsoMarcReader implements SkippableMarcReader, SeekableMarcReader {
+
+  private static final Logger logger = Logger.getLogger(IsoMarcReader.class.getCanonicalName());
+  private static final int RECORD_TERMINATOR = 0x1D;
+  private static final int LENGTH_SIZE = 5;
+
+  private final PositionInputStream input;
+  private MarcReader reader = null;
+
+  public IsoMarcReader(String fileName) throws FileNotFoundException {
+    this(new FileInputStream(fileName));
+  }
+
+  public IsoMarcReader(InputStream stream) {
+    input = new PositionInputStream(new BufferedInputStream(stream));
+  }
+
+  @Override
+  public boolean hasNext() {
+    return getReader().hasNext();
+  }
+
+  @Override
+  public Record next() {
+    return getReader().next();
+  }
+
+  /**
+   * Skips records, before the first record or between two records. MarcStreamReader does not
+   * buffer the stream (it supports mark()), so after next() the stream is at the start of the
+   * following record.
+   */
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    try {
+      while (skipped < numberOfRecords && skipRecord())
+        skipped++;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "skip", e);
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getPosition() {
+    return input.getPosition();
+  }
+
+  /**
+   * Jumps forward to the position. As skip(), it should be called before reading the first record.
+   */
+  @Override
+  public void seek(long position) {
+    if (reader != null)
+      throw new IllegalStateException("The position can be changed only before reading the first record");
+    if (position < input.getPosition())
+      throw new IllegalArgumentException(String.format("Can not seek back to %d from %d", position, input.getPosition()));
+
+    try {
+      skipBytes(position - input.getPosition());
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "seek", e);
+    }
+  }
+
+  private boolean skipRecord() throws IOException {
+    input.mark(LENGTH_SIZE);
+    byte[] length = input.readNBytes(LENGTH_SIZE);
+    if (length.length == 0)
+      return false;
+
+    int recordLength = parseLength(length);
+    if (recordLength > LENGTH_SIZE) {
+      skipBytes(recordLength - LENGTH_SIZE);
+    } else {
+      input.reset();
+      skipToTerminator();
+    }
+    return true;
+  }
+
+  private void skipBytes(long numberOfBytes) throws IOException {
+    while (numberOfBytes > 0) {
+      long skipped = input.skip(numberOfBytes);
+      if (skipped <= 0) {
+        if (input.read() == -1)
+          return;
+        skipped = 1;
+      }
+      numberOfBytes -= skipped;
+    }
+  }
+
+  private void skipToTerminator() throws IOException {
+    int b;
+    while ((b = input.read()) != -1)
+      if (b == RECORD_TERMINATOR)
+        return;
+  }
+
+  private static int parseLength(byte[] length) {
+    if (length.length < LENGTH_SIZE)
+      return -1;
+    int value = 0;
+    for (byte b : length) {
+      if (b < '0' || b > '9')
+        return -1;
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  private MarcReader getReader() {
+    if (reader == null)
+      reader = new MarcStreamReader(input);
+    return reader;
+  }
+
+  /**
+   * Counts the bytes read from the stream. MarcStreamReader peeks into the stream with mark() and
+   * reset(), so the count is also reset.
+   */
+  private static class PositionInputStream extends FilterInputStream {
+    private long position = 0;
+    private long markedPosition = 0;
+
+    PositionInputStream(InputStream in) {
+      super(in);
+    }
+
+    long getPosition() {
+      return position;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1)
+        position++;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0)
+        position += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+      super.mark(readlimit);
+      markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+      super.reset();
+      position = markedPosition;
+    }
+  }
+}
@@ -4,54 +4,176 @@ import org.marc4j.MarcReader;
 import org.marc4j.MarcStreamReader;
 import org.marc4j.marc.Record;
 
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class LineSeparatedMarcReader implements MarcReader {
+/**
+ * Reads line separated ISO 2709 files: each line is a binary MARC record. The lines are found in
+ * a large byte buffer without decoding them, and the bytes of a line become a MappedIsoRecord,
+ * which decodes its data fields only when they are requested (so with --threads in the worker
+ * threads). If a record's structure is not the expected one, it is parsed by marc4j's
+ * MarcStreamReader. An empty line is returned as a null record.
+ */
+public class LineSeparatedMarcReader implements SkippableMarcReader, Closeable {
 
   private static final Logger logger = Logger.getLogger(LineSeparatedMarcReader.class.getCanonicalName());
 
-  private BufferedReader bufferedReader = null;
-  private String line = null;
-  private boolean nextIsConsumed = false;
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte LINE_FEED = '\n';
+
+  private ReadableByteChannel channel = null;
+  private boolean isEndOfInput = false;
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean hasLine = false;
+  private int lineStart;
+  private int lineEnd;
+  private int nextLineStart;
   private int lineNumber = 0;
 
   public LineSeparatedMarcReader(String lineSeparatedMarc) {
     try {
-      bufferedReader = new BufferedReader(new FileReader(lineSeparatedMarc));
-    } catch (FileNotFoundException e) {
+      channel = FileChannel.open(Path.of(lineSeparatedMarc), StandardOpenOption.READ);
+    } catch (IOException e) {
       logger.log(Level.WARNING, "error in LineSeparatedMarcReader()", e);
+      isEndOfInput = true;
     }
   }
 
   public LineSeparatedMarcReader(InputStream in) {
-    bufferedReader = new BufferedReader(new InputStreamReader(in));
+    channel = Channels.newChannel(in);
   }
 
   @Override
   public boolean hasNext() {
-    if (lineNumber == 0 || nextIsConsumed) {
-      try {
-        line = bufferedReader.readLine();
-      } catch (IOException e) {
-        logger.log(Level.WARNING, "error in hasNext()", e);
-      }
-      lineNumber++;
-      nextIsConsumed = false;
-    }
-    return (line != null);
+    boolean hasNext = nextLine();
+    if (!hasNext)
+      close();
+    return hasNext;
   }
 
   @Override
   public Record next() {
-    InputStream is = new ByteArrayInputStream(line.getBytes());
-    MarcReader reader = new MarcStreamReader(is);
-    Record marc4jRecord = null;
-    if (reader.hasNext()) {
-      marc4jRecord = reader.next();
-    }
-    nextIsConsumed = true;
+    if (!nextLine())
+      return null;
+    hasLine = false;
+    position = nextLineStart;
+    if (lineEnd == lineStart)
+      return null;
+
+    byte[] bytes = Arrays.copyOfRange(buffer, lineStart, lineEnd);
+    // as in a new MarcStreamReader, the encoding is set by the record's own leader
+    boolean utf8 = bytes.length > 9 && bytes[9] == 'a';
+    Record marc4jRecord = MappedIsoRecord.create(bytes, utf8);
+    if (marc4jRecord == null)
+      marc4jRecord = parseWithMarc4j(bytes, utf8);
     return marc4jRecord;
   }
+
+  private Record parseWithMarc4j(byte[] bytes, boolean utf8) {
+    MarcReader reader = new MarcStreamReader(new ByteArrayInputStream(bytes), utf8 ? "UTF8" : "ISO8859_1");
+    return reader.hasNext() ? reader.next() : null;
+  }
+
+  /**
+   * Skips records (lines) without parsing them.
+   */
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    while (skipped < numberOfRecords && nextLine()) {
+      hasLine = false;
+      position = nextLineStart;
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public void close() {
+    if (channel == null)
+      return;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Finds the next line in the buffer (reading more input if needed) without consuming it. A
+   * carriage return before the line feed is not part of the line.
+   * @return false if there are no more lines
+   */
+  private boolean nextLine() {
+    if (hasLine)
+      return true;
+    int scanned = position;
+    while (true) {
+      for (int i = scanned; i < limit; i++) {
+        if (buffer[i] == LINE_FEED) {
+          setLine(i, i + 1);
+          return true;
+        }
+      }
+      if (isEndOfInput) {
+        if (position == limit)
+          return false;
+        setLine(limit, limit);
+        return true;
+      }
+      scanned = limit - position;
+      fill();
+      scanned += position;
+    }
+  }
+
+  private void setLine(int end, int next) {
+    lineStart = position;
+    lineEnd = end > lineStart && buffer[end - 1] == '\r' ? end - 1 : end;
+    nextLineStart = next;
+    hasLine = true;
+    lineNumber++;
+  }
+
+  /**
+   * Moves the unconsumed bytes to the start of the buffer (or grows the buffer for a very long
+   * line), and reads more input.
+   */
+  private void fill() {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    int read = -1;
+    try {
+      read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "error in hasNext()", e);
+    }
+    if (read == -1)
+      isEndOfInput = true;
+    else
+      limit += read;
+  }
 }
@@ -0,0 +1,187 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.MarcException;
+import org.marc4j.MarcStreamReader;
+import org.marc4j.marc.Record;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads ISO 2709 (binary MARC) files through memory mapping. The records are returned as
+ * MappedIsoRecord objects, which create the MarcRecord directly from the bytes of the record. If
+ * a record's structure is not the expected one, it is parsed by marc4j's MarcStreamReader, so the
+ * results (and the error messages) are the same as IsoMarcReader's.
+ *
+ * A mapped buffer can not be larger than 2 GB, so the file is mapped in windows. A record is at
+ * most 99999 bytes long, a new window is mapped when less than that remains in the current one.
+ * The reader can be restricted to a part of the file (see IsoChunker).
+ */
+public class MappedIsoMarcReader implements SkippableMarcReader, SeekableMarcReader, Closeable {
+
+  private static final Logger logger = Logger.getLogger(MappedIsoMarcReader.class.getCanonicalName());
+  private static final int MAX_RECORD_LENGTH = 99999;
+  private static final int LENGTH_SIZE = 5;
+  private static final long WINDOW_SIZE = 1L << 28;
+
+  private final FileChannel channel;
+  private final long end;
+  private MappedByteBuffer window = null;
+  private long windowStart = 0;
+  private long position = 0;
+  private boolean utf8 = false;
+
+  public MappedIsoMarcReader(String fileName) throws IOException {
+    this(Path.of(fileName));
+  }
+
+  public MappedIsoMarcReader(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    end = channel.size();
+  }
+
+  /**
+   * Reads the records of a chunk of the file.
+   */
+  public MappedIsoMarcReader(FileChunk chunk) throws IOException {
+    channel = FileChannel.open(chunk.getPath(), StandardOpenOption.READ);
+    end = Math.min(chunk.getEnd(), channel.size());
+    position = chunk.getStart();
+  }
+
+  @Override
+  public boolean hasNext() {
+    boolean hasNext = position < end;
+    if (!hasNext)
+      close();
+    return hasNext;
+  }
+
+  @Override
+  public Record next() {
+    int offset = mapWindow();
+    int recordLength = parseLength(offset);
+    if (recordLength <= MappedIsoRecord.LEADER_LENGTH) {
+      position += lengthToTerminator(offset);
+      throw new MarcException("unable to parse record length");
+    }
+
+    var bytes = new byte[(int) Math.min(recordLength, end - position)];
+    window.position(offset);
+    window.get(bytes);
+    position += bytes.length;
+
+    // as MarcStreamReader, the encoding is kept until a leader sets another one
+    if (bytes.length > 9 && bytes[9] == ' ')
+      utf8 = false;
+    else if (bytes.length > 9 && bytes[9] == 'a')
+      utf8 = true;
+
+    Record marcRecord = MappedIsoRecord.create(bytes, utf8);
+    if (marcRecord == null)
+      marcRecord = parseWithMarc4j(bytes);
+    return marcRecord;
+  }
+
+  private Record parseWithMarc4j(byte[] bytes) {
+    var reader = new MarcStreamReader(new ByteArrayInputStream(bytes), utf8 ? "UTF8" : "ISO8859_1");
+    if (!reader.hasNext())
+      throw new MarcException("Premature end of file encountered");
+    return reader.next();
+  }
+
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    while (skipped < numberOfRecords && position < end) {
+      int offset = mapWindow();
+      int recordLength = parseLength(offset);
+      if (recordLength > LENGTH_SIZE)
+        position = Math.min(position + recordLength, end);
+      else
+        position += lengthToTerminator(offset);
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  @Override
+  public void seek(long position) {
+    if (position < 0 || position > end)
+      throw new IllegalArgumentException(String.format("Can not seek to %d, the end is %d", position, end));
+    this.position = position;
+  }
+
+  /**
+   * Closes the file. The mapped window is released, it is unmapped when it is garbage collected.
+   * It is called at the end of the file, but the callers should call it when they stop earlier.
+   */
+  @Override
+  public void close() {
+    window = null;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  /**
+   * Maps the part of the file starting at the current position, unless the current window
+   * contains the longest possible record.
+   * @return The offset of the current position in the window
+   */
+  private int mapWindow() {
+    long windowEnd = window == null ? -1 : windowStart + window.limit();
+    if (window == null || position < windowStart
+        || (position + MAX_RECORD_LENGTH > windowEnd && windowEnd < end)) {
+      try {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, end - windowStart));
+      } catch (IOException e) {
+        throw new MarcException("an error occured reading input", e);
+      }
+    }
+    return (int) (position - windowStart);
+  }
+
+  /**
+   * @return The record length from the first 5 bytes, or -1 if they are not digits
+   */
+  private int parseLength(int offset) {
+    if (window.limit() - offset < LENGTH_SIZE)
+      return -1;
+    int value = 0;
+    for (int n = offset; n < offset + LENGTH_SIZE; n++) {
+      byte b = window.get(n);
+      if (b < '0' || b > '9')
+        return -1;
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  /**
+   * @return The number of bytes until the next record terminator (inclusive), or until the end of
+   * the window
+   */
+  private int lengthToTerminator(int offset) {
+    int limit = window.limit();
+    for (int n = offset; n < limit; n++)
+      if (window.get(n) == MappedIsoRecord.RECORD_TERMINATOR)
+        return n - offset + 1;
+    return limit - offset;
+  }
+}
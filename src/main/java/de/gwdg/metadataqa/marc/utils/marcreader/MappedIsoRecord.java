@@ -0,0 +1,166 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.marc.impl.Verifier;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An ISO 2709 record read by MappedIsoMarcReader. The data fields are decoded from the bytes of
+ * the record when they are requested.
+ *
+ * The record is created only if its structure is the one MarcStreamReader expects, so the result
+ * is the same as MarcStreamReader's and MarcFactory.createFromMarc4j()'s.
+ */
+public class MappedIsoRecord extends NativeRecord {
+
+  private static final long serialVersionUID = 1L;
+
+  static final int LEADER_LENGTH = 24;
+  static final byte RECORD_TERMINATOR = 0x1D;
+  private static final byte FIELD_TERMINATOR = 0x1E;
+  private static final byte SUBFIELD_DELIMITER = 0x1F;
+  private static final int ENTRY_LENGTH = 12;
+
+  private final byte[] bytes;
+  private final boolean utf8;
+  private final String[] tags;
+  private final int[] starts;
+  private final int[] lengths;
+  private int[] dataFieldIndexes;
+
+  private MappedIsoRecord(byte[] bytes, boolean utf8, String[] tags, int[] starts, int[] lengths) {
+    this.bytes = bytes;
+    this.utf8 = utf8;
+    this.tags = tags;
+    this.starts = starts;
+    this.lengths = lengths;
+  }
+  /**
+   * Parses the leader, the directory and the control fields.
+   * @param bytes The record, from the first byte of the leader to the record terminator
+   * @param utf8 The field contents are UTF-8 encoded, otherwise ISO-8859-1
+   * @return The record, or null if its structure is not valid (the caller should use marc4j then)
+   */
+  static MappedIsoRecord create(byte[] bytes, boolean utf8) {
+    if (bytes.length < LEADER_LENGTH + 2
+        || !isNumber(bytes, 0, 5) || !isNumber(bytes, 10, 2) || !isNumber(bytes, 12, 5))
+      return null;
+
+    int baseAddress = parseNumber(bytes, 12, 5);
+    int directoryLength = baseAddress - LEADER_LENGTH - 1;
+    if (directoryLength < 0 || directoryLength % ENTRY_LENGTH != 0
+        || baseAddress >= bytes.length || bytes[baseAddress - 1] != FIELD_TERMINATOR)
+      return null;
+
+    int numberOfFields = directoryLength / ENTRY_LENGTH;
+    var tags = new String[numberOfFields];
+    var starts = new int[numberOfFields];
+    var lengths = new int[numberOfFields];
+    int cursor = baseAddress;
+    int previousStart = -1;
+    for (int n = 0; n < numberOfFields; n++) {
+      int entry = LEADER_LENGTH + n * ENTRY_LENGTH;
+      if (!isAscii(bytes, entry, 3) || !isNumber(bytes, entry + 3, 9))
+        return null;
+      String tag = new String(bytes, entry, 3, StandardCharsets.ISO_8859_1);
+      int length = parseNumber(bytes, entry + 3, 4);
+      int start = parseNumber(bytes, entry + 7, 5);
+      // marc4j reads the fields in the order of their start positions, one after the other
+      if (start <= previousStart
+          || length < (Verifier.isControlField(tag) ? 1 : 3)
+          || cursor + length >= bytes.length
+          || bytes[cursor + length - 1] != FIELD_TERMINATOR)
+        return null;
+      previousStart = start;
+      tags[n] = tag;
+      starts[n] = cursor;
+      lengths[n] = length - 1;
+      cursor += length;
+    }
+    if (bytes[cursor] != RECORD_TERMINATOR)
+      return null;
+
+    var marcRecord = new MappedIsoRecord(bytes, utf8, tags, starts, lengths);
+    marcRecord.init();
+    return marcRecord;
+  }
+
+  private void init() {
+    setLeader(factory.newLeader(new String(bytes, 0, LEADER_LENGTH, StandardCharsets.ISO_8859_1)));
+    dataFieldIndexes = new int[tags.length];
+    int numberOfDataFields = 0;
+    for (int n = 0; n < tags.length; n++) {
+      if (Verifier.isControlField(tags[n]))
+        addControlField(tags[n], getString(starts[n], lengths[n]));
+      else
+        dataFieldIndexes[numberOfDataFields++] = n;
+    }
+    if (numberOfDataFields < dataFieldIndexes.length) {
+      var indexes = new int[numberOfDataFields];
+      System.arraycopy(dataFieldIndexes, 0, indexes, 0, numberOfDataFields);
+      dataFieldIndexes = indexes;
+    }
+  }
+
+  @Override
+  protected void readDataFields(DataFieldHandler handler) {
+    for (int n : dataFieldIndexes) {
+      handler.startField(tags[n], (char) (bytes[starts[n]] & 0xFF), (char) (bytes[starts[n] + 1] & 0xFF));
+      readSubfields(n, handler);
+      handler.endField();
+    }
+  }
+
+  /**
+   * Reads the subfields as MarcStreamReader does: a subfield starts with a delimiter and a code,
+   * and ends before the next delimiter or the field terminator. Other bytes between the subfields
+   * are ignored.
+   */
+  private void readSubfields(int field, DataFieldHandler handler) {
+    int end = starts[field] + lengths[field];
+    int position = starts[field] + 2;
+    while (position < end) {
+      if (bytes[position] != SUBFIELD_DELIMITER) {
+        position++;
+        continue;
+      }
+      byte code = bytes[position + 1];
+      if (code == FIELD_TERMINATOR) {
+        position += 2;
+        continue;
+      }
+      int dataStart = position + 2;
+      int dataEnd = dataStart;
+      while (bytes[dataEnd] != SUBFIELD_DELIMITER && bytes[dataEnd] != FIELD_TERMINATOR)
+        dataEnd++;
+      handler.subfield((char) (code & 0xFF), getString(dataStart, dataEnd - dataStart));
+      position = dataEnd;
+    }
+  }
+
+  private String getString(int start, int length) {
+    return new String(bytes, start, length, utf8 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+  }
+
+  private static boolean isNumber(byte[] bytes, int start, int length) {
+    for (int n = start; n < start + length; n++)
+      if (bytes[n] < '0' || bytes[n] > '9')
+        return false;
+    return true;
+  }
+
+  private static boolean isAscii(byte[] bytes, int start, int length) {
+    for (int n = start; n < start + length; n++)
+      if (bytes[n] < 0)
+        return false;
+    return true;
+  }
+
+  static int parseNumber(byte[] bytes, int start, int length) {
+    int value = 0;
+    for (int n = start; n < start + length; n++)
+      value = value * 10 + (bytes[n] - '0');
+    return value;
+  }
+
+}
@@ -0,0 +1,319 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.marc4j.MarcException;
+import org.marc4j.marc.Record;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads JSON records with Jackson's streaming parser into FieldListRecord objects. The records are
+ * JSON objects one after the other (usually one record per line). Two layouts are recognized:
+ * <ul>
+ *   <li>the one read by MarcFactory.create(JsonPathCache):
+ *   <code>{"leader": "...", "controlfield": [{"tag": "001", "content": "..."}],
+ *   "datafield": [{"tag": "245", "ind1": "1", "ind2": "0",
+ *   "subfield": [{"code": "a", "content": "..."}]}]}</code></li>
+ *   <li>MARC-in-JSON: <code>{"leader": "...", "fields": [{"001": "..."},
+ *   {"245": {"ind1": "1", "ind2": "0", "subfields": [{"a": "..."}]}}]}</code></li>
+ * </ul>
+ * Other properties are ignored.
+ */
+public class MarcJsonReader implements SkippableMarcReader, Closeable {
+
+  private static final Logger logger = Logger.getLogger(MarcJsonReader.class.getCanonicalName());
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  private final JsonParser parser;
+  private FieldListRecord nextRecord = null;
+  private boolean isPrefetched = false;
+
+  // the subfields of the current data field, the tag might come after them
+  private final StringBuilder codes = new StringBuilder();
+  private final List<String> values = new ArrayList<>();
+
+  public MarcJsonReader(String fileName) throws FileNotFoundException {
+    this(new FileInputStream(fileName));
+  }
+
+  public MarcJsonReader(InputStream stream) {
+    try {
+      parser = jsonFactory.createParser(stream);
+    } catch (IOException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!isPrefetched) {
+      nextRecord = moveToRecord() ? readRecord() : null;
+      isPrefetched = true;
+      if (nextRecord == null)
+        close();
+    }
+    return nextRecord != null;
+  }
+
+  @Override
+  public Record next() {
+    if (!hasNext())
+      throw new MarcException("There are no more records");
+    isPrefetched = false;
+    return nextRecord;
+  }
+
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    if (isPrefetched) {
+      if (nextRecord == null || numberOfRecords < 1)
+        return 0;
+      isPrefetched = false;
+      skipped++;
+    }
+    try {
+      while (skipped < numberOfRecords && moveToRecord()) {
+        parser.skipChildren();
+        skipped++;
+      }
+    } catch (IOException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+    return skipped;
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  /**
+   * Moves to the start of the next record object. The values which are not objects are skipped.
+   * @return false if there are no more records
+   */
+  private boolean moveToRecord() {
+    try {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        if (token == JsonToken.START_OBJECT)
+          return true;
+        // a file might contain an array of records
+        if (token != JsonToken.START_ARRAY && token != JsonToken.END_ARRAY)
+          parser.skipChildren();
+      }
+      return false;
+    } catch (IOException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+  }
+
+  private FieldListRecord readRecord() {
+    var marcRecord = new FieldListRecord();
+    try {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        switch (name) {
+          case "leader":
+            String leader = readString();
+            if (leader != null)
+              marcRecord.setLeader(leader);
+            break;
+          case "controlfield":
+            readControlFields(marcRecord);
+            break;
+          case "datafield":
+            readDataFields(marcRecord);
+            break;
+          case "fields":
+            readMarcInJsonFields(marcRecord);
+            break;
+          default:
+            parser.skipChildren();
+            break;
+        }
+      }
+    } catch (IOException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+    return marcRecord;
+  }
+
+  private void readControlFields(FieldListRecord marcRecord) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (nextObjectInArray()) {
+      String tag = null;
+      String content = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if (name.equals("tag"))
+          tag = readString();
+        else if (name.equals("content"))
+          content = readString();
+        else
+          parser.skipChildren();
+      }
+      if (tag != null)
+        marcRecord.addControlField(tag, content == null ? "" : content);
+    }
+  }
+
+  private void readDataFields(FieldListRecord marcRecord) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (nextObjectInArray()) {
+      String tag = null;
+      String ind1 = null;
+      String ind2 = null;
+      codes.setLength(0);
+      values.clear();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        switch (name) {
+          case "tag": tag = readString(); break;
+          case "ind1": ind1 = readString(); break;
+          case "ind2": ind2 = readString(); break;
+          case "subfield": readSubfields(); break;
+          default: parser.skipChildren(); break;
+        }
+      }
+      if (tag != null)
+        addDataField(marcRecord, tag, ind1, ind2);
+    }
+  }
+
+  /**
+   * Reads the subfield objects with separate properties for the code and the value.
+   */
+  private void readSubfields() throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (nextObjectInArray()) {
+      String code = null;
+      String value = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if (name.equals("code"))
+          code = readString();
+        else if (name.equals("content"))
+          value = readString();
+        else
+          parser.skipChildren();
+      }
+      if (code != null)
+        addSubfield(code, value);
+    }
+  }
+
+  private void readMarcInJsonFields(FieldListRecord marcRecord) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (nextObjectInArray()) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String tag = parser.getCurrentName();
+        if (parser.nextToken() == JsonToken.START_OBJECT)
+          readMarcInJsonDataField(marcRecord, tag);
+        else if (parser.currentToken().isScalarValue())
+          marcRecord.addControlField(tag, parser.getValueAsString(""));
+        else
+          parser.skipChildren();
+      }
+    }
+  }
+
+  private void readMarcInJsonDataField(FieldListRecord marcRecord, String tag) throws IOException {
+    String ind1 = null;
+    String ind2 = null;
+    codes.setLength(0);
+    values.clear();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      switch (name) {
+        case "ind1": ind1 = readString(); break;
+        case "ind2": ind2 = readString(); break;
+        case "subfields":
+          if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            break;
+          }
+          // each subfield is an object with a single property: {"a": "value"}
+          while (nextObjectInArray()) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              String code = parser.getCurrentName();
+              parser.nextToken();
+              addSubfield(code, readString());
+            }
+          }
+          break;
+        default: parser.skipChildren(); break;
+      }
+    }
+    addDataField(marcRecord, tag, ind1, ind2);
+  }
+
+  private void addSubfield(String code, String value) {
+    codes.append(toChar(code));
+    values.add(value == null ? "" : value);
+  }
+
+  private void addDataField(FieldListRecord marcRecord, String tag, String ind1, String ind2) {
+    marcRecord.startDataField(tag, toChar(ind1), toChar(ind2));
+    for (int i = 0; i < values.size(); i++)
+      marcRecord.addSubfield(codes.charAt(i), values.get(i));
+  }
+
+  /**
+   * Moves to the next object in the current array, the other values are skipped.
+   * @return false at the end of the array
+   */
+  private boolean nextObjectInArray() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+      if (token == JsonToken.START_OBJECT)
+        return true;
+      parser.skipChildren();
+    }
+    return false;
+  }
+
+  /**
+   * @return The current scalar value as string, or null (the other values are skipped)
+   */
+  private String readString() throws IOException {
+    String value = parser.getValueAsString();
+    parser.skipChildren();
+    return value;
+  }
+
+  private static char toChar(String value) {
+    return value == null || value.isEmpty() ? ' ' : value.charAt(0);
+  }
+}
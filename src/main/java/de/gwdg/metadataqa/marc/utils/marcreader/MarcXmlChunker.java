@@ -0,0 +1,133 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a MARCXML file into chunks of about the same size. The chunks start with a record start
+ * tag (with or without a namespace prefix), the first one starts at the first record, and the last
+ * one ends after the last record's end tag, so a chunk contains only record elements (see
+ * MarcXmlStaxReader(FileChunk)).
+ *
+ * The chunks are read as UTF-8, so a file with another encoding in its XML declaration is not
+ * split, and a single chunk is returned.
+ */
+public class MarcXmlChunker {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int OVERLAP = 256;
+  private static final Pattern RECORD_START = Pattern.compile("<([\\w.-]+:)?record[\\s/>]");
+  private static final Pattern RECORD_END = Pattern.compile("</([\\w.-]+:)?record\\s*>");
+  private static final Pattern ENCODING = Pattern.compile(
+    "^\\s*<\\?xml[^>]*encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
+  private MarcXmlChunker() {
+    throw new IllegalStateException("This is a utility class, can not be instantiated");
+  }
+
+  /**
+   * @param path The MARCXML file (not compressed)
+   * @param chunkSize The minimal size of a chunk in bytes, the last one might be smaller
+   * @return The chunks in the order of the file, or a single chunk for the whole file if it can
+   * not be split
+   */
+  public static List<FileChunk> split(Path path, long chunkSize) throws IOException {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("The chunk size should be a positive number: " + chunkSize);
+
+    List<FileChunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = find(channel, 0, size, RECORD_START);
+      long end = findLastRecordEnd(channel, size);
+      if (!isUtf8(channel) || start == -1 || end == -1 || end <= start) {
+        chunks.add(new FileChunk(path, 0, size));
+        return chunks;
+      }
+
+      while (start < end) {
+        long chunkEnd = end - start <= chunkSize ? -1 : find(channel, start + chunkSize, end, RECORD_START);
+        if (chunkEnd == -1)
+          chunkEnd = end;
+        chunks.add(new FileChunk(path, start, chunkEnd));
+        start = chunkEnd;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * @return The position of the first match of the pattern between the positions, or -1
+   */
+  private static long find(FileChannel channel, long position, long limit, Pattern pattern) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    while (position < limit) {
+      String text = read(channel, buffer, position, limit);
+      if (text.isEmpty())
+        break;
+      Matcher matcher = pattern.matcher(text);
+      if (matcher.find())
+        return position + matcher.start();
+      if (position + text.length() >= limit)
+        break;
+      // a tag might be cut at the end of the buffer
+      position += Math.max(1, text.length() - OVERLAP);
+    }
+    return -1;
+  }
+
+  /**
+   * @return The position after the last record end tag, or -1
+   */
+  private static long findLastRecordEnd(FileChannel channel, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long position = size;
+    while (position > 0) {
+      long start = Math.max(0, position - BUFFER_SIZE);
+      String text = read(channel, buffer, start, position);
+      Matcher matcher = RECORD_END.matcher(text);
+      long found = -1;
+      while (matcher.find())
+        found = start + matcher.end();
+      if (found != -1)
+        return found;
+      if (start == 0)
+        break;
+      position = start + OVERLAP;
+    }
+    return -1;
+  }
+
+  private static boolean isUtf8(FileChannel channel) throws IOException {
+    Matcher matcher = ENCODING.matcher(read(channel, ByteBuffer.allocate(OVERLAP), 0, channel.size()));
+    if (!matcher.find())
+      return true;
+    String encoding = matcher.group(1).toUpperCase();
+    return encoding.equals("UTF-8") || encoding.equals("UTF8") || encoding.equals("US-ASCII");
+  }
+
+  /**
+   * Reads the bytes as ISO-8859-1 text, so the position of a character is the position of its byte.
+   */
+  private static String read(FileChannel channel, ByteBuffer buffer, long position, long limit) throws IOException {
+    buffer.clear();
+    if (limit - position < buffer.capacity())
+      buffer.limit((int) (limit - position));
+    int length = 0;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + length);
+      if (read <= 0)
+        break;
+      length += read;
+    }
+    return new String(buffer.array(), 0, length, StandardCharsets.ISO_8859_1);
+  }
+}
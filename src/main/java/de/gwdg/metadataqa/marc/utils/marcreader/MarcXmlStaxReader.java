@@ -0,0 +1,270 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.marc4j.MarcException;
+import org.marc4j.marc.Record;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads MARCXML with a pull parser (StAX) in the calling thread. The record elements are read
+ * directly into FieldListRecord objects, which create the MarcRecord without the marc4j data
+ * fields.
+ *
+ * The namespace prefixes are ignored (as marc4j's MarcXmlHandler does), so the collections with
+ * and without the MARC21 slim namespace are read the same way. Elements outside of the records
+ * are skipped.
+ */
+public class MarcXmlStaxReader implements SkippableMarcReader, Closeable {
+
+  private static final Logger logger = Logger.getLogger(MarcXmlStaxReader.class.getCanonicalName());
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private final InputStream input;
+  private final XMLStreamReader reader;
+  private FieldListRecord nextRecord = null;
+  private boolean isPrefetched = false;
+
+  public MarcXmlStaxReader(String fileName) throws FileNotFoundException {
+    this(new FileInputStream(fileName));
+  }
+
+  public MarcXmlStaxReader(InputStream stream) {
+    input = new BufferedInputStream(stream);
+    try {
+      reader = inputFactory.createXMLStreamReader(input);
+    } catch (XMLStreamException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads the records of a chunk of the file (see MarcXmlChunker). The chunk contains only
+   * record elements, they are wrapped into a collection element. The chunk should be UTF-8
+   * encoded.
+   */
+  public MarcXmlStaxReader(FileChunk chunk) throws IOException {
+    this(wrap(chunk));
+  }
+
+  private static InputStream wrap(FileChunk chunk) throws IOException {
+    FileChannel channel = FileChannel.open(chunk.getPath(), StandardOpenOption.READ).position(chunk.getStart());
+    return new SequenceInputStream(Collections.enumeration(List.of(
+      new ByteArrayInputStream("<collection>".getBytes(StandardCharsets.UTF_8)),
+      new BoundedInputStream(Channels.newInputStream(channel), chunk.getLength()),
+      new ByteArrayInputStream("</collection>".getBytes(StandardCharsets.UTF_8))
+    )));
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!isPrefetched) {
+      nextRecord = moveToRecord() ? readRecord() : null;
+      isPrefetched = true;
+      if (nextRecord == null)
+        close();
+    }
+    return nextRecord != null;
+  }
+
+  @Override
+  public Record next() {
+    if (!hasNext())
+      throw new MarcException("There are no more records");
+    isPrefetched = false;
+    return nextRecord;
+  }
+
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    if (isPrefetched) {
+      if (nextRecord == null || numberOfRecords < 1)
+        return 0;
+      isPrefetched = false;
+      skipped++;
+    }
+    while (skipped < numberOfRecords && moveToRecord()) {
+      skipElement();
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+      input.close();
+    } catch (XMLStreamException | IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  /**
+   * Moves the cursor to the start of the next record element.
+   * @return false if there are no more records
+   */
+  private boolean moveToRecord() {
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && getName().equals("record"))
+          return true;
+      }
+      return false;
+    } catch (XMLStreamException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+  }
+
+  private FieldListRecord readRecord() {
+    var marcRecord = new FieldListRecord();
+    try {
+      while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+        switch (getName()) {
+          case "leader":
+            marcRecord.setLeader(readText());
+            break;
+          case "controlfield":
+            readControlField(marcRecord);
+            break;
+          case "datafield":
+            readDataField(marcRecord);
+            break;
+          default:
+            skipElement();
+            break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+    return marcRecord;
+  }
+
+  private void readControlField(FieldListRecord marcRecord) throws XMLStreamException {
+    String tag = reader.getAttributeValue(null, "tag");
+    String data = readText();
+    if (tag != null)
+      marcRecord.addControlField(tag, data);
+  }
+
+  private void readDataField(FieldListRecord marcRecord) throws XMLStreamException {
+    String tag = reader.getAttributeValue(null, "tag");
+    if (tag == null) {
+      skipElement();
+      return;
+    }
+    marcRecord.startDataField(tag,
+      toChar(reader.getAttributeValue(null, "ind1")), toChar(reader.getAttributeValue(null, "ind2")));
+    while (nextElement() == XMLStreamConstants.START_ELEMENT) {
+      String code = getName().equals("subfield") ? reader.getAttributeValue(null, "code") : null;
+      String data = readText();
+      if (code != null)
+        marcRecord.addSubfield(toChar(code), data);
+    }
+  }
+
+  /**
+   * Reads the text content of the current element, including the text of the nested elements,
+   * and moves to the end of the element.
+   */
+  private String readText() throws XMLStreamException {
+    String text = null;
+    StringBuilder buffer = null;
+    int depth = 1;
+    while (depth > 0) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          if (text == null) {
+            text = reader.getText();
+          } else {
+            if (buffer == null)
+              buffer = new StringBuilder(text);
+            buffer.append(reader.getText());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    if (buffer != null)
+      return buffer.toString();
+    return text == null ? "" : text;
+  }
+
+  /**
+   * Moves to the next start or end element, the text, comments and processing instructions
+   * between the elements are ignored.
+   */
+  private int nextElement() throws XMLStreamException {
+    int event = reader.next();
+    while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+      event = reader.next();
+    return event;
+  }
+
+  private void skipElement() {
+    try {
+      int depth = 1;
+      while (depth > 0) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT)
+          depth++;
+        else if (event == XMLStreamConstants.END_ELEMENT)
+          depth--;
+      }
+    } catch (XMLStreamException e) {
+      throw new MarcException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @return The name of the current element without the namespace prefix
+   */
+  private String getName() {
+    String name = reader.getLocalName();
+    int colon = name.indexOf(':');
+    return colon == -1 ? name : name.substring(colon + 1);
+  }
+
+  private static char toChar(String value) {
+    return value == null || value.isEmpty() ? ' ' : value.charAt(0);
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+}
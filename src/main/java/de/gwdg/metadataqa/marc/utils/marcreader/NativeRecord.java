@@ -0,0 +1,201 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.marc.MarcFactory;
+import de.gwdg.metadataqa.marc.dao.DataField;
+import de.gwdg.metadataqa.marc.dao.Leader;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
+import de.gwdg.metadataqa.marc.utils.StringPool;
+import org.marc4j.marc.ControlField;
+import org.marc4j.marc.VariableField;
+import org.marc4j.marc.impl.RecordImpl;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * A marc4j record created by one of the native readers. The leader and the control fields are
+ * set when the record is created, the data fields are kept in the reader's own representation:
+ * toMarcRecord() creates the MarcRecord directly from it, and the marc4j data fields are created
+ * only at the first call of their getters.
+ */
+public abstract class NativeRecord extends RecordImpl {
+
+  private static final long serialVersionUID = 1L;
+  protected static final org.marc4j.marc.MarcFactory factory = org.marc4j.marc.MarcFactory.newInstance();
+
+  private boolean dataFieldsDecoded = false;
+
+  /**
+   * Reports the data fields in the order of the record.
+   */
+  protected abstract void readDataFields(DataFieldHandler handler);
+
+  /**
+   * Creates a MarcRecord the same way as MarcFactory.createFromMarc4j() does, without creating the
+   * marc4j data fields.
+   * @param defaultType The defauld document type
+   * @param marcVersion The MARC version
+   * @param fixAlephseq Replace ^ character to space in control fields
+   * @return The MarcRecord
+   */
+  public MarcRecord toMarcRecord(Leader.Type defaultType, MarcVersion marcVersion, boolean fixAlephseq) {
+    var marcRecord = new MarcRecord();
+    if (getLeader() != null) {
+      marcRecord.setLeader(new Leader(getLeader().marshal(), defaultType));
+      if (marcRecord.getType() == null) {
+        throw new InvalidParameterException(
+          String.format(
+            "Error in '%s': no type has been detected. Leader: '%s'.",
+            getControlNumberField(), marcRecord.getLeader().getLeaderString()
+          )
+        );
+      }
+    }
+
+    for (ControlField controlField : getControlFields())
+      MarcFactory.addControlField(marcRecord, controlField.getTag(), controlField.getData(), fixAlephseq);
+
+    readDataFields(new DataFieldHandler() {
+      private DataFieldDefinition definition;
+      private DataField field;
+
+      @Override
+      public void startField(String tag, char ind1, char ind2) {
+        definition = MarcFactory.getDataFieldDefinition(tag, marcVersion);
+        if (definition == null)
+          marcRecord.addUnhandledTags(tag);
+        field = MarcFactory.createDataField(tag, StringPool.of(ind1), StringPool.of(ind2),
+          definition, marcVersion);
+      }
+
+      @Override
+      public void subfield(char code, String data) {
+        MarcFactory.addSubfield(field, definition, StringPool.of(code), data);
+      }
+
+      @Override
+      public void endField() {
+        field.indexSubfields();
+        marcRecord.addDataField(field);
+      }
+    });
+    return marcRecord;
+  }
+
+  /**
+   * Adds a control field while the record is created (the data fields are not decoded by it).
+   */
+  protected void addControlField(String tag, String data) {
+    super.addVariableField(factory.newControlField(tag, data));
+  }
+
+  private void decodeDataFields() {
+    if (dataFieldsDecoded)
+      return;
+    dataFieldsDecoded = true;
+    readDataFields(new DataFieldHandler() {
+      private org.marc4j.marc.DataField dataField;
+
+      @Override
+      public void startField(String tag, char ind1, char ind2) {
+        dataField = factory.newDataField(tag, ind1, ind2);
+      }
+
+      @Override
+      public void subfield(char code, String data) {
+        dataField.addSubfield(factory.newSubfield(code, data));
+      }
+
+      @Override
+      public void endField() {
+        dataFields.add(dataField);
+      }
+    });
+  }
+
+  @Override
+  public void addVariableField(VariableField field) {
+    decodeDataFields();
+    super.addVariableField(field);
+  }
+
+  @Override
+  public void removeVariableField(VariableField field) {
+    decodeDataFields();
+    super.removeVariableField(field);
+  }
+
+  @Override
+  public List<org.marc4j.marc.DataField> getDataFields() {
+    decodeDataFields();
+    return super.getDataFields();
+  }
+
+  @Override
+  public VariableField getVariableField(String tag) {
+    decodeDataFields();
+    return super.getVariableField(tag);
+  }
+
+  @Override
+  public List<VariableField> getVariableFields(String tag) {
+    decodeDataFields();
+    return super.getVariableFields(tag);
+  }
+
+  @Override
+  public List<VariableField> getVariableFields() {
+    decodeDataFields();
+    return super.getVariableFields();
+  }
+
+  @Override
+  public List<VariableField> getVariableFieldsWithLeader() {
+    decodeDataFields();
+    return super.getVariableFieldsWithLeader();
+  }
+
+  @Override
+  public List<VariableField> getVariableFields(String[] tags) {
+    decodeDataFields();
+    return super.getVariableFields(tags);
+  }
+
+  @Override
+  public List<VariableField> find(String pattern) {
+    decodeDataFields();
+    return super.find(pattern);
+  }
+
+  @Override
+  public List<VariableField> find(String tag, String pattern) {
+    decodeDataFields();
+    return super.find(tag, pattern);
+  }
+
+  @Override
+  public List<VariableField> find(String[] tag, String pattern) {
+    decodeDataFields();
+    return super.find(tag, pattern);
+  }
+
+  @Override
+  public boolean hasMatch(String[] tag, String pattern) {
+    decodeDataFields();
+    return super.hasMatch(tag, pattern);
+  }
+
+  @Override
+  public String toString() {
+    decodeDataFields();
+    return super.toString();
+  }
+
+  protected interface DataFieldHandler {
+    void startField(String tag, char ind1, char ind2);
+    void subfield(char code, String data);
+    void endField();
+  }
+}
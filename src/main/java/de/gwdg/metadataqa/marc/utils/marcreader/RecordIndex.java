@@ -0,0 +1,445 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.MarcException;
+import org.marc4j.marc.Record;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+/**
+ * An index of ISO 2709 files: record identifier (001) -> file, byte position and length of the
+ * record. The records of a few identifiers can be read directly (see --index and --idFile)
+ * instead of scanning the whole files.
+ *
+ * The index file has a header with the indexed files (their paths, sizes and modification times,
+ * so a stale index is recognized), a table of fixed size entries sorted by the identifiers, and
+ * the UTF-8 bytes of the identifiers. The lookup is a binary search in the file, the index is not
+ * loaded into memory.
+ */
+public class RecordIndex implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(RecordIndex.class.getCanonicalName());
+
+  private static final int MAGIC = 0x51414958;
+  private static final int VERSION = 1;
+  private static final int PREAMBLE_SIZE = 12;
+  // ID offset (long), ID length (int), file (int), record position (long), record length (int)
+  private static final int ENTRY_SIZE = 28;
+  // the number of entries sorted in memory at once
+  private static final int RUN_SIZE = 500_000;
+
+  private final FileChannel channel;
+  private final List<IndexedFile> files;
+  private final int size;
+  private final long tableStart;
+  private final long idsStart;
+
+  /**
+   * The place of a record.
+   */
+  public static class Location {
+    private final Path path;
+    private final long start;
+    private final int length;
+
+    public Location(Path path, long start, int length) {
+      this.path = path;
+      this.start = start;
+      this.length = length;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    public long getStart() {
+      return start;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    /**
+     * @return The part of the file which contains only this record
+     */
+    public FileChunk toChunk() {
+      return new FileChunk(path, start, start + length);
+    }
+  }
+
+  private static class IndexedFile {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    IndexedFile(Path path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    static IndexedFile of(Path path) throws IOException {
+      return new IndexedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+  }
+
+  private static class Entry {
+    private final byte[] id;
+    private final int file;
+    private final long start;
+    private final int length;
+
+    Entry(byte[] id, int file, long start, int length) {
+      this.id = id;
+      this.file = file;
+      this.start = start;
+      this.length = length;
+    }
+  }
+
+  private static final Comparator<Entry> ENTRY_ORDER =
+    Comparator.comparing((Entry entry) -> entry.id, Arrays::compareUnsigned)
+      .thenComparingInt(entry -> entry.file)
+      .thenComparingLong(entry -> entry.start);
+
+  /**
+   * The sorted entries one by one, null at the end.
+   */
+  private interface EntrySource {
+    Entry next() throws IOException;
+  }
+
+  /**
+   * A temporary file of sorted entries.
+   */
+  private static class Run {
+    private final Path path;
+    private final int size;
+
+    Run(Path path, int size) {
+      this.path = path;
+      this.size = size;
+    }
+
+    static Run spill(List<Entry> entries, Path directory) throws IOException {
+      entries.sort(ENTRY_ORDER);
+      Path path = Files.createTempFile(directory, "run", ".tmp");
+      try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+        for (Entry entry : entries) {
+          out.writeInt(entry.id.length);
+          out.write(entry.id);
+          out.writeInt(entry.file);
+          out.writeLong(entry.start);
+          out.writeInt(entry.length);
+        }
+      } catch (IOException e) {
+        Files.deleteIfExists(path);
+        throw e;
+      }
+      return new Run(path, entries.size());
+    }
+  }
+
+  /**
+   * Reads a run, the current entry is the smallest one not returned yet.
+   */
+  private static class RunReader implements Closeable {
+    private final DataInputStream in;
+    private int remaining;
+    private Entry current;
+
+    RunReader(Run run) throws IOException {
+      in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path)));
+      remaining = run.size;
+    }
+
+    boolean advance() throws IOException {
+      if (remaining == 0) {
+        current = null;
+        return false;
+      }
+      remaining--;
+      byte[] id = new byte[in.readInt()];
+      in.readFully(id);
+      current = new Entry(id, in.readInt(), in.readLong(), in.readInt());
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Merges the sorted runs.
+   */
+  private static class RunMerger implements EntrySource, Closeable {
+    private final List<RunReader> readers = new ArrayList<>();
+    private final PriorityQueue<RunReader> queue =
+      new PriorityQueue<>(Comparator.comparing((RunReader reader) -> reader.current, ENTRY_ORDER));
+
+    RunMerger(List<Run> runs) throws IOException {
+      try {
+        for (Run run : runs) {
+          var reader = new RunReader(run);
+          readers.add(reader);
+          if (reader.advance())
+            queue.add(reader);
+        }
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    @Override
+    public Entry next() throws IOException {
+      RunReader reader = queue.poll();
+      if (reader == null)
+        return null;
+      Entry entry = reader.current;
+      if (reader.advance())
+        queue.add(reader);
+      return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (RunReader reader : readers)
+        reader.close();
+    }
+  }
+
+  private RecordIndex(FileChannel channel, List<IndexedFile> files, int size, long tableStart) {
+    this.channel = channel;
+    this.files = files;
+    this.size = size;
+    this.tableStart = tableStart;
+    this.idsStart = tableStart + (long) size * ENTRY_SIZE;
+  }
+
+  /**
+   * Reads the ISO 2709 files and writes the index of their records. The entries are sorted in runs
+   * of a bounded size, the runs are spilled into temporary files next to the index, and then they
+   * are merged. The records without identifier and the ones which can not be parsed are left out.
+   * @param paths The ISO 2709 files (not compressed)
+   * @param indexPath The index file to create
+   * @return The number of indexed records
+   */
+  public static int build(List<Path> paths, Path indexPath) throws IOException {
+    return build(paths, indexPath, RUN_SIZE);
+  }
+
+  static int build(List<Path> paths, Path indexPath, int runSize) throws IOException {
+    Path directory = indexPath.toAbsolutePath().getParent();
+    List<IndexedFile> files = new ArrayList<>();
+    List<Entry> entries = new ArrayList<>();
+    List<Run> runs = new ArrayList<>();
+    int size = 0;
+    try {
+      for (Path path : paths) {
+        Path absolutePath = path.toAbsolutePath();
+        files.add(IndexedFile.of(absolutePath));
+        try (var reader = new MappedIsoMarcReader(absolutePath)) {
+          while (reader.hasNext()) {
+            long start = reader.getPosition();
+            Record marc4jRecord = null;
+            try {
+              marc4jRecord = reader.next();
+            } catch (MarcException e) {
+              logger.warning(String.format("%s: unable to parse the record at %d: %s", path, start, e.getMessage()));
+            }
+            if (marc4jRecord == null || marc4jRecord.getControlNumber() == null)
+              continue;
+            entries.add(new Entry(marc4jRecord.getControlNumber().trim().getBytes(StandardCharsets.UTF_8),
+              files.size() - 1, start, (int) (reader.getPosition() - start)));
+            size++;
+            if (entries.size() >= runSize) {
+              runs.add(Run.spill(entries, directory));
+              entries.clear();
+            }
+          }
+        }
+      }
+
+      if (runs.isEmpty()) {
+        entries.sort(ENTRY_ORDER);
+        Iterator<Entry> iterator = entries.iterator();
+        write(indexPath, files, size, () -> iterator.hasNext() ? iterator.next() : null);
+      } else {
+        if (!entries.isEmpty()) {
+          runs.add(Run.spill(entries, directory));
+          entries.clear();
+        }
+        try (var merger = new RunMerger(runs)) {
+          write(indexPath, files, size, merger);
+        }
+      }
+    } finally {
+      for (Run run : runs)
+        Files.deleteIfExists(run.path);
+    }
+    return size;
+  }
+
+  private static void write(Path indexPath, List<IndexedFile> files, int size, EntrySource entries)
+      throws IOException {
+    var header = new ByteArrayOutputStream();
+    var headerOut = new DataOutputStream(header);
+    headerOut.writeInt(files.size());
+    for (IndexedFile file : files) {
+      headerOut.writeUTF(file.path.toString());
+      headerOut.writeLong(file.size);
+      headerOut.writeLong(file.lastModified);
+    }
+    headerOut.writeInt(size);
+
+    // the identifiers follow the table, they are collected in a temporary file meanwhile
+    Path idsPath = Files.createTempFile(indexPath.toAbsolutePath().getParent(), "ids", ".tmp");
+    try {
+      try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)));
+           var ids = new BufferedOutputStream(Files.newOutputStream(idsPath))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(header.size());
+        header.writeTo(out);
+        long idOffset = 0;
+        for (Entry entry = entries.next(); entry != null; entry = entries.next()) {
+          out.writeLong(idOffset);
+          out.writeInt(entry.id.length);
+          out.writeInt(entry.file);
+          out.writeLong(entry.start);
+          out.writeInt(entry.length);
+          ids.write(entry.id);
+          idOffset += entry.id.length;
+        }
+        ids.flush();
+        Files.copy(idsPath, out);
+      }
+    } finally {
+      Files.deleteIfExists(idsPath);
+    }
+  }
+
+  /**
+   * Opens an index created by build().
+   */
+  public static RecordIndex open(Path indexPath) throws IOException {
+    FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ);
+    try {
+      // the stream is not closed, it would close the channel
+      InputStream stream = Channels.newInputStream(channel);
+      var in = new DataInputStream(stream);
+      if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        throw new IOException(String.format("%s is not a record index", indexPath));
+      int headerSize = in.readInt();
+      var header = new DataInputStream(new ByteArrayInputStream(in.readNBytes(headerSize)));
+      int numberOfFiles = header.readInt();
+      List<IndexedFile> files = new ArrayList<>();
+      for (int n = 0; n < numberOfFiles; n++)
+        files.add(new IndexedFile(Paths.get(header.readUTF()), header.readLong(), header.readLong()));
+      int size = header.readInt();
+      return new RecordIndex(channel, files, size, PREAMBLE_SIZE + (long) headerSize);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return The indexed files have not been changed since the index has been created
+   */
+  public boolean isUpToDate() {
+    for (IndexedFile file : files) {
+      try {
+        IndexedFile current = IndexedFile.of(file.path);
+        if (current.size != file.size || current.lastModified != file.lastModified)
+          return false;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of indexed records
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param id The record identifier (the trimmed content of 001)
+   * @return The places of the records with this identifier, usually a single one or none
+   */
+  public List<Location> lookup(String id) throws IOException {
+    byte[] key = id.trim().getBytes(StandardCharsets.UTF_8);
+    var entry = ByteBuffer.allocate(ENTRY_SIZE);
+
+    // the first entry which is not less than the key
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (Arrays.compareUnsigned(readId(middle, entry), key) < 0)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+
+    List<Location> locations = new ArrayList<>();
+    for (int n = low; n < size && Arrays.equals(readId(n, entry), key); n++) {
+      Path path = files.get(entry.getInt(12)).path;
+      locations.add(new Location(path, entry.getLong(16), entry.getInt(24)));
+    }
+    return locations;
+  }
+
+  /**
+   * Reads the entry into the buffer, and returns its identifier.
+   */
+  private byte[] readId(int n, ByteBuffer entry) throws IOException {
+    entry.clear();
+    readFully(entry, tableStart + (long) n * ENTRY_SIZE);
+    var id = ByteBuffer.allocate(entry.getInt(8));
+    readFully(id, idsStart + entry.getLong(0));
+    return id.array();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining())
+      if (channel.read(buffer, position + buffer.position()) < 0)
+        throw new EOFException("The index file is truncated");
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,22 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.MarcReader;
+
+/**
+ * A MarcReader which knows the byte position of the next record in its input, and which is able
+ * to continue reading from such a position (used for --checkpoint and --resume).
+ */
+public interface SeekableMarcReader extends MarcReader {
+
+  /**
+   * @return The number of bytes consumed from the input, i.e. the position of the next record
+   */
+  long getPosition();
+
+  /**
+   * Jumps to a position returned by getPosition() in an earlier run on the same input. It should
+   * be called before reading the first record.
+   * @param position The byte position of a record
+   */
+  void seek(long position);
+}
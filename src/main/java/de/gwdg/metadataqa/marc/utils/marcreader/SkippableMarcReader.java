@@ -0,0 +1,17 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import org.marc4j.MarcReader;
+
+/**
+ * A MarcReader which is able to step over records without parsing them (used for --offset).
+ */
+public interface SkippableMarcReader extends MarcReader {
+
+  /**
+   * Skips the next records. The skipped records are counted the same way as next() would return
+   * them, but no Record objects are created.
+   * @param numberOfRecords The number of records to skip
+   * @return The number of skipped records, less than requested if the input has ended
+   */
+  int skip(int numberOfRecords);
+}
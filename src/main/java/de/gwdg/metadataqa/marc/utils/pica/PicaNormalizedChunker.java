@@ -0,0 +1,65 @@
+package de.gwdg.metadataqa.marc.utils.pica;
+
+import de.gwdg.metadataqa.marc.utils.marcreader.FileChunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a normalized PICA+ file into chunks of about the same size. A chunk ends after a record
+ * separator (line feed), which can not occur inside a record.
+ */
+public class PicaNormalizedChunker {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private PicaNormalizedChunker() {
+    throw new IllegalStateException("This is a utility class, can not be instantiated");
+  }
+
+  /**
+   * @param path The normalized PICA+ file (not compressed)
+   * @param chunkSize The minimal size of a chunk in bytes, the last one might be smaller
+   * @return The chunks covering the whole file in the order of the file
+   */
+  public static List<FileChunk> split(Path path, long chunkSize) throws IOException {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("The chunk size should be a positive number: " + chunkSize);
+
+    List<FileChunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = 0;
+      while (start < size) {
+        long end = size - start <= chunkSize ? size : findBoundary(channel, start + chunkSize, size);
+        chunks.add(new FileChunk(path, start, end));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * @return The position after the first record separator from the position, or the size of the
+   * file
+   */
+  private static long findBoundary(FileChannel channel, long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    while (position < size) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0)
+        break;
+      for (int n = 0; n < read; n++)
+        if (buffer.get(n) == PicaNormalizedReader.RECORD_SEPARATOR)
+          return position + n + 1;
+      position += read;
+    }
+    return size;
+  }
+}
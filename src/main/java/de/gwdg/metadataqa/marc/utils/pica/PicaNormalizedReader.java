@@ -0,0 +1,296 @@
+package de.gwdg.metadataqa.marc.utils.pica;
+
+import de.gwdg.metadataqa.marc.utils.marcreader.FileChunk;
+import de.gwdg.metadataqa.marc.utils.marcreader.SkippableMarcReader;
+import org.marc4j.marc.Record;
+import org.marc4j.marc.impl.ControlFieldImpl;
+import org.marc4j.marc.impl.DataFieldImpl;
+import org.marc4j.marc.impl.RecordImpl;
+import org.marc4j.marc.impl.SubfieldImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads normalized PICA+ files: a record ends with a line feed (0x0A), a field ends with 0x1E,
+ * and a subfield starts with 0x1F followed by the subfield code. A field starts with the tag, an
+ * optional occurrence ("/01") and a space, e.g. <code>003@ 0x1F 0 123456789 0x1E</code>. The
+ * records are tokenized in place in a large byte buffer, and they are the same as the ones
+ * MarcFactory.createRecordFromPica() creates from the plain text format: the occurrence is
+ * dropped from the tag, and the PPN (003@$0) is copied into the 001 control field. The
+ * MarcRecord objects are created with MarcFactory.createPicaFromMarc4j().
+ *
+ * The reader can be restricted to a part of the file (see PicaNormalizedChunker).
+ */
+public class PicaNormalizedReader implements SkippableMarcReader, Closeable {
+
+  private static final Logger logger = Logger.getLogger(PicaNormalizedReader.class.getCanonicalName());
+
+  public static final byte RECORD_SEPARATOR = 0x0A;
+  public static final byte FIELD_SEPARATOR = 0x1E;
+  public static final byte SUBFIELD_SEPARATOR = 0x1F;
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final int TAG_LENGTH = 4;
+  private static final String ID_TAG = "003@";
+
+  private ReadableByteChannel channel = null;
+  private long remaining = Long.MAX_VALUE;
+  private boolean isEndOfInput = false;
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private int recordStart;
+  private int recordEnd;
+  private int recordNumber = 0;
+
+  // the tags are 4 ASCII characters, their strings are shared by the records
+  private final Map<Integer, String> tags = new HashMap<>();
+  private Record nextRecord = null;
+  private boolean isPrefetched = false;
+
+  public PicaNormalizedReader(String fileName) {
+    try {
+      channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "PicaNormalizedReader", e);
+      isEndOfInput = true;
+    }
+  }
+
+  public PicaNormalizedReader(InputStream stream) {
+    channel = Channels.newChannel(stream);
+  }
+
+  /**
+   * Reads the records of a chunk of the file.
+   */
+  public PicaNormalizedReader(FileChunk chunk) throws IOException {
+    channel = FileChannel.open(chunk.getPath(), StandardOpenOption.READ).position(chunk.getStart());
+    remaining = chunk.getLength();
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!isPrefetched) {
+      nextRecord = null;
+      while (nextRecord == null && nextLine())
+        nextRecord = readRecord();
+      isPrefetched = true;
+      if (nextRecord == null)
+        close();
+    }
+    return nextRecord != null;
+  }
+
+  @Override
+  public Record next() {
+    if (!hasNext())
+      return null;
+    isPrefetched = false;
+    return nextRecord;
+  }
+
+  /**
+   * Skips records: the lines are counted the same way as in next() (the empty lines are not
+   * records), but no Record objects are created.
+   */
+  @Override
+  public int skip(int numberOfRecords) {
+    int skipped = 0;
+    if (isPrefetched) {
+      if (nextRecord == null || numberOfRecords < 1)
+        return 0;
+      isPrefetched = false;
+      skipped++;
+    }
+    while (skipped < numberOfRecords && nextLine())
+      if (recordEnd > recordStart)
+        skipped++;
+    return skipped;
+  }
+
+  @Override
+  public void close() {
+    if (channel == null)
+      return;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "close", e);
+    }
+  }
+
+  /**
+   * @return The record of the current line, or null if it does not have any fields
+   */
+  private Record readRecord() {
+    Record marc4jRecord = null;
+    String id = null;
+    int fieldStart = recordStart;
+    while (fieldStart < recordEnd) {
+      int fieldEnd = indexOf(FIELD_SEPARATOR, fieldStart, recordEnd);
+      if (fieldEnd > fieldStart) {
+        DataFieldImpl field = readField(fieldStart, fieldEnd);
+        if (field != null) {
+          if (marc4jRecord == null)
+            marc4jRecord = new RecordImpl();
+          marc4jRecord.addVariableField(field);
+          if (id == null && field.getTag().equals(ID_TAG) && field.getSubfield('0') != null)
+            id = field.getSubfield('0').getData();
+        }
+      }
+      fieldStart = fieldEnd + 1;
+    }
+    if (id != null)
+      marc4jRecord.addVariableField(new ControlFieldImpl("001", id));
+    return marc4jRecord;
+  }
+
+  /**
+   * @return The data field, or null if the field does not start with a valid tag
+   */
+  private DataFieldImpl readField(int start, int end) {
+    int subfieldStart = indexOf(SUBFIELD_SEPARATOR, start, end);
+    String tag = getTag(start, subfieldStart);
+    if (tag == null) {
+      logger.warning(String.format("record #%d: unable to parse field: '%s'", recordNumber,
+        new String(buffer, start, end - start, StandardCharsets.UTF_8)));
+      return null;
+    }
+
+    var field = new DataFieldImpl(tag, ' ', ' ');
+    while (subfieldStart < end) {
+      int codeStart = subfieldStart + 1;
+      int subfieldEnd = indexOf(SUBFIELD_SEPARATOR, codeStart, end);
+      if (codeStart < subfieldEnd) {
+        if (buffer[codeStart] < 0) {
+          String subfield = new String(buffer, codeStart, subfieldEnd - codeStart, StandardCharsets.UTF_8);
+          field.addSubfield(new SubfieldImpl(subfield.charAt(0), subfield.substring(1)));
+        } else {
+          field.addSubfield(new SubfieldImpl((char) buffer[codeStart],
+            new String(buffer, codeStart + 1, subfieldEnd - codeStart - 1, StandardCharsets.UTF_8)));
+        }
+      }
+      subfieldStart = subfieldEnd;
+    }
+    return field;
+  }
+
+  /**
+   * Checks the field header: a tag as in PicaLine ([0-2][0-9][0-9][A-Z@]), an optional occurrence
+   * (a slash and digits), and optional spaces.
+   * @return The tag, or null if the header is invalid
+   */
+  private String getTag(int start, int end) {
+    if (end - start < TAG_LENGTH
+        || buffer[start] < '0' || buffer[start] > '2'
+        || !isDigit(buffer[start + 1]) || !isDigit(buffer[start + 2])
+        || !(buffer[start + 3] == '@' || (buffer[start + 3] >= 'A' && buffer[start + 3] <= 'Z')))
+      return null;
+
+    int i = start + TAG_LENGTH;
+    if (i < end && buffer[i] == '/') {
+      i++;
+      if (i == end || !isDigit(buffer[i]))
+        return null;
+      while (i < end && isDigit(buffer[i]))
+        i++;
+    }
+    while (i < end && buffer[i] == ' ')
+      i++;
+    if (i < end)
+      return null;
+
+    int key = (buffer[start] << 24) | (buffer[start + 1] << 16) | (buffer[start + 2] << 8) | buffer[start + 3];
+    return tags.computeIfAbsent(key, k -> new String(buffer, start, TAG_LENGTH, StandardCharsets.US_ASCII));
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  /**
+   * @return The position of the byte, or end if it is not found
+   */
+  private int indexOf(byte b, int start, int end) {
+    for (int i = start; i < end; i++)
+      if (buffer[i] == b)
+        return i;
+    return end;
+  }
+
+  /**
+   * Finds the next line in the buffer (reading more input if needed) and consumes it. A carriage
+   * return before the line feed is not part of the record.
+   * @return false if there are no more lines
+   */
+  private boolean nextLine() {
+    int scanned = position;
+    while (true) {
+      int end = indexOf(RECORD_SEPARATOR, scanned, limit);
+      if (end < limit) {
+        setLine(end, end + 1);
+        return true;
+      }
+      if (isEndOfInput) {
+        if (position == limit)
+          return false;
+        setLine(limit, limit);
+        return true;
+      }
+      scanned = limit - position;
+      fill();
+      scanned += position;
+    }
+  }
+
+  private void setLine(int end, int next) {
+    recordStart = position;
+    recordEnd = end > recordStart && buffer[end - 1] == '\r' ? end - 1 : end;
+    position = next;
+    recordNumber++;
+  }
+
+  /**
+   * Moves the unconsumed bytes to the start of the buffer (or grows the buffer for a very long
+   * record), and reads more input.
+   */
+  private void fill() {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    int read = -1;
+    if (remaining > 0) {
+      try {
+        read = channel.read(ByteBuffer.wrap(buffer, limit, (int) Math.min(buffer.length - limit, remaining)));
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "next", e);
+      }
+    }
+    if (read == -1) {
+      isEndOfInput = true;
+    } else {
+      limit += read;
+      remaining -= read;
+    }
+  }
+}
@@ -7,6 +7,7 @@ import org.marc4j.marc.Record;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -24,7 +25,7 @@ public class PicaReader implements MarcReader {
 
   public PicaReader(String fileName) {
     try {
-      bufferedReader = new BufferedReader(new FileReader(fileName));
+      bufferedReader = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8));
     } catch (IOException e) {
       logger.log(Level.WARNING, "error in PicaReader()", e);
     }
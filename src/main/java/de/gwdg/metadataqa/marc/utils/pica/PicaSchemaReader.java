@@ -10,7 +10,10 @@ import net.minidev.json.parser.ParseException;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -18,25 +21,45 @@ import java.util.Map;
 
 public class PicaSchemaReader {
 
+  private static final String DEFAULT_SCHEMA = "/pica-schema.json";
+
   private JSONParser parser = new JSONParser();
   private Map<String, PicaFieldDefinition> map = new HashMap<>();
 
-  private PicaSchemaReader(String fileName) {
+  private PicaSchemaReader(Reader schema) {
     try {
-      readSchema(fileName);
-    } catch (IOException | ParseException | URISyntaxException e) {
+      readSchema(schema);
+    } catch (ParseException e) {
       e.printStackTrace();
     }
   }
 
   public static Map<String, PicaFieldDefinition> create(String filename) {
-    PicaSchemaReader reader = new PicaSchemaReader(filename);
-    return reader.map;
+    try (var schema = new FileReader(new File(filename), StandardCharsets.UTF_8)) {
+      return new PicaSchemaReader(schema).map;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new HashMap<>();
+    }
+  }
+
+  /**
+   * Reads the schema distributed with the tool (the K10plus format of GBV and SWB).
+   */
+  public static Map<String, PicaFieldDefinition> createDefault() {
+    InputStream stream = PicaSchemaReader.class.getResourceAsStream(DEFAULT_SCHEMA);
+    if (stream == null)
+      return new HashMap<>();
+    try (var schema = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+      return new PicaSchemaReader(schema).map;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new HashMap<>();
+    }
   }
 
-  private void readSchema(String fileName) throws IOException, ParseException, URISyntaxException {
-    // Path tagsFile = FileUtils.getPath(fileName);
-    Object obj = parser.parse(new FileReader(new File(fileName)));
+  private void readSchema(Reader schema) throws ParseException {
+    Object obj = parser.parse(schema);
     JSONObject jsonObject = (JSONObject) obj;
     JSONObject fields = (JSONObject) jsonObject.get("fields");
     for (String name : fields.keySet()) {
@@ -0,0 +1,117 @@
+package de.gwdg.metadataqa.marc;
+
+import de.gwdg.metadataqa.marc.definition.structure.Indicator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CodeSetTest {
+
+  @Test
+  public void testExactAndRangeCodes() {
+    List<EncodedValue> codes = new ArrayList<>();
+    codes.add(new EncodedValue("000", "Running time exceeds three characters"));
+    codes.add(new EncodedValue("001-999", "Running time"));
+    codes.add(new EncodedValue("nnn", "Not applicable"));
+    codes.add(new EncodedValue("---", "Unknown"));
+    CodeSet codeSet = new CodeSet(codes);
+    codes.get(1).setRange(true);
+
+    assertEquals("Running time exceeds three characters", codeSet.get("000").getLabel());
+    assertEquals("Running time", codeSet.get("001").getLabel());
+    assertEquals("Running time", codeSet.get("999").getLabel());
+    assertEquals("Running time", codeSet.get("001-999").getLabel());
+    assertEquals("Not applicable", codeSet.get("nnn").getLabel());
+    assertTrue(codeSet.contains("---"));
+    assertFalse(codeSet.contains("1000"));
+    assertFalse(codeSet.contains("abc"));
+    assertNull(codeSet.get(null));
+  }
+
+  @Test
+  public void testOverlappingRanges() {
+    List<EncodedValue> codes = Arrays.asList(
+      new EncodedValue("10-20", "second"),
+      new EncodedValue("0-100", "first"),
+      new EncodedValue("15-16", "third"),
+      new EncodedValue("200-300", "fourth")
+    );
+    for (EncodedValue code : codes)
+      code.setRange(true);
+    CodeSet codeSet = new CodeSet(codes);
+
+    assertEquals("first", codeSet.get("5").getLabel());
+    // the first matching range in the order of the list
+    assertEquals("second", codeSet.get("15").getLabel());
+    assertEquals("first", codeSet.get("50").getLabel());
+    assertEquals("fourth", codeSet.get("250").getLabel());
+    assertNull(codeSet.get("150"));
+    assertNull(codeSet.get("-1"));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertNull(new CodeSet(null).get("a"));
+    assertNull(new CodeSet(new ArrayList<>()).get("1"));
+  }
+
+  @Test
+  public void testIndicatorWithCodeList() {
+    Indicator indicator = new Indicator("Nonfiling characters");
+    indicator.setCodes(Arrays.asList(
+      new EncodedValue("0", "No nonfiling characters"),
+      new EncodedValue("1-9", "Number of nonfiling characters")
+    ));
+    indicator.getCode("1-9").setRange(true);
+
+    assertEquals("No nonfiling characters", indicator.getCode("0").getLabel());
+    assertEquals("Number of nonfiling characters", indicator.getCode("5").getLabel());
+    assertTrue(indicator.hasCode("9"));
+    assertFalse(indicator.hasCode("a"));
+  }
+
+  @Test
+  public void testDuplicatedCodes() {
+    CodeSet codeSet = new CodeSet(Arrays.asList(
+      new EncodedValue("a", "first"),
+      new EncodedValue("a", "second")
+    ));
+    assertEquals("first", codeSet.get("a").getLabel());
+  }
+
+  @Test
+  public void testConcurrentLookups() throws Exception {
+    List<EncodedValue> codes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      codes.add(new EncodedValue(String.format("%d-%d", i * 10, i * 10 + 9), "range " + i));
+      codes.get(i).setRange(true);
+    }
+    for (int n = 0; n < 20; n++) {
+      CodeSet codeSet = new CodeSet(codes);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t;
+        results.add(executor.submit(() -> {
+          for (int i = offset; i < 1000; i += 7)
+            if (!codeSet.get(String.valueOf(i)).getLabel().equals("range " + (i / 10)))
+              return false;
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results)
+        assertTrue(result.get());
+      executor.shutdown();
+    }
+  }
+}
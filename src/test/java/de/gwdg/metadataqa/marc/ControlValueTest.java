@@ -5,14 +5,18 @@ import de.gwdg.metadataqa.marc.dao.Leader;
 import de.gwdg.metadataqa.marc.definition.*;
 import de.gwdg.metadataqa.marc.definition.controlpositions.Control008Positions;
 import de.gwdg.metadataqa.marc.definition.controlpositions.LeaderPositions;
+import de.gwdg.metadataqa.marc.definition.controlpositions.tag008.Tag008book23;
+import de.gwdg.metadataqa.marc.definition.controlpositions.tag008.Tag008visual18;
 import de.gwdg.metadataqa.marc.definition.controltype.Control008Type;
 import de.gwdg.metadataqa.marc.definition.structure.ControlfieldPositionDefinition;
+import de.gwdg.metadataqa.marc.model.validation.ValidationErrorType;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -33,6 +37,33 @@ public class ControlValueTest {
     assertEquals(Arrays.asList(), value.getValidationErrors());
   }
 
+  @Test
+  public void testValidCodes() {
+    ControlfieldPositionDefinition definition = Tag008visual18.getInstance();
+    assertTrue(definition.isValidCode("nnn"));
+    assertTrue(definition.isValidCode("|||"));
+    assertFalse(definition.isValidCode("n"));
+    assertFalse(definition.isValidCode("123"));
+    assertTrue(new ControlValue(definition, "123").validate(MarcVersion.MARC21));
+    assertFalse(new ControlValue(definition, "12a").validate(MarcVersion.MARC21));
+
+    definition = Tag008book23.getInstance();
+    assertTrue(definition.isValidCode(" "));
+    assertFalse(definition.isValidCode("g"));
+  }
+
+  @Test
+  public void testHistoricalCode() {
+    ControlfieldPositionDefinition definition = Tag008book23.getInstance();
+    assertTrue(definition.isHistoricalCode("g"));
+    assertFalse(definition.isHistoricalCode("a"));
+
+    ControlValue value = new ControlValue(definition, "h");
+    assertFalse(value.validate(MarcVersion.MARC21));
+    assertEquals(1, value.getValidationErrors().size());
+    assertEquals(ValidationErrorType.CONTROL_POSITION_OBSOLETE_CODE, value.getValidationErrors().get(0).getType());
+  }
+
   @Test
   public void generateCode() {
     // List<ControlSubfield> subfields = Control006Subfields.get(Control008Type.MIXED_MATERIALS);
@@ -5,8 +5,10 @@ import de.gwdg.metadataqa.marc.dao.Control003;
 import de.gwdg.metadataqa.marc.dao.Control005;
 import de.gwdg.metadataqa.marc.dao.Control007;
 import de.gwdg.metadataqa.marc.dao.Control008;
+import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.Leader;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.dao.TagGroup;
 import de.gwdg.metadataqa.marc.definition.controltype.Control007Category;
 import de.gwdg.metadataqa.marc.utils.ReadMarc;
 import de.gwdg.metadataqa.marc.utils.marcspec.legacy.MarcSpec;
@@ -22,6 +24,8 @@ import java.util.regex.Pattern;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
 
 public class MarcRecordTest {
@@ -34,6 +38,27 @@ public class MarcRecordTest {
     assertTrue(matcher.matches());
   }
 
+  @Test
+  public void testDatafieldIndex() {
+    MarcRecord marcRecord = new MarcRecord("123");
+    marcRecord.addDataField(new DataField("650", " 0$aBotany"));
+    marcRecord.addDataField(new DataField("100", "1 $aAurand, Samuel Herbert"));
+    marcRecord.addDataField(new DataField("650", " 0$aZoology"));
+    marcRecord.addDataField(new DataField("STA", "  $aSUPPRESSED"));
+
+    assertEquals(2, marcRecord.getDatafield("650").size());
+    assertEquals("Zoology", marcRecord.getDatafield("650").get(1).getSubfield("a").get(0).getValue());
+    assertTrue(marcRecord.hasDatafield("STA"));
+    assertFalse(marcRecord.hasDatafield("651"));
+    assertNull(marcRecord.getDatafield("ABC"));
+    assertNull(marcRecord.getDatafield("65"));
+
+    assertEquals(1, marcRecord.getAuthorityFields().size());
+    assertEquals(2, marcRecord.getSubjects().size());
+    assertEquals(3, marcRecord.countDatafields(new TagGroup("100", "650", "651")));
+    assertEquals(1, marcRecord.getDatafields(new TagGroup("STA", "999")).size());
+  }
+
   @Test
   public void testFromFile() throws Exception {
     Path path = FileUtils.getPath("general/0001-01.mrc");
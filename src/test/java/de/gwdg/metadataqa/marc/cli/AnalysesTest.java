@@ -0,0 +1,127 @@
+package de.gwdg.metadataqa.marc.cli;
+
+import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import de.gwdg.metadataqa.marc.cli.utils.Schema;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnalysesTest extends CliTestUtils {
+
+  private String inputFile;
+  private String outputDir;
+  private List<String> outputFiles;
+
+  @Before
+  public void setUp() throws Exception {
+    inputFile = getPath("src/test/resources/alephseq/alephseq-example3.txt");
+    outputDir = getPath("src/test/resources/output");
+    outputFiles = Arrays.asList(
+      "classifications-by-records.csv",
+      "classifications-by-schema.csv",
+      "classifications-by-schema-subfields.csv",
+      "classifications-collocations.csv",
+      "classifications-histogram.csv",
+      "functional-analysis.csv",
+      "functional-analysis-mapping.csv",
+      "functional-analysis-histogram.csv"
+    );
+  }
+
+  @Test
+  public void singlePass() throws Exception {
+    clearOutput(outputDir, outputFiles);
+
+    Analyses processor = new Analyses(new String[]{
+      "--tasks", "classifications,functional-analysis",
+      "--defaultRecordType", "BOOKS",
+      "--marcVersion", "GENT",
+      "--alephseq",
+      "--outputDir", outputDir,
+      inputFile
+    });
+    assertEquals(2, processor.getProcessors().size());
+
+    RecordIterator iterator = new RecordIterator(processor);
+    iterator.start();
+
+    for (String outputFile : outputFiles)
+      assertTrue(outputFile, new File(outputDir, outputFile).exists());
+
+    String actual = Files.readString(new File(outputDir, "classifications-by-records.csv").toPath());
+    assertEquals(
+      "records-with-classification,count\n" +
+      "true,1\n",
+      actual);
+
+    clearOutput(outputDir, outputFiles);
+  }
+
+  @Test
+  public void threads() throws Exception {
+    List<String> files = Arrays.asList(
+      "classifications-by-records.csv",
+      "classifications-by-schema.csv",
+      "classifications-histogram.csv",
+      "authorities-by-categories.csv",
+      "authorities-by-records.csv",
+      "authorities-by-schema.csv",
+      "authorities-histogram.csv"
+    );
+    Map<String, List<String>> sequential = runClassificationsAndAuthorities("1", files);
+    Map<String, List<String>> parallel = runClassificationsAndAuthorities("4", files);
+
+    for (String file : files)
+      assertEquals(file, sequential.get(file), parallel.get(file));
+    clearOutput(outputDir, Arrays.asList(
+      "authorities-by-schema-subfields.csv",
+      "authorities-frequency-examples.csv",
+      "classifications-by-schema-subfields.csv",
+      "classifications-collocations.csv"
+    ));
+  }
+
+  /**
+   * Runs the analyses which share the schema registry, and returns the lines of the output files
+   * sorted, and without the schema identifiers, which depend on the order of the records
+   */
+  private Map<String, List<String>> runClassificationsAndAuthorities(String threads, List<String> files)
+      throws Exception {
+    String mrcFile = getPath("src/test/resources/general/BooksAll.2014.part01-0001.mrc");
+    clearOutput(outputDir, files);
+    Analyses processor = new Analyses(new String[]{
+      "--tasks", "classifications,authorities",
+      "--defaultRecordType", "BOOKS",
+      "--outputDir", outputDir,
+      "--threads", threads,
+      mrcFile
+    });
+    new RecordIterator(processor).start();
+
+    List<Schema> schemas = Schema.getRegisteredSchemas();
+    for (int i = 0; i < schemas.size(); i++)
+      assertEquals(i + 1, schemas.get(i).getId());
+
+    Map<String, List<String>> contents = new HashMap<>();
+    for (String file : files) {
+      List<String> lines = new ArrayList<>();
+      for (String line : Files.readAllLines(new File(outputDir, file).toPath()))
+        lines.add(line.replaceFirst("^\\d+,", "<id>,"));
+      Collections.sort(lines);
+      contents.put(file, lines);
+    }
+    clearOutput(outputDir, files);
+    return contents;
+  }
+}
@@ -68,6 +68,36 @@ public class ClassificationAnalysisTest extends CliTestUtils {
     }
   }
 
+  @Test
+  public void testFullProcess_sample() throws Exception {
+    clearOutput(outputDir, outputFiles);
+
+    ClassificationAnalysis processor = new ClassificationAnalysis(new String[]{
+      "--defaultRecordType", "BOOKS",
+      "--marcVersion", "GENT",
+      "--alephseq",
+      "--outputDir", outputDir,
+      "--sampleSize", "1000",
+      "--stratifiedSample",
+      inputFile
+    });
+    new RecordIterator(processor).start();
+
+    // every record is in the sample, so the estimates are the exact counts
+    String byRecords = Files.readString(new File(outputDir, "classifications-by-records.csv").toPath());
+    String estimates = Files.readString(new File(outputDir, "classifications-by-records-estimate.csv").toPath());
+    assertTrue(new File(outputDir, "classifications-by-schema-estimate.csv").exists());
+    clearOutput(outputDir, outputFiles);
+    clearOutput(outputDir, Arrays.asList("classifications-by-records-estimate.csv", "classifications-by-schema-estimate.csv"));
+
+    for (String line : byRecords.split("\n")) {
+      if (line.startsWith("records-with-classification"))
+        continue;
+      String count = line.split(",")[1];
+      assertTrue(estimates.contains(String.format("%s,%s,%s,%s,%s", line.split(",")[0], count, count, count, count)));
+    }
+  }
+
   @Test
   public void main() throws IOException {
     clearOutput(outputDir, outputFiles);
@@ -0,0 +1,171 @@
+package de.gwdg.metadataqa.marc.cli;
+
+import de.gwdg.metadataqa.marc.cli.utils.RecordIterator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class MergeTest extends CliTestUtils {
+
+  private static final String TASKS = "validate,completeness,classifications,authorities,functional-analysis";
+
+  private String inputFile;
+  private String outputDir;
+  private List<String> outputFiles;
+  private List<String> stateFiles;
+
+  @Before
+  public void setUp() throws Exception {
+    inputFile = getPath("src/test/resources/general/BooksAll.2014.part01-0001.mrc");
+    outputDir = getPath("src/test/resources/output");
+    outputFiles = Arrays.asList(
+      "validation-report.txt",
+      "validation-summary.txt",
+      "issue-collector.csv",
+      "count.csv",
+      "issue-by-category.csv",
+      "issue-by-type.csv",
+      "issue-total.csv",
+      "libraries.csv",
+      "libraries003.csv",
+      "marc-elements.csv",
+      "packages.csv",
+      "classifications-by-records.csv",
+      "classifications-by-schema.csv",
+      "classifications-by-schema-subfields.csv",
+      "classifications-collocations.csv",
+      "classifications-histogram.csv",
+      "classifications-frequency-examples.csv",
+      "authorities-by-categories.csv",
+      "authorities-by-records.csv",
+      "authorities-by-schema.csv",
+      "authorities-by-schema-subfields.csv",
+      "authorities-frequency-examples.csv",
+      "authorities-histogram.csv",
+      "functional-analysis.csv",
+      "functional-analysis-mapping.csv",
+      "functional-analysis-histogram.csv"
+    );
+    stateFiles = Arrays.asList("state-1.ser.gz", "state-2.ser.gz", "state-3.ser.gz");
+  }
+
+  @Test
+  public void mergedShards_equalToSingleRun() throws Exception {
+    Map<String, String> expected = runSingle();
+
+    dumpState("state-1.ser.gz", "--limit", "3");
+    dumpState("state-2.ser.gz", "--offset", "4", "--limit", "2");
+    dumpState("state-3.ser.gz", "--offset", "7");
+    clearOutput(outputDir, outputFiles);
+
+    Merge merge = new Merge(createArgs(
+      new File(outputDir, "state-1.ser.gz").getPath(),
+      new File(outputDir, "state-2.ser.gz").getPath(),
+      new File(outputDir, "state-3.ser.gz").getPath()
+    ));
+    merge.start();
+    Map<String, String> actual = readOutput();
+
+    for (String outputFile : outputFiles) {
+      if (outputFile.equals("validation-report.txt"))
+        continue;
+      assertNotNull(outputFile, expected.get(outputFile));
+      if (outputFile.equals("functional-analysis.csv"))
+        assertAverages(expected.get(outputFile), actual.get(outputFile));
+      else
+        assertEquals(outputFile, expected.get(outputFile), actual.get(outputFile));
+    }
+  }
+
+  /**
+   * The sums of the floating point percents are added in a different order, so they might differ
+   * in the last digits.
+   */
+  private void assertAverages(String expected, String actual) {
+    String[] expectedLines = expected.split("\n");
+    String[] actualLines = actual.split("\n");
+    assertEquals(expectedLines.length, actualLines.length);
+    assertEquals(expectedLines[0], actualLines[0]);
+    for (int i = 1; i < expectedLines.length; i++) {
+      String[] expectedCells = expectedLines[i].split(",");
+      String[] actualCells = actualLines[i].split(",");
+      assertEquals(expectedCells[0], actualCells[0]);
+      for (int j = 1; j < expectedCells.length; j++)
+        assertEquals(Double.parseDouble(expectedCells[j]), Double.parseDouble(actualCells[j]), 1e-12);
+    }
+  }
+
+  @Test
+  public void dumpState_singleAnalysis() throws Exception {
+    clearOutput(outputDir, outputFiles);
+    Completeness processor = new Completeness(new String[]{
+      "--outputDir", outputDir,
+      "--dumpState", new File(outputDir, "state-1.ser.gz").getPath(),
+      inputFile
+    });
+    new RecordIterator(processor).start();
+    assertTrue(new File(outputDir, "state-1.ser.gz").exists());
+    assertTrue(!new File(outputDir, "marc-elements.csv").exists());
+
+    Merge merge = new Merge(new String[]{
+      "--tasks", "completeness",
+      "--outputDir", outputDir,
+      new File(outputDir, "state-1.ser.gz").getPath()
+    });
+    merge.start();
+    assertTrue(new File(outputDir, "marc-elements.csv").exists());
+
+    clearOutput(outputDir, outputFiles);
+    clearOutput(outputDir, stateFiles);
+  }
+
+  private Map<String, String> runSingle() throws Exception {
+    clearOutput(outputDir, outputFiles);
+    Analyses processor = new Analyses(createArgs(inputFile));
+    new RecordIterator(processor).start();
+    return readOutput();
+  }
+
+  private void dumpState(String stateFile, String... extraArgs) throws Exception {
+    List<String> args = new ArrayList<>(Arrays.asList(extraArgs));
+    args.add("--dumpState");
+    args.add(new File(outputDir, stateFile).getPath());
+    args.add(inputFile);
+    Analyses processor = new Analyses(createArgs(args.toArray(new String[0])));
+    new RecordIterator(processor).start();
+  }
+
+  private String[] createArgs(String... extraArgs) {
+    List<String> args = new ArrayList<>(Arrays.asList(
+      "--tasks", TASKS,
+      "--summary",
+      "--summaryFileName", "validation-summary.txt",
+      "--outputDir", outputDir
+    ));
+    args.addAll(Arrays.asList(extraArgs));
+    return args.toArray(new String[0]);
+  }
+
+  private Map<String, String> readOutput() throws IOException {
+    Map<String, String> contents = new HashMap<>();
+    for (String outputFile : outputFiles) {
+      File file = new File(outputDir, outputFile);
+      contents.put(outputFile, file.exists() ? Files.readString(file.toPath()) : null);
+    }
+    clearOutput(outputDir, outputFiles);
+    clearOutput(outputDir, stateFiles);
+    return contents;
+  }
+}
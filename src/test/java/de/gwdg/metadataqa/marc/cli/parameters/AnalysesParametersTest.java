@@ -0,0 +1,80 @@
+package de.gwdg.metadataqa.marc.cli.parameters;
+
+import org.apache.commons.cli.ParseException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AnalysesParametersTest {
+
+  @Test
+  public void tasks() throws ParseException {
+    AnalysesParameters parameters = new AnalysesParameters(new String[]{
+      "--tasks", "validate,completeness,validate", "a-marc-file.mrc"});
+    assertEquals(Arrays.asList(AnalysisTask.VALIDATE, AnalysisTask.COMPLETENESS), parameters.getTasks());
+  }
+
+  @Test
+  public void unknownTask() {
+    try {
+      new AnalysesParameters(new String[]{"--tasks", "validate,unknown", "a-marc-file.mrc"});
+      fail("unknown task should be rejected");
+    } catch (ParseException e) {
+      assertEquals("Unrecognized task: 'unknown'", e.getMessage());
+    }
+  }
+
+  @Test
+  public void taskArguments() throws ParseException {
+    AnalysesParameters parameters = new AnalysesParameters(new String[]{
+      "--tasks", "validate,completeness",
+      "--marcVersion", "GENT",
+      "--summaryFileName", "issue-summary.csv",
+      "--advanced",
+      "--solrUrl", "http://localhost:8983/solr/test",
+      "--limit=10",
+      "a-marc-file.mrc"
+    });
+
+    assertArrayEquals(
+      new String[]{"--marcVersion", "GENT", "--summaryFileName", "issue-summary.csv", "--limit=10", "a-marc-file.mrc"},
+      parameters.getTaskArguments(AnalysisTask.VALIDATE));
+
+    assertArrayEquals(
+      new String[]{"--marcVersion", "GENT", "--advanced", "--limit=10", "a-marc-file.mrc"},
+      parameters.getTaskArguments(AnalysisTask.COMPLETENESS));
+  }
+
+  @Test
+  public void collidingShortOption() {
+    // -s is --summary in validate, --solrUrl in index and --search in formatter
+    try {
+      new AnalysesParameters(new String[]{"--tasks", "validate", "-s", "a-marc-file.mrc"});
+      fail("ambiguous short option should be rejected");
+    } catch (ParseException e) {
+      assertEquals("Unrecognized option: -s", e.getMessage());
+    }
+  }
+
+  @Test
+  public void taskArgumentsWithLongNames() throws ParseException {
+    AnalysesParameters parameters = new AnalysesParameters(new String[]{
+      "--tasks", "validate,completeness",
+      "-l", "10",
+      "--summary",
+      "a-marc-file.mrc"
+    });
+
+    assertArrayEquals(
+      new String[]{"--limit", "10", "--summary", "a-marc-file.mrc"},
+      parameters.getTaskArguments(AnalysisTask.VALIDATE));
+
+    assertArrayEquals(
+      new String[]{"--limit", "10", "a-marc-file.mrc"},
+      parameters.getTaskArguments(AnalysisTask.COMPLETENESS));
+  }
+}
@@ -1,7 +1,14 @@
 package de.gwdg.metadataqa.marc.cli.parameters;
 
 import org.apache.commons.cli.ParseException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -12,6 +19,9 @@ public class CommonParametersTest {
 
   private static final Logger logger = Logger.getLogger(CommonParametersTest.class.getCanonicalName());
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testConstructor() {
     CommonParameters parameters = new CommonParameters();
@@ -104,6 +114,157 @@ public class CommonParametersTest {
     }
   }
 
+  @Test
+  public void testThreads() {
+    String[] arguments = new String[]{"--threads", "4", "a-marc-file.mrc"};
+    try {
+      CommonParameters parameters = new CommonParameters(arguments);
+      assertEquals(4, parameters.getThreads());
+    } catch (ParseException e) {
+      logger.log(Level.WARNING, "error in testThreads()", e);
+    }
+  }
+
+  @Test
+  public void testThreads_invalid() {
+    String[] arguments = new String[]{"--threads", "0", "a-marc-file.mrc"};
+    try {
+      new CommonParameters(arguments);
+      fail("threads should be positive");
+    } catch (ParseException e) {
+      assertEquals("The threads parameter should be a positive number: '0'", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBatchSize() {
+    String[] arguments = new String[]{"--threads", "4", "--batchSize", "50", "a-marc-file.mrc"};
+    try {
+      CommonParameters parameters = new CommonParameters(arguments);
+      assertEquals(1, new CommonParameters(new String[]{"a-marc-file.mrc"}).getBatchSize());
+      assertEquals(50, parameters.getBatchSize());
+    } catch (ParseException e) {
+      logger.log(Level.WARNING, "error in testBatchSize()", e);
+    }
+  }
+
+  @Test
+  public void testCheckpoint() {
+    String[] arguments = new String[]{"--checkpoint", "checkpoint.ser.gz", "--checkpointInterval", "500", "--resume", "a-marc-file.mrc"};
+    try {
+      CommonParameters parameters = new CommonParameters(arguments);
+      assertTrue(parameters.doCheckpoint());
+      assertEquals("checkpoint.ser.gz", parameters.getCheckpoint());
+      assertEquals(500, parameters.getCheckpointInterval());
+      assertTrue(parameters.doResume());
+    } catch (ParseException e) {
+      logger.log(Level.WARNING, "error in testCheckpoint()", e);
+    }
+  }
+
+  @Test
+  public void testResume_withoutCheckpoint() {
+    String[] arguments = new String[]{"--resume", "a-marc-file.mrc"};
+    try {
+      new CommonParameters(arguments);
+      fail("resume should require checkpoint");
+    } catch (ParseException e) {
+      assertEquals("The resume parameter requires the checkpoint parameter", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParallelFiles() {
+    String[] arguments = new String[]{"--parallelFiles", "4", "a.mrc", "b.mrc"};
+    try {
+      CommonParameters parameters = new CommonParameters(arguments);
+      assertEquals(4, parameters.getParallelFiles());
+    } catch (ParseException e) {
+      logger.log(Level.WARNING, "error in testParallelFiles()", e);
+    }
+  }
+
+  @Test
+  public void testParallelFiles_withLimit() {
+    String[] arguments = new String[]{"--parallelFiles", "4", "--limit", "10", "a.mrc", "b.mrc"};
+    try {
+      new CommonParameters(arguments);
+      fail("parallelFiles should not be used with limit");
+    } catch (ParseException e) {
+      assertEquals("The parallelFiles parameter can not be used together with offset, limit or checkpoint", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testChunkSize() {
+    String[] arguments = new String[]{"--parallelFiles", "4", "--chunkSize", "16", "a.mrc"};
+    try {
+      CommonParameters parameters = new CommonParameters(arguments);
+      assertEquals(CommonParameters.DEFAULT_CHUNK_SIZE, new CommonParameters(new String[]{"a.mrc"}).getChunkSize());
+      assertEquals(16L * 1024 * 1024, parameters.getChunkSize());
+    } catch (ParseException e) {
+      logger.log(Level.WARNING, "error in testChunkSize()", e);
+    }
+  }
+
+  @Test
+  public void testIdFile() throws Exception {
+    File idFile = folder.newFile();
+    Files.write(idFile.toPath(), Arrays.asList(" 123 ", "", "456"));
+    CommonParameters parameters = new CommonParameters(new String[]{"--id", "789", "--idFile", idFile.getPath(), "a.mrc"});
+    assertTrue(parameters.hasIds());
+    assertEquals(Set.of("123", "456", "789"), parameters.getIds());
+    assertTrue(parameters.isSelectedId("456 "));
+    assertFalse(parameters.isSelectedId("1234"));
+    assertFalse(parameters.isSelectedId(null));
+    assertFalse(new CommonParameters(new String[]{"a.mrc"}).hasIds());
+  }
+
+  @Test
+  public void testIdFile_missing() {
+    try {
+      new CommonParameters(new String[]{"--idFile", "no-such-file.txt", "a.mrc"});
+      fail("idFile should exist");
+    } catch (ParseException e) {
+      assertEquals("Unable to read the idFile parameter value: 'no-such-file.txt'", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSample() throws ParseException {
+    CommonParameters parameters = new CommonParameters(new String[]{"--sampleRate", "0.1", "--stratifiedSample", "--sampleSeed", "42", "a.mrc"});
+    assertTrue(parameters.doSample());
+    assertEquals(0.1, parameters.getSampleRate(), 0.0);
+    assertTrue(parameters.isStratifiedSample());
+    assertEquals(Long.valueOf(42), parameters.getSampleSeed());
+
+    parameters = new CommonParameters(new String[]{"--sampleSize", "100", "a.mrc"});
+    assertTrue(parameters.doSample());
+    assertEquals(100, parameters.getSampleSize());
+    assertFalse(parameters.isStratifiedSample());
+    assertFalse(new CommonParameters(new String[]{"a.mrc"}).doSample());
+  }
+
+  @Test
+  public void testSample_invalid() {
+    assertParseException("The sampleRate parameter should be between 0 and 1: '1.5'", "--sampleRate", "1.5");
+    assertParseException("The sampleRate and sampleSize parameters can not be used together",
+      "--sampleRate", "0.5", "--sampleSize", "10");
+    assertParseException("The stratifiedSample parameter requires the sampleRate or the sampleSize parameter",
+      "--stratifiedSample");
+    assertParseException("The sample parameters can not be used together with parallelFiles, checkpoint or dumpState",
+      "--sampleSize", "10", "--parallelFiles", "2");
+  }
+
+  private void assertParseException(String message, String... arguments) {
+    try {
+      new CommonParameters(arguments);
+      fail("should throw " + message);
+    } catch (ParseException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+
   @Test
   public void formatParameters() {
     String[] arguments = new String[]{"--trimId"};
@@ -116,6 +277,8 @@ public class CommonParametersTest {
         "offset: -1\n" +
         "MARC files: \n" +
         "id: null\n" +
+        "idFile: null\n" +
+        "index: null\n" +
         "defaultRecordType: null\n" +
         "fixAlephseq: false\n" +
         "alephseq: false\n" +
@@ -124,7 +287,20 @@ public class CommonParametersTest {
         "outputDir: .\n" +
         "trimId: true\n" +
         "ignorableFields: \n" +
-        "ignorableRecords: \n";
+        "ignorableRecords: \n" +
+        "threads: 1\n" +
+        "batchSize: 1\n" +
+        "dumpState: null\n" +
+        "checkpoint: null\n" +
+        "checkpointInterval: 100000\n" +
+        "resume: false\n" +
+        "parallelFiles: 1\n" +
+        "chunkSize: 67108864\n" +
+        "picaSchemaFile: null\n" +
+        "sampleRate: -1.0\n" +
+        "sampleSize: -1\n" +
+        "stratifiedSample: false\n" +
+        "sampleSeed: null\n";
       assertEquals(expected, parameters.formatParameters());
     } catch (ParseException e) {
       logger.log(Level.WARNING, "error in formatParameters()", e);
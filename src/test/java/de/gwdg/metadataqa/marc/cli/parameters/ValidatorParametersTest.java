@@ -115,4 +115,17 @@ public class ValidatorParametersTest {
       e.printStackTrace();
     }
   }
+
+  @Test
+  public void testDetailsWithDumpState() {
+    String[] arguments = new String[]{"--details", "--summary", "--summaryFileName", "summary.csv",
+      "--dumpState", "shard-1.ser.gz", "a-marc-file.mrc"};
+    try {
+      new ValidatorParameters(arguments);
+      fail("details with summary should be rejected with dumpState");
+    } catch (ParseException e) {
+      assertEquals("The details with summary can not be used together with dumpState, "
+        + "the error identifiers of the shards are different", e.getMessage());
+    }
+  }
 }
@@ -0,0 +1,426 @@
+package de.gwdg.metadataqa.marc.cli.utils;
+
+import de.gwdg.metadataqa.marc.cli.CliTestUtils;
+import de.gwdg.metadataqa.marc.cli.MarcToSolr;
+import de.gwdg.metadataqa.marc.cli.Validator;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import org.apache.commons.cli.ParseException;
+import org.junit.Before;
+import de.gwdg.metadataqa.marc.utils.marcreader.MappedIsoMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.RecordIndex;
+import org.junit.Test;
+import org.marc4j.MarcReader;
+import org.marc4j.marc.Record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordIteratorTest extends CliTestUtils {
+
+  private String inputFile;
+  private String outputDir;
+  private List<String> outputFiles;
+
+  @Before
+  public void setUp() throws Exception {
+    inputFile = getPath("src/test/resources/general/BooksAll.2014.part01-0001.mrc");
+    outputDir = getPath("src/test/resources/output");
+    outputFiles = Arrays.asList(
+      "validation-report.txt",
+      "validation-summary.txt",
+      "issue-collector.csv",
+      "count.csv",
+      "issue-by-category.csv",
+      "issue-by-type.csv",
+      "issue-total.csv"
+    );
+  }
+
+  @Test
+  public void threads() throws Exception {
+    Map<String, String> sequential = validate("1");
+    Map<String, String> parallel = validate("4");
+
+    for (String outputFile : Arrays.asList("count.csv", "issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, sequential.get(outputFile), parallel.get(outputFile));
+  }
+
+  @Test
+  public void threads_batches() throws Exception {
+    Map<String, String> sequential = validate("1");
+    Map<String, String> parallel = validate("4", "--batchSize", "7");
+
+    for (String outputFile : Arrays.asList("count.csv", "issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, sequential.get(outputFile), parallel.get(outputFile));
+  }
+
+  @Test
+  public void threads_withLimitAndOffset() throws Exception {
+    Map<String, String> sequential = validate("1", "--offset", "3", "--limit", "5");
+    Map<String, String> parallel = validate("4", "--offset", "3", "--limit", "5");
+
+    assertEquals(sequential.get("issue-total.csv"), parallel.get("issue-total.csv"));
+    assertEquals(sequential.get("count.csv"), parallel.get("count.csv"));
+  }
+
+  @Test
+  public void parallelFiles() throws Exception {
+    String otherFile = getPath("src/test/resources/general/0001-01.mrc");
+    Map<String, String> sequential = validate("1", otherFile, inputFile);
+    Map<String, String> parallel = validate("1", "--parallelFiles", "3", otherFile, inputFile);
+
+    for (String outputFile : Arrays.asList("count.csv", "issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, sequential.get(outputFile), parallel.get(outputFile));
+  }
+
+  @Test
+  public void parallelFiles_chunks() throws Exception {
+    Map<String, String> sequential = validate("1");
+
+    Validator processor = new Validator(createArgs("1", "--parallelFiles", "3"));
+    processor.getParameters().setChunkSize(10000);
+    new RecordIterator(processor).start();
+    Map<String, String> parallel = readOutput();
+
+    for (String outputFile : Arrays.asList("count.csv", "issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, sequential.get(outputFile), parallel.get(outputFile));
+  }
+
+  @Test
+  public void checkpoint_resume() throws Exception {
+    Map<String, String> expected = validate("1", "--details");
+    assertNotNull(expected.get("validation-report.txt"));
+    File checkpointFile = new File(outputDir, "checkpoint.ser.gz");
+
+    // the 19th and the 36th records are invalid, the second is written after the checkpoint
+    new RecordIterator(new InterruptedValidator(40, createArgs("1", "--details",
+      "--checkpoint", checkpointFile.getPath(), "--checkpointInterval", "30"))).start();
+    assertTrue(checkpointFile.exists());
+    Checkpoint checkpoint = Checkpoint.read(checkpointFile.toPath());
+    assertEquals(30, checkpoint.getRecordNumber());
+    assertEquals(30, checkpoint.getRecordsInFile());
+    assertTrue(checkpoint.getPosition() > 0);
+
+    new RecordIterator(new InterruptedValidator(Integer.MAX_VALUE, createArgs("1", "--details",
+      "--checkpoint", checkpointFile.getPath(), "--resume"))).start();
+    assertFalse(checkpointFile.exists());
+
+    // the files written after the checkpoint are truncated, no record is written twice
+    Map<String, String> resumed = readOutput();
+    for (String outputFile : outputFiles)
+      assertEquals(outputFile, expected.get(outputFile), resumed.get(outputFile));
+  }
+
+  @Test
+  public void checkpoint_resume_marcToSolr() throws Exception {
+    File checkpointFile = new File(outputDir, "checkpoint.ser.gz");
+    RecordingMarcToSolr all = new RecordingMarcToSolr(Integer.MAX_VALUE, createSolrArgs());
+    new RecordIterator(all).start();
+
+    assertFalse(all.isMergeable());
+
+    RecordingMarcToSolr interrupted = new RecordingMarcToSolr(5, createSolrArgs(
+      "--checkpoint", checkpointFile.getPath(), "--checkpointInterval", "3"));
+    new RecordIterator(interrupted).start();
+    assertTrue(checkpointFile.exists());
+    assertNull(Checkpoint.read(checkpointFile.toPath()).getState());
+    assertEquals(all.ids.subList(0, 5), interrupted.ids);
+
+    RecordingMarcToSolr resumed = new RecordingMarcToSolr(Integer.MAX_VALUE, createSolrArgs(
+      "--checkpoint", checkpointFile.getPath(), "--resume"));
+    new RecordIterator(resumed).start();
+    assertFalse(checkpointFile.exists());
+    // the records after the checkpoint are indexed again
+    assertEquals(all.ids.subList(3, all.ids.size()), resumed.ids);
+  }
+
+  @Test
+  public void parallelFiles_marcToSolr() throws Exception {
+    String otherFile = getPath("src/test/resources/general/0001-01.mrc");
+    RecordingMarcToSolr sequential = new RecordingMarcToSolr(Integer.MAX_VALUE, createSolrArgs(otherFile));
+    new RecordIterator(sequential).start();
+    RecordingMarcToSolr parallel = new RecordingMarcToSolr(Integer.MAX_VALUE,
+      createSolrArgs("--parallelFiles", "2", "--threads", "2", otherFile));
+    new RecordIterator(parallel).start();
+
+    // every record comes with the name of its own file
+    assertEquals(Set.of("0001-01.mrc", "BooksAll.2014.part01-0001.mrc"), new HashSet<>(sequential.fileNames));
+    assertEquals(sorted(sequential), sorted(parallel));
+  }
+
+  private static List<String> sorted(RecordingMarcToSolr processor) {
+    List<String> records = new ArrayList<>();
+    for (int n = 0; n < processor.ids.size(); n++)
+      records.add(processor.fileNames.get(n) + "/" + processor.ids.get(n));
+    records.sort(null);
+    return records;
+  }
+
+  private String[] createSolrArgs(String... extraArgs) {
+    List<String> args = new ArrayList<>(Arrays.asList("--solrUrl", "http://localhost:1/solr/test"));
+    args.addAll(Arrays.asList(extraArgs));
+    args.add(inputFile);
+    return args.toArray(new String[0]);
+  }
+
+  @Test
+  public void idFile_withIndex() throws Exception {
+    List<String> ids = new ArrayList<>();
+    MarcReader reader = new MappedIsoMarcReader(inputFile);
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    File idFile = new File(outputDir, "ids.txt");
+    Files.write(idFile.toPath(), Arrays.asList(ids.get(7), ids.get(2), "no-such-record", ids.get(2)));
+    File indexFile = new File(outputDir, "records.idx");
+    RecordIndex.build(List.of(Path.of(inputFile)), indexFile.toPath());
+
+    Map<String, String> scanned = validate("1", "--idFile", idFile.getPath());
+    Map<String, String> indexed = validate("1", "--idFile", idFile.getPath(), "--index", indexFile.getPath());
+    idFile.delete();
+    indexFile.delete();
+
+    // count.csv contains the number of the read records, which are not scanned with the index
+    assertEquals("total\n2\n", indexed.get("count.csv"));
+    for (String outputFile : Arrays.asList("issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, scanned.get(outputFile), indexed.get(outputFile));
+  }
+
+  @Test
+  public void sample_wholeReservoir() throws Exception {
+    Map<String, String> expected = validate("1");
+    Map<String, String> sampled = validate("2", "--sampleSize", "1000");
+    String estimates = readEstimates();
+
+    for (String outputFile : Arrays.asList("count.csv", "issue-by-category.csv", "issue-by-type.csv", "issue-total.csv"))
+      assertEquals(outputFile, expected.get(outputFile), sampled.get(outputFile));
+    // all the records are in the sample, so the estimates are exact
+    for (String line : estimates.split("\n")) {
+      if (line.startsWith("type"))
+        continue;
+      String[] values = line.split(",");
+      assertEquals(line, values[1], values[2]);
+      assertEquals(line, values[1], values[3]);
+      assertEquals(line, values[1], values[4]);
+    }
+  }
+
+  @Test
+  public void sample_rate() throws Exception {
+    CountingValidator processor = new CountingValidator(createArgs("1", "--sampleRate", "0.2", "--sampleSeed", "1"));
+    new RecordIterator(processor).start();
+    clearOutput(outputDir, outputFiles);
+    String estimates = readEstimates();
+
+    assertTrue(processor.processed > 0);
+    assertTrue(processor.processed < 50);
+    int sampled = 0;
+    for (String line : estimates.split("\n"))
+      if (line.startsWith("0,") || line.startsWith("1,"))
+        sampled += Integer.parseInt(line.split(",")[1]);
+    // the valid (0) and the invalid (1) records
+    assertEquals(processor.processed, sampled);
+  }
+
+  @Test
+  public void sample_rate_compressed() throws Exception {
+    CountingValidator plain = new CountingValidator(createArgs("1", "--sampleRate", "0.2", "--sampleSeed", "1"));
+    new RecordIterator(plain).start();
+    clearOutput(outputDir, outputFiles);
+    readEstimates();
+
+    // the compressed files are read by IsoMarcReader, which skips the records in the stream
+    Path compressed = Files.createTempFile("sample", ".mrc.gz");
+    try (var out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+      Files.copy(Path.of(inputFile), out);
+    }
+    inputFile = compressed.toString();
+    try {
+      CountingValidator processor = new CountingValidator(createArgs("1", "--sampleRate", "0.2", "--sampleSeed", "1"));
+      new RecordIterator(processor).start();
+      clearOutput(outputDir, outputFiles);
+      readEstimates();
+
+      assertTrue(processor.processed > 0);
+      assertEquals(plain.processed, processor.processed);
+    } finally {
+      Files.delete(compressed);
+    }
+  }
+
+  private String readEstimates() throws IOException {
+    File totalEstimates = new File(outputDir, "issue-total-estimate.csv");
+    String estimates = read(totalEstimates);
+    clearOutput(outputDir, Arrays.asList("issue-total-estimate.csv", "issue-by-type-estimate.csv"));
+    assertTrue(estimates.startsWith("type,records,estimate,lower,upper\n"));
+    return estimates;
+  }
+
+  @Test
+  public void preFilter() throws Exception {
+    FilteringValidator processor = new FilteringValidator(createArgs("1"));
+    new RecordIterator(processor).start();
+    clearOutput(outputDir, outputFiles);
+
+    assertTrue(processor.rejected > 0);
+    assertTrue(processor.accepted > 0);
+    assertEquals(processor.accepted, processor.processed);
+    assertEquals(0, processor.processedMarc4j);
+  }
+
+  /**
+   * Accepts every second record, and counts the processed ones.
+   */
+  private static class FilteringValidator extends Validator {
+    private int accepted = 0;
+    private int rejected = 0;
+    private int processed = 0;
+    private int processedMarc4j = 0;
+
+    FilteringValidator(String[] args) throws ParseException {
+      super(args);
+    }
+
+    @Override
+    public boolean acceptRecord(Record marc4jRecord) {
+      boolean accept = (accepted + rejected) % 2 == 0;
+      if (accept)
+        accepted++;
+      else
+        rejected++;
+      return accept;
+    }
+
+    @Override
+    public void processRecord(Record marc4jRecord, int recordNumber) {
+      processedMarc4j++;
+    }
+
+    @Override
+    public void processRecord(MarcRecord marcRecord, int recordNumber) {
+      super.processRecord(marcRecord, recordNumber);
+      processed++;
+    }
+  }
+
+  /**
+   * Counts the processed records.
+   */
+  private static class CountingValidator extends Validator {
+    private int processed = 0;
+
+    CountingValidator(String[] args) throws ParseException {
+      super(args);
+    }
+
+    @Override
+    public void processRecord(MarcRecord marcRecord, int recordNumber) {
+      super.processRecord(marcRecord, recordNumber);
+      processed++;
+    }
+  }
+
+  /**
+   * Stops after processing the given number of records, as if the process had been killed.
+   */
+  private static class InterruptedValidator extends Validator {
+    private final int stopAfter;
+    private int processed = 0;
+
+    InterruptedValidator(int stopAfter, String[] args) throws ParseException {
+      super(args);
+      this.stopAfter = stopAfter;
+    }
+
+    @Override
+    public void processRecord(MarcRecord marcRecord, int recordNumber) {
+      super.processRecord(marcRecord, recordNumber);
+      processed++;
+    }
+
+    @Override
+    public boolean readyToProcess() {
+      return processed < stopAfter && super.readyToProcess();
+    }
+  }
+
+  /**
+   * Records the IDs instead of sending the records to Solr, and stops after the given number of
+   * records.
+   */
+  private static class RecordingMarcToSolr extends MarcToSolr {
+    private final int stopAfter;
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> fileNames = new ArrayList<>();
+
+    RecordingMarcToSolr(int stopAfter, String[] args) throws ParseException {
+      super(args);
+      this.stopAfter = stopAfter;
+    }
+
+    @Override
+    public synchronized void processRecord(MarcRecord marcRecord, int recordNumber, String fileName) {
+      ids.add(marcRecord.getId());
+      fileNames.add(fileName);
+    }
+
+    @Override
+    public boolean readyToProcess() {
+      return ids.size() < stopAfter && super.readyToProcess();
+    }
+
+    @Override
+    public void afterIteration(int numberOfprocessedRecords) {
+      // there is no Solr to commit to
+    }
+  }
+
+  private Map<String, String> validate(String threads, String... extraArgs) throws Exception {
+    clearOutput(outputDir, outputFiles);
+
+    Validator processor = new Validator(createArgs(threads, extraArgs));
+    RecordIterator iterator = new RecordIterator(processor);
+    iterator.start();
+
+    return readOutput();
+  }
+
+  private String[] createArgs(String threads, String... extraArgs) {
+    List<String> args = new ArrayList<>(Arrays.asList(
+      "--summary",
+      "--summaryFileName", "validation-summary.txt",
+      "--outputDir", outputDir,
+      "--threads", threads
+    ));
+    args.addAll(Arrays.asList(extraArgs));
+    args.add(inputFile);
+    return args.toArray(new String[0]);
+  }
+
+  private Map<String, String> readOutput() throws IOException {
+    Map<String, String> contents = new HashMap<>();
+    for (String outputFile : outputFiles)
+      contents.put(outputFile, read(new File(outputDir, outputFile)));
+    clearOutput(outputDir, outputFiles);
+    return contents;
+  }
+
+  private String read(File file) throws IOException {
+    return file.exists() ? Files.readString(file.toPath()) : null;
+  }
+}
@@ -0,0 +1,137 @@
+package de.gwdg.metadataqa.marc.cli.utils;
+
+import org.junit.Test;
+import org.marc4j.marc.MarcFactory;
+import org.marc4j.marc.Record;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordSampleTest {
+
+  private static final String BOOK = "00000cam a2200000 a 4500";
+  private static final String MUSIC = "00000ccm a2200000 a 4500";
+
+  @Test
+  public void rate() {
+    var sample = new RecordSample(0.1, -1, false, null, new Random(42));
+    var counter = new RecordSample.Counter<String>();
+    int selected = 0;
+    int withProperty = 0;
+    for (int n = 1; n <= 10000; n++) {
+      if (sample.select(createRecord(BOOK), n)) {
+        selected++;
+        counter.count(sample.getStratumName(createRecord(BOOK)), "all records");
+        if (n % 4 == 0) {
+          withProperty++;
+          counter.count(RecordSample.ALL, "every fourth");
+        }
+      }
+    }
+    assertEquals(10000, sample.getPopulation());
+    assertEquals(selected, sample.getSampleSize());
+    assertTrue(selected > 800 && selected < 1200);
+    assertTrue(sample.getReservoir().isEmpty());
+
+    RecordSample.Estimate all = sample.estimate(counter, "all records");
+    assertEquals(selected, all.getSampleCount());
+    assertEquals(10000, all.getValue());
+    assertEquals(10000, all.getLower());
+    assertEquals(10000, all.getUpper());
+
+    RecordSample.Estimate estimate = sample.estimate(counter, "every fourth");
+    assertEquals(withProperty, estimate.getSampleCount());
+    assertTrue(estimate.getLower() <= 2500 && 2500 <= estimate.getUpper());
+    assertTrue(estimate.getLower() < estimate.getValue() && estimate.getValue() < estimate.getUpper());
+  }
+
+  @Test
+  public void skippable() {
+    var sample = new RecordSample(0.05, -1, false, null, new Random(7));
+    int recordNumber = 0;
+    for (int n = 0; n < 50; n++) {
+      int skippable = sample.getSkippable();
+      sample.skipped(skippable);
+      recordNumber += skippable + 1;
+      assertTrue(sample.select(createRecord(BOOK), recordNumber));
+    }
+    assertEquals(recordNumber, sample.getPopulation());
+    assertEquals(50, sample.getSampleSize());
+  }
+
+  @Test
+  public void reservoir() {
+    var sample = new RecordSample(-1, 100, false, null, new Random(42));
+    for (int n = 1; n <= 5000; n++) {
+      int skippable = sample.getSkippable();
+      if (skippable > 0) {
+        int skipped = Math.min(skippable, 5000 - n + 1);
+        sample.skipped(skipped);
+        n += skipped - 1;
+        continue;
+      }
+      assertFalse(sample.select(createRecord(BOOK), n));
+    }
+    assertEquals(5000, sample.getPopulation());
+    assertEquals(100, sample.getSampleSize());
+
+    List<RecordSample.SampledRecord> reservoir = sample.getReservoir();
+    assertEquals(100, reservoir.size());
+    Set<Integer> recordNumbers = new HashSet<>();
+    for (int n = 0; n < reservoir.size(); n++) {
+      recordNumbers.add(reservoir.get(n).getRecordNumber());
+      if (n > 0)
+        assertTrue(reservoir.get(n - 1).getRecordNumber() < reservoir.get(n).getRecordNumber());
+    }
+    assertEquals(100, recordNumbers.size());
+    // not only the first records are kept
+    assertTrue(reservoir.get(reservoir.size() - 1).getRecordNumber() > 2500);
+  }
+
+  @Test
+  public void stratified() {
+    var sample = new RecordSample(-1, 10, true, null, new Random(42));
+    for (int n = 1; n <= 1000; n++)
+      sample.select(createRecord(n % 10 == 0 ? MUSIC : BOOK), n);
+    assertEquals(0, sample.getSkippable());
+    assertEquals(1000, sample.getPopulation());
+    assertEquals(20, sample.getSampleSize());
+
+    var counter = new RecordSample.Counter<String>();
+    int music = 0;
+    for (RecordSample.SampledRecord sampledRecord : sample.getReservoir()) {
+      String stratum = sample.getStratumName(sampledRecord.getMarc4jRecord());
+      counter.count(stratum, "records");
+      if (stratum.equals("Music"))
+        music++;
+    }
+    assertEquals(10, music);
+    assertEquals(1000, sample.estimate(counter, "records").getValue());
+    assertEquals(100, sample.estimate(Map.of("Music", 10)).getValue());
+    assertEquals(900, sample.estimate(Map.of("Books", 10)).getValue());
+  }
+
+  @Test
+  public void stratumName() {
+    var sample = new RecordSample(0.5, -1, true, null, new Random());
+    assertEquals("Books", sample.getStratumName(createRecord(BOOK)));
+    assertEquals("Music", sample.getStratumName(createRecord(MUSIC)));
+    assertEquals(RecordSample.UNKNOWN, sample.getStratumName(createRecord("00000cxx a2200000 a 4500")));
+    assertEquals(RecordSample.ALL,
+      new RecordSample(0.5, -1, false, null, new Random()).getStratumName(createRecord(MUSIC)));
+  }
+
+  private Record createRecord(String leader) {
+    MarcFactory factory = MarcFactory.newInstance();
+    Record marc4jRecord = factory.newRecord(leader);
+    marc4jRecord.addVariableField(factory.newControlField("001", "id"));
+    return marc4jRecord;
+  }
+}
@@ -15,7 +15,9 @@ import java.util.Arrays;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  *
@@ -42,6 +44,21 @@ public class Control008Test {
   public void tearDown() {
   }
 
+  @Test
+  public void testSharedPositions() {
+    Control008 field = new Control008("801003s1958    ja            000 0 jpn  ", Leader.Type.MAPS);
+    Control008 other = new Control008("850101s1985    gw            000 0 ger  ", Leader.Type.MAPS);
+    assertSame(field.getSubfieldPositions(), other.getSubfieldPositions());
+    assertSame(field.getSubfieldByPosition(35), other.getSubfieldByPosition(35));
+    assertEquals("jpn", field.getValueByPosition(35));
+    assertEquals("ger", other.getValueByPosition(35));
+
+    Control008 truncated = new Control008("801003s1958    ja", Leader.Type.MAPS);
+    assertNotSame(field.getSubfieldPositions(), truncated.getSubfieldPositions());
+    assertNull(truncated.getSubfieldByPosition(35));
+    assertNull(truncated.getTag008all35());
+  }
+
   @Test
   public void test801003s1958ja0000jpn() {
     Control008 field = new Control008("801003s1958    ja            000 0 jpn  ", Leader.Type.MAPS);
@@ -18,6 +18,19 @@ import static org.junit.Assert.*;
  */
 public class LeaderTest {
   
+  @Test
+  public void testLazyDecoding() {
+    Leader leader = new Leader("00928xam a2200265 c 4500");
+    MarcRecord marcRecord = new MarcRecord("123");
+    marcRecord.setLeader(leader);
+    assertEquals(Leader.Type.BOOKS, leader.getType());
+
+    assertFalse(leader.validate(MarcVersion.MARC21));
+    assertEquals(1, leader.getValidationErrors().size());
+    assertEquals("123", leader.getValidationErrors().get(0).getRecordId());
+    assertEquals("x", leader.getRecordStatus().getValue());
+  }
+
   @Test
   public void test00928nama2200265c4500() {
     Leader leader = new Leader("00928nam a2200265 c 4500");
@@ -290,10 +303,25 @@ public class LeaderTest {
       )
     );
     assertEquals(
-      "\"Leader/06 (leader06)\"\t\"2\"\t\"6\"\t\"invalid value\"\t\"n\"\t\"https://www.loc.gov/marc/bibliographic/bdleader.html\"",
+      "\"Leader/06 (leader06)\"\t\"2\"\t\"4\"\t\"obsolete code\"\t\"n\"\t\"https://www.loc.gov/marc/bibliographic/bdleader.html\"",
       ValidationErrorFormatter.format(
         errors.get(1), ValidationErrorFormat.TAB_SEPARATED
       )
     );
   }
+
+  @Test
+  public void detectType() {
+    assertEquals(Leader.Type.BOOKS, Leader.detectType("00928nama2200265c4500", null));
+    assertEquals(Leader.Type.CONTINUING_RESOURCES, Leader.detectType("00928nas a2200265 c 4500", null));
+    assertEquals(Leader.Type.MUSIC, Leader.detectType("00928njm a2200265 c 4500", null));
+    assertEquals(Leader.Type.MAPS, Leader.detectType("00928nem a2200265 c 4500", null));
+    assertEquals(Leader.Type.VISUAL_MATERIALS, Leader.detectType("00928ngm a2200265 c 4500", null));
+    assertEquals(Leader.Type.COMPUTER_FILES, Leader.detectType("00928nmm a2200265 c 4500", null));
+    assertEquals(Leader.Type.MIXED_MATERIALS, Leader.detectType("00928npm a2200265 c 4500", null));
+    assertNull(Leader.detectType("01136cnm a2200253ui 4500", null));
+    assertEquals(Leader.Type.BOOKS, Leader.detectType("01136cnm a2200253ui 4500", Leader.Type.BOOKS));
+    assertEquals(Leader.Type.MAPS, Leader.detectType("0113", Leader.Type.MAPS));
+    assertEquals(new Leader("03960cam a2200781   4500").getType(), Leader.detectType("03960cam a2200781   4500", null));
+  }
 }
@@ -1,8 +1,10 @@
 package de.gwdg.metadataqa.marc.definition;
 
+import de.gwdg.metadataqa.marc.MarcSubfield;
 import de.gwdg.metadataqa.marc.dao.DataField;
 import de.gwdg.metadataqa.marc.dao.MarcRecord;
 import de.gwdg.metadataqa.marc.definition.structure.DataFieldDefinition;
+import de.gwdg.metadataqa.marc.definition.structure.ValidationPlan;
 import de.gwdg.metadataqa.marc.definition.tags.tags01x.Tag040;
 import de.gwdg.metadataqa.marc.definition.tags.tags20x.Tag245;
 import de.gwdg.metadataqa.marc.model.validation.ValidationError;
@@ -10,11 +12,22 @@ import de.gwdg.metadataqa.marc.model.validation.ValidationErrorType;
 import de.gwdg.metadataqa.marc.utils.SubfieldParser;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class DataFieldTest {
 
@@ -69,4 +82,112 @@ public class DataFieldTest {
     assertEquals("123", error.getRecordId());
   }
 
+  @Test
+  public void testGetSubfield_afterDirectModification() {
+    DataField tag040 = SubfieldParser.parseField(Tag040.getInstance(), "  $aMt$cMt");
+    assertEquals(1, tag040.getSubfield("a").size());
+    assertNull(tag040.getSubfield("d"));
+
+    tag040.getSubfields().add(new MarcSubfield(Tag040.getInstance().getSubfield("d"), "d", "DLC"));
+    tag040.getSubfields().add(new MarcSubfield(Tag040.getInstance().getSubfield("d"), "d", "OCLC"));
+    tag040.indexSubfields();
+    tag040.indexSubfields();
+    assertEquals(2, tag040.getSubfield("d").size());
+    assertEquals("OCLC", tag040.getSubfield("d").get(1).getValue());
+  }
+
+  @Test
+  public void testMarcRecordOfSubfields() {
+    MarcRecord marcRecord = new MarcRecord("123");
+    DataField tag040 = SubfieldParser.parseField(Tag040.getInstance(), "  $aMt$cMt");
+    marcRecord.addDataField(tag040);
+    assertSame(marcRecord, tag040.getSubfield("a").get(0).getMarcRecord());
+    assertTrue(marcRecord.getUnhandledTags().isEmpty());
+    assertTrue(marcRecord.getControl006().isEmpty());
+  }
+
+  @Test
+  public void testValidationPlan_concurrent() throws Exception {
+    DataFieldDefinition definition = Tag245.getInstance();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ValidationPlan>> plans = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+        plans.add(executor.submit(() -> definition.getValidationPlan(MarcVersion.GENT)));
+      for (Future<ValidationPlan> plan : plans)
+        assertSame(definition.getValidationPlan(MarcVersion.GENT), plan.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testValidationPlan_deserialized() throws Exception {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(bytes)) {
+      out.writeObject(new SerializableDefinition());
+    }
+    DataFieldDefinition definition;
+    try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      definition = (DataFieldDefinition) in.readObject();
+    }
+    ValidationPlan plan = definition.getValidationPlan(MarcVersion.MARC21);
+    assertSame(plan, definition.getValidationPlan(MarcVersion.MARC21));
+    assertTrue(plan.isNonRepeatable(definition.getSubfield("a")));
+  }
+
+  /**
+   * A definition without indicators (the Indicator is not serializable)
+   */
+  private static class SerializableDefinition extends DataFieldDefinition {
+    SerializableDefinition() {
+      tag = "999";
+      label = "Local field";
+      setSubfieldsWithCardinality("a", "Local data", "NR");
+    }
+  }
+
+  @Test
+  public void testValidationPlan() {
+    DataFieldDefinition definition = Tag040.getInstance();
+    assertSame(definition.getValidationPlan(MarcVersion.MARC21), definition.getValidationPlan(null));
+    assertTrue(definition.getValidationPlan(MarcVersion.MARC21).isDefined());
+    assertFalse(definition.getValidationPlan(MarcVersion.MARC21).hasClassificationReference());
+
+    DataField tag040 = SubfieldParser.parseField(definition, "1 $aMt$dDLC$aXY$cMt$dOCLC$aZZ");
+    tag040.setMarcRecord(new MarcRecord("123"));
+    assertFalse(tag040.validate(MarcVersion.MARC21));
+    assertEquals(2, tag040.getValidationErrors().size());
+
+    ValidationError error = tag040.getValidationErrors().get(0);
+    assertEquals(ValidationErrorType.INDICATOR_NON_EMPTY, error.getType());
+    assertEquals("040$ind1", error.getMarcPath());
+    assertEquals("1", error.getMessage());
+
+    error = tag040.getValidationErrors().get(1);
+    assertEquals(ValidationErrorType.SUBFIELD_NONREPEATABLE, error.getType());
+    assertEquals("040$a", error.getMarcPath());
+    assertEquals("there are 3 instances", error.getMessage());
+
+    DataField tag245 = SubfieldParser.parseField(Tag245.getInstance(), "50$aTitle");
+    tag245.setMarcRecord(new MarcRecord("123"));
+    assertFalse(tag245.validate(MarcVersion.MARC21));
+    assertEquals(1, tag245.getValidationErrors().size());
+    assertEquals(ValidationErrorType.INDICATOR_INVALID_VALUE, tag245.getValidationErrors().get(0).getType());
+    assertEquals("245$ind1", tag245.getValidationErrors().get(0).getMarcPath());
+  }
+
+  @Test
+  public void testRepetitions() {
+    // $c and $a are nonrepeatable, $n is repeatable
+    DataField tag245 = SubfieldParser.parseField(Tag245.getInstance(), "10$cC1$aA1$nN1$aA2$cC2$nN2$aA3");
+    tag245.setMarcRecord(new MarcRecord("123"));
+    assertFalse(tag245.validate(MarcVersion.MARC21));
+    assertEquals(2, tag245.getValidationErrors().size());
+    assertEquals("245$c", tag245.getValidationErrors().get(0).getMarcPath());
+    assertEquals("there are 2 instances", tag245.getValidationErrors().get(0).getMessage());
+    assertEquals("245$a", tag245.getValidationErrors().get(1).getMarcPath());
+    assertEquals("there are 3 instances", tag245.getValidationErrors().get(1).getMessage());
+  }
+
 }
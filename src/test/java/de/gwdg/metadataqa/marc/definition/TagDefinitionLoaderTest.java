@@ -7,7 +7,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class TagDefinitionLoaderTest {
 
@@ -95,4 +97,24 @@ public class TagDefinitionLoaderTest {
     DataFieldDefinition definition = TagDefinitionLoader.load("591", MarcVersion.MARC21);
     assertNull(definition);
   }
+
+  @Test
+  public void testFallbacks() {
+    // the MARC21 definition in the other versions
+    assertSame(TagDefinitionLoader.load("245", MarcVersion.MARC21), TagDefinitionLoader.load("245", MarcVersion.DNB));
+    // the OCLC definition in the other versions, but not in MARC21
+    assertNull(TagDefinitionLoader.load("938", MarcVersion.MARC21));
+    assertSame(TagDefinitionLoader.load("938", MarcVersion.OCLC), TagDefinitionLoader.load("938", MarcVersion.GENT));
+    // the own definition of the version
+    assertNotSame(TagDefinitionLoader.load("591", MarcVersion.DNB), TagDefinitionLoader.load("591", MarcVersion.GENT));
+  }
+
+  @Test
+  public void testUndefinedTags() {
+    assertNull(TagDefinitionLoader.load(null, MarcVersion.MARC21));
+    assertNull(TagDefinitionLoader.load("999", MarcVersion.MARC21));
+    assertNull(TagDefinitionLoader.load("STA", MarcVersion.MARC21));
+    assertNull(TagDefinitionLoader.load("24", MarcVersion.MARC21));
+    assertNull(TagDefinitionLoader.load("2450", MarcVersion.MARC21));
+  }
 }
@@ -0,0 +1,132 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class CompressionTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void detect() throws Exception {
+    byte[] content = "00720cam a22002051  4500".getBytes();
+    assertEquals(Compression.NONE, Compression.detect(content));
+    assertEquals(Compression.NONE, Compression.detect(new byte[0]));
+    assertEquals(Compression.GZIP, Compression.detect(compress(Compression.GZIP, content)));
+    assertEquals(Compression.BZIP2, Compression.detect(compress(Compression.BZIP2, content)));
+    assertEquals(Compression.XZ, Compression.detect(compress(Compression.XZ, content)));
+  }
+
+  @Test
+  public void iso() throws Exception {
+    assertReadsCompressed(MarcFormat.ISO, "general/BooksAll.2014.part01-0001.mrc");
+  }
+
+  @Test
+  public void lineSeparated() throws Exception {
+    assertReadsCompressed(MarcFormat.LINE_SEPARATED, "general/000-line-seperated.mrc");
+  }
+
+  @Test
+  public void alephseq() throws Exception {
+    assertReadsCompressed(MarcFormat.ALEPHSEQ, "alephseq/alephseq-example2.txt");
+  }
+
+  @Test
+  public void concatenatedGzip() throws Exception {
+    byte[] first = "first part, ".getBytes();
+    byte[] second = "second part".getBytes();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(compress(Compression.GZIP, first));
+    out.write(compress(Compression.GZIP, second));
+
+    byte[] content = Compression.decompress(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+    assertEquals("first part, second part", new String(content));
+  }
+
+  @Test
+  public void uncompressedStream() throws Exception {
+    byte[] content = "not compressed".getBytes();
+    assertArrayEquals(content, Compression.decompress(new ByteArrayInputStream(content)).readAllBytes());
+  }
+
+  @Test(timeout = 10000)
+  public void decoderError() throws Exception {
+    // a decoder failing on corrupt input with an unchecked exception
+    InputStream failing = new InputStream() {
+      private int count = 0;
+      @Override
+      public int read() {
+        if (count++ == 100)
+          throw new IllegalStateException("corrupt block");
+        return 'a';
+      }
+    };
+    try (InputStream in = new ReadAheadInputStream(failing)) {
+      in.readAllBytes();
+      fail("the error should reach the reader");
+    } catch (IOException e) {
+      assertEquals("corrupt block", e.getCause().getMessage());
+    }
+  }
+
+  private void assertReadsCompressed(MarcFormat format, String resource) throws Exception {
+    String path = FileUtils.getPath(resource).toString();
+    List<String> expected = readIds(ReadMarc.getFileReader(format, path));
+    assertFalse(expected.isEmpty());
+
+    byte[] content = Files.readAllBytes(FileUtils.getPath(resource));
+    for (Compression compression : new Compression[]{Compression.GZIP, Compression.BZIP2, Compression.XZ}) {
+      File file = folder.newFile(compression.getCode());
+      Files.write(file.toPath(), compress(compression, content));
+      assertEquals(compression.getCode(), expected, readIds(ReadMarc.getFileReader(format, file.getPath())));
+    }
+  }
+
+  private static List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    return ids;
+  }
+
+  private static byte[] compress(Compression compression, byte[] content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = createOutputStream(compression, bytes)) {
+      out.write(content);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static OutputStream createOutputStream(Compression compression, OutputStream out) throws IOException {
+    switch (compression) {
+      case GZIP:  return new GZIPOutputStream(out);
+      case BZIP2: return new BZip2CompressorOutputStream(out);
+      case XZ:    return new XZCompressorOutputStream(out);
+      default:    return out;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package de.gwdg.metadataqa.marc.utils;
 
 import de.gwdg.metadataqa.api.util.FileUtils;
 import de.gwdg.metadataqa.marc.utils.marcreader.LineSeparatedMarcReader;
+import de.gwdg.metadataqa.marc.utils.marcreader.NativeRecord;
 import org.junit.Before;
 import org.junit.Test;
 import org.marc4j.MarcReader;
@@ -10,11 +11,15 @@ import org.marc4j.marc.Record;
 
 import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class LineReaderTest {
   File file;
@@ -62,4 +67,43 @@ public class LineReaderTest {
     }
     assertEquals(expectedIds, collectedIds);
   }
+
+  @Test
+  public void sameAsMarcStreamReader() throws IOException {
+    List<Record> expected = new ArrayList<>();
+    try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = br.readLine()) != null)
+        expected.add(new MarcStreamReader(new ByteArrayInputStream(line.getBytes())).next());
+    }
+
+    LineSeparatedMarcReader reader = new LineSeparatedMarcReader(file.getAbsolutePath());
+    for (Record marc4jRecord : expected) {
+      assertTrue(reader.hasNext());
+      Record actual = reader.next();
+      assertTrue(actual instanceof NativeRecord);
+      assertEquals(marc4jRecord.toString(), actual.toString());
+    }
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void crlfAndEmptyLines() throws IOException {
+    byte[] content = Files.readAllBytes(file.toPath());
+    var crlf = new ByteArrayOutputStream();
+    crlf.write('\n');
+    for (byte b : content) {
+      if (b == '\n')
+        crlf.write('\r');
+      crlf.write(b);
+    }
+
+    LineSeparatedMarcReader reader = new LineSeparatedMarcReader(new ByteArrayInputStream(crlf.toByteArray()));
+    assertTrue(reader.hasNext());
+    assertNull(reader.next());
+    List<String> collectedIds = new ArrayList<>();
+    while (reader.hasNext())
+      collectedIds.add(reader.next().getControlNumber());
+    assertEquals(expectedIds, collectedIds);
+  }
 }
@@ -10,6 +10,7 @@ import org.junit.Test;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -98,6 +99,17 @@ public class MarcTagListerTest {
     assertEquals(11, (int) versionCounter.get("tags84x"));
   }
 
+  @Test
+  public void testGeneratedRegistry() {
+    assertEquals("GeneratedTagRegistry", TagRegistry.getInstance().getClass().getSimpleName());
+
+    List<Class<? extends DataFieldDefinition>> scanned = MarcTagLister.scanTags();
+    List<Class<? extends DataFieldDefinition>> listed = MarcTagLister.listTags();
+    assertEquals(new HashSet<>(scanned), new HashSet<>(listed));
+    for (int i = 0; i < listed.size(); i++)
+      assertEquals(scanned.get(i).getSimpleName(), listed.get(i).getSimpleName());
+  }
+
   @Test
   public void testDateCalculations() {
     assertEquals("00:00:59", LocalTime.MIN.plusSeconds(59).toString());
@@ -0,0 +1,34 @@
+package de.gwdg.metadataqa.marc.utils;
+
+import de.gwdg.metadataqa.marc.dao.DataField;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+
+  @Test
+  public void of() {
+    assertSame(StringPool.of('a'), StringPool.of('a'));
+    assertSame(StringPool.of('a'), StringPool.intern(new String("a")));
+    assertEquals("ő", StringPool.of('ő'));
+  }
+
+  @Test
+  public void intern() {
+    assertSame(StringPool.intern(new String("245")), StringPool.intern(new String("245")));
+    assertNull(StringPool.intern(null));
+  }
+
+  @Test
+  public void sharedBySubfields() {
+    DataField first = new DataField("999", "  $aone$btwo", MarcVersion.MARC21);
+    DataField second = new DataField("999", "  $aother", MarcVersion.MARC21);
+    assertSame(first.getTag(), second.getTag());
+    assertSame(first.getInd1(), second.getInd1());
+    assertSame(first.getSubfields().get(0).getCode(), second.getSubfields().get(0).getCode());
+  }
+}
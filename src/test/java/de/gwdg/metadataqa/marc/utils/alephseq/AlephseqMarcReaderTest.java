@@ -13,9 +13,13 @@ import org.junit.Test;
 import org.marc4j.MarcReader;
 import org.marc4j.marc.Record;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -343,4 +347,63 @@ public class AlephseqMarcReaderTest {
       }
     }
   }
+
+  @Test
+  public void testSameAsLineBasedParsing() throws Exception {
+    for (String fileName : List.of("alephseq/alephseq-example.txt", "alephseq/alephseq-example2.txt", "alephseq/alephseq-example3.txt")) {
+      Path path = FileUtils.getPath(fileName);
+      List<String> expected = readWithAlephseqLines(Files.readAllLines(path));
+      assertEquals(expected, readAsStrings(new AlephseqMarcReader(path.toString())));
+
+      // Windows line endings, read from a stream
+      byte[] content = String.join("\r\n", Files.readAllLines(path)).getBytes(StandardCharsets.UTF_8);
+      assertEquals(expected, readAsStrings(new AlephseqMarcReader(new ByteArrayInputStream(content))));
+    }
+  }
+
+  private List<String> readAsStrings(MarcReader reader) {
+    List<String> records = new ArrayList<>();
+    while (reader.hasNext()) {
+      Record marc4jRecord = reader.next();
+      records.add(MarcFactory.createFromMarc4j(marc4jRecord, Leader.Type.BOOKS, MarcVersion.GENT, true).asJson());
+    }
+    return records;
+  }
+
+  /**
+   * Groups the lines by the record identifier, and creates the records the same way as the line
+   * based reader did.
+   */
+  private List<String> readWithAlephseqLines(List<String> rawLines) {
+    List<List<AlephseqLine>> groups = new ArrayList<>();
+    List<Boolean> deleted = new ArrayList<>();
+    String currentId = null;
+    for (String raw : rawLines) {
+      AlephseqLine line = new AlephseqLine(raw);
+      if (line.getRecordID() == null)
+        continue;
+      if (!line.getRecordID().equals(currentId)) {
+        groups.add(new ArrayList<>());
+        deleted.add(false);
+        currentId = line.getRecordID();
+      }
+      if (line.isValidTag())
+        groups.get(groups.size() - 1).add(line);
+      else if (line.getTag().equals("DEL"))
+        deleted.set(deleted.size() - 1, true);
+    }
+
+    List<String> records = new ArrayList<>();
+    for (int i = 0; i < groups.size(); i++) {
+      List<AlephseqLine> lines = groups.get(i);
+      boolean isValid = !deleted.get(i)
+        && lines.stream().anyMatch(line -> line.getTag().equals("001"))
+        && lines.stream().anyMatch(AlephseqLine::isLeader);
+      // the last record of the file is not checked
+      if (!lines.isEmpty() && (isValid || i == groups.size() - 1))
+        records.add(MarcFactory.createFromMarc4j(
+          MarcFactory.createRecordFromAlephseq(lines), Leader.Type.BOOKS, MarcVersion.GENT, true).asJson());
+    }
+    return records;
+  }
 }
@@ -0,0 +1,56 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import org.junit.Test;
+import org.marc4j.MarcReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AlephseqChunkerTest {
+
+  @Test
+  public void split() throws Exception {
+    Path path = FileUtils.getPath("alephseq/alephseq-example2.txt");
+    List<String> records = readRecords(ReadMarc.getAlephseqFileReader(path.toString()));
+
+    List<FileChunk> chunks = ReadMarc.splitFile(MarcFormat.ALEPHSEQ, path.toString(), 10000);
+    assertTrue(chunks.size() > 1);
+    assertEquals(0, chunks.get(0).getStart());
+    assertEquals(Files.size(path), chunks.get(chunks.size() - 1).getEnd());
+
+    byte[] content = Files.readAllBytes(path);
+    List<String> chunkRecords = new ArrayList<>();
+    for (int n = 0; n < chunks.size(); n++) {
+      FileChunk chunk = chunks.get(n);
+      if (n > 0) {
+        assertEquals(chunks.get(n - 1).getEnd(), chunk.getStart());
+        // the record identifier changes at the boundary
+        int start = (int) chunk.getStart();
+        int previousLine = start - 1;
+        while (previousLine > 0 && content[previousLine - 1] != '\n')
+          previousLine--;
+        assertNotEquals(new String(content, previousLine, 9), new String(content, start, 9));
+      }
+      if (n < chunks.size() - 1)
+        assertTrue(chunk.getLength() >= 10000);
+      chunkRecords.addAll(readRecords(ReadMarc.getChunkReader(MarcFormat.ALEPHSEQ, chunk)));
+    }
+    assertEquals(records, chunkRecords);
+  }
+
+  private List<String> readRecords(MarcReader reader) {
+    List<String> records = new ArrayList<>();
+    while (reader.hasNext())
+      records.add(reader.next().toString());
+    return records;
+  }
+}
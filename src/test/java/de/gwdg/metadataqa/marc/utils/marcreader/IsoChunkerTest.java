@@ -0,0 +1,72 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcReader;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IsoChunkerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void split() throws Exception {
+    Path path = FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc");
+    List<String> ids = readIds(ReadMarc.getIsoFileReader(path.toString()));
+
+    List<FileChunk> chunks = IsoChunker.split(path, 10000);
+    assertTrue(chunks.size() > 1);
+    assertEquals(0, chunks.get(0).getStart());
+    assertEquals(Files.size(path), chunks.get(chunks.size() - 1).getEnd());
+
+    List<String> chunkIds = new ArrayList<>();
+    for (int n = 0; n < chunks.size(); n++) {
+      if (n > 0)
+        assertEquals(chunks.get(n - 1).getEnd(), chunks.get(n).getStart());
+      if (n < chunks.size() - 1)
+        assertTrue(chunks.get(n).getLength() >= 10000);
+      chunkIds.addAll(readIds(ReadMarc.getChunkReader(MarcFormat.ISO, chunks.get(n))));
+    }
+    assertEquals(ids, chunkIds);
+  }
+
+  @Test
+  public void split_falseTerminator() throws Exception {
+    byte[] content = Files.readAllBytes(FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc"));
+    int firstLength = Integer.parseInt(new String(content, 0, 5));
+    // a record terminator inside the data of the first record is not followed by a record
+    content[firstLength / 2] = 0x1D;
+    File file = folder.newFile();
+    Files.write(file.toPath(), content);
+
+    List<FileChunk> chunks = IsoChunker.split(file.toPath(), 1);
+    assertEquals(firstLength, chunks.get(0).getEnd());
+  }
+
+  @Test
+  public void split_otherFormat() throws Exception {
+    String fileName = FileUtils.getPath("general/000-line-seperated.mrc").toString();
+    assertNull(ReadMarc.splitFile(MarcFormat.LINE_SEPARATED, fileName, 1000));
+  }
+
+  private List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    return ids;
+  }
+}
@@ -0,0 +1,147 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.MarcFactory;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcException;
+import org.marc4j.MarcReader;
+import org.marc4j.MarcStreamReader;
+import org.marc4j.marc.Record;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedIsoMarcReaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void sameAsMarcStreamReader() throws Exception {
+    assertSameRecords(read("general/0001-01.mrc"), true);
+    assertSameRecords(read("general/BooksAll.2014.part01-0001.mrc"), true);
+  }
+
+  @Test
+  public void latin1() throws Exception {
+    byte[] content = read("general/BooksAll.2014.part01-0001.mrc");
+    // leader/09 is blank: the first record is ISO-8859-1 encoded
+    content[9] = ' ';
+    assertSameRecords(content, true);
+  }
+
+  @Test
+  public void malformedRecord_parsedByMarc4j() throws Exception {
+    byte[] content = read("general/0001-01.mrc");
+    // a non-ASCII byte in the tag of the first directory entry
+    content[24] = (byte) 0xE9;
+    assertSameRecords(content, false);
+  }
+
+  @Test
+  public void skipAndSeek() throws Exception {
+    File file = write(read("general/BooksAll.2014.part01-0001.mrc"));
+    List<String> ids = readIds(new IsoMarcReader(file.getPath()));
+
+    MappedIsoMarcReader reader = new MappedIsoMarcReader(file.getPath());
+    for (int i = 0; i < 3; i++)
+      reader.next();
+    long position = reader.getPosition();
+    reader.close();
+
+    MappedIsoMarcReader skipping = new MappedIsoMarcReader(file.getPath());
+    assertEquals(3, skipping.skip(3));
+    assertEquals(position, skipping.getPosition());
+    assertEquals(ids.subList(3, ids.size()), readIds(skipping));
+
+    MappedIsoMarcReader seeking = new MappedIsoMarcReader(file.getPath());
+    seeking.seek(position);
+    assertEquals(ids.subList(3, ids.size()), readIds(seeking));
+
+    skipping = new MappedIsoMarcReader(file.getPath());
+    assertEquals(ids.size(), skipping.skip(ids.size() + 10));
+    assertFalse(skipping.hasNext());
+  }
+
+  @Test
+  public void closeBeforeTheEnd() throws Exception {
+    File file = write(read("general/BooksAll.2014.part01-0001.mrc"));
+    try (MappedIsoMarcReader reader = new MappedIsoMarcReader(file.getPath())) {
+      reader.next();
+      reader.close();
+      reader.next();
+      fail("the file is closed");
+    } catch (MarcException e) {
+      assertEquals("an error occured reading input", e.getMessage());
+    }
+  }
+
+  @Test
+  public void invalidLength() throws Exception {
+    byte[] content = read("general/BooksAll.2014.part01-0001.mrc");
+    List<String> ids = readIds(new IsoMarcReader(new ByteArrayInputStream(content)));
+
+    content[0] = 'x';
+    MappedIsoMarcReader reader = new MappedIsoMarcReader(write(content).getPath());
+    try {
+      reader.next();
+      fail("the length is not a number");
+    } catch (MarcException e) {
+      assertEquals("unable to parse record length", e.getMessage());
+    }
+    assertEquals(ids.subList(1, ids.size()), readIds(reader));
+  }
+
+  private void assertSameRecords(byte[] content, boolean mapped) throws Exception {
+    MarcReader expectedReader = new MarcStreamReader(new ByteArrayInputStream(content));
+    MarcReader actualReader = new MappedIsoMarcReader(write(content).getPath());
+    int count = 0;
+    while (expectedReader.hasNext()) {
+      assertTrue(actualReader.hasNext());
+      Record expected = expectedReader.next();
+      Record actual = actualReader.next();
+      assertEquals(mapped, actual instanceof MappedIsoRecord);
+      assertEquals(
+        MarcFactory.createFromMarc4j(expected, null, MarcVersion.MARC21, true).asJson(),
+        mapped
+          ? ((MappedIsoRecord) actual).toMarcRecord(null, MarcVersion.MARC21, true).asJson()
+          : MarcFactory.createFromMarc4j(actual, null, MarcVersion.MARC21, true).asJson()
+      );
+      assertEquals(expected.toString(), actual.toString());
+      count++;
+      if (!mapped)
+        break;
+    }
+    assertTrue(count > 0);
+    if (mapped)
+      assertFalse(actualReader.hasNext());
+  }
+
+  private List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    return ids;
+  }
+
+  private byte[] read(String fileName) throws Exception {
+    return Files.readAllBytes(FileUtils.getPath(fileName));
+  }
+
+  private File write(byte[] content) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content);
+    return file;
+  }
+}
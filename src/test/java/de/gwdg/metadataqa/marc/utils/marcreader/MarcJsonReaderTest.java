@@ -0,0 +1,158 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.gwdg.metadataqa.api.model.pathcache.JsonPathCache;
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.MarcFactory;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import org.junit.Test;
+import org.marc4j.MarcJsonWriter;
+import org.marc4j.MarcReader;
+import org.marc4j.MarcStreamReader;
+import org.marc4j.marc.ControlField;
+import org.marc4j.marc.DataField;
+import org.marc4j.marc.Record;
+import org.marc4j.marc.Subfield;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarcJsonReaderTest {
+
+  @Test
+  public void sameAsIso() throws Exception {
+    List<Record> records = readIso("general/BooksAll.2014.part01-0001.mrc");
+
+    StringBuilder json = new StringBuilder();
+    ObjectMapper mapper = new ObjectMapper();
+    for (Record marc4jRecord : records)
+      json.append(mapper.writeValueAsString(toSchemaLayout(marc4jRecord))).append('\n');
+    assertSameRecords(records, json.toString());
+  }
+
+  @Test
+  public void marcInJson() throws Exception {
+    List<Record> records = readIso("general/BooksAll.2014.part01-0001.mrc");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MarcJsonWriter writer = new MarcJsonWriter(out, MarcJsonWriter.MARC_IN_JSON);
+    for (Record marc4jRecord : records)
+      writer.write(marc4jRecord);
+    writer.close();
+    assertSameRecords(records, out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void array() throws Exception {
+    List<Record> records = readIso("general/BooksAll.2014.part01-0001.mrc");
+
+    List<Map<String, Object>> array = new ArrayList<>();
+    for (Record marc4jRecord : records)
+      array.add(toSchemaLayout(marc4jRecord));
+    assertSameRecords(records, new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(array));
+  }
+
+  @Test
+  public void sameAsJsonPathCache() throws Exception {
+    Path path = FileUtils.getPath("general/marc.json");
+    List<String> lines = Files.readAllLines(path);
+    MarcReader reader = ReadMarc.getFileReader(MarcFormat.JSON, path.toString());
+    for (String line : lines) {
+      assertTrue(reader.hasNext());
+      MarcRecord expected = MarcFactory.create(new JsonPathCache(line));
+      MarcRecord actual = ((NativeRecord) reader.next()).toMarcRecord(null, MarcVersion.MARC21, false);
+      assertEquals(expected.getId(), actual.getId());
+      assertEquals(expected.getLeader().getLeaderString(), actual.getLeader().getLeaderString());
+      assertEquals(expected.getControl008().getContent(), actual.getControl008().getContent());
+      assertEquals(expected.getDatafield("245").get(0).getSubfield("a").get(0).getValue(),
+        actual.getDatafield("245").get(0).getSubfield("a").get(0).getValue());
+    }
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void formatted() throws Exception {
+    Path path = FileUtils.getPath("general/marc-record-formatted.json");
+    MarcReader reader = ReadMarc.getFileReader(MarcFormat.JSON, path.toString());
+    assertTrue(reader.hasNext());
+    MarcRecord expected = MarcFactory.create(new JsonPathCache(Files.readString(path)));
+    assertEquals(expected.getId(), reader.next().getControlNumber());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void skip() throws Exception {
+    String path = FileUtils.getPath("general/marc.json").toString();
+    List<String> ids = new ArrayList<>();
+    MarcReader reader = new MarcJsonReader(path);
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+
+    MarcJsonReader skipping = new MarcJsonReader(path);
+    assertEquals(10, skipping.skip(10));
+    assertEquals(ids.get(10), skipping.next().getControlNumber());
+    assertEquals(ids.size() - 11, skipping.skip(ids.size()));
+    assertFalse(skipping.hasNext());
+  }
+
+  private void assertSameRecords(List<Record> records, String json) {
+    MarcReader reader = new MarcJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    for (Record expected : records) {
+      assertTrue(reader.hasNext());
+      Record actual = reader.next();
+      assertEquals(
+        MarcFactory.createFromMarc4j(expected, null, MarcVersion.MARC21, false).asJson(),
+        ((NativeRecord) actual).toMarcRecord(null, MarcVersion.MARC21, false).asJson()
+      );
+      assertEquals(expected.toString(), actual.toString());
+    }
+    assertFalse(reader.hasNext());
+  }
+
+  private List<Record> readIso(String fileName) throws Exception {
+    MarcReader reader = new MarcStreamReader(new FileInputStream(FileUtils.getPath(fileName).toFile()));
+    List<Record> records = new ArrayList<>();
+    while (reader.hasNext())
+      records.add(reader.next());
+    return records;
+  }
+
+  private Map<String, Object> toSchemaLayout(Record marc4jRecord) {
+    Map<String, Object> json = new LinkedHashMap<>();
+    json.put("leader", marc4jRecord.getLeader().marshal());
+    List<Map<String, Object>> controlFields = new ArrayList<>();
+    for (ControlField field : marc4jRecord.getControlFields())
+      controlFields.add(Map.of("tag", field.getTag(), "content", field.getData()));
+    json.put("controlfield", controlFields);
+    List<Map<String, Object>> dataFields = new ArrayList<>();
+    for (DataField field : marc4jRecord.getDataFields()) {
+      List<Map<String, Object>> subfields = new ArrayList<>();
+      for (Subfield subfield : field.getSubfields())
+        subfields.add(Map.of("code", String.valueOf(subfield.getCode()), "content", subfield.getData()));
+      // the subfields precede the tag
+      Map<String, Object> dataField = new LinkedHashMap<>();
+      dataField.put("subfield", subfields);
+      dataField.put("tag", field.getTag());
+      dataField.put("ind1", String.valueOf(field.getIndicator1()));
+      dataField.put("ind2", String.valueOf(field.getIndicator2()));
+      dataFields.add(dataField);
+    }
+    json.put("datafield", dataFields);
+    return json;
+  }
+}
@@ -0,0 +1,78 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcReader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarcXmlChunkerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void split() throws Exception {
+    assertSplit(MarcXmlStaxReaderTest.toMarcXml("general/BooksAll.2014.part01-0001.mrc"));
+  }
+
+  @Test
+  public void split_namespacePrefix() throws Exception {
+    assertSplit(MarcXmlStaxReaderTest.toMarcXml("general/BooksAll.2014.part01-0001.mrc")
+      .replace("<collection xmlns=", "<marc:collection xmlns:marc=")
+      .replaceAll("<(/?)(collection|record|leader|controlfield|datafield|subfield)\\b", "<$1marc:$2"));
+  }
+
+  @Test
+  public void split_otherEncoding() throws Exception {
+    File file = write("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n"
+      + "<collection><record><controlfield tag=\"001\">1</controlfield></record>"
+      + "<record><controlfield tag=\"001\">2</controlfield></record></collection>");
+    List<FileChunk> chunks = MarcXmlChunker.split(file.toPath(), 1);
+    assertEquals(1, chunks.size());
+    assertEquals(0, chunks.get(0).getStart());
+    assertEquals(file.length(), chunks.get(0).getEnd());
+  }
+
+  private void assertSplit(String xml) throws Exception {
+    File file = write(xml);
+    List<String> ids = readIds(ReadMarc.getXmlFileReader(file.getPath()));
+
+    List<FileChunk> chunks = ReadMarc.splitFile(MarcFormat.XML, file.getPath(), 10000);
+    assertTrue(chunks.size() > 1);
+    assertEquals(xml.indexOf("record>") - (xml.contains("<marc:record") ? 6 : 1), chunks.get(0).getStart());
+
+    List<String> chunkIds = new ArrayList<>();
+    for (int n = 0; n < chunks.size(); n++) {
+      if (n > 0)
+        assertEquals(chunks.get(n - 1).getEnd(), chunks.get(n).getStart());
+      if (n < chunks.size() - 1)
+        assertTrue(chunks.get(n).getLength() >= 10000);
+      chunkIds.addAll(readIds(ReadMarc.getChunkReader(MarcFormat.XML, chunks.get(n))));
+    }
+    assertEquals(ids, chunkIds);
+  }
+
+  private File write(String content) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    return ids;
+  }
+}
@@ -0,0 +1,122 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.MarcFactory;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.definition.MarcVersion;
+import org.junit.Test;
+import org.marc4j.MarcReader;
+import org.marc4j.MarcStreamReader;
+import org.marc4j.MarcXmlReader;
+import org.marc4j.MarcXmlWriter;
+import org.marc4j.marc.Record;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarcXmlStaxReaderTest {
+
+  @Test
+  public void sameAsMarcXmlReader() throws Exception {
+    assertSameRecords(toMarcXml("general/0001-01.mrc"));
+    assertSameRecords(toMarcXml("general/BooksAll.2014.part01-0001.mrc"));
+  }
+
+  @Test
+  public void namespacePrefix() throws Exception {
+    String xml = toMarcXml("general/0001-01.mrc")
+      .replace("<collection xmlns=", "<marc:collection xmlns:marc=")
+      .replaceAll("<(/?)(collection|record|leader|controlfield|datafield|subfield)\\b", "<$1marc:$2");
+    assertTrue(xml.contains("<marc:subfield"));
+    assertSameRecords(xml);
+  }
+
+  @Test
+  public void withoutNamespace() throws Exception {
+    String xml = "<?xml version=\"1.0\"?>\n"
+      + "<collection>\n"
+      + "  <record>\n"
+      + "    <leader>00000cam a2200000 a 4500</leader>\n"
+      + "    <controlfield tag=\"008\">850101s1985    nyu           000 0 eng  </controlfield>\n"
+      + "    <controlfield tag=\"001\">id1</controlfield>\n"
+      + "    <datafield tag=\"245\" ind1=\"1\" ind2=\"\">\n"
+      + "      <subfield code=\"a\">Title &amp; <![CDATA[subtitle]]></subfield>\n"
+      + "      <subfield>no code</subfield>\n"
+      + "    </datafield>\n"
+      + "    <datafield ind1=\"1\" ind2=\"0\"><subfield code=\"a\">no tag</subfield></datafield>\n"
+      + "  </record>\n"
+      + "  <record><controlfield tag=\"001\">id2</controlfield></record>\n"
+      + "</collection>\n";
+
+    MarcXmlStaxReader reader = new MarcXmlStaxReader(toStream(xml));
+    assertTrue(reader.hasNext());
+    NativeRecord record = (NativeRecord) reader.next();
+    assertEquals("id1", record.getControlNumber());
+    assertEquals(1, record.getDataFields().size());
+    assertEquals("Title & subtitle", record.getDataFields().get(0).getSubfield('a').getData());
+
+    MarcRecord marcRecord = record.toMarcRecord(null, MarcVersion.MARC21, false);
+    assertEquals("id1", marcRecord.getId());
+    assertEquals("1", marcRecord.getDatafield("245").get(0).getInd1());
+    assertEquals(" ", marcRecord.getDatafield("245").get(0).getInd2());
+    assertEquals(1, marcRecord.getDatafield("245").get(0).getSubfields().size());
+
+    assertEquals("id2", reader.next().getControlNumber());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void skip() throws Exception {
+    String xml = toMarcXml("general/BooksAll.2014.part01-0001.mrc");
+    MarcXmlReader expected = new MarcXmlReader(toStream(xml));
+    for (int i = 0; i < 3; i++)
+      expected.next();
+
+    MarcXmlStaxReader reader = new MarcXmlStaxReader(toStream(xml));
+    assertTrue(reader.hasNext());
+    assertEquals(3, reader.skip(3));
+    while (expected.hasNext())
+      assertEquals(expected.next().getControlNumber(), reader.next().getControlNumber());
+    assertFalse(reader.hasNext());
+    assertEquals(0, reader.skip(1));
+  }
+
+  private void assertSameRecords(String xml) {
+    MarcReader expectedReader = new MarcXmlReader(toStream(xml));
+    MarcReader actualReader = new MarcXmlStaxReader(toStream(xml));
+    int count = 0;
+    while (expectedReader.hasNext()) {
+      assertTrue(actualReader.hasNext());
+      Record expected = expectedReader.next();
+      Record actual = actualReader.next();
+      assertEquals(
+        MarcFactory.createFromMarc4j(expected, null, MarcVersion.MARC21, true).asJson(),
+        ((NativeRecord) actual).toMarcRecord(null, MarcVersion.MARC21, true).asJson()
+      );
+      assertEquals(expected.toString(), actual.toString());
+      count++;
+    }
+    assertTrue(count > 0);
+    assertFalse(actualReader.hasNext());
+  }
+
+  static String toMarcXml(String fileName) throws Exception {
+    MarcReader reader = new MarcStreamReader(new FileInputStream(FileUtils.getPath(fileName).toFile()));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MarcXmlWriter writer = new MarcXmlWriter(out, "UTF-8", true);
+    while (reader.hasNext())
+      writer.write(reader.next());
+    writer.close();
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private static ByteArrayInputStream toStream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,102 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcReader;
+import org.marc4j.marc.Record;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void lookup() throws Exception {
+    List<Path> paths = Arrays.asList(copy("general/BooksAll.2014.part01-0001.mrc"), copy("general/0001-01.mrc"));
+    Path indexPath = folder.getRoot().toPath().resolve("records.idx");
+    List<Record> records = new ArrayList<>();
+    for (Path path : paths)
+      records.addAll(readRecords(new MappedIsoMarcReader(path)));
+    Map<String, Integer> ids = new HashMap<>();
+    for (Record marc4jRecord : records)
+      ids.merge(marc4jRecord.getControlNumber().trim(), 1, Integer::sum);
+
+    assertEquals(records.size(), RecordIndex.build(paths, indexPath));
+    try (RecordIndex index = RecordIndex.open(indexPath)) {
+      assertEquals(records.size(), index.size());
+      assertTrue(index.isUpToDate());
+      for (Record expected : records) {
+        // the records of the second file are also in the first one
+        List<RecordIndex.Location> locations = index.lookup(expected.getControlNumber());
+        assertEquals(ids.get(expected.getControlNumber().trim()).intValue(), locations.size());
+        List<String> found = new ArrayList<>();
+        for (RecordIndex.Location location : locations) {
+          List<Record> chunkRecords = readRecords(ReadMarc.getChunkReader(MarcFormat.ISO, location.toChunk()));
+          assertEquals(1, chunkRecords.size());
+          found.add(chunkRecords.get(0).toString());
+        }
+        assertTrue(found.contains(expected.toString()));
+      }
+      assertTrue(index.lookup("no-such-record").isEmpty());
+      assertTrue(index.lookup("").isEmpty());
+    }
+  }
+
+  @Test
+  public void build_inRuns() throws Exception {
+    List<Path> paths = Arrays.asList(copy("general/BooksAll.2014.part01-0001.mrc"), copy("general/0001-01.mrc"));
+    Path inMemory = folder.getRoot().toPath().resolve("in-memory.idx");
+    Path inRuns = folder.getRoot().toPath().resolve("in-runs.idx");
+
+    int size = RecordIndex.build(paths, inMemory);
+    assertEquals(size, RecordIndex.build(paths, inRuns, 7));
+    assertEquals(-1, Files.mismatch(inMemory, inRuns));
+    // the temporary files have been removed
+    try (var files = Files.list(folder.getRoot().toPath())) {
+      assertEquals(4, files.count());
+    }
+  }
+
+  @Test
+  public void isUpToDate() throws Exception {
+    Path path = copy("general/0001-01.mrc");
+    Path indexPath = folder.getRoot().toPath().resolve("records.idx");
+    RecordIndex.build(List.of(path), indexPath);
+
+    Files.write(path, new byte[]{'\n'}, StandardOpenOption.APPEND);
+    try (RecordIndex index = RecordIndex.open(indexPath)) {
+      assertFalse(index.isUpToDate());
+    }
+  }
+
+  private List<Record> readRecords(MarcReader reader) {
+    List<Record> records = new ArrayList<>();
+    while (reader.hasNext())
+      records.add(reader.next());
+    return records;
+  }
+
+  private Path copy(String fileName) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), Files.readAllBytes(FileUtils.getPath(fileName)));
+    return file.toPath();
+  }
+}
@@ -0,0 +1,113 @@
+package de.gwdg.metadataqa.marc.utils.marcreader;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import org.junit.Test;
+import org.marc4j.MarcReader;
+import org.marc4j.marc.Record;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SkippableMarcReaderTest {
+
+  @Test
+  public void iso() throws Exception {
+    String path = FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc").toString();
+    List<String> ids = readIds(new IsoMarcReader(path));
+
+    SkippableMarcReader reader = new IsoMarcReader(path);
+    assertEquals(4, reader.skip(4));
+    assertEquals(ids.subList(4, ids.size()), readIds(reader));
+
+    reader = new IsoMarcReader(path);
+    assertEquals(ids.size(), reader.skip(ids.size() + 10));
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void iso_betweenRecords() throws Exception {
+    String path = FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc").toString();
+    List<String> ids = readIds(new IsoMarcReader(path));
+
+    SkippableMarcReader reader = new IsoMarcReader(path);
+    assertEquals(ids.get(0), reader.next().getControlNumber());
+    assertTrue(reader.hasNext());
+    assertEquals(3, reader.skip(3));
+    assertEquals(ids.get(4), reader.next().getControlNumber());
+    assertEquals(2, reader.skip(2));
+    assertEquals(ids.subList(7, ids.size()), readIds(reader));
+  }
+
+  @Test
+  public void iso_position() throws Exception {
+    String path = FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc").toString();
+    List<String> ids = readIds(new IsoMarcReader(path));
+
+    IsoMarcReader reader = new IsoMarcReader(path);
+    for (int i = 0; i < 3; i++)
+      reader.next();
+    assertTrue(reader.hasNext());
+    long position = reader.getPosition();
+
+    IsoMarcReader skipping = new IsoMarcReader(path);
+    skipping.skip(3);
+    assertEquals(position, skipping.getPosition());
+
+    IsoMarcReader seeking = new IsoMarcReader(path);
+    seeking.seek(position);
+    assertEquals(ids.subList(3, ids.size()), readIds(seeking));
+  }
+
+  @Test
+  public void iso_invalidLength() throws Exception {
+    String path = FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc").toString();
+    byte[] content = Files.readAllBytes(FileUtils.getPath("general/BooksAll.2014.part01-0001.mrc"));
+    List<String> ids = readIds(new IsoMarcReader(path));
+
+    // the length of the first record is not a number: the reader looks for the record terminator
+    content[0] = 'x';
+    SkippableMarcReader reader = new IsoMarcReader(new ByteArrayInputStream(content));
+    assertEquals(2, reader.skip(2));
+    assertEquals(ids.get(2), reader.next().getControlNumber());
+  }
+
+  @Test
+  public void lineSeparated() throws Exception {
+    String path = FileUtils.getPath("general/000-line-seperated.mrc").toString();
+    List<String> ids = readIds(new LineSeparatedMarcReader(path));
+
+    SkippableMarcReader reader = new LineSeparatedMarcReader(path);
+    assertEquals(3, reader.skip(3));
+    assertEquals(ids.subList(3, ids.size()), readIds(reader));
+  }
+
+  @Test
+  public void alephseq() throws Exception {
+    String path = FileUtils.getPath("alephseq/alephseq-example2.txt").toString();
+    List<String> ids = readIds(new AlephseqMarcReader(path));
+    assertEquals(93, ids.size());
+
+    SkippableMarcReader reader = new AlephseqMarcReader(path);
+    assertEquals(10, reader.skip(10));
+    assertEquals(ids.subList(10, ids.size()), readIds(reader));
+
+    reader = new AlephseqMarcReader(path);
+    assertEquals(93, reader.skip(100));
+    assertFalse(reader.hasNext());
+  }
+
+  private List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext()) {
+      Record marc4jRecord = reader.next();
+      ids.add(marc4jRecord == null ? null : marc4jRecord.getControlNumber());
+    }
+    return ids;
+  }
+}
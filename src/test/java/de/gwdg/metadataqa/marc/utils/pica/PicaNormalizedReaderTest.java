@@ -0,0 +1,158 @@
+package de.gwdg.metadataqa.marc.utils.pica;
+
+import de.gwdg.metadataqa.api.util.FileUtils;
+import de.gwdg.metadataqa.marc.MarcFactory;
+import de.gwdg.metadataqa.marc.dao.MarcRecord;
+import de.gwdg.metadataqa.marc.definition.MarcFormat;
+import de.gwdg.metadataqa.marc.utils.ReadMarc;
+import de.gwdg.metadataqa.marc.utils.marcreader.FileChunk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.marc4j.MarcReader;
+import org.marc4j.marc.Record;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PicaNormalizedReaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void sameAsPlainText() throws Exception {
+    List<Record> expected = readPlainText();
+    MarcReader reader = new PicaNormalizedReader(new ByteArrayInputStream(toNormalized()));
+    for (Record marc4jRecord : expected) {
+      assertTrue(reader.hasNext());
+      assertEquals(format(marc4jRecord), format(reader.next()));
+    }
+    assertFalse(reader.hasNext());
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void createPicaFromMarc4j() throws Exception {
+    Map<String, PicaFieldDefinition> schema = PicaSchemaReader.createDefault();
+    assertTrue(schema.size() > 0);
+
+    MarcReader reader = new PicaNormalizedReader(new ByteArrayInputStream(toNormalized()));
+    MarcRecord marcRecord = MarcFactory.createPicaFromMarc4j(reader.next(), schema);
+    assertEquals("1030400229", marcRecord.getId());
+    assertEquals("Obolensky", marcRecord.getDatafield("028A").get(0).getSubfield("a").get(0).getValue());
+    assertEquals("A @Gower book", marcRecord.getDatafield("036E").get(0).getSubfield("a").get(0).getValue());
+  }
+
+  @Test
+  public void invalidFields() {
+    String pica = "\n003@ \u001F0123\u001Ebroken \u001Fax\u001E021A/01 \u001FaTitle\u001Fdsub\u001E\r\n"
+      + "\u001E\n"
+      + "003@ \u001F0456\u001E";
+    MarcReader reader = new PicaNormalizedReader(new ByteArrayInputStream(pica.getBytes(StandardCharsets.UTF_8)));
+    Record marc4jRecord = reader.next();
+    assertEquals("123", marc4jRecord.getControlNumber());
+    assertEquals(2, marc4jRecord.getDataFields().size());
+    assertEquals("021A", marc4jRecord.getDataFields().get(1).getTag());
+    assertEquals("sub", marc4jRecord.getDataFields().get(1).getSubfield('d').getData());
+    assertEquals("456", reader.next().getControlNumber());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void skip() throws Exception {
+    List<Record> expected = readPlainText();
+    var reader = new PicaNormalizedReader(new ByteArrayInputStream(toNormalized()));
+    assertEquals(10, reader.skip(10));
+    assertEquals(expected.get(10).getControlNumber(), reader.next().getControlNumber());
+    assertTrue(reader.hasNext());
+    assertEquals(expected.size() - 11, reader.skip(expected.size()));
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void split() throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), toNormalized());
+    List<String> ids = readIds(ReadMarc.getFileReader(MarcFormat.PICA_NORMALIZED, file.getPath()));
+    assertEquals(readPlainText().size(), ids.size());
+
+    List<FileChunk> chunks = ReadMarc.splitFile(MarcFormat.PICA_NORMALIZED, file.getPath(), 50000);
+    assertTrue(chunks.size() > 1);
+    List<String> chunkIds = new ArrayList<>();
+    for (int n = 0; n < chunks.size(); n++) {
+      if (n > 0)
+        assertEquals(chunks.get(n - 1).getEnd(), chunks.get(n).getStart());
+      if (n < chunks.size() - 1)
+        assertTrue(chunks.get(n).getLength() >= 50000);
+      chunkIds.addAll(readIds(ReadMarc.getChunkReader(MarcFormat.PICA_NORMALIZED, chunks.get(n))));
+    }
+    assertEquals(file.length(), chunks.get(chunks.size() - 1).getEnd());
+    assertEquals(ids, chunkIds);
+  }
+
+  private List<Record> readPlainText() throws Exception {
+    MarcReader reader = new PicaReader(FileUtils.getPath("pica/picaplus-sample.txt").toString());
+    List<Record> records = new ArrayList<>();
+    while (reader.hasNext()) {
+      Record marc4jRecord = reader.next();
+      if (marc4jRecord != null)
+        records.add(marc4jRecord);
+    }
+    return records;
+  }
+
+  /**
+   * Converts the plain text sample into normalized PICA+, keeping the occurrences.
+   */
+  private byte[] toNormalized() throws Exception {
+    var out = new ByteArrayOutputStream();
+    boolean hasFields = false;
+    try (BufferedReader reader = Files.newBufferedReader(FileUtils.getPath("pica/picaplus-sample.txt"))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        var picaLine = new PicaLine(line);
+        if (picaLine.isSkippable()) {
+          if (hasFields)
+            out.write('\n');
+          hasFields = false;
+        } else if (picaLine.isValidTag()) {
+          StringBuilder field = new StringBuilder(picaLine.getQualifiedTag()).append(' ');
+          for (PicaSubfield subfield : picaLine.getSubfields())
+            field.append('\u001F').append(subfield.getCode()).append(subfield.getValue());
+          out.write(field.append('\u001E').toString().getBytes(StandardCharsets.UTF_8));
+          hasFields = true;
+        }
+      }
+    }
+    if (hasFields)
+      out.write('\n');
+    return out.toByteArray();
+  }
+
+  /**
+   * The records do not have leaders, so Record.toString() can not be used.
+   */
+  private String format(Record marc4jRecord) {
+    return marc4jRecord.getControlFields().toString() + marc4jRecord.getDataFields().toString();
+  }
+
+  private List<String> readIds(MarcReader reader) {
+    List<String> ids = new ArrayList<>();
+    while (reader.hasNext())
+      ids.add(reader.next().getControlNumber());
+    return ids;
+  }
+}